@@ -0,0 +1,26 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import androidx.annotation.Nullable;
+import com.google.android.react.driversdk.shared.DriverBackend;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/** The Delivery Driver SDK entry points {@link DeliveryDriverModule} depends on. */
+interface DeliveryBackend extends DriverBackend<DriverBackend.VehicleReporter> {
+
+  /** Fetches the delivery vehicle from Fleet Engine, or returns null if there is no instance. */
+  @Nullable
+  ListenableFuture<VehicleSnapshot> getVehicle();
+}
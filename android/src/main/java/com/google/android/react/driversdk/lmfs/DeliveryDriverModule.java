@@ -13,58 +13,149 @@
  */
 package com.google.android.react.driversdk.lmfs;
 
+import static com.google.android.react.driversdk.shared.DriverModuleSupport.getDouble;
 import static java.util.Objects.requireNonNull;
 
 import android.app.Application;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusCode;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusLevel;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.DeliveryDriverApi;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.data.DeliveryVehicle;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.vehiclereporter.DeliveryVehicleReporter;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
 import com.google.android.libraries.navigation.NavigationApi;
 import com.google.android.libraries.navigation.Navigator;
+import com.google.android.libraries.navigation.TimeAndDistance;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
 import com.google.android.react.driversdk.NativeDeliveryDriverModuleSpec;
-import com.google.android.react.driversdk.shared.DriverAuthTokenFactory;
+import com.google.android.react.driversdk.shared.BridgeTrafficRecorder;
+import com.google.android.react.driversdk.shared.DriverStateRecord;
+import com.google.android.react.driversdk.shared.DriverBackend;
+import com.google.android.react.driversdk.shared.DriverModuleSupport;
+import com.google.android.react.driversdk.shared.DriverTrace;
+import com.google.android.react.driversdk.shared.EncryptedStateStore;
 import com.google.android.react.driversdk.shared.JsErrors;
+import com.google.android.react.driversdk.shared.MemoryPressureMonitor;
+import com.google.android.react.driversdk.shared.ReportingProfiler;
 import com.google.android.react.navsdk.NavModule;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
 
   public static final String TAG = "DeliveryDriverAPI";
   public static final String REACT_CLASS = NAME;
 
-  private DeliveryVehicleReporter vehicleReporter = null;
-  private final DriverAuthTokenFactory tokenFactory = new DriverAuthTokenFactory();
+  private final DeliveryBackend backend;
+  private final DriverModuleSupport<DriverBackend.VehicleReporter> support;
+
+  // Travelled distance alone never triggers an ETA update; time changes do.
+  private static final int ETA_DISTANCE_THRESHOLD_METERS = Integer.MAX_VALUE;
+
+  private static final String STATE_STORE_NAME = "driversdk_lmfs";
+  private static final String VEHICLE_SNAPSHOT_FILE = "delivery_vehicle";
+  private static final String BRIDGE_RECORDING_FILE = "driversdk_lmfs_bridge_traffic.bin";
+
+  // Route of the last vehicle fetched from Fleet Engine, or restored from disk when persistence is
+  // enabled.
+  private volatile RouteModel route = null;
+
+  // Lookup indexes over the stops of indexedRoute, each built on first use after it changes.
+  private RouteModel indexedRoute = null;
+  private StopSpatialIndex stopSpatialIndex = null;
+  private StopTaskIndex stopTaskIndex = null;
+
+  // Number of upcoming stops whose task tokens are minted in one batch after each vehicle fetch.
+  private int taskTokenPrefetchStopCount = 0;
+
+  // Arrival detection for upcoming stops.
+  private final StopGeofenceMonitor stopGeofenceMonitor =
+      new StopGeofenceMonitor(this::onStopGeofenceTransition);
+  private final RoadSnappedLocationProvider.LocationListener geofenceLocationListener =
+      location ->
+          stopGeofenceMonitor.onLocation(
+              location.getLatitude(), location.getLongitude(), location.getTime());
+
+  // Per-stop ETAs, recomputed whenever the Navigator's remaining time changes.
+  private final StopEtaTracker stopEtaTracker = new StopEtaTracker(this::onStopEtasChanged);
+  private final Navigator.RemainingTimeOrDistanceChangedListener etaListener = this::updateStopEtas;
+  private Navigator etaNavigator = null;
+  private boolean stopEtasEnabled = false;
+  private int stopEtaThresholdSeconds = 60;
+
+  // Stop state transitions seen between vehicle fetches.
+  private final StopTimeline stopTimeline = new StopTimeline();
 
   ReactApplicationContext reactContext;
 
   public DeliveryDriverModule(ReactApplicationContext context) {
+    this(context, new SdkDeliveryBackend());
+  }
+
+  DeliveryDriverModule(ReactApplicationContext context, DeliveryBackend backend) {
     super(context);
     this.reactContext = context;
-
-    // Wire up the token factory to emit events to JS when a token is needed.
-    tokenFactory.setTokenRequestCallback(
-        (requestId, vehicleId, taskId) -> {
-          UiThreadUtil.runOnUiThread(
-              () -> {
-                WritableMap map = Arguments.createMap();
-                map.putString("requestId", requestId);
-                map.putString("vehicleId", vehicleId);
-                map.putString("taskId", taskId);
+    this.backend = backend;
+    this.support =
+        new DriverModuleSupport<>(
+            context,
+            STATE_STORE_NAME,
+            BRIDGE_RECORDING_FILE,
+            new DriverModuleSupport.Events() {
+              @Override
+              public void onGetToken(WritableMap map) {
                 emitOnGetToken(map);
-              });
-        });
+              }
+
+              @Override
+              public void onStatusUpdate(WritableMap map) {
+                emitOnStatusUpdate(map);
+              }
+
+              @Override
+              public void onReportingHealthChanged(WritableMap map) {
+                emitOnReportingHealthChanged(map);
+              }
+
+              @Override
+              public void onLocationBatch(WritableMap map) {
+                emitOnLocationBatch(map);
+              }
+            });
+    support.setMemoryPressureListener(this::onMemoryPressure);
+
+    ReportingProfiler reportingProfiler = support.getReportingProfiler();
+    support
+        .getTokenFactory()
+        .setBatchTokenRequestCallback(
+            (requestId, vehicleId, taskIds) -> {
+              reportingProfiler.onTokenRequest();
+              reportingProfiler.onUiThreadHop();
+              UiThreadUtil.runOnUiThread(
+                  () -> {
+                    WritableArray taskIdArray = Arguments.createArray();
+                    for (String taskId : taskIds) {
+                      taskIdArray.pushString(taskId);
+                    }
+                    WritableMap map = Arguments.createMap();
+                    map.putString("requestId", requestId);
+                    map.putString("vehicleId", vehicleId);
+                    map.putArray("taskIds", taskIdArray);
+                    reportingProfiler.onBridgeEvent();
+                    emitOnGetTokens(map);
+                  });
+            });
   }
 
   @Override
@@ -72,17 +163,25 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
     return NAME;
   }
 
+  @Override
+  public void invalidate() {
+    support.invalidate();
+    super.invalidate();
+  }
+
   /** Creates an instance of the DeliveryDriverApi */
   @Override
   public void createDeliveryDriverInstance(String providerId, String vehicleId, Promise promise) {
-    if (DeliveryDriverApi.getInstance() != null) {
+    if (backend.hasInstance()) {
       promise.reject(
           JsErrors.DRIVER_API_ALREADY_EXISTS_CODE, JsErrors.DRIVER_API_ALREADY_EXISTS_MESSAGE);
       return;
     }
 
+    DriverTrace.AsyncSlice uiHop = DriverTrace.beginAsync(DriverTrace.CREATE_INSTANCE_UI_HOP);
     UiThreadUtil.runOnUiThread(
         () -> {
+          uiHop.end();
           Navigator navigator = NavModule.getInstance().getNavigator();
 
           if (navigator == null) {
@@ -90,23 +189,36 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
             return;
           }
 
-          Application application = getCurrentActivity().getApplication();
-          DriverContext driverContext =
-              DriverContext.builder(application)
-                  .setNavigator(requireNonNull(navigator))
-                  .setProviderId(providerId)
-                  .setVehicleId(vehicleId)
-                  .setAuthTokenFactory(tokenFactory)
-                  .setRoadSnappedLocationProvider(
-                      NavigationApi.getRoadSnappedLocationProvider(application))
-                  .setDriverStatusListener(
-                      (statusLevel, statusCode, statusMsg, error) -> {
-                        emitStatusUpdate(statusLevel, statusCode, statusMsg);
-                      })
-                  .build();
-
-          vehicleReporter =
-              DeliveryDriverApi.createInstance(driverContext).getDeliveryVehicleReporter();
+          try (DriverTrace.Section trace = DriverTrace.section(DriverTrace.CREATE_INSTANCE)) {
+            Application application = getCurrentActivity().getApplication();
+            RoadSnappedLocationProvider roadSnappedLocationProvider;
+            try (DriverTrace.Section phase =
+                DriverTrace.section(DriverTrace.CREATE_INSTANCE_LOCATION_PROVIDER)) {
+              roadSnappedLocationProvider =
+                  NavigationApi.getRoadSnappedLocationProvider(application);
+            }
+            DriverBackend.VehicleReporter vehicleReporter;
+            try (DriverTrace.Section phase =
+                DriverTrace.section(DriverTrace.CREATE_INSTANCE_BACKEND)) {
+              DriverStatusListener statusListener = support.beginInstance();
+              vehicleReporter =
+                  backend.createInstance(
+                      application,
+                      requireNonNull(navigator),
+                      roadSnappedLocationProvider,
+                      providerId,
+                      vehicleId,
+                      support.getTokenFactory(),
+                      statusListener);
+            }
+            try (DriverTrace.Section phase =
+                DriverTrace.section(DriverTrace.CREATE_INSTANCE_LISTENERS)) {
+              support.onInstanceCreated(vehicleReporter, roadSnappedLocationProvider);
+              if (stopEtasEnabled) {
+                attachStopEtaListener(navigator);
+              }
+            }
+          }
 
           promise.resolve(true);
         });
@@ -116,16 +228,12 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
   @Override
   public void setLocationTrackingEnabled(boolean isTrackingEnabled, Promise promise) {
     try {
-      if (vehicleReporter == null) {
+      if (support.getVehicleReporter() == null) {
         promise.reject(
             JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
         return;
       }
-      if (isTrackingEnabled) {
-        vehicleReporter.enableLocationTracking();
-      } else {
-        vehicleReporter.disableLocationTracking();
-      }
+      support.applyLocationTracking(isTrackingEnabled);
       promise.resolve(true);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
@@ -140,24 +248,62 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
   @Override
   public void setLocationReportingInterval(double intervalSeconds, Promise promise) {
     try {
-      if (vehicleReporter == null) {
+      if (support.getVehicleReporter() == null) {
         promise.reject(
             JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
         return;
       }
 
-      vehicleReporter.setLocationReportingInterval((long) intervalSeconds, TimeUnit.SECONDS);
+      support.applyReportingInterval(intervalSeconds);
       promise.resolve(null);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
     }
   }
 
+  /**
+   * Applies every field set in the config in one step, then resolves the resulting reporter
+   * configuration. Saves a round trip per field and keeps other calls from interleaving.
+   */
+  @Override
+  public void applyReporterConfig(ReadableMap config, Promise promise) {
+    try {
+      if (support.getVehicleReporter() == null) {
+        promise.reject(
+            JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
+        return;
+      }
+      if (config.hasKey("intervalSeconds") && !config.isNull("intervalSeconds")) {
+        support.applyReportingInterval(config.getDouble("intervalSeconds"));
+      }
+      if (config.hasKey("trackingEnabled") && !config.isNull("trackingEnabled")) {
+        support.applyLocationTracking(config.getBoolean("trackingEnabled"));
+      }
+      promise.resolve(support.getEffectiveReporterConfig());
+    } catch (Exception e) {
+      promise.reject(e.toString(), e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the effective reporter state and the stop count of the last vehicle fetched, without
+   * I/O or SDK calls, for JS to read synchronously, e.g. while rendering.
+   */
+  @Override
+  public WritableMap getDriverState() {
+    DriverStateRecord.State state = support.getStateRecord().get();
+    WritableMap map = DriverModuleSupport.toWritableMap(state);
+    if (state.stopCount != DriverStateRecord.UNKNOWN_STOP_COUNT) {
+      map.putInt("stopCount", state.stopCount);
+    }
+    return map;
+  }
+
   /** Gets the current sdk version used */
   @Override
   public void getDriverSdkVersion(Promise promise) {
     try {
-      String version = DeliveryDriverApi.getDriverSdkVersion();
+      String version = backend.getDriverSdkVersion();
       promise.resolve(version);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
@@ -170,9 +316,14 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
     UiThreadUtil.runOnUiThread(
         () -> {
           try {
-            tokenFactory.cancelAllPendingRequests();
-            vehicleReporter = null;
-            DeliveryDriverApi.clearInstance();
+            support.clearInstance();
+            route = null;
+            clearStopIndexes();
+            stopGeofenceMonitor.clear();
+            detachStopEtaListener();
+            stopEtaTracker.clear();
+            stopTimeline.clear();
+            backend.clearInstance();
 
             promise.resolve(true);
           } catch (Exception e) {
@@ -189,24 +340,214 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
    */
   @Override
   public void getDeliveryVehicle(Promise promise) {
-    DeliveryDriverApi apiInstance = DeliveryDriverApi.getInstance();
+    fetchDeliveryVehicle(promise, ObjectTranslationUtil::getMapFromRoute);
+  }
+
+  /**
+   * Fetches the delivery vehicle like getDeliveryVehicle, but only resolves its top-level fields
+   * and stop count. Stops are then read page by page with getVehicleStops, so large routes are not
+   * translated in full before the first render.
+   */
+  @Override
+  public void getDeliveryVehicleSummary(Promise promise) {
+    fetchDeliveryVehicle(promise, ObjectTranslationUtil::getSummaryMapFromRoute);
+  }
+
+  /**
+   * Resolves a page of stops of the last fetched delivery vehicle. The range is clamped to the
+   * available stops.
+   */
+  @Override
+  public void getVehicleStops(double start, double count, Promise promise) {
+    readRoute(
+        route -> {
+          if (route == null) {
+            promise.reject(
+                JsErrors.NO_DELIVERY_VEHICLE_CODE, JsErrors.NO_DELIVERY_VEHICLE_MESSAGE);
+            return;
+          }
+          promise.resolve(ObjectTranslationUtil.getArrayFromStops(route, (int) start, (int) count));
+        });
+  }
+
+  /**
+   * Resolves the indices of the stops of the last fetched delivery vehicle whose waypoint is within
+   * radiusMeters of the given point, nearest first.
+   */
+  @Override
+  public void queryStopsWithinRadius(double lat, double lng, double radiusMeters, Promise promise) {
+    queryStopSpatialIndex(promise, index -> toArray(index.withinRadius(lat, lng, radiusMeters)));
+  }
+
+  /**
+   * Resolves the index of the stop of the last fetched delivery vehicle whose waypoint is nearest
+   * to the given point, or null if no stop has a position.
+   */
+  @Override
+  public void findNearestStop(double lat, double lng, Promise promise) {
+    queryStopSpatialIndex(
+        promise,
+        index -> {
+          int nearest = index.nearest(lat, lng);
+          return nearest >= 0 ? nearest : null;
+        });
+  }
+
+  /**
+   * Resolves the indices of the stops of the last fetched delivery vehicle whose waypoint is inside
+   * the given bounds, in stop order. Bounds with west greater than east cross the antimeridian.
+   */
+  @Override
+  public void queryStopsInBounds(
+      double south, double west, double north, double east, Promise promise) {
+    queryStopSpatialIndex(promise, index -> toArray(index.inBounds(south, west, north, east)));
+  }
+
+  private void queryStopSpatialIndex(Promise promise, Function<StopSpatialIndex, Object> query) {
+    readRoute(
+        route -> {
+          if (route == null) {
+            promise.reject(
+                JsErrors.NO_DELIVERY_VEHICLE_CODE, JsErrors.NO_DELIVERY_VEHICLE_MESSAGE);
+            return;
+          }
+          promise.resolve(query.apply(getStopSpatialIndex(route)));
+        });
+  }
+
+  /**
+   * Resolves the task of the last fetched delivery vehicle with the given id, along with the index
+   * and state of its stop, or null if the task is not on the route.
+   */
+  @Override
+  public void getTask(String taskId, Promise promise) {
+    queryStopTaskIndex(
+        promise,
+        (route, index) -> {
+          int task = index.getTask(taskId);
+          if (task < 0) {
+            return null;
+          }
+          return ObjectTranslationUtil.getMapFromTask(route, task, index.getStopIndex(taskId));
+        });
+  }
+
+  /**
+   * Resolves the stop of the last fetched delivery vehicle holding the given task, along with its
+   * index, or null if the task is not on the route.
+   */
+  @Override
+  public void getStopForTask(String taskId, Promise promise) {
+    queryStopTaskIndex(
+        promise,
+        (route, index) -> {
+          int stopIndex = index.getStopIndex(taskId);
+          return stopIndex >= 0
+              ? ObjectTranslationUtil.getMapFromIndexedStop(route, stopIndex)
+              : null;
+        });
+  }
+
+  /** Resolves the indices of the stops of the last fetched delivery vehicle at a place. */
+  @Override
+  public void getStopIndexesForPlace(String placeId, Promise promise) {
+    queryStopTaskIndex(
+        promise, (route, index) -> toArray(index.getStopIndexesForPlace(placeId)));
+  }
 
-    if (apiInstance == null || apiInstance.getDeliveryVehicleManager() == null) {
+  /**
+   * Resolves the stop state transitions seen between vehicle fetches at or after sinceTimestamp,
+   * flattened as [stopIndex, oldState, newState, timestamp, ...], and whether older transitions in
+   * that range were dropped.
+   */
+  @Override
+  public void getStopTimeline(double sinceTimestamp, Promise promise) {
+    StopTimeline.Transitions transitions = stopTimeline.read((long) sinceTimestamp);
+    promise.resolve(StopTimeline.toWritableMap(transitions));
+  }
+
+  private void queryStopTaskIndex(
+      Promise promise, BiFunction<RouteModel, StopTaskIndex, Object> query) {
+    readRoute(
+        route -> {
+          if (route == null) {
+            promise.reject(
+                JsErrors.NO_DELIVERY_VEHICLE_CODE, JsErrors.NO_DELIVERY_VEHICLE_MESSAGE);
+            return;
+          }
+          promise.resolve(query.apply(route, getStopTaskIndex(route)));
+        });
+  }
+
+  private synchronized StopSpatialIndex getStopSpatialIndex(RouteModel route) {
+    resetStopIndexesIfStale(route);
+    if (stopSpatialIndex == null) {
+      stopSpatialIndex = StopSpatialIndex.build(route);
+    }
+    return stopSpatialIndex;
+  }
+
+  private synchronized StopTaskIndex getStopTaskIndex(RouteModel route) {
+    resetStopIndexesIfStale(route);
+    if (stopTaskIndex == null) {
+      stopTaskIndex = StopTaskIndex.build(route);
+    }
+    return stopTaskIndex;
+  }
+
+  private void resetStopIndexesIfStale(RouteModel route) {
+    if (indexedRoute != route) {
+      indexedRoute = route;
+      stopSpatialIndex = null;
+      stopTaskIndex = null;
+    }
+  }
+
+  private static WritableArray toArray(int[] values) {
+    WritableArray array = Arguments.createArray();
+    for (int value : values) {
+      array.pushInt(value);
+    }
+    return array;
+  }
+
+  private void fetchDeliveryVehicle(
+      Promise promise, Function<RouteModel, WritableMap> translation) {
+    DriverTrace.AsyncSlice fetch = DriverTrace.beginAsync(DriverTrace.FETCH_VEHICLE);
+    ListenableFuture<VehicleSnapshot> future = backend.getVehicle();
+
+    if (future == null) {
+      fetch.end();
       promise.reject(
           JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
       return;
     }
 
-    ListenableFuture<DeliveryVehicle> future = apiInstance.getDeliveryVehicleManager().getVehicle();
-
     Futures.addCallback(
         future,
-        new FutureCallback<DeliveryVehicle>() {
-          public void onSuccess(DeliveryVehicle deliveryVehicle) {
-            promise.resolve(ObjectTranslationUtil.getMapFromDeliveryVehicle(deliveryVehicle));
+        new FutureCallback<VehicleSnapshot>() {
+          public void onSuccess(VehicleSnapshot snapshot) {
+            fetch.end();
+            RouteModel route = setRoute(snapshot);
+            EncryptedStateStore stateStore = support.getStateStore();
+            BridgeTrafficRecorder bridgeTrafficRecorder = support.getBridgeTrafficRecorder();
+            if (stateStore != null || bridgeTrafficRecorder.isRecording()) {
+              byte[] bytes = snapshot.toBytes();
+              if (stateStore != null) {
+                stateStore.write(VEHICLE_SNAPSHOT_FILE, bytes);
+              }
+              bridgeTrafficRecorder.recordVehicleFetched(bytes);
+            }
+            WritableMap vehicle;
+            try (DriverTrace.Section trace = DriverTrace.section(DriverTrace.TRANSLATE_VEHICLE)) {
+              vehicle = translation.apply(route);
+            }
+            promise.resolve(vehicle);
+            prefetchTaskTokens(route);
           }
 
           public void onFailure(@NonNull Throwable thrown) {
+            fetch.end();
             promise.reject(
                 JsErrors.GET_DELIVERY_VEHICLE_ERROR_CODE,
                 JsErrors.GET_DELIVERY_VEHICLE_ERROR_MESSAGE,
@@ -217,31 +558,342 @@ public class DeliveryDriverModule extends NativeDeliveryDriverModuleSpec {
         reactContext.getMainExecutor());
   }
 
+  /**
+   * Returns the last delivery vehicle fetched from Fleet Engine without a network round trip. When
+   * state persistence is enabled this survives process restarts. Resolves null if no vehicle has
+   * been fetched yet.
+   */
+  @Override
+  public void getCachedDeliveryVehicle(Promise promise) {
+    readRoute(
+        route -> {
+          if (route == null) {
+            promise.resolve(null);
+            return;
+          }
+          promise.resolve(ObjectTranslationUtil.getMapFromRoute(route));
+        });
+  }
+
+  /**
+   * Makes a vehicle the current one, and hands its route to the features that track its stops. The
+   * snapshot itself is not kept; its route shares strings with the previous one.
+   */
+  private RouteModel setRoute(VehicleSnapshot snapshot) {
+    RouteModel newRoute = RouteModel.build(snapshot, route);
+    route = newRoute;
+    support.getStateRecord().setStopCount(newRoute.stopCount());
+    stopGeofenceMonitor.setRoute(newRoute);
+    stopEtaTracker.setRoute(newRoute);
+    stopTimeline.onRoute(newRoute, System.currentTimeMillis());
+    if (stopEtasEnabled) {
+      UiThreadUtil.runOnUiThread(this::updateStopEtas);
+    }
+    return newRoute;
+  }
+
+  /**
+   * Delivers the last fetched vehicle, re-reading it from disk after a restart when persistence is
+   * enabled, or null if there is none.
+   */
+  private void readRoute(Consumer<RouteModel> consumer) {
+    RouteModel current = route;
+    EncryptedStateStore stateStore = support.getStateStore();
+    if (current != null || stateStore == null) {
+      consumer.accept(current);
+      return;
+    }
+
+    // Reads are queued behind any pending restore or write, so this observes the latest state.
+    stateStore.read(
+        VEHICLE_SNAPSHOT_FILE,
+        bytes -> {
+          VehicleSnapshot restored = bytes != null ? VehicleSnapshot.fromBytes(bytes) : null;
+          if (restored != null && route == null) {
+            setRoute(restored);
+          }
+          consumer.accept(route);
+        });
+  }
+
+  /**
+   * Enables/disables persisting the last auth token and delivery vehicle to encrypted storage so
+   * they can be served immediately after the process is restarted. Disabling deletes any
+   * persisted state.
+   */
+  @Override
+  public void setStatePersistenceEnabled(boolean isEnabled) {
+    support.setStatePersistenceEnabled(isEnabled);
+  }
+
+  @Override
+  public void setHttpTokenProvider(ReadableMap config, Promise promise) {
+    support.setHttpTokenProvider(config, promise);
+  }
+
+  @Override
+  public void clearHttpTokenProvider() {
+    support.clearHttpTokenProvider();
+  }
+
   /** Enables/disables abnormal termination reporting */
   @Override
   public void setAbnormalTerminationReporting(boolean isEnabled) {
-    DeliveryDriverApi.setAbnormalTerminationReportingEnabled(isEnabled);
+    backend.setAbnormalTerminationReportingEnabled(isEnabled);
+  }
+
+  @Override
+  public void setMemoryPressureReportingInterval(double intervalSeconds) {
+    support.setMemoryPressureReportingInterval(intervalSeconds);
   }
 
-  /** Called from JS to resolve a pending auth token request. */
   @Override
   public void resolveAuthToken(String requestId, String token) {
-    tokenFactory.resolveToken(requestId, token);
+    support.resolveAuthToken(requestId, token);
+  }
+
+  /** Called from JS with the tokens of a batch request, in the order the task ids were sent. */
+  @Override
+  public void resolveAuthTokens(String requestId, ReadableArray tokens) {
+    List<String> tokenList = new ArrayList<>(tokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      tokenList.add(tokens.getString(i));
+    }
+    support.getTokenFactory().resolveTokens(requestId, tokenList);
+  }
+
+  /**
+   * Sets how many upcoming stops get their task tokens minted ahead of time. After each successful
+   * getDeliveryVehicle, JS is asked once for the vehicle token plus a token per task of those
+   * stops, so completing a task does not wait on a token round trip.
+   *
+   * @param stopCount number of stops, 0 to disable prefetching
+   */
+  @Override
+  public void setTaskTokenPrefetch(double stopCount) {
+    taskTokenPrefetchStopCount = (int) stopCount;
+  }
+
+  /**
+   * Configures native arrival detection for the upcoming stops of the last fetched vehicle. While
+   * enabled, every road-snapped location is checked against the stops and onStopGeofenceTransition
+   * is emitted when the vehicle enters a stop's radius, dwells there, or leaves it again.
+   */
+  @Override
+  public void setStopGeofencing(ReadableMap config) {
+    boolean enabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    double radiusMeters = getDouble(config, "radiusMeters", 50);
+    stopGeofenceMonitor.configure(
+        radiusMeters,
+        getDouble(config, "exitRadiusMeters", radiusMeters * 1.5),
+        (long) (getDouble(config, "dwellSeconds", 60) * 1000),
+        (int) getDouble(config, "stopCount", 1));
+
+    if (enabled) {
+      support.getLocationMultiplexer().addLocationListener(geofenceLocationListener);
+    } else {
+      support.getLocationMultiplexer().removeLocationListener(geofenceLocationListener);
+    }
+  }
+
+  /**
+   * Enables/disables per-stop ETA updates. While enabled, the Navigator's time and distance to each
+   * remaining destination are combined with the task durations of the stops of the last fetched
+   * vehicle, and onStopEtasChanged is emitted whenever an arrival time moves by at least
+   * thresholdSeconds or the stops change.
+   */
+  @Override
+  public void setStopEtaUpdates(ReadableMap config) {
+    boolean enabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    int thresholdSeconds = (int) Math.max(1, getDouble(config, "thresholdSeconds", 60));
+    stopEtaTracker.configure(thresholdSeconds * 1000L);
+
+    UiThreadUtil.runOnUiThread(
+        () -> {
+          boolean thresholdChanged = thresholdSeconds != stopEtaThresholdSeconds;
+          stopEtaThresholdSeconds = thresholdSeconds;
+          if (enabled == stopEtasEnabled && !thresholdChanged) {
+            return;
+          }
+          stopEtasEnabled = enabled;
+          detachStopEtaListener();
+          if (enabled) {
+            attachStopEtaListener(NavModule.getInstance().getNavigator());
+          }
+        });
+  }
+
+  private void attachStopEtaListener(@Nullable Navigator navigator) {
+    if (navigator == null) {
+      // Attached again once the driver instance is created with a navigator.
+      return;
+    }
+    etaNavigator = navigator;
+    navigator.addRemainingTimeOrDistanceChangedListener(
+        stopEtaThresholdSeconds, ETA_DISTANCE_THRESHOLD_METERS, etaListener);
+    updateStopEtas();
+  }
+
+  private void detachStopEtaListener() {
+    if (etaNavigator != null) {
+      etaNavigator.removeRemainingTimeOrDistanceChangedListener(etaListener);
+      etaNavigator = null;
+    }
+  }
+
+  /** Must run on the UI thread, like every other Navigator call. */
+  private void updateStopEtas() {
+    Navigator navigator = etaNavigator;
+    if (navigator == null) {
+      return;
+    }
+    List<TimeAndDistance> timeAndDistanceList = navigator.getTimeAndDistanceList();
+    int size = timeAndDistanceList != null ? timeAndDistanceList.size() : 0;
+    int[] travelSeconds = new int[size];
+    int[] travelMeters = new int[size];
+    for (int i = 0; i < size; i++) {
+      TimeAndDistance timeAndDistance = timeAndDistanceList.get(i);
+      travelSeconds[i] = timeAndDistance.getSeconds();
+      travelMeters[i] = timeAndDistance.getMeters();
+    }
+    stopEtaTracker.onTimeAndDistance(System.currentTimeMillis(), travelSeconds, travelMeters);
+  }
+
+  private void onStopEtasChanged(
+      long[] arrivalMillis, long[] departureMillis, int[] distanceMeters) {
+    WritableArray etas = Arguments.createArray();
+    for (int i = 0; i < arrivalMillis.length; i++) {
+      WritableMap eta = Arguments.createMap();
+      eta.putInt("stopIndex", i);
+      eta.putDouble("arrivalTimeMillis", arrivalMillis[i]);
+      eta.putDouble("departureTimeMillis", departureMillis[i]);
+      eta.putInt("distanceMeters", distanceMeters[i]);
+      etas.pushMap(eta);
+    }
+    WritableMap map = Arguments.createMap();
+    map.putArray("etas", etas);
+    // Only the latest ETAs matter once the app comes back.
+    support.getBackgroundEventBuffer().emit("stopEtas", () -> emitOnStopEtasChanged(map));
+  }
+
+  @Override
+  public void setBackgroundEventBuffering(boolean isEnabled) {
+    support.setBackgroundEventBuffering(isEnabled);
+  }
+
+  /**
+   * Enables/disables trace sections around the bridge hot paths, for Perfetto and systrace. The
+   * switch is process-wide and shared with the other driver module.
+   */
+  @Override
+  public void setTracingEnabled(boolean isEnabled) {
+    DriverTrace.setEnabled(isEnabled);
+  }
+
+  @Override
+  public void setReportingWatchdog(ReadableMap config) {
+    support.setReportingWatchdog(config);
+  }
+
+  @Override
+  public void getReportingHealth(Promise promise) {
+    support.getReportingHealth(promise);
+  }
+
+  @Override
+  public void setBreadcrumbRecording(ReadableMap config) {
+    support.setBreadcrumbRecording(config);
+  }
+
+  @Override
+  public void getBreadcrumbs(double sinceSequence, Promise promise) {
+    support.getBreadcrumbs(sinceSequence, promise);
+  }
+
+  @Override
+  public void clearBreadcrumbs() {
+    support.clearBreadcrumbs();
+  }
+
+  @Override
+  public void setReportingProfiling(ReadableMap config) {
+    support.setReportingProfiling(config);
+  }
+
+  @Override
+  public void getReportingProfile(Promise promise) {
+    support.getReportingProfile(promise);
+  }
+
+  @Override
+  public void addLocationSubscriber(String name, ReadableMap config) {
+    support.addLocationSubscriber(name, config);
+  }
+
+  @Override
+  public void removeLocationSubscriber(String name) {
+    support.removeLocationSubscriber(name);
   }
 
-  /** Called from JS to reject a pending auth token request. */
   @Override
   public void rejectAuthToken(String requestId, String error) {
-    tokenFactory.rejectToken(requestId, error);
+    support.rejectAuthToken(requestId, error);
+  }
+
+  @Override
+  public void startBridgeRecording(ReadableMap config, Promise promise) {
+    support.startBridgeRecording(config, promise);
+  }
+
+  @Override
+  public void stopBridgeRecording(Promise promise) {
+    support.stopBridgeRecording(promise);
+  }
+
+  private void prefetchTaskTokens(RouteModel route) {
+    int stopCount = Math.min(taskTokenPrefetchStopCount, route.stopCount());
+    String vehicleId = route.vehicleId();
+    if (stopCount <= 0 || vehicleId == null) {
+      return;
+    }
+    // The empty task id stands for the vehicle-scoped token used by location updates.
+    List<String> taskIds = new ArrayList<>();
+    taskIds.add("");
+    for (int t = 0; t < route.taskEnd(stopCount - 1); t++) {
+      taskIds.add(route.taskId(t));
+    }
+    support.getTokenFactory().prefetchTokens(vehicleId, taskIds);
+  }
+
+  private void onStopGeofenceTransition(
+      int transition, RouteModel route, int stopIndex, double distanceMeters) {
+    WritableArray taskIds = Arguments.createArray();
+    for (int t = route.taskStart(stopIndex); t < route.taskEnd(stopIndex); t++) {
+      taskIds.pushString(route.taskId(t));
+    }
+    WritableMap map = Arguments.createMap();
+    map.putString("transition", StopGeofenceMonitor.transitionName(transition));
+    map.putInt("stopIndex", stopIndex);
+    map.putDouble("distanceMeters", distanceMeters);
+    map.putArray("taskIds", taskIds);
+    String placeId = route.placeId(stopIndex);
+    if (placeId != null) {
+      map.putString("placeId", placeId);
+    }
+    emitOnStopGeofenceTransition(map);
+  }
+
+  private synchronized void clearStopIndexes() {
+    indexedRoute = null;
+    stopSpatialIndex = null;
+    stopTaskIndex = null;
   }
 
-  private void emitStatusUpdate(StatusLevel statusLevel, StatusCode statusCode, String statusMsg) {
-    if (reactContext != null) {
-      WritableMap map = Arguments.createMap();
-      map.putString("statusLevel", statusLevel.toString());
-      map.putString("statusCode", statusCode.toString());
-      map.putString("statusMsg", statusMsg);
-      emitOnStatusUpdate(map);
+  private void onMemoryPressure(int level) {
+    if (MemoryPressureMonitor.isCritical(level)) {
+      // The route is still held by the stop features, so only the indexes built from it are
+      // dropped. They are rebuilt on the next stop query.
+      clearStopIndexes();
     }
   }
 }
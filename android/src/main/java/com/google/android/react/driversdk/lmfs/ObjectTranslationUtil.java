@@ -16,63 +16,88 @@ package com.google.android.react.driversdk.lmfs;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.google.android.gms.maps.model.LatLng;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.TaskInfo;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.VehicleStop;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.data.DeliveryVehicle;
-import com.google.android.libraries.navigation.Waypoint;
-import java.util.List;
 
 class ObjectTranslationUtil {
-  public static WritableMap getMapFromDeliveryVehicle(DeliveryVehicle vehicle) {
+  public static WritableMap getMapFromRoute(RouteModel route) {
     WritableMap map = Arguments.createMap();
-    map.putString("providerId", vehicle.getProviderId());
-    map.putString("vehicleName", vehicle.getVehicleName());
-    map.putString("vehicleId", vehicle.getVehicleId());
+    map.putString("providerId", route.providerId());
+    map.putString("vehicleName", route.vehicleName());
+    map.putString("vehicleId", route.vehicleId());
+    map.putArray("vehicleStops", getArrayFromStops(route, 0, route.stopCount()));
+    return map;
+  }
+
+  /** Returns the vehicle fields without its stops, which can be paged in separately. */
+  public static WritableMap getSummaryMapFromRoute(RouteModel route) {
+    WritableMap map = Arguments.createMap();
+    map.putString("providerId", route.providerId());
+    map.putString("vehicleName", route.vehicleName());
+    map.putString("vehicleId", route.vehicleId());
+    map.putInt("stopCount", route.stopCount());
+    return map;
+  }
 
-    List<VehicleStop> vehicleStops = vehicle.getVehicleStops();
+  /** Translates up to {@code count} stops starting at {@code start}, clamped to the stop list. */
+  public static WritableArray getArrayFromStops(RouteModel route, int start, int count) {
     WritableArray vehicleStopList = Arguments.createArray();
+    int end = (int) Math.min((long) Math.max(start, 0) + Math.max(count, 0), route.stopCount());
+    for (int i = Math.max(start, 0); i < end; i++) {
+      vehicleStopList.pushMap(getMapFromStop(route, i));
+    }
+    return vehicleStopList;
+  }
 
-    for (VehicleStop vehicleStop : vehicleStops) {
-      WritableMap vehicleStopMap = Arguments.createMap();
+  /** Translates a single stop along with its index in the stop list. */
+  public static WritableMap getMapFromIndexedStop(RouteModel route, int stopIndex) {
+    WritableMap map = Arguments.createMap();
+    map.putInt("stopIndex", stopIndex);
+    map.putMap("stop", getMapFromStop(route, stopIndex));
+    return map;
+  }
 
-      // getWaypoint:
-      Waypoint waypoint = vehicleStop.getWaypoint();
-      if (waypoint != null) {
-        WritableMap waypointMap = Arguments.createMap();
-        waypointMap.putString("title", waypoint.getTitle());
-        waypointMap.putString("placeId", waypoint.getPlaceId());
-        LatLng position = waypoint.getPosition();
-        if (position != null) {
-          WritableMap positionMap = Arguments.createMap();
-          positionMap.putDouble("lat", position.latitude);
-          positionMap.putDouble("lng", position.longitude);
-          waypointMap.putMap("position", positionMap);
-        }
-        waypointMap.putInt("preferredHeading", waypoint.getPreferredHeading());
-        waypointMap.putBoolean("vehicleStopover", waypoint.getVehicleStopover());
-        waypointMap.putBoolean("preferSameSideOfRoad", waypoint.getPreferSameSideOfRoad());
-        vehicleStopMap.putMap("waypoint", waypointMap);
-      }
+  /** Translates a task along with the index and state of the stop holding it. */
+  public static WritableMap getMapFromTask(RouteModel route, int task, int stopIndex) {
+    WritableMap map = Arguments.createMap();
+    map.putString("taskId", route.taskId(task));
+    map.putDouble("taskDurationSeconds", route.taskDurationSeconds(task));
+    map.putInt("stopIndex", stopIndex);
+    map.putInt("vehicleStopState", route.stopState(stopIndex));
+    return map;
+  }
 
-      // getTaskInfoList():
-      WritableArray taskInfoList = Arguments.createArray();
-      for (TaskInfo info : vehicleStop.getTaskInfoList()) {
-        WritableMap taskInfo = Arguments.createMap();
-        taskInfo.putString("taskId", info.getTaskId());
-        taskInfo.putDouble("taskDurationSeconds", info.getTaskDurationSeconds());
-        taskInfoList.pushMap(taskInfo);
-      }
-      vehicleStopMap.putArray("taskInfoList", taskInfoList);
+  private static WritableMap getMapFromStop(RouteModel route, int stop) {
+    WritableMap vehicleStopMap = Arguments.createMap();
 
-      // getVehicleStopState:
-      vehicleStopMap.putInt("vehicleStopState", vehicleStop.getVehicleStopState());
+    // getWaypoint:
+    if (route.hasWaypoint(stop)) {
+      WritableMap waypointMap = Arguments.createMap();
+      waypointMap.putString("title", route.title(stop));
+      waypointMap.putString("placeId", route.placeId(stop));
+      if (route.hasPosition(stop)) {
+        WritableMap positionMap = Arguments.createMap();
+        positionMap.putDouble("lat", route.lat(stop));
+        positionMap.putDouble("lng", route.lng(stop));
+        waypointMap.putMap("position", positionMap);
+      }
+      waypointMap.putInt("preferredHeading", route.preferredHeading(stop));
+      waypointMap.putBoolean("vehicleStopover", route.vehicleStopover(stop));
+      waypointMap.putBoolean("preferSameSideOfRoad", route.preferSameSideOfRoad(stop));
+      vehicleStopMap.putMap("waypoint", waypointMap);
+    }
 
-      vehicleStopList.pushMap(vehicleStopMap);
+    // getTaskInfoList():
+    WritableArray taskInfoList = Arguments.createArray();
+    for (int t = route.taskStart(stop); t < route.taskEnd(stop); t++) {
+      WritableMap taskInfo = Arguments.createMap();
+      taskInfo.putString("taskId", route.taskId(t));
+      taskInfo.putDouble("taskDurationSeconds", route.taskDurationSeconds(t));
+      taskInfoList.pushMap(taskInfo);
     }
+    vehicleStopMap.putArray("taskInfoList", taskInfoList);
 
-    map.putArray("vehicleStops", vehicleStopList);
+    // getVehicleStopState:
+    vehicleStopMap.putInt("vehicleStopState", route.stopState(stop));
 
-    return map;
+    return vehicleStopMap;
   }
 }
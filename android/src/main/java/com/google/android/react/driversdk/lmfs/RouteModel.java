@@ -0,0 +1,252 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import androidx.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, compact form of a delivery vehicle's route, which every route-reading API is served
+ * from.
+ *
+ * <p>Stops and tasks are stored as parallel primitive arrays rather than an object per stop,
+ * waypoint and task, and strings as ids into a {@link RouteStrings} table shared with the previous
+ * model, so a refresh that returns mostly the same route allocates few new strings. The tasks of
+ * stop {@code i} are the flat task indices {@code taskStart(i)} to {@code taskEnd(i)}.
+ */
+final class RouteModel {
+
+  /** A route without a vehicle or stops. */
+  static final RouteModel EMPTY = fromStops(Collections.emptyList());
+
+  // A table holding more than this many times the strings a route refers to, on top of the
+  // minimum, is replaced with a fresh one so ids of strings no longer on the route are dropped.
+  private static final int STRING_TABLE_SLACK = 4;
+  private static final int MIN_STRING_TABLE_SIZE = 1024;
+
+  private static final int HAS_WAYPOINT = 1;
+  private static final int HAS_POSITION = 1 << 1;
+  private static final int VEHICLE_STOPOVER = 1 << 2;
+  private static final int PREFER_SAME_SIDE_OF_ROAD = 1 << 3;
+
+  final RouteStrings strings;
+  final long capturedAtMillis;
+  private final int providerId;
+  private final int vehicleName;
+  private final int vehicleId;
+
+  // Per stop.
+  private final byte[] stopStates;
+  private final byte[] waypointFlags;
+  private final double[] lats;
+  private final double[] lngs;
+  private final short[] preferredHeadings;
+  private final int[] titles;
+  private final int[] placeIds;
+  private final int[] taskStarts;
+
+  // Per task, across all stops.
+  private final int[] taskIds;
+  private final double[] taskDurationsSeconds;
+
+  private RouteModel(VehicleSnapshot snapshot, RouteStrings strings) {
+    this.strings = strings;
+    this.capturedAtMillis = snapshot.capturedAtMillis;
+    this.providerId = strings.intern(snapshot.providerId);
+    this.vehicleName = strings.intern(snapshot.vehicleName);
+    this.vehicleId = strings.intern(snapshot.vehicleId);
+
+    List<VehicleSnapshot.Stop> stops = snapshot.stops;
+    int stopCount = stops.size();
+    int taskCount = 0;
+    for (VehicleSnapshot.Stop stop : stops) {
+      taskCount += stop.tasks.size();
+    }
+    stopStates = new byte[stopCount];
+    waypointFlags = new byte[stopCount];
+    lats = new double[stopCount];
+    lngs = new double[stopCount];
+    preferredHeadings = new short[stopCount];
+    titles = new int[stopCount];
+    placeIds = new int[stopCount];
+    taskStarts = new int[stopCount + 1];
+    taskIds = new int[taskCount];
+    taskDurationsSeconds = new double[taskCount];
+
+    int task = 0;
+    for (int i = 0; i < stopCount; i++) {
+      VehicleSnapshot.Stop stop = stops.get(i);
+      stopStates[i] = (byte) stop.state;
+      VehicleSnapshot.StopWaypoint waypoint = stop.waypoint;
+      titles[i] = RouteStrings.NONE;
+      placeIds[i] = RouteStrings.NONE;
+      if (waypoint != null) {
+        waypointFlags[i] =
+            (byte)
+                (HAS_WAYPOINT
+                    | (waypoint.hasPosition ? HAS_POSITION : 0)
+                    | (waypoint.vehicleStopover ? VEHICLE_STOPOVER : 0)
+                    | (waypoint.preferSameSideOfRoad ? PREFER_SAME_SIDE_OF_ROAD : 0));
+        lats[i] = waypoint.lat;
+        lngs[i] = waypoint.lng;
+        preferredHeadings[i] = (short) waypoint.preferredHeading;
+        titles[i] = strings.intern(waypoint.title);
+        placeIds[i] = strings.intern(waypoint.placeId);
+      }
+      taskStarts[i] = task;
+      for (VehicleSnapshot.Task info : stop.tasks) {
+        taskIds[task] = strings.intern(info.taskId);
+        taskDurationsSeconds[task] = info.durationSeconds;
+        task++;
+      }
+    }
+    taskStarts[stopCount] = task;
+  }
+
+  /**
+   * Builds the model of a vehicle, sharing the string table of the previous model unless it has
+   * grown well past what the new route refers to.
+   */
+  static RouteModel build(VehicleSnapshot snapshot, @Nullable RouteModel previous) {
+    // Decided before interning, so a table about to be dropped does not grow first.
+    if (previous != null
+        && previous.strings != EMPTY.strings
+        && previous.strings.size()
+            <= STRING_TABLE_SLACK * stringReferenceCount(snapshot) + MIN_STRING_TABLE_SIZE) {
+      return new RouteModel(snapshot, previous.strings);
+    }
+    return new RouteModel(snapshot, new RouteStrings());
+  }
+
+  /** Builds the model of a route without a vehicle, with a string table of its own. */
+  static RouteModel fromStops(List<VehicleSnapshot.Stop> stops) {
+    return build(new VehicleSnapshot(null, null, null, stops, 0), null);
+  }
+
+  // Ids the model of the snapshot holds: three for the vehicle, two per stop and one per task.
+  private static int stringReferenceCount(VehicleSnapshot snapshot) {
+    int count = 3 + 2 * snapshot.stops.size();
+    for (VehicleSnapshot.Stop stop : snapshot.stops) {
+      count += stop.tasks.size();
+    }
+    return count;
+  }
+
+  @Nullable
+  String providerId() {
+    return strings.get(providerId);
+  }
+
+  @Nullable
+  String vehicleName() {
+    return strings.get(vehicleName);
+  }
+
+  @Nullable
+  String vehicleId() {
+    return strings.get(vehicleId);
+  }
+
+  int stopCount() {
+    return stopStates.length;
+  }
+
+  int stopState(int stop) {
+    return stopStates[stop];
+  }
+
+  boolean hasWaypoint(int stop) {
+    return (waypointFlags[stop] & HAS_WAYPOINT) != 0;
+  }
+
+  boolean hasPosition(int stop) {
+    return (waypointFlags[stop] & HAS_POSITION) != 0;
+  }
+
+  double lat(int stop) {
+    return lats[stop];
+  }
+
+  double lng(int stop) {
+    return lngs[stop];
+  }
+
+  int preferredHeading(int stop) {
+    return preferredHeadings[stop];
+  }
+
+  boolean vehicleStopover(int stop) {
+    return (waypointFlags[stop] & VEHICLE_STOPOVER) != 0;
+  }
+
+  boolean preferSameSideOfRoad(int stop) {
+    return (waypointFlags[stop] & PREFER_SAME_SIDE_OF_ROAD) != 0;
+  }
+
+  @Nullable
+  String title(int stop) {
+    return strings.get(titles[stop]);
+  }
+
+  @Nullable
+  String placeId(int stop) {
+    return strings.get(placeIds[stop]);
+  }
+
+  /** Returns the first flat task index of a stop. */
+  int taskStart(int stop) {
+    return taskStarts[stop];
+  }
+
+  /** Returns the flat task index after the last task of a stop. */
+  int taskEnd(int stop) {
+    return taskStarts[stop + 1];
+  }
+
+  int taskCount() {
+    return taskIds.length;
+  }
+
+  String taskId(int task) {
+    return strings.get(taskIds[task]);
+  }
+
+  double taskDurationSeconds(int task) {
+    return taskDurationsSeconds[task];
+  }
+
+  /** Sum of the task durations of a stop. */
+  double serviceSeconds(int stop) {
+    double seconds = 0;
+    for (int t = taskStarts[stop]; t < taskStarts[stop + 1]; t++) {
+      seconds += taskDurationsSeconds[t];
+    }
+    return seconds;
+  }
+
+  /** Identifies a stop across vehicle refreshes by its tasks, or else by its position. */
+  String stopKey(int stop) {
+    int start = taskStarts[stop];
+    int end = taskStarts[stop + 1];
+    if (start == end) {
+      return hasPosition(stop) ? lats[stop] + "," + lngs[stop] : "";
+    }
+    StringBuilder key = new StringBuilder();
+    for (int t = start; t < end; t++) {
+      key.append(strings.get(taskIds[t])).append('\n');
+    }
+    return key.toString();
+  }
+}
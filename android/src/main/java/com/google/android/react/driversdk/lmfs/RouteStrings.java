@@ -0,0 +1,65 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only table of the strings of a route, shared by consecutive {@link RouteModel}s so the
+ * task ids, place ids and titles a refresh returns again are stored once and compared by id.
+ *
+ * <p>Ids are never reassigned, so a model stays valid while later ones add strings. Interning is
+ * synchronized; reads go through a volatile array and do not lock.
+ */
+final class RouteStrings {
+
+  /** Id of a null string. */
+  static final int NONE = -1;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private volatile String[] values = new String[64];
+  private int size = 0;
+
+  /** Returns the id of a string, adding it to the table if it is new. */
+  synchronized int intern(@Nullable String value) {
+    if (value == null) {
+      return NONE;
+    }
+    Integer id = ids.get(value);
+    if (id != null) {
+      return id;
+    }
+    String[] current = values;
+    if (size == current.length) {
+      current = Arrays.copyOf(current, size * 2);
+    }
+    current[size] = value;
+    // Published before the id is handed out, so any holder of the id can read it.
+    values = current;
+    ids.put(value, size);
+    return size++;
+  }
+
+  @Nullable
+  String get(int id) {
+    return id == NONE ? null : values[id];
+  }
+
+  synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import android.app.Application;
+import androidx.annotation.Nullable;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.DeliveryDriverApi;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.vehiclereporter.DeliveryVehicleReporter;
+import com.google.android.libraries.navigation.Navigator;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+import com.google.android.react.driversdk.shared.DriverAuthTokenFactory;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.TimeUnit;
+
+/** {@link DeliveryBackend} backed by the Delivery Driver SDK. */
+final class SdkDeliveryBackend implements DeliveryBackend {
+
+  @Override
+  public boolean hasInstance() {
+    return DeliveryDriverApi.getInstance() != null;
+  }
+
+  @Override
+  public VehicleReporter createInstance(
+      @Nullable Application application,
+      @Nullable Navigator navigator,
+      @Nullable RoadSnappedLocationProvider locationProvider,
+      String providerId,
+      String vehicleId,
+      DriverAuthTokenFactory tokenFactory,
+      DriverStatusListener statusListener) {
+    DriverContext driverContext =
+        DriverContext.builder(application)
+            .setNavigator(navigator)
+            .setProviderId(providerId)
+            .setVehicleId(vehicleId)
+            .setAuthTokenFactory(tokenFactory)
+            .setRoadSnappedLocationProvider(locationProvider)
+            .setDriverStatusListener(statusListener)
+            .build();
+    DeliveryVehicleReporter reporter =
+        DeliveryDriverApi.createInstance(driverContext).getDeliveryVehicleReporter();
+    return new VehicleReporter() {
+      @Override
+      public void enableLocationTracking() {
+        reporter.enableLocationTracking();
+      }
+
+      @Override
+      public void disableLocationTracking() {
+        reporter.disableLocationTracking();
+      }
+
+      @Override
+      public boolean isLocationTrackingEnabled() {
+        return reporter.isLocationTrackingEnabled();
+      }
+
+      @Override
+      public void setLocationReportingInterval(long intervalSeconds) {
+        reporter.setLocationReportingInterval(intervalSeconds, TimeUnit.SECONDS);
+      }
+    };
+  }
+
+  @Override
+  public void clearInstance() {
+    DeliveryDriverApi.clearInstance();
+  }
+
+  @Override
+  public String getDriverSdkVersion() {
+    return DeliveryDriverApi.getDriverSdkVersion();
+  }
+
+  @Override
+  public void setAbnormalTerminationReportingEnabled(boolean enabled) {
+    DeliveryDriverApi.setAbnormalTerminationReportingEnabled(enabled);
+  }
+
+  @Override
+  @Nullable
+  public ListenableFuture<VehicleSnapshot> getVehicle() {
+    DeliveryDriverApi apiInstance = DeliveryDriverApi.getInstance();
+    if (apiInstance == null || apiInstance.getDeliveryVehicleManager() == null) {
+      return null;
+    }
+    return Futures.transform(
+        apiInstance.getDeliveryVehicleManager().getVehicle(),
+        VehicleSnapshot::fromDeliveryVehicle,
+        MoreExecutors.directExecutor());
+  }
+}
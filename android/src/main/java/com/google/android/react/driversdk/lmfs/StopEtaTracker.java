@@ -0,0 +1,113 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import java.util.Arrays;
+
+/**
+ * Turns the Navigator's time and distance to each remaining destination into arrival and
+ * departure times for the upcoming vehicle stops.
+ *
+ * <p>The Navigator's destinations are expected to be the upcoming stops, in order. Travel times
+ * are cumulative from the current location, so the arrival at a stop is the travel time to it
+ * plus the task durations of every stop before it, and the departure adds its own task durations.
+ * ETAs are only reported when the set of stops changes or an arrival time moved by at least the
+ * threshold since the last report, so small fluctuations do not wake up JS.
+ */
+final class StopEtaTracker {
+
+  /** Receives the ETAs of the first {@code arrivalMillis.length} stops. Arrays are not reused. */
+  interface Listener {
+    void onStopEtasChanged(long[] arrivalMillis, long[] departureMillis, int[] distanceMeters);
+  }
+
+  private final Listener listener;
+
+  private long thresholdMillis = 60_000;
+
+  // Per stop: task durations of the stop, and of all stops before it.
+  private String[] stopKeys = new String[0];
+  private long[] serviceMillis = new long[0];
+  private long[] serviceBeforeMillis = new long[0];
+
+  // Last reported arrival times, or null to report on the next update.
+  private long[] reportedArrivalMillis = null;
+
+  StopEtaTracker(Listener listener) {
+    this.listener = listener;
+  }
+
+  /** Sets the change in arrival time that triggers a report. The next update is reported. */
+  synchronized void configure(long thresholdMillis) {
+    this.thresholdMillis = Math.max(0, thresholdMillis);
+    reportedArrivalMillis = null;
+  }
+
+  /** Replaces the remaining stops of the vehicle. A different set of stops is always reported. */
+  synchronized void setRoute(RouteModel route) {
+    int size = route.stopCount();
+    String[] newKeys = new String[size];
+    long[] newServiceMillis = new long[size];
+    long[] newServiceBeforeMillis = new long[size];
+    long total = 0;
+    for (int i = 0; i < size; i++) {
+      newKeys[i] = route.stopKey(i);
+      newServiceMillis[i] = Math.round(route.serviceSeconds(i) * 1000);
+      newServiceBeforeMillis[i] = total;
+      total += newServiceMillis[i];
+    }
+
+    if (!Arrays.equals(stopKeys, newKeys)) {
+      reportedArrivalMillis = null;
+    }
+    stopKeys = newKeys;
+    serviceMillis = newServiceMillis;
+    serviceBeforeMillis = newServiceBeforeMillis;
+  }
+
+  /** Forgets the stops and the last report. */
+  synchronized void clear() {
+    stopKeys = new String[0];
+    serviceMillis = new long[0];
+    serviceBeforeMillis = new long[0];
+    reportedArrivalMillis = null;
+  }
+
+  /**
+   * Computes ETAs from the Navigator's remaining time and distance to each destination and reports
+   * them if they changed enough.
+   *
+   * @param travelSeconds cumulative travel time from the current location to each destination
+   * @param travelMeters cumulative distance from the current location to each destination
+   */
+  synchronized void onTimeAndDistance(long nowMillis, int[] travelSeconds, int[] travelMeters) {
+    int count = Math.min(stopKeys.length, Math.min(travelSeconds.length, travelMeters.length));
+    long[] arrivalMillis = new long[count];
+    long[] departureMillis = new long[count];
+    int[] distanceMeters = Arrays.copyOf(travelMeters, count);
+    boolean changed = reportedArrivalMillis == null || reportedArrivalMillis.length != count;
+    for (int i = 0; i < count; i++) {
+      arrivalMillis[i] = nowMillis + travelSeconds[i] * 1000L + serviceBeforeMillis[i];
+      departureMillis[i] = arrivalMillis[i] + serviceMillis[i];
+      if (!changed && Math.abs(arrivalMillis[i] - reportedArrivalMillis[i]) >= thresholdMillis) {
+        changed = true;
+      }
+    }
+    if (!changed) {
+      return;
+    }
+    reportedArrivalMillis = arrivalMillis;
+    listener.onStopEtasChanged(arrivalMillis, departureMillis, distanceMeters);
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import com.google.android.react.driversdk.shared.GeoUtil;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Detects arrival at upcoming vehicle stops from a stream of locations.
+ *
+ * <p>Stop positions and per-stop state are kept in primitive arrays so each location is evaluated
+ * without allocating. Only state changes are reported: ENTER when the vehicle comes within the
+ * radius of a stop, DWELL once it has stayed there for the dwell time, and EXIT when it leaves the
+ * (larger) exit radius again. The gap between both radii keeps GPS jitter at the boundary from
+ * producing repeated transitions.
+ */
+final class StopGeofenceMonitor {
+
+  static final int TRANSITION_ENTER = 1;
+  static final int TRANSITION_DWELL = 2;
+  static final int TRANSITION_EXIT = 3;
+
+  private static final int STATE_OUTSIDE = 0;
+  private static final int STATE_INSIDE = 1;
+  private static final int STATE_DWELLING = 2;
+
+  /**
+   * Receives stop transitions, on the thread that delivered the location. The stop index is the
+   * position of the stop among the remaining stops of the route.
+   */
+  interface Listener {
+    void onTransition(int transition, RouteModel route, int stopIndex, double distance);
+  }
+
+  private final Listener listener;
+
+  private double radiusMeters = 50;
+  private double exitRadiusMeters = 75;
+  private long dwellMillis = 60_000;
+  private int maxStops = 1;
+
+  private RouteModel route = RouteModel.EMPTY;
+
+  // Parallel arrays over the monitored stops, which are the upcoming stops that have a position.
+  private int count = 0;
+  private int[] stopIndexes = new int[0];
+  private String[] keys = new String[0];
+  private double[] lats = new double[0];
+  private double[] lngs = new double[0];
+  private int[] states = new int[0];
+  private long[] enteredAtMillis = new long[0];
+
+  StopGeofenceMonitor(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Updates the geofence parameters. Stops that are already monitored keep their state.
+   *
+   * @param exitRadiusMeters clamped to be at least {@code radiusMeters}
+   * @param maxStops number of upcoming stops to monitor
+   */
+  synchronized void configure(
+      double radiusMeters, double exitRadiusMeters, long dwellMillis, int maxStops) {
+    this.radiusMeters = radiusMeters;
+    this.exitRadiusMeters = Math.max(radiusMeters, exitRadiusMeters);
+    this.dwellMillis = dwellMillis;
+    this.maxStops = Math.max(0, maxStops);
+    rebuild();
+  }
+
+  /** Replaces the remaining stops of the vehicle. Stops seen before keep their state. */
+  synchronized void setRoute(RouteModel route) {
+    this.route = route;
+    rebuild();
+  }
+
+  /** Forgets all stops and their state. */
+  synchronized void clear() {
+    route = RouteModel.EMPTY;
+    count = 0;
+  }
+
+  /** Evaluates a location against every monitored stop and reports any state changes. */
+  synchronized void onLocation(double lat, double lng, long timeMillis) {
+    for (int i = 0; i < count; i++) {
+      double distance = GeoUtil.distanceMeters(lat, lng, lats[i], lngs[i]);
+      switch (states[i]) {
+        case STATE_OUTSIDE:
+          if (distance <= radiusMeters) {
+            states[i] = STATE_INSIDE;
+            enteredAtMillis[i] = timeMillis;
+            listener.onTransition(TRANSITION_ENTER, route, stopIndexes[i], distance);
+          }
+          break;
+        case STATE_INSIDE:
+          if (distance > exitRadiusMeters) {
+            states[i] = STATE_OUTSIDE;
+            listener.onTransition(TRANSITION_EXIT, route, stopIndexes[i], distance);
+          } else if (timeMillis - enteredAtMillis[i] >= dwellMillis) {
+            states[i] = STATE_DWELLING;
+            listener.onTransition(TRANSITION_DWELL, route, stopIndexes[i], distance);
+          }
+          break;
+        case STATE_DWELLING:
+          if (distance > exitRadiusMeters) {
+            states[i] = STATE_OUTSIDE;
+            listener.onTransition(TRANSITION_EXIT, route, stopIndexes[i], distance);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  synchronized int getMonitoredStopCount() {
+    return count;
+  }
+
+  static String transitionName(int transition) {
+    switch (transition) {
+      case TRANSITION_ENTER:
+        return "ENTER";
+      case TRANSITION_DWELL:
+        return "DWELL";
+      case TRANSITION_EXIT:
+        return "EXIT";
+      default:
+        return "UNKNOWN";
+    }
+  }
+
+  private void rebuild() {
+    Map<String, Integer> previous = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      previous.put(keys[i], i);
+    }
+    int[] previousStates = states;
+    long[] previousEnteredAt = enteredAtMillis;
+
+    int size = Math.min(maxStops, route.stopCount());
+    int[] newStopIndexes = new int[size];
+    String[] newKeys = new String[size];
+    double[] newLats = new double[size];
+    double[] newLngs = new double[size];
+    int[] newStates = new int[size];
+    long[] newEnteredAt = new long[size];
+
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      if (!route.hasPosition(i)) {
+        continue;
+      }
+      String key = route.stopKey(i);
+      newStopIndexes[n] = i;
+      newKeys[n] = key;
+      newLats[n] = route.lat(i);
+      newLngs[n] = route.lng(i);
+      Integer old = previous.get(key);
+      if (old != null) {
+        newStates[n] = previousStates[old];
+        newEnteredAt[n] = previousEnteredAt[old];
+      }
+      n++;
+    }
+
+    stopIndexes = newStopIndexes;
+    keys = newKeys;
+    lats = newLats;
+    lngs = newLngs;
+    states = newStates;
+    enteredAtMillis = newEnteredAt;
+    count = n;
+  }
+}
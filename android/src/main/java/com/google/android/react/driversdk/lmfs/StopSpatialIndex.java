@@ -0,0 +1,363 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import com.google.android.react.driversdk.shared.GeoUtil;
+import java.util.Arrays;
+
+/**
+ * Immutable uniform-grid index over the waypoint positions of vehicle stops.
+ *
+ * <p>Stops are bucketed into square cells of roughly {@code cellMeters} on each side, projected
+ * around the mean latitude of the route. Occupied cells are stored as a sorted array of cell keys
+ * with the stop indices of each cell laid out contiguously, so queries only touch the cells that
+ * can contain a match. Stops without a position are not indexed. All results are indices into the
+ * stops of the route the index was built from.
+ */
+final class StopSpatialIndex {
+
+  static final double DEFAULT_CELL_METERS = 500;
+
+  private static final double METERS_PER_DEGREE = GeoUtil.EARTH_RADIUS_METERS * Math.PI / 180;
+
+  // Rings searched around the query cell before nearest() falls back to a linear scan.
+  private static final int MAX_NEAREST_RINGS = 16;
+
+  private final double cellMeters;
+  private final double cellLatDegrees;
+  private final double cellLngDegrees;
+
+  // Positions by stop index; NaN for stops without a position.
+  private final double[] lats;
+  private final double[] lngs;
+  private final int indexedCount;
+
+  // Sorted keys of occupied cells. The stops of cell i are entries[cellStarts[i]..cellStarts[i+1]).
+  private final long[] cellKeys;
+  private final int[] cellStarts;
+  private final int[] entries;
+
+  private StopSpatialIndex(
+      double cellMeters,
+      double cellLatDegrees,
+      double cellLngDegrees,
+      double[] lats,
+      double[] lngs,
+      int indexedCount,
+      long[] cellKeys,
+      int[] cellStarts,
+      int[] entries) {
+    this.cellMeters = cellMeters;
+    this.cellLatDegrees = cellLatDegrees;
+    this.cellLngDegrees = cellLngDegrees;
+    this.lats = lats;
+    this.lngs = lngs;
+    this.indexedCount = indexedCount;
+    this.cellKeys = cellKeys;
+    this.cellStarts = cellStarts;
+    this.entries = entries;
+  }
+
+  static StopSpatialIndex build(RouteModel route) {
+    return build(route, DEFAULT_CELL_METERS);
+  }
+
+  static StopSpatialIndex build(RouteModel route, double cellMeters) {
+    int size = route.stopCount();
+    double[] lats = new double[size];
+    double[] lngs = new double[size];
+    double latSum = 0;
+    int indexedCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (route.hasPosition(i)) {
+        lats[i] = route.lat(i);
+        lngs[i] = route.lng(i);
+        latSum += lats[i];
+        indexedCount++;
+      } else {
+        lats[i] = Double.NaN;
+        lngs[i] = Double.NaN;
+      }
+    }
+
+    double referenceLat = indexedCount > 0 ? latSum / indexedCount : 0;
+    double cellLatDegrees = cellMeters / METERS_PER_DEGREE;
+    double cellLngDegrees =
+        cellLatDegrees / Math.max(Math.cos(Math.toRadians(referenceLat)), 0.01);
+
+    // Sort (cell key, stop index) pairs by key to lay out each cell's stops contiguously.
+    long[] stopKeys = new long[indexedCount];
+    Integer[] order = new Integer[indexedCount];
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      if (!Double.isNaN(lats[i])) {
+        order[n++] = i;
+      }
+    }
+    long[] keysByStop = new long[size];
+    for (int i = 0; i < indexedCount; i++) {
+      int stop = order[i];
+      keysByStop[stop] =
+          cellKey(cell(lats[stop], cellLatDegrees), cell(lngs[stop], cellLngDegrees));
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(keysByStop[a], keysByStop[b]));
+
+    int[] entries = new int[indexedCount];
+    long[] cellKeys = new long[indexedCount];
+    int[] cellStarts = new int[indexedCount + 1];
+    int cellCount = 0;
+    for (int i = 0; i < indexedCount; i++) {
+      entries[i] = order[i];
+      stopKeys[i] = keysByStop[order[i]];
+      if (i == 0 || stopKeys[i] != stopKeys[i - 1]) {
+        cellKeys[cellCount] = stopKeys[i];
+        cellStarts[cellCount] = i;
+        cellCount++;
+      }
+    }
+    cellStarts[cellCount] = indexedCount;
+
+    return new StopSpatialIndex(
+        cellMeters,
+        cellLatDegrees,
+        cellLngDegrees,
+        lats,
+        lngs,
+        indexedCount,
+        Arrays.copyOf(cellKeys, cellCount),
+        Arrays.copyOf(cellStarts, cellCount + 1),
+        entries);
+  }
+
+  /** Number of stops with a position. */
+  int size() {
+    return indexedCount;
+  }
+
+  /** Returns the stops within {@code radiusMeters} of a point, nearest first. */
+  int[] withinRadius(double lat, double lng, double radiusMeters) {
+    if (indexedCount == 0 || radiusMeters < 0) {
+      return new int[0];
+    }
+    int centerY = cell(lat, cellLatDegrees);
+    int centerX = cell(lng, cellLngDegrees);
+    int rangeY = (int) Math.ceil(radiusMeters / cellMeters);
+    // Cells get narrower towards the poles, so size the x range for the most poleward latitude.
+    double poleward = Math.min(89.9, Math.abs(lat) + rangeY * cellLatDegrees);
+    double cellWidthMeters =
+        cellLngDegrees * METERS_PER_DEGREE * Math.cos(Math.toRadians(poleward));
+    int rangeX = (int) Math.ceil(radiusMeters / cellWidthMeters);
+
+    int minY = centerY - rangeY;
+    int maxY = centerY + rangeY;
+    int westX = centerX - rangeX;
+    int eastX = centerX + rangeX;
+
+    int[] matches = new int[indexedCount];
+    double[] distances = new double[lats.length];
+    int count = 0;
+    if ((eastX - westX + 1) * cellLngDegrees >= 360
+        || (long) (2 * rangeX + 1) * (2 * rangeY + 1) > cellKeys.length) {
+      for (int i = 0; i < entries.length; i++) {
+        count = collectIfWithin(entries[i], lat, lng, radiusMeters, matches, distances, count);
+      }
+      return sortByDistance(matches, count, distances);
+    }
+
+    count = collectCells(minY, maxY, westX, eastX, lat, lng, radiusMeters, matches, distances, 0);
+    // Cells past the antimeridian continue on its other side. The wrapped column range stops
+    // short of the columns already searched, so no cell is visited twice.
+    double eastEdge = (eastX + 1) * cellLngDegrees;
+    if (eastEdge > 180) {
+      int wrappedEastX = Math.min(cell(eastEdge - 360, cellLngDegrees), westX - 1);
+      count =
+          collectCells(
+              minY,
+              maxY,
+              cell(-180, cellLngDegrees),
+              wrappedEastX,
+              lat,
+              lng,
+              radiusMeters,
+              matches,
+              distances,
+              count);
+    }
+    double westEdge = westX * cellLngDegrees;
+    if (westEdge < -180) {
+      int wrappedWestX = Math.max(cell(westEdge + 360, cellLngDegrees), eastX + 1);
+      count =
+          collectCells(
+              minY,
+              maxY,
+              wrappedWestX,
+              cell(180, cellLngDegrees),
+              lat,
+              lng,
+              radiusMeters,
+              matches,
+              distances,
+              count);
+    }
+    return sortByDistance(matches, count, distances);
+  }
+
+  /** Returns the stop nearest to a point, or -1 if no stop has a position. */
+  int nearest(double lat, double lng) {
+    if (indexedCount == 0) {
+      return -1;
+    }
+    int centerY = cell(lat, cellLatDegrees);
+    int centerX = cell(lng, cellLngDegrees);
+    int best = -1;
+    double bestDistance = Double.MAX_VALUE;
+    for (int ring = 0; ring <= MAX_NEAREST_RINGS; ring++) {
+      // Every stop in this ring or beyond is at least (ring - 1) full cells away, and cells are
+      // narrowest at the most poleward latitude the ring reaches.
+      double poleward = Math.min(89.9, Math.abs(lat) + ring * cellLatDegrees);
+      double cellWidthMeters =
+          Math.min(
+              cellMeters,
+              cellLngDegrees * METERS_PER_DEGREE * Math.cos(Math.toRadians(poleward)));
+      if (best >= 0 && bestDistance <= (ring - 1) * cellWidthMeters) {
+        return best;
+      }
+      for (int y = centerY - ring; y <= centerY + ring; y++) {
+        boolean edgeRow = y == centerY - ring || y == centerY + ring;
+        int step = edgeRow ? 1 : 2 * ring;
+        for (int x = centerX - ring; x <= centerX + ring; x += Math.max(step, 1)) {
+          int cellIndex = Arrays.binarySearch(cellKeys, cellKey(y, x));
+          if (cellIndex < 0) {
+            continue;
+          }
+          for (int e = cellStarts[cellIndex]; e < cellStarts[cellIndex + 1]; e++) {
+            int stop = entries[e];
+            double distance = GeoUtil.distanceMeters(lat, lng, lats[stop], lngs[stop]);
+            if (distance < bestDistance || (distance == bestDistance && stop < best)) {
+              best = stop;
+              bestDistance = distance;
+            }
+          }
+        }
+      }
+    }
+
+    // The query point is far from the route; a linear scan is cheaper than more rings.
+    for (int stop : entries) {
+      double distance = GeoUtil.distanceMeters(lat, lng, lats[stop], lngs[stop]);
+      if (distance < bestDistance || (distance == bestDistance && stop < best)) {
+        best = stop;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the stops inside a latitude/longitude box, in stop order. A box with {@code west >
+   * east} crosses the antimeridian.
+   */
+  int[] inBounds(double south, double west, double north, double east) {
+    int minY = cell(south, cellLatDegrees);
+    int maxY = cell(north, cellLatDegrees);
+    boolean wraps = west > east;
+
+    int[] matches = new int[indexedCount];
+    int count = 0;
+    for (int c = 0; c < cellKeys.length; c++) {
+      int y = (int) (cellKeys[c] >> 32);
+      if (y < minY || y > maxY) {
+        continue;
+      }
+      for (int e = cellStarts[c]; e < cellStarts[c + 1]; e++) {
+        int stop = entries[e];
+        double stopLat = lats[stop];
+        double stopLng = lngs[stop];
+        boolean inLng =
+            wraps ? stopLng >= west || stopLng <= east : stopLng >= west && stopLng <= east;
+        if (stopLat >= south && stopLat <= north && inLng) {
+          matches[count++] = stop;
+        }
+      }
+    }
+    int[] result = Arrays.copyOf(matches, count);
+    Arrays.sort(result);
+    return result;
+  }
+
+  private int collectCells(
+      int minY,
+      int maxY,
+      int minX,
+      int maxX,
+      double lat,
+      double lng,
+      double radiusMeters,
+      int[] matches,
+      double[] distances,
+      int count) {
+    for (int y = minY; y <= maxY; y++) {
+      for (int x = minX; x <= maxX; x++) {
+        int cellIndex = Arrays.binarySearch(cellKeys, cellKey(y, x));
+        if (cellIndex < 0) {
+          continue;
+        }
+        for (int e = cellStarts[cellIndex]; e < cellStarts[cellIndex + 1]; e++) {
+          count = collectIfWithin(entries[e], lat, lng, radiusMeters, matches, distances, count);
+        }
+      }
+    }
+    return count;
+  }
+
+  private int collectIfWithin(
+      int stop,
+      double lat,
+      double lng,
+      double radiusMeters,
+      int[] matches,
+      double[] distances,
+      int count) {
+    double distance = GeoUtil.distanceMeters(lat, lng, lats[stop], lngs[stop]);
+    if (distance <= radiusMeters) {
+      distances[stop] = distance;
+      matches[count++] = stop;
+    }
+    return count;
+  }
+
+  private static int[] sortByDistance(int[] matches, int count, double[] distances) {
+    // Insertion sort: radius queries return few stops, and this avoids boxing.
+    for (int i = 1; i < count; i++) {
+      int stop = matches[i];
+      int j = i - 1;
+      while (j >= 0
+          && (distances[matches[j]] > distances[stop]
+              || (distances[matches[j]] == distances[stop] && matches[j] > stop))) {
+        matches[j + 1] = matches[j];
+        j--;
+      }
+      matches[j + 1] = stop;
+    }
+    return Arrays.copyOf(matches, count);
+  }
+
+  private static int cell(double degrees, double cellDegrees) {
+    return (int) Math.floor(degrees / cellDegrees);
+  }
+
+  private static long cellKey(int y, int x) {
+    return ((long) y << 32) | (x & 0xffffffffL);
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable hash index from task ids and place ids to the vehicle stops that hold them.
+ *
+ * <p>Task positions are packed into a single long (stop index in the high bits, flat task index of
+ * the {@link RouteModel} in the low bits) so a lookup is one hash probe without walking the route.
+ * Keys are the strings of the route's string table, so the index holds no copies of its own.
+ */
+final class StopTaskIndex {
+
+  private final Map<String, Long> tasks;
+  private final Map<String, int[]> places;
+
+  private StopTaskIndex(Map<String, Long> tasks, Map<String, int[]> places) {
+    this.tasks = tasks;
+    this.places = places;
+  }
+
+  static StopTaskIndex build(RouteModel route) {
+    Map<String, Long> tasks = new HashMap<>();
+    Map<String, int[]> places = new HashMap<>();
+    for (int i = 0; i < route.stopCount(); i++) {
+      for (int t = route.taskStart(i); t < route.taskEnd(i); t++) {
+        // A task id is unique within a vehicle; keep the first stop if the backend repeats it.
+        tasks.putIfAbsent(route.taskId(t), ((long) i << 32) | t);
+      }
+      String placeId = route.placeId(i);
+      if (placeId != null) {
+        int[] previous = places.get(placeId);
+        int[] stopIndexes =
+            previous == null ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+        stopIndexes[stopIndexes.length - 1] = i;
+        places.put(placeId, stopIndexes);
+      }
+    }
+    return new StopTaskIndex(tasks, places);
+  }
+
+  /** Returns the index of the stop holding a task, or -1 if the task is not on the route. */
+  int getStopIndex(String taskId) {
+    Long position = tasks.get(taskId);
+    return position != null ? (int) (position >>> 32) : -1;
+  }
+
+  /** Returns the flat task index of a task in the route, or -1 if it is not on the route. */
+  int getTask(String taskId) {
+    Long position = tasks.get(taskId);
+    return position != null ? (int) (long) position : -1;
+  }
+
+  /** Returns the indices of the stops at a place, in stop order. */
+  int[] getStopIndexesForPlace(String placeId) {
+    int[] stopIndexes = places.get(placeId);
+    return stopIndexes != null ? stopIndexes.clone() : new int[0];
+  }
+}
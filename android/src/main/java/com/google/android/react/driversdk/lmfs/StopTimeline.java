@@ -0,0 +1,205 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records when the stops of the vehicle move between states, from the routes fetched over a shift.
+ *
+ * <p>Each route is compared with the previous one, matching stops by {@link RouteModel#stopKey},
+ * and every change is appended as a (stop index, old state, new state, time) record to a ring
+ * buffer of primitive arrays that overwrites the oldest records once full. Stops that join or
+ * leave the route, e.g. once completed, are recorded with {@link #NOT_ON_ROUTE} as their old or new
+ * state. The first route after {@link #clear} only serves as the baseline. Only the keys and
+ * states of the previous route are kept, not the route itself.
+ */
+final class StopTimeline {
+
+  /** State of a stop that is not on the route. */
+  static final int NOT_ON_ROUTE = -1;
+
+  static final int DEFAULT_CAPACITY = 1024;
+
+  /** Transitions read from the timeline, oldest first. */
+  static final class Transitions {
+    final int[] stopIndexes;
+    final int[] oldStates;
+    final int[] newStates;
+    final long[] timesMillis;
+    final int count;
+
+    /** Whether transitions in the requested range were overwritten by newer ones. */
+    final boolean truncated;
+
+    Transitions(
+        int[] stopIndexes,
+        int[] oldStates,
+        int[] newStates,
+        long[] timesMillis,
+        int count,
+        boolean truncated) {
+      this.stopIndexes = stopIndexes;
+      this.oldStates = oldStates;
+      this.newStates = newStates;
+      this.timesMillis = timesMillis;
+      this.count = count;
+      this.truncated = truncated;
+    }
+  }
+
+  // Ring buffer of transitions. Record r is at index r % capacity, and the records from first to
+  // next are retained.
+  private final int[] stopIndexes;
+  private final byte[] oldStates;
+  private final byte[] newStates;
+  private final long[] timesMillis;
+  private long first = 0;
+  private long next = 0;
+
+  // Time of the newest overwritten record, or Long.MIN_VALUE if none was.
+  private long overwrittenUntilMillis = Long.MIN_VALUE;
+
+  // Stops of the previous route, or null before the baseline.
+  private String[] previousKeys = null;
+  private byte[] previousStates = null;
+
+  StopTimeline() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  StopTimeline(int capacity) {
+    int size = Math.max(1, capacity);
+    stopIndexes = new int[size];
+    oldStates = new byte[size];
+    newStates = new byte[size];
+    timesMillis = new long[size];
+  }
+
+  /** Records the transitions from the previous route to this one. */
+  synchronized void onRoute(RouteModel route, long timeMillis) {
+    int size = route.stopCount();
+    String[] keys = new String[size];
+    byte[] states = new byte[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = route.stopKey(i);
+      states[i] = (byte) route.stopState(i);
+    }
+
+    if (previousKeys != null) {
+      Map<String, Integer> previous = new HashMap<>();
+      for (int j = 0; j < previousKeys.length; j++) {
+        // Stops without tasks or a position cannot be told apart, so they are not tracked.
+        if (!previousKeys[j].isEmpty()) {
+          previous.putIfAbsent(previousKeys[j], j);
+        }
+      }
+      for (int i = 0; i < size; i++) {
+        if (keys[i].isEmpty()) {
+          continue;
+        }
+        Integer j = previous.remove(keys[i]);
+        if (j == null) {
+          append(i, NOT_ON_ROUTE, states[i], timeMillis);
+        } else if (previousStates[j] != states[i]) {
+          append(i, previousStates[j], states[i], timeMillis);
+        }
+      }
+      // What is left has left the route, and keeps its index in the previous one.
+      for (int j = 0; j < previousKeys.length; j++) {
+        Integer left = previous.get(previousKeys[j]);
+        if (left != null && left == j) {
+          append(j, previousStates[j], NOT_ON_ROUTE, timeMillis);
+        }
+      }
+    }
+
+    previousKeys = keys;
+    previousStates = states;
+  }
+
+  /** Returns the transitions recorded at or after {@code sinceMillis}, oldest first. */
+  synchronized Transitions read(long sinceMillis) {
+    long start = first;
+    while (start < next && timesMillis[index(start)] < sinceMillis) {
+      start++;
+    }
+    int count = (int) (next - start);
+    int[] outStopIndexes = new int[count];
+    int[] outOldStates = new int[count];
+    int[] outNewStates = new int[count];
+    long[] outTimes = new long[count];
+    for (int i = 0; i < count; i++) {
+      int index = index(start + i);
+      outStopIndexes[i] = stopIndexes[index];
+      outOldStates[i] = oldStates[index];
+      outNewStates[i] = newStates[index];
+      outTimes[i] = timesMillis[index];
+    }
+    return new Transitions(
+        outStopIndexes,
+        outOldStates,
+        outNewStates,
+        outTimes,
+        count,
+        overwrittenUntilMillis >= sinceMillis);
+  }
+
+  /** Discards every record, and makes the next route the baseline. */
+  synchronized void clear() {
+    first = next;
+    overwrittenUntilMillis = Long.MIN_VALUE;
+    previousKeys = null;
+    previousStates = null;
+  }
+
+  /**
+   * Translates transitions for JS. Records are flattened into one {@code [stopIndex, oldState,
+   * newState, time, ...]} array to keep the payload small.
+   */
+  static WritableMap toWritableMap(Transitions transitions) {
+    WritableArray records = Arguments.createArray();
+    for (int i = 0; i < transitions.count; i++) {
+      records.pushInt(transitions.stopIndexes[i]);
+      records.pushInt(transitions.oldStates[i]);
+      records.pushInt(transitions.newStates[i]);
+      records.pushDouble(transitions.timesMillis[i]);
+    }
+    WritableMap map = Arguments.createMap();
+    map.putArray("transitions", records);
+    map.putBoolean("truncated", transitions.truncated);
+    return map;
+  }
+
+  private void append(int stopIndex, int oldState, int newState, long timeMillis) {
+    int index = index(next);
+    if (next - first == stopIndexes.length) {
+      overwrittenUntilMillis = timesMillis[index];
+      first++;
+    }
+    stopIndexes[index] = stopIndex;
+    oldStates[index] = (byte) oldState;
+    newStates[index] = (byte) newState;
+    timesMillis[index] = timeMillis;
+    next++;
+  }
+
+  private int index(long record) {
+    return (int) (record % stopIndexes.length);
+  }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import androidx.annotation.Nullable;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.TaskInfo;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.VehicleStop;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.delivery.data.DeliveryVehicle;
+import com.google.android.libraries.navigation.Waypoint;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of the {@link DeliveryVehicle} fields exposed to JS, with a compact binary
+ * encoding so the last fetched vehicle can be persisted and restored across process restarts.
+ *
+ * <p>Snapshots only carry a fetched or restored vehicle until it is turned into a {@link
+ * RouteModel}, which is what the module keeps.
+ */
+final class VehicleSnapshot {
+
+  private static final int FORMAT_VERSION = 1;
+
+  @Nullable final String providerId;
+  @Nullable final String vehicleName;
+  @Nullable final String vehicleId;
+  final List<Stop> stops;
+  final long capturedAtMillis;
+
+  /** A vehicle stop and its tasks. */
+  static final class Stop {
+    final int state;
+    @Nullable final StopWaypoint waypoint;
+    final List<Task> tasks;
+
+    Stop(int state, @Nullable StopWaypoint waypoint, List<Task> tasks) {
+      this.state = state;
+      this.waypoint = waypoint;
+      this.tasks = tasks;
+    }
+  }
+
+  /** The planned waypoint of a stop. */
+  static final class StopWaypoint {
+    @Nullable final String title;
+    @Nullable final String placeId;
+    final boolean hasPosition;
+    final double lat;
+    final double lng;
+    final int preferredHeading;
+    final boolean vehicleStopover;
+    final boolean preferSameSideOfRoad;
+
+    StopWaypoint(
+        @Nullable String title,
+        @Nullable String placeId,
+        boolean hasPosition,
+        double lat,
+        double lng,
+        int preferredHeading,
+        boolean vehicleStopover,
+        boolean preferSameSideOfRoad) {
+      this.title = title;
+      this.placeId = placeId;
+      this.hasPosition = hasPosition;
+      this.lat = lat;
+      this.lng = lng;
+      this.preferredHeading = preferredHeading;
+      this.vehicleStopover = vehicleStopover;
+      this.preferSameSideOfRoad = preferSameSideOfRoad;
+    }
+  }
+
+  /** A task served at a stop. */
+  static final class Task {
+    final String taskId;
+    final double durationSeconds;
+
+    Task(String taskId, double durationSeconds) {
+      this.taskId = taskId;
+      this.durationSeconds = durationSeconds;
+    }
+  }
+
+  VehicleSnapshot(
+      @Nullable String providerId,
+      @Nullable String vehicleName,
+      @Nullable String vehicleId,
+      List<Stop> stops,
+      long capturedAtMillis) {
+    this.providerId = providerId;
+    this.vehicleName = vehicleName;
+    this.vehicleId = vehicleId;
+    this.stops = Collections.unmodifiableList(stops);
+    this.capturedAtMillis = capturedAtMillis;
+  }
+
+  static VehicleSnapshot fromDeliveryVehicle(DeliveryVehicle vehicle) {
+    List<VehicleStop> vehicleStops = vehicle.getVehicleStops();
+    List<Stop> stops = new ArrayList<>(vehicleStops.size());
+
+    for (VehicleStop vehicleStop : vehicleStops) {
+      StopWaypoint stopWaypoint = null;
+      Waypoint waypoint = vehicleStop.getWaypoint();
+      if (waypoint != null) {
+        LatLng position = waypoint.getPosition();
+        stopWaypoint =
+            new StopWaypoint(
+                waypoint.getTitle(),
+                waypoint.getPlaceId(),
+                position != null,
+                position != null ? position.latitude : 0,
+                position != null ? position.longitude : 0,
+                waypoint.getPreferredHeading(),
+                waypoint.getVehicleStopover(),
+                waypoint.getPreferSameSideOfRoad());
+      }
+
+      List<TaskInfo> taskInfoList = vehicleStop.getTaskInfoList();
+      List<Task> tasks = new ArrayList<>(taskInfoList.size());
+      for (TaskInfo info : taskInfoList) {
+        tasks.add(new Task(info.getTaskId(), info.getTaskDurationSeconds()));
+      }
+
+      stops.add(new Stop(vehicleStop.getVehicleStopState(), stopWaypoint, tasks));
+    }
+
+    return new VehicleSnapshot(
+        vehicle.getProviderId(),
+        vehicle.getVehicleName(),
+        vehicle.getVehicleId(),
+        stops,
+        System.currentTimeMillis());
+  }
+
+  byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeLong(capturedAtMillis);
+      writeNullableString(out, providerId);
+      writeNullableString(out, vehicleName);
+      writeNullableString(out, vehicleId);
+      out.writeInt(stops.size());
+      for (Stop stop : stops) {
+        out.writeByte(stop.state);
+        out.writeBoolean(stop.waypoint != null);
+        if (stop.waypoint != null) {
+          StopWaypoint waypoint = stop.waypoint;
+          writeNullableString(out, waypoint.title);
+          writeNullableString(out, waypoint.placeId);
+          out.writeBoolean(waypoint.hasPosition);
+          out.writeDouble(waypoint.lat);
+          out.writeDouble(waypoint.lng);
+          out.writeShort(waypoint.preferredHeading);
+          out.writeBoolean(waypoint.vehicleStopover);
+          out.writeBoolean(waypoint.preferSameSideOfRoad);
+        }
+        out.writeInt(stop.tasks.size());
+        for (Task task : stop.tasks) {
+          out.writeUTF(task.taskId);
+          out.writeDouble(task.durationSeconds);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Decodes a snapshot written by {@link #toBytes}, or returns null if the data is unusable. */
+  @Nullable
+  static VehicleSnapshot fromBytes(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if (in.readByte() != FORMAT_VERSION) {
+        return null;
+      }
+      long capturedAtMillis = in.readLong();
+      String providerId = readNullableString(in);
+      String vehicleName = readNullableString(in);
+      String vehicleId = readNullableString(in);
+      int stopCount = in.readInt();
+      List<Stop> stops = new ArrayList<>(stopCount);
+      for (int i = 0; i < stopCount; i++) {
+        int state = in.readByte();
+        StopWaypoint waypoint = null;
+        if (in.readBoolean()) {
+          waypoint =
+              new StopWaypoint(
+                  readNullableString(in),
+                  readNullableString(in),
+                  in.readBoolean(),
+                  in.readDouble(),
+                  in.readDouble(),
+                  in.readShort(),
+                  in.readBoolean(),
+                  in.readBoolean());
+        }
+        int taskCount = in.readInt();
+        List<Task> tasks = new ArrayList<>(taskCount);
+        for (int j = 0; j < taskCount; j++) {
+          tasks.add(new Task(in.readUTF(), in.readDouble()));
+        }
+        stops.add(new Stop(state, waypoint, tasks));
+      }
+      return new VehicleSnapshot(providerId, vehicleName, vehicleId, stops, capturedAtMillis);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void writeNullableString(DataOutputStream out, @Nullable String value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
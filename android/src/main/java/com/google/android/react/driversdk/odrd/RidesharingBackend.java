@@ -0,0 +1,25 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.odrd;
+
+import com.google.android.react.driversdk.shared.DriverBackend;
+
+/** The Ridesharing Driver SDK entry points {@link RidesharingModule} depends on. */
+interface RidesharingBackend extends DriverBackend<RidesharingBackend.Reporter> {
+
+  /** Vehicle reporter that also reports whether the vehicle takes trips. */
+  interface Reporter extends DriverBackend.VehicleReporter {
+    void setVehicleState(boolean online);
+  }
+}
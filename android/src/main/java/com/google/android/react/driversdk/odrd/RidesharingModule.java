@@ -16,54 +16,71 @@ package com.google.android.react.driversdk.odrd;
 import static java.util.Objects.requireNonNull;
 
 import android.app.Application;
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableMap;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusCode;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusLevel;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.ridesharing.RidesharingDriverApi;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.ridesharing.vehiclereporter.RidesharingVehicleReporter;
-import com.google.android.libraries.mapsplatform.transportation.driver.api.ridesharing.vehiclereporter.RidesharingVehicleReporter.VehicleState;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
 import com.google.android.libraries.navigation.NavigationApi;
 import com.google.android.libraries.navigation.Navigator;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
 import com.google.android.react.driversdk.NativeRidesharingModuleSpec;
-import com.google.android.react.driversdk.shared.DriverAuthTokenFactory;
+import com.google.android.react.driversdk.shared.DriverModuleSupport;
+import com.google.android.react.driversdk.shared.DriverStateRecord;
+import com.google.android.react.driversdk.shared.DriverTrace;
 import com.google.android.react.driversdk.shared.JsErrors;
 import com.google.android.react.navsdk.NavModule;
-import java.util.concurrent.TimeUnit;
 
 public class RidesharingModule extends NativeRidesharingModuleSpec {
 
   public static final String TAG = "RidesharingAPI";
   public static final String REACT_CLASS = NAME;
 
-  private Navigator mNavigator = null;
-  private RidesharingVehicleReporter vehicleReporter = null;
-  private DriverContext driverContext = null;
+  private static final String STATE_STORE_NAME = "driversdk_odrd";
+  private static final String BRIDGE_RECORDING_FILE = "driversdk_odrd_bridge_traffic.bin";
 
-  private final DriverAuthTokenFactory tokenFactory = new DriverAuthTokenFactory();
+  private Navigator mNavigator = null;
+  private final RidesharingBackend backend;
+  private final DriverModuleSupport<RidesharingBackend.Reporter> support;
+  private boolean vehicleOnline = false;
 
   ReactApplicationContext reactContext;
 
   public RidesharingModule(ReactApplicationContext context) {
+    this(context, new SdkRidesharingBackend());
+  }
+
+  RidesharingModule(ReactApplicationContext context, RidesharingBackend backend) {
     super(context);
     this.reactContext = context;
-
-    // Wire up the token factory to emit events to JS when a token is needed.
-    tokenFactory.setTokenRequestCallback(
-        (requestId, vehicleId, taskId) -> {
-          UiThreadUtil.runOnUiThread(
-              () -> {
-                WritableMap map = Arguments.createMap();
-                map.putString("requestId", requestId);
-                map.putString("vehicleId", vehicleId);
-                map.putString("taskId", taskId);
+    this.backend = backend;
+    this.support =
+        new DriverModuleSupport<>(
+            context,
+            STATE_STORE_NAME,
+            BRIDGE_RECORDING_FILE,
+            new DriverModuleSupport.Events() {
+              @Override
+              public void onGetToken(WritableMap map) {
                 emitOnGetToken(map);
-              });
-        });
+              }
+
+              @Override
+              public void onStatusUpdate(WritableMap map) {
+                emitOnStatusUpdate(map);
+              }
+
+              @Override
+              public void onReportingHealthChanged(WritableMap map) {
+                emitOnReportingHealthChanged(map);
+              }
+
+              @Override
+              public void onLocationBatch(WritableMap map) {
+                emitOnLocationBatch(map);
+              }
+            });
   }
 
   @Override
@@ -71,17 +88,25 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
     return NAME;
   }
 
+  @Override
+  public void invalidate() {
+    support.invalidate();
+    super.invalidate();
+  }
+
   /** Creates an instance of the RidesharingDriverAPI */
   @Override
   public void createRidesharingInstance(String providerId, String vehicleId, Promise promise) {
-    if (RidesharingDriverApi.getInstance() != null) {
+    if (backend.hasInstance()) {
       promise.reject(
           JsErrors.DRIVER_API_ALREADY_EXISTS_CODE, JsErrors.DRIVER_API_ALREADY_EXISTS_MESSAGE);
       return;
     }
 
+    DriverTrace.AsyncSlice uiHop = DriverTrace.beginAsync(DriverTrace.CREATE_INSTANCE_UI_HOP);
     UiThreadUtil.runOnUiThread(
         () -> {
+          uiHop.end();
           mNavigator = NavModule.getInstance().getNavigator();
 
           if (mNavigator == null) {
@@ -89,24 +114,32 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
             return;
           }
 
-          try {
+          try (DriverTrace.Section trace = DriverTrace.section(DriverTrace.CREATE_INSTANCE)) {
             Application application = getCurrentActivity().getApplication();
-            driverContext =
-                DriverContext.builder(application)
-                    .setNavigator(requireNonNull(mNavigator))
-                    .setProviderId(providerId)
-                    .setVehicleId(vehicleId)
-                    .setAuthTokenFactory(tokenFactory)
-                    .setRoadSnappedLocationProvider(
-                        NavigationApi.getRoadSnappedLocationProvider(application))
-                    .setDriverStatusListener(
-                        (statusLevel, statusCode, statusMsg, error) -> {
-                          emitStatusUpdate(statusLevel, statusCode, statusMsg);
-                        })
-                    .build();
-
-            vehicleReporter =
-                RidesharingDriverApi.createInstance(driverContext).getRidesharingVehicleReporter();
+            RoadSnappedLocationProvider roadSnappedLocationProvider;
+            try (DriverTrace.Section phase =
+                DriverTrace.section(DriverTrace.CREATE_INSTANCE_LOCATION_PROVIDER)) {
+              roadSnappedLocationProvider =
+                  NavigationApi.getRoadSnappedLocationProvider(application);
+            }
+            RidesharingBackend.Reporter vehicleReporter;
+            try (DriverTrace.Section phase =
+                DriverTrace.section(DriverTrace.CREATE_INSTANCE_BACKEND)) {
+              DriverStatusListener statusListener = support.beginInstance();
+              vehicleReporter =
+                  backend.createInstance(
+                      application,
+                      requireNonNull(mNavigator),
+                      roadSnappedLocationProvider,
+                      providerId,
+                      vehicleId,
+                      support.getTokenFactory(),
+                      statusListener);
+            }
+            try (DriverTrace.Section phase =
+                DriverTrace.section(DriverTrace.CREATE_INSTANCE_LISTENERS)) {
+              support.onInstanceCreated(vehicleReporter, roadSnappedLocationProvider);
+            }
             promise.resolve(true);
           } catch (Exception e) {
             promise.reject(e.toString(), e.getMessage(), e);
@@ -118,17 +151,13 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
   @Override
   public void setLocationTrackingEnabled(boolean isTrackingEnabled, Promise promise) {
     try {
-      if (vehicleReporter == null) {
+      if (support.getVehicleReporter() == null) {
         promise.reject(
             JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
         return;
       }
 
-      if (isTrackingEnabled) {
-        vehicleReporter.enableLocationTracking();
-      } else {
-        vehicleReporter.disableLocationTracking();
-      }
+      support.applyLocationTracking(isTrackingEnabled);
       promise.resolve(true);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
@@ -139,16 +168,12 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
   @Override
   public void setVehicleState(boolean isVehicleOnline, Promise promise) {
     try {
-      if (vehicleReporter == null) {
+      if (support.getVehicleReporter() == null) {
         promise.reject(
             JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
         return;
       }
-      if (isVehicleOnline) {
-        vehicleReporter.setVehicleState(VehicleState.ONLINE);
-      } else {
-        vehicleReporter.setVehicleState(VehicleState.OFFLINE);
-      }
+      applyVehicleState(isVehicleOnline);
       promise.resolve(true);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
@@ -163,24 +188,71 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
   @Override
   public void setLocationReportingInterval(double intervalSeconds, Promise promise) {
     try {
-      if (vehicleReporter == null) {
+      if (support.getVehicleReporter() == null) {
         promise.reject(
             JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
         return;
       }
 
-      vehicleReporter.setLocationReportingInterval((long) intervalSeconds, TimeUnit.SECONDS);
+      support.applyReportingInterval(intervalSeconds);
       promise.resolve(null);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
     }
   }
 
+  /**
+   * Applies every field set in the config in one step, then resolves the resulting reporter
+   * configuration. Saves a round trip per field and keeps other calls from interleaving. Tracking
+   * is enabled before the vehicle goes online and disabled after it goes offline.
+   */
+  @Override
+  public void applyReporterConfig(ReadableMap config, Promise promise) {
+    try {
+      if (support.getVehicleReporter() == null) {
+        promise.reject(
+            JsErrors.DRIVER_API_NOT_INITIALIZED_CODE, JsErrors.DRIVER_API_NOT_INITIALIZED_MESSAGE);
+        return;
+      }
+      boolean hasTracking = config.hasKey("trackingEnabled") && !config.isNull("trackingEnabled");
+      boolean trackingEnabled = hasTracking && config.getBoolean("trackingEnabled");
+      if (config.hasKey("intervalSeconds") && !config.isNull("intervalSeconds")) {
+        support.applyReportingInterval(config.getDouble("intervalSeconds"));
+      }
+      if (hasTracking && trackingEnabled) {
+        support.applyLocationTracking(true);
+      }
+      if (config.hasKey("online") && !config.isNull("online")) {
+        applyVehicleState(config.getBoolean("online"));
+      }
+      if (hasTracking && !trackingEnabled) {
+        support.applyLocationTracking(false);
+      }
+      WritableMap effectiveConfig = support.getEffectiveReporterConfig();
+      effectiveConfig.putBoolean("online", vehicleOnline);
+      promise.resolve(effectiveConfig);
+    } catch (Exception e) {
+      promise.reject(e.toString(), e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the effective reporter state without I/O or SDK calls, for JS to read synchronously,
+   * e.g. while rendering.
+   */
+  @Override
+  public WritableMap getDriverState() {
+    DriverStateRecord.State state = support.getStateRecord().get();
+    WritableMap map = DriverModuleSupport.toWritableMap(state);
+    map.putBoolean("online", state.online);
+    return map;
+  }
+
   /** Gets the current sdk version used */
   @Override
   public void getDriverSdkVersion(Promise promise) {
     try {
-      String version = RidesharingDriverApi.getDriverSdkVersion();
+      String version = backend.getDriverSdkVersion();
       promise.resolve(version);
     } catch (Exception e) {
       promise.reject(e.toString(), e.getMessage(), e);
@@ -193,9 +265,9 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
     UiThreadUtil.runOnUiThread(
         () -> {
           try {
-            tokenFactory.cancelAllPendingRequests();
-            RidesharingDriverApi.clearInstance();
-            vehicleReporter = null;
+            support.clearInstance();
+            backend.clearInstance();
+            vehicleOnline = false;
 
             promise.resolve(true);
           } catch (Exception e) {
@@ -204,31 +276,114 @@ public class RidesharingModule extends NativeRidesharingModuleSpec {
         });
   }
 
+  @Override
+  public void setStatePersistenceEnabled(boolean isEnabled) {
+    support.setStatePersistenceEnabled(isEnabled);
+  }
+
+  @Override
+  public void setHttpTokenProvider(ReadableMap config, Promise promise) {
+    support.setHttpTokenProvider(config, promise);
+  }
+
+  @Override
+  public void clearHttpTokenProvider() {
+    support.clearHttpTokenProvider();
+  }
+
   /** Enables/disables abnormal termination reporting */
   @Override
   public void setAbnormalTerminationReporting(boolean isEnabled) {
-    RidesharingDriverApi.setAbnormalTerminationReportingEnabled(isEnabled);
+    backend.setAbnormalTerminationReportingEnabled(isEnabled);
+  }
+
+  @Override
+  public void setMemoryPressureReportingInterval(double intervalSeconds) {
+    support.setMemoryPressureReportingInterval(intervalSeconds);
   }
 
-  /** Called from JS to resolve a pending auth token request. */
   @Override
   public void resolveAuthToken(String requestId, String token) {
-    tokenFactory.resolveToken(requestId, token);
+    support.resolveAuthToken(requestId, token);
   }
 
-  /** Called from JS to reject a pending auth token request. */
   @Override
   public void rejectAuthToken(String requestId, String error) {
-    tokenFactory.rejectToken(requestId, error);
+    support.rejectAuthToken(requestId, error);
   }
 
-  private void emitStatusUpdate(StatusLevel statusLevel, StatusCode statusCode, String statusMsg) {
-    if (reactContext != null) {
-      WritableMap map = Arguments.createMap();
-      map.putString("statusLevel", statusLevel.toString());
-      map.putString("statusCode", statusCode.toString());
-      map.putString("statusMsg", statusMsg);
-      emitOnStatusUpdate(map);
-    }
+  @Override
+  public void setBackgroundEventBuffering(boolean isEnabled) {
+    support.setBackgroundEventBuffering(isEnabled);
+  }
+
+  /**
+   * Enables/disables trace sections around the bridge hot paths, for Perfetto and systrace. The
+   * switch is process-wide and shared with the other driver module.
+   */
+  @Override
+  public void setTracingEnabled(boolean isEnabled) {
+    DriverTrace.setEnabled(isEnabled);
+  }
+
+  @Override
+  public void setReportingWatchdog(ReadableMap config) {
+    support.setReportingWatchdog(config);
+  }
+
+  @Override
+  public void getReportingHealth(Promise promise) {
+    support.getReportingHealth(promise);
+  }
+
+  @Override
+  public void setBreadcrumbRecording(ReadableMap config) {
+    support.setBreadcrumbRecording(config);
+  }
+
+  @Override
+  public void getBreadcrumbs(double sinceSequence, Promise promise) {
+    support.getBreadcrumbs(sinceSequence, promise);
+  }
+
+  @Override
+  public void clearBreadcrumbs() {
+    support.clearBreadcrumbs();
+  }
+
+  @Override
+  public void setReportingProfiling(ReadableMap config) {
+    support.setReportingProfiling(config);
+  }
+
+  @Override
+  public void getReportingProfile(Promise promise) {
+    support.getReportingProfile(promise);
+  }
+
+  @Override
+  public void addLocationSubscriber(String name, ReadableMap config) {
+    support.addLocationSubscriber(name, config);
+  }
+
+  @Override
+  public void removeLocationSubscriber(String name) {
+    support.removeLocationSubscriber(name);
+  }
+
+  @Override
+  public void startBridgeRecording(ReadableMap config, Promise promise) {
+    support.startBridgeRecording(config, promise);
+  }
+
+  @Override
+  public void stopBridgeRecording(Promise promise) {
+    support.stopBridgeRecording(promise);
+  }
+
+  private void applyVehicleState(boolean isVehicleOnline) {
+    support.getVehicleReporter().setVehicleState(isVehicleOnline);
+    vehicleOnline = isVehicleOnline;
+    support.getStateRecord().setOnline(isVehicleOnline);
   }
 }
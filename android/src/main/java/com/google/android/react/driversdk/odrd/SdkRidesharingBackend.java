@@ -0,0 +1,98 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.odrd;
+
+import android.app.Application;
+import androidx.annotation.Nullable;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.ridesharing.RidesharingDriverApi;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.ridesharing.vehiclereporter.RidesharingVehicleReporter;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.ridesharing.vehiclereporter.RidesharingVehicleReporter.VehicleState;
+import com.google.android.libraries.navigation.Navigator;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+import com.google.android.react.driversdk.shared.DriverAuthTokenFactory;
+import java.util.concurrent.TimeUnit;
+
+/** {@link RidesharingBackend} backed by the Ridesharing Driver SDK. */
+final class SdkRidesharingBackend implements RidesharingBackend {
+
+  @Override
+  public boolean hasInstance() {
+    return RidesharingDriverApi.getInstance() != null;
+  }
+
+  @Override
+  public Reporter createInstance(
+      @Nullable Application application,
+      @Nullable Navigator navigator,
+      @Nullable RoadSnappedLocationProvider locationProvider,
+      String providerId,
+      String vehicleId,
+      DriverAuthTokenFactory tokenFactory,
+      DriverStatusListener statusListener) {
+    DriverContext driverContext =
+        DriverContext.builder(application)
+            .setNavigator(navigator)
+            .setProviderId(providerId)
+            .setVehicleId(vehicleId)
+            .setAuthTokenFactory(tokenFactory)
+            .setRoadSnappedLocationProvider(locationProvider)
+            .setDriverStatusListener(statusListener)
+            .build();
+    RidesharingVehicleReporter reporter =
+        RidesharingDriverApi.createInstance(driverContext).getRidesharingVehicleReporter();
+    return new Reporter() {
+      @Override
+      public void enableLocationTracking() {
+        reporter.enableLocationTracking();
+      }
+
+      @Override
+      public void disableLocationTracking() {
+        reporter.disableLocationTracking();
+      }
+
+      @Override
+      public boolean isLocationTrackingEnabled() {
+        return reporter.isLocationTrackingEnabled();
+      }
+
+      @Override
+      public void setLocationReportingInterval(long intervalSeconds) {
+        reporter.setLocationReportingInterval(intervalSeconds, TimeUnit.SECONDS);
+      }
+
+      @Override
+      public void setVehicleState(boolean online) {
+        reporter.setVehicleState(online ? VehicleState.ONLINE : VehicleState.OFFLINE);
+      }
+    };
+  }
+
+  @Override
+  public void clearInstance() {
+    RidesharingDriverApi.clearInstance();
+  }
+
+  @Override
+  public String getDriverSdkVersion() {
+    return RidesharingDriverApi.getDriverSdkVersion();
+  }
+
+  @Override
+  public void setAbnormalTerminationReportingEnabled(boolean enabled) {
+    RidesharingDriverApi.setAbnormalTerminationReportingEnabled(enabled);
+  }
+}
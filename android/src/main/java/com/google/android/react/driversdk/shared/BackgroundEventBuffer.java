@@ -0,0 +1,139 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import com.facebook.react.bridge.LifecycleEventListener;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Holds back non-critical events while the host activity is in the background, so they do not
+ * wake the JS runtime for updates no one can see.
+ *
+ * <p>Each event has a collapse key: while in the background only the latest event of each key is
+ * kept, in a queue bounded to {@link #MAX_EVENTS} keys that drops the oldest key once full. On
+ * resume the kept events are emitted in the order their keys were last updated, followed by a
+ * summary when anything was collapsed or dropped. Events that must reach JS right away, such as
+ * token requests, should not go through the buffer.
+ */
+public final class BackgroundEventBuffer implements LifecycleEventListener {
+
+  /** Status code of the summary emitted on resume. */
+  public static final String SUMMARY_STATUS_CODE = "BACKGROUND_SUMMARY";
+
+  static final int MAX_EVENTS = 64;
+
+  /** Receives the summary of a background period, after the kept events were emitted. */
+  public interface SummaryListener {
+    /**
+     * @param collapsedEvents events replaced by a later event with the same key, or dropped
+     */
+    void onBackgroundSummary(int collapsedEvents, long backgroundMillis);
+  }
+
+  private final SummaryListener summaryListener;
+
+  private final LinkedHashMap<String, Runnable> pending = new LinkedHashMap<>();
+  private int collapsedEvents = 0;
+  private long pausedAtMillis = 0;
+  private boolean enabled = false;
+  private boolean inBackground = false;
+
+  public BackgroundEventBuffer(SummaryListener summaryListener) {
+    this.summaryListener = summaryListener;
+  }
+
+  /** Enables/disables buffering. Disabling emits whatever was buffered. */
+  public void setEnabled(boolean enabled) {
+    synchronized (this) {
+      this.enabled = enabled;
+    }
+    if (!enabled) {
+      flush(false);
+    }
+  }
+
+  /** Runs {@code emit} now in the foreground, or keeps it as the latest event of {@code key}. */
+  public void emit(String key, Runnable emit) {
+    synchronized (this) {
+      if (enabled && inBackground) {
+        // Remove first so the key moves to the end of the queue.
+        if (pending.remove(key) != null) {
+          collapsedEvents++;
+        } else if (pending.size() == MAX_EVENTS) {
+          Iterator<String> oldest = pending.keySet().iterator();
+          oldest.next();
+          oldest.remove();
+          collapsedEvents++;
+        }
+        pending.put(key, emit);
+        return;
+      }
+    }
+    emit.run();
+  }
+
+  @Override
+  public void onHostResume() {
+    flush(true);
+  }
+
+  @Override
+  public void onHostPause() {
+    synchronized (this) {
+      if (!inBackground) {
+        inBackground = true;
+        pausedAtMillis = System.currentTimeMillis();
+      }
+    }
+  }
+
+  @Override
+  public void onHostDestroy() {
+    // Nothing is left to show the events to.
+    synchronized (this) {
+      inBackground = false;
+      pending.clear();
+      collapsedEvents = 0;
+    }
+  }
+
+  /** Emits the kept events and the summary. */
+  private void flush(boolean resumed) {
+    List<Runnable> events;
+    int collapsed;
+    long backgroundMillis;
+    synchronized (this) {
+      long now = System.currentTimeMillis();
+      events = new ArrayList<>(pending.values());
+      collapsed = collapsedEvents;
+      backgroundMillis = inBackground ? now - pausedAtMillis : 0;
+      pending.clear();
+      collapsedEvents = 0;
+      if (resumed) {
+        inBackground = false;
+      } else {
+        pausedAtMillis = now;
+      }
+    }
+    for (Runnable event : events) {
+      event.run();
+    }
+    if (collapsed > 0) {
+      summaryListener.onBackgroundSummary(collapsed, backgroundMillis);
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import androidx.annotation.Nullable;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+
+/**
+ * Records the path travelled by the vehicle as a simplified polyline of bounded size.
+ *
+ * <p>Locations closer than {@code minDistanceMeters} to the previous one are dropped. The rest are
+ * simplified incrementally with an opening window: points are held back while every point since
+ * the last kept one lies within {@code toleranceMeters} of the straight line to the newest point,
+ * which is the guarantee Douglas-Peucker gives without having to keep the whole trail. Kept points
+ * go to a ring buffer of primitive arrays that overwrites the oldest points once full, so memory
+ * stays constant over a whole shift.
+ *
+ * <p>Kept points are numbered by a sequence that keeps increasing across overwrites, so callers can
+ * read only the points added since their last read.
+ */
+public final class BreadcrumbRecorder {
+
+  public static final double DEFAULT_TOLERANCE_METERS = 5;
+  public static final double DEFAULT_MIN_DISTANCE_METERS = 5;
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  // Points held back before the window is closed regardless of the tolerance.
+  private static final int MAX_WINDOW = 256;
+
+  private static final double METERS_PER_DEGREE = GeoUtil.EARTH_RADIUS_METERS * Math.PI / 180;
+
+  /** Points read from the recorder, oldest first. */
+  public static final class Breadcrumbs {
+    public final double[] lats;
+    public final double[] lngs;
+    public final long[] timesMillis;
+    public final int count;
+
+    /** Sequence to pass to the next read to only receive newer points. */
+    public final long nextSequence;
+
+    /** The latest location, if it has not been kept yet. It may be replaced by a later location. */
+    public final boolean hasCurrent;
+
+    public final double currentLat;
+    public final double currentLng;
+    public final long currentTimeMillis;
+
+    Breadcrumbs(
+        double[] lats,
+        double[] lngs,
+        long[] timesMillis,
+        int count,
+        long nextSequence,
+        boolean hasCurrent,
+        double currentLat,
+        double currentLng,
+        long currentTimeMillis) {
+      this.lats = lats;
+      this.lngs = lngs;
+      this.timesMillis = timesMillis;
+      this.count = count;
+      this.nextSequence = nextSequence;
+      this.hasCurrent = hasCurrent;
+      this.currentLat = currentLat;
+      this.currentLng = currentLng;
+      this.currentTimeMillis = currentTimeMillis;
+    }
+  }
+
+  private final RoadSnappedLocationProvider.LocationListener locationListener =
+      location -> onLocation(location.getLatitude(), location.getLongitude(), location.getTime());
+  @Nullable private LocationMultiplexer source = null;
+
+  private double toleranceMeters = DEFAULT_TOLERANCE_METERS;
+  private double minDistanceMeters = DEFAULT_MIN_DISTANCE_METERS;
+
+  // Ring buffer of kept points. The point with sequence s is at index s % capacity, and the
+  // points from firstSequence (or the last capacity points, if fewer) are retained.
+  private double[] lats = new double[DEFAULT_CAPACITY];
+  private double[] lngs = new double[DEFAULT_CAPACITY];
+  private long[] timesMillis = new long[DEFAULT_CAPACITY];
+  private long firstSequence = 0;
+  private long nextSequence = 0;
+
+  // Points received since the last kept point, which the newest one may still replace.
+  private final double[] windowLats = new double[MAX_WINDOW];
+  private final double[] windowLngs = new double[MAX_WINDOW];
+  private final long[] windowTimesMillis = new long[MAX_WINDOW];
+  private int windowSize = 0;
+
+  /**
+   * Updates the simplification parameters. A different capacity discards the recorded points.
+   *
+   * @param toleranceMeters maximum distance between a dropped point and the recorded polyline
+   * @param minDistanceMeters locations closer than this to the previous location are ignored
+   */
+  public synchronized void configure(
+      double toleranceMeters, double minDistanceMeters, int capacity) {
+    this.toleranceMeters = Math.max(0, toleranceMeters);
+    this.minDistanceMeters = Math.max(0, minDistanceMeters);
+    int newCapacity = Math.max(2, capacity);
+    if (newCapacity != lats.length) {
+      lats = new double[newCapacity];
+      lngs = new double[newCapacity];
+      timesMillis = new long[newCapacity];
+      clear();
+    }
+  }
+
+  /** Starts recording the locations delivered by a multiplexer, replacing any previous one. */
+  public synchronized void attach(LocationMultiplexer source) {
+    detach();
+    this.source = source;
+    source.addLocationListener(locationListener);
+  }
+
+  /** Stops recording. The recorded points are kept. */
+  public synchronized void detach() {
+    if (source != null) {
+      source.removeLocationListener(locationListener);
+      source = null;
+    }
+  }
+
+  /** Discards every recorded point. Sequences keep increasing. */
+  public synchronized void clear() {
+    firstSequence = nextSequence;
+    windowSize = 0;
+  }
+
+  public synchronized void onLocation(double lat, double lng, long timeMillis) {
+    if (nextSequence == firstSequence) {
+      keep(lat, lng, timeMillis);
+      return;
+    }
+
+    double lastLat;
+    double lastLng;
+    if (windowSize > 0) {
+      lastLat = windowLats[windowSize - 1];
+      lastLng = windowLngs[windowSize - 1];
+    } else {
+      int last = index(nextSequence - 1);
+      lastLat = lats[last];
+      lastLng = lngs[last];
+    }
+    if (GeoUtil.distanceMeters(lastLat, lastLng, lat, lng) < minDistanceMeters) {
+      return;
+    }
+
+    if (windowSize == MAX_WINDOW || !windowFitsSegmentTo(lat, lng)) {
+      // The previous location is the last one the window can be collapsed to.
+      int last = windowSize - 1;
+      keep(windowLats[last], windowLngs[last], windowTimesMillis[last]);
+      windowSize = 0;
+    }
+    windowLats[windowSize] = lat;
+    windowLngs[windowSize] = lng;
+    windowTimesMillis[windowSize] = timeMillis;
+    windowSize++;
+  }
+
+  /** Returns the points kept with a sequence of at least {@code sinceSequence}, oldest first. */
+  public synchronized Breadcrumbs read(long sinceSequence) {
+    long first = Math.max(sinceSequence, Math.max(firstSequence, nextSequence - lats.length));
+    int count = (int) Math.max(0, nextSequence - first);
+    double[] outLats = new double[count];
+    double[] outLngs = new double[count];
+    long[] outTimes = new long[count];
+    for (int i = 0; i < count; i++) {
+      int index = index(first + i);
+      outLats[i] = lats[index];
+      outLngs[i] = lngs[index];
+      outTimes[i] = timesMillis[index];
+    }
+    boolean hasCurrent = windowSize > 0;
+    int current = windowSize - 1;
+    return new Breadcrumbs(
+        outLats,
+        outLngs,
+        outTimes,
+        count,
+        nextSequence,
+        hasCurrent,
+        hasCurrent ? windowLats[current] : 0,
+        hasCurrent ? windowLngs[current] : 0,
+        hasCurrent ? windowTimesMillis[current] : 0);
+  }
+
+  /**
+   * Translates breadcrumbs for JS. Points are flattened into one {@code [lat, lng, time, ...]}
+   * array to keep the payload small.
+   */
+  public static WritableMap toWritableMap(Breadcrumbs breadcrumbs) {
+    WritableArray points = Arguments.createArray();
+    for (int i = 0; i < breadcrumbs.count; i++) {
+      points.pushDouble(breadcrumbs.lats[i]);
+      points.pushDouble(breadcrumbs.lngs[i]);
+      points.pushDouble(breadcrumbs.timesMillis[i]);
+    }
+    WritableMap map = Arguments.createMap();
+    map.putArray("points", points);
+    map.putDouble("nextSequence", breadcrumbs.nextSequence);
+    if (breadcrumbs.hasCurrent) {
+      WritableArray current = Arguments.createArray();
+      current.pushDouble(breadcrumbs.currentLat);
+      current.pushDouble(breadcrumbs.currentLng);
+      current.pushDouble(breadcrumbs.currentTimeMillis);
+      map.putArray("current", current);
+    }
+    return map;
+  }
+
+  /** Whether every point in the window is within the tolerance of last kept point -> (lat, lng). */
+  private boolean windowFitsSegmentTo(double lat, double lng) {
+    int anchor = index(nextSequence - 1);
+    double anchorLat = lats[anchor];
+    double anchorLng = lngs[anchor];
+    // Project around the anchor; segments are short enough for the error to be negligible.
+    double metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(anchorLat));
+    double endX = (lng - anchorLng) * metersPerDegreeLng;
+    double endY = (lat - anchorLat) * METERS_PER_DEGREE;
+    double lengthSquared = endX * endX + endY * endY;
+    for (int i = 0; i < windowSize; i++) {
+      double x = (windowLngs[i] - anchorLng) * metersPerDegreeLng;
+      double y = (windowLats[i] - anchorLat) * METERS_PER_DEGREE;
+      double t = lengthSquared > 0 ? (x * endX + y * endY) / lengthSquared : 0;
+      t = Math.max(0, Math.min(1, t));
+      double dx = x - t * endX;
+      double dy = y - t * endY;
+      if (dx * dx + dy * dy > toleranceMeters * toleranceMeters) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void keep(double lat, double lng, long timeMillis) {
+    int index = index(nextSequence);
+    lats[index] = lat;
+    lngs[index] = lng;
+    timesMillis[index] = timeMillis;
+    nextSequence++;
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % lats.length);
+  }
+}
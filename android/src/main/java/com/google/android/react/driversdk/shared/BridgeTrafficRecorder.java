@@ -0,0 +1,435 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Opt-in recorder of the traffic that crosses the bridge, so field performance problems can be
+ * replayed as local benchmarks.
+ *
+ * <p>While recording, token requests and their resolutions, status updates, successful vehicle
+ * updates and fetched vehicles are timestamped and appended to a compact binary file: a header,
+ * then one record per event made of a type byte, the milliseconds since the previous event as a
+ * varint, and the event fields. Strings are cut to {@value #MAX_STRING_LENGTH} characters. Each
+ * record is encoded in full before it is written, on a single background thread, and recording
+ * stops writing once the file reaches its size limit.
+ *
+ * <p>Tokens are never written. Fetched vehicles are recorded by their serialized size only, unless
+ * the recording was started with {@code captureVehicles}: their stop locations, place ids and
+ * titles are then written too, and the recording must be handled like the vehicle data.
+ *
+ * <p>Recordings are decoded with {@link #read}.
+ */
+public final class BridgeTrafficRecorder {
+
+  public static final int EVENT_TOKEN_REQUESTED = 1;
+  public static final int EVENT_TOKEN_RESOLVED = 2;
+  public static final int EVENT_TOKEN_REJECTED = 3;
+  public static final int EVENT_STATUS_UPDATE = 4;
+  public static final int EVENT_VEHICLE_UPDATE = 5;
+  public static final int EVENT_VEHICLE_FETCHED = 6;
+
+  private static final String TAG = "BridgeTrafficRecorder";
+  private static final int MAGIC = 0x44534254;
+  private static final int FORMAT_VERSION = 2;
+  private static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+  // Longer strings are cut, keeping them well within what DataOutputStream.writeUTF can encode.
+  static final int MAX_STRING_LENGTH = 4096;
+
+  /** A recorded event. Fields that do not apply to its type are empty. */
+  public static final class Event {
+    public final int type;
+
+    /** Milliseconds since the recording started. */
+    public final long timeMillis;
+
+    /** Token request the event belongs to. */
+    public final String requestId;
+
+    public final String vehicleId;
+    public final String taskId;
+    public final String statusLevel;
+    public final String statusCode;
+    public final String statusMessage;
+
+    /** Serialized size of the fetched vehicle. */
+    public final long payloadSize;
+
+    /** Fetched vehicle, as serialized by its module, if captured. Empty otherwise. */
+    public final byte[] payload;
+
+    Event(
+        int type,
+        long timeMillis,
+        String requestId,
+        String vehicleId,
+        String taskId,
+        String statusLevel,
+        String statusCode,
+        String statusMessage,
+        long payloadSize,
+        byte[] payload) {
+      this.type = type;
+      this.timeMillis = timeMillis;
+      this.requestId = requestId;
+      this.vehicleId = vehicleId;
+      this.taskId = taskId;
+      this.statusLevel = statusLevel;
+      this.statusCode = statusCode;
+      this.statusMessage = statusMessage;
+      this.payloadSize = payloadSize;
+      this.payload = payload;
+    }
+  }
+
+  /** A decoded recording. */
+  public static final class Trace {
+    /** Wall clock time the recording started at. */
+    public final long startedAtMillis;
+
+    public final List<Event> events;
+
+    Trace(long startedAtMillis, List<Event> events) {
+      this.startedAtMillis = startedAtMillis;
+      this.events = events;
+    }
+  }
+
+  private interface RecordBody {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  /** An open recording file, only touched on its writer thread. */
+  private static final class Recording {
+    final File file;
+    final DataOutputStream out;
+    final ExecutorService writer = Executors.newSingleThreadExecutor();
+    final long startedAtMillis;
+    final long maxBytes;
+    final boolean captureVehicles;
+
+    // Each record is encoded here first, so only whole records reach the file.
+    final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    final DataOutputStream record = new DataOutputStream(recordBytes);
+
+    long lastEventMillis = 0;
+
+    // Whether the size limit was reached, or the file could not be written to.
+    boolean full = false;
+    boolean failed = false;
+
+    Recording(
+        File file,
+        DataOutputStream out,
+        long startedAtMillis,
+        long maxBytes,
+        boolean captureVehicles) {
+      this.file = file;
+      this.out = out;
+      this.startedAtMillis = startedAtMillis;
+      this.maxBytes = maxBytes;
+      this.captureVehicles = captureVehicles;
+    }
+  }
+
+  private final LongSupplier clock;
+  private final long maxBytes;
+
+  @Nullable private volatile Recording recording = null;
+
+  public BridgeTrafficRecorder() {
+    this(SystemClock::elapsedRealtime, DEFAULT_MAX_BYTES);
+  }
+
+  BridgeTrafficRecorder(LongSupplier clock, long maxBytes) {
+    this.clock = clock;
+    this.maxBytes = maxBytes;
+  }
+
+  public boolean isRecording() {
+    return recording != null;
+  }
+
+  /**
+   * Starts a new recording in {@code file}, replacing its contents and any running recording.
+   *
+   * @param captureVehicles whether to write fetched vehicles in full rather than their size, for
+   *     replays that need the routes. The recording then holds customer locations.
+   */
+  public synchronized void start(File file, boolean captureVehicles) throws IOException {
+    stop(ignored -> {});
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeByte(FORMAT_VERSION);
+      out.writeLong(System.currentTimeMillis());
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+    recording = new Recording(file, out, clock.getAsLong(), maxBytes, captureVehicles);
+  }
+
+  /**
+   * Stops recording. {@code callback} receives the recording file once it is complete, or null if
+   * nothing was being recorded.
+   */
+  public synchronized void stop(Consumer<File> callback) {
+    Recording stopped = recording;
+    if (stopped == null) {
+      callback.accept(null);
+      return;
+    }
+    recording = null;
+    stopped.writer.execute(
+        () -> {
+          try {
+            stopped.out.close();
+          } catch (IOException e) {
+            Log.w(TAG, "Failed to close " + stopped.file, e);
+          }
+          callback.accept(stopped.file);
+        });
+    stopped.writer.shutdown();
+  }
+
+  /** Records a token request emitted to JS. */
+  public void recordTokenRequested(String requestId, String vehicleId, String taskId) {
+    if (recording != null) {
+      record(
+          EVENT_TOKEN_REQUESTED,
+          out -> {
+            writeString(out, requestId);
+            writeString(out, vehicleId);
+            writeString(out, taskId);
+          });
+    }
+  }
+
+  /** Records JS resolving a token request. */
+  public void recordTokenResolved(String requestId) {
+    if (recording != null) {
+      record(EVENT_TOKEN_RESOLVED, out -> writeString(out, requestId));
+    }
+  }
+
+  /** Records JS rejecting a token request. */
+  public void recordTokenRejected(String requestId) {
+    if (recording != null) {
+      record(EVENT_TOKEN_REJECTED, out -> writeString(out, requestId));
+    }
+  }
+
+  /** Records a status update emitted to JS. */
+  public void recordStatusUpdate(String level, String code, @Nullable String message) {
+    if (recording != null) {
+      record(
+          EVENT_STATUS_UPDATE,
+          out -> {
+            writeString(out, level);
+            writeString(out, code);
+            writeString(out, message != null ? message : "");
+          });
+    }
+  }
+
+  /** Records a successful vehicle update. */
+  public void recordVehicleUpdate() {
+    if (recording != null) {
+      record(EVENT_VEHICLE_UPDATE, out -> {});
+    }
+  }
+
+  /**
+   * Records a fetched vehicle, serialized by the module that fetched it. Only its size is written
+   * unless the recording captures vehicles.
+   */
+  public void recordVehicleFetched(byte[] payload) {
+    Recording current = recording;
+    if (current != null) {
+      boolean capture = current.captureVehicles;
+      record(
+          EVENT_VEHICLE_FETCHED,
+          out -> {
+            writeVarLong(out, payload.length);
+            writeVarLong(out, capture ? payload.length : 0);
+            if (capture) {
+              out.write(payload);
+            }
+          });
+    }
+  }
+
+  private synchronized void record(int type, RecordBody body) {
+    Recording current = recording;
+    if (current == null) {
+      return;
+    }
+    // Timestamps are taken under the lock so records are queued in time order.
+    long timeMillis = clock.getAsLong() - current.startedAtMillis;
+    current.writer.execute(() -> write(current, type, timeMillis, body));
+  }
+
+  private static void write(Recording recording, int type, long timeMillis, RecordBody body) {
+    if (recording.full || recording.failed) {
+      return;
+    }
+    recording.recordBytes.reset();
+    try {
+      recording.record.writeByte(type);
+      writeVarLong(recording.record, timeMillis - recording.lastEventMillis);
+      body.write(recording.record);
+    } catch (IOException e) {
+      // Only this record is lost.
+      Log.w(TAG, "Failed to encode event " + type, e);
+      return;
+    }
+    try {
+      recording.recordBytes.writeTo(recording.out);
+      recording.lastEventMillis = timeMillis;
+    } catch (IOException e) {
+      Log.w(TAG, "Failed to write " + recording.file, e);
+      recording.failed = true;
+    }
+    if (recording.out.size() >= recording.maxBytes) {
+      recording.full = true;
+    }
+  }
+
+  /**
+   * Decodes a recording. A record cut short, as left behind when the process dies while recording,
+   * ends the trace.
+   *
+   * @throws IOException if the data is not a recording or cannot be read
+   */
+  public static Trace read(InputStream input) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+    if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+      throw new IOException("Not a bridge traffic recording");
+    }
+    long startedAtMillis = in.readLong();
+
+    List<Event> events = new ArrayList<>();
+    long timeMillis = 0;
+    int type;
+    while ((type = in.read()) >= 0) {
+      try {
+        timeMillis += readVarLong(in);
+        events.add(readEvent(in, type, timeMillis));
+      } catch (EOFException e) {
+        break;
+      }
+    }
+    return new Trace(startedAtMillis, Collections.unmodifiableList(events));
+  }
+
+  private static Event readEvent(DataInputStream in, int type, long timeMillis)
+      throws IOException {
+    String requestId = "";
+    String vehicleId = "";
+    String taskId = "";
+    String statusLevel = "";
+    String statusCode = "";
+    String statusMessage = "";
+    long payloadSize = 0;
+    byte[] payload = new byte[0];
+    switch (type) {
+      case EVENT_TOKEN_REQUESTED:
+        requestId = in.readUTF();
+        vehicleId = in.readUTF();
+        taskId = in.readUTF();
+        break;
+      case EVENT_TOKEN_RESOLVED:
+      case EVENT_TOKEN_REJECTED:
+        requestId = in.readUTF();
+        break;
+      case EVENT_STATUS_UPDATE:
+        statusLevel = in.readUTF();
+        statusCode = in.readUTF();
+        statusMessage = in.readUTF();
+        break;
+      case EVENT_VEHICLE_UPDATE:
+        break;
+      case EVENT_VEHICLE_FETCHED:
+        payloadSize = readVarLong(in);
+        long captured = readVarLong(in);
+        if (captured > Integer.MAX_VALUE) {
+          throw new IOException("Invalid payload length " + captured);
+        }
+        payload = new byte[(int) captured];
+        in.readFully(payload);
+        break;
+      default:
+        throw new IOException("Unknown event type " + type);
+    }
+    return new Event(
+        type,
+        timeMillis,
+        requestId,
+        vehicleId,
+        taskId,
+        statusLevel,
+        statusCode,
+        statusMessage,
+        payloadSize,
+        payload);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeUTF(
+        value.length() > MAX_STRING_LENGTH ? value.substring(0, MAX_STRING_LENGTH) : value);
+  }
+
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+}
@@ -13,19 +13,40 @@
  */
 package com.google.android.react.driversdk.shared;
 
+import android.util.Log;
+import androidx.annotation.Nullable;
 import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.AuthTokenContext;
 import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.AuthTokenContext.AuthTokenFactory;
 import com.google.common.util.concurrent.SettableFuture;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Auth token factory that requests tokens from JS via the React Native bridge.
  *
  * <p>When the native Driver SDK needs a token (on each location update), this factory: 1. Generates
  * a unique requestId. 2. Emits an event to JS via the provided callback. 3. Blocks until JS
- * resolves or rejects the request.
+ * resolves or rejects the request. Threads asking for the same context while a request is in
+ * flight wait for that request instead of emitting another event.
+ *
+ * <p>When token caching is enabled, granted tokens are kept in a {@link TokenCache} until shortly
+ * before they expire and served from there without involving JS.
+ *
+ * <p>Tokens can also be prefetched in batches (see {@link #prefetchTokens}): JS is asked once for
+ * tokens covering several task contexts, and the results are put in the cache so that later task
+ * actions do not need a bridge round trip.
+ *
+ * <p>When a native token factory is set (see {@link HttpAuthTokenFactory}), tokens are fetched
+ * from it first so reporting does not depend on the JS thread. JS is only asked if it fails.
+ *
+ * <p>Requests to JS belong to the epoch of the driver instance they were made for. {@link
+ * #cancelAllPendingRequests} ends the current epoch: its requests fail, and so does any later one
+ * until {@link #beginEpoch} is called for a new instance, so SDK threads of a cleared instance
+ * never wait out the timeout. Requests of different epochs never share a round trip.
  *
  * <p>This mirrors the pattern used in the Flutter Driver SDK's AccessTokenProvider.
  */
@@ -36,43 +57,208 @@ public class DriverAuthTokenFactory implements AuthTokenFactory {
     void onTokenRequested(String requestId, String vehicleId, String taskId);
   }
 
-  private static final long TOKEN_TIMEOUT_SECONDS = 30;
+  /** Callback interface for requesting a batch of tokens from JS. */
+  public interface BatchTokenRequestCallback {
+    /**
+     * @param taskIds the task ids to mint tokens for; an empty id stands for the vehicle token
+     */
+    void onTokensRequested(String requestId, String vehicleId, List<String> taskIds);
+  }
+
+  /** The token requests of one driver instance. */
+  private static final class Epoch {
+    final long id;
+    volatile boolean ended = false;
+
+    Epoch(long id) {
+      this.id = id;
+    }
+  }
+
+  /** A batch request waiting for JS, and when it was issued. */
+  private static final class PendingBatch {
+    final String vehicleId;
+    final List<String> taskIds;
+    final long requestedAtMillis;
+
+    PendingBatch(String vehicleId, List<String> taskIds, long requestedAtMillis) {
+      this.vehicleId = vehicleId;
+      this.taskIds = taskIds;
+      this.requestedAtMillis = requestedAtMillis;
+    }
+  }
+
+  private static final String TAG = "DriverAuthTokenFactory";
+  private static final String INSTANCE_CLEARED_MESSAGE = "Driver instance cleared";
+  private static final long DEFAULT_TOKEN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
 
   private final ConcurrentHashMap<String, SettableFuture<String>> pendingRequests =
       new ConcurrentHashMap<>();
 
-  private TokenRequestCallback tokenRequestCallback;
+  // Requests waiting for JS keyed by context, so concurrent callers share a single round trip.
+  private final ConcurrentHashMap<String, SettableFuture<String>> inFlightRequests =
+      new ConcurrentHashMap<>();
+
+  // Request ids only need to be unique within this process; a counter avoids SecureRandom.
+  private final AtomicLong nextRequestId = new AtomicLong();
+
+  private final ConcurrentHashMap<String, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+
+  private final TokenCache tokenCache = new TokenCache();
+  private final long tokenTimeoutMillis;
+  private volatile Epoch epoch = new Epoch(0);
+
+  // Set on the module's thread and read on SDK threads.
+  @Nullable private volatile TokenRequestCallback tokenRequestCallback = null;
+  @Nullable private volatile BatchTokenRequestCallback batchTokenRequestCallback = null;
+  private volatile boolean tokenCachingEnabled = false;
+  @Nullable private volatile AuthTokenFactory nativeTokenFactory = null;
+  @Nullable private volatile Runnable tokenGrantListener = null;
+
+  public DriverAuthTokenFactory() {
+    this(DEFAULT_TOKEN_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param tokenTimeoutMillis how long token requests wait for JS, and batch requests are kept
+   */
+  DriverAuthTokenFactory(long tokenTimeoutMillis) {
+    this.tokenTimeoutMillis = tokenTimeoutMillis;
+  }
 
   public void setTokenRequestCallback(TokenRequestCallback callback) {
     this.tokenRequestCallback = callback;
   }
 
+  public void setBatchTokenRequestCallback(BatchTokenRequestCallback callback) {
+    this.batchTokenRequestCallback = callback;
+  }
+
+  /**
+   * Enables caching of tokens granted by JS until shortly before they expire. Cached tokens are
+   * served without a bridge round trip.
+   */
+  public void setTokenCachingEnabled(boolean enabled) {
+    this.tokenCachingEnabled = enabled;
+  }
+
+  /**
+   * Sets a factory that provides tokens natively, bypassing JS. Pass null to go back to requesting
+   * every token from JS.
+   */
+  public void setNativeTokenFactory(@Nullable AuthTokenFactory factory) {
+    this.nativeTokenFactory = factory;
+  }
+
+  /** Sets a listener called each time a token is handed to the SDK, wherever it came from. */
+  public void setTokenGrantListener(@Nullable Runnable listener) {
+    this.tokenGrantListener = listener;
+  }
+
+  /** Returns the number of single and batch token requests waiting for JS. */
+  public int getPendingRequestCount() {
+    return pendingRequests.size() + pendingBatches.size();
+  }
+
+  public TokenCache getTokenCache() {
+    return tokenCache;
+  }
+
   @Override
   public String getToken(AuthTokenContext context) {
-    if (tokenRequestCallback == null) {
+    String vehicleId = context.getVehicleId() != null ? context.getVehicleId() : "";
+    String taskId = context.getTaskId() != null ? context.getTaskId() : "";
+    return grantToken(fetchToken(vehicleId, taskId, context));
+  }
+
+  /**
+   * Returns a token like the SDK would get one, for a caller that has no SDK context to hand the
+   * native token factory, such as a simulated backend. The native token factory is skipped.
+   */
+  String getToken(String vehicleId, String taskId) {
+    return grantToken(fetchToken(vehicleId, taskId, null));
+  }
+
+  private String grantToken(String token) {
+    Runnable listener = tokenGrantListener;
+    if (listener != null) {
+      listener.run();
+    }
+    return token;
+  }
+
+  private String fetchToken(String vehicleId, String taskId, @Nullable AuthTokenContext context) {
+    String cachedToken = tokenCache.get(vehicleId, taskId);
+    if (cachedToken != null) {
+      return cachedToken;
+    }
+
+    AuthTokenFactory nativeFactory = nativeTokenFactory;
+    if (nativeFactory != null && context != null) {
+      try {
+        return nativeFactory.getToken(context);
+      } catch (RuntimeException e) {
+        Log.w(TAG, "Native token fetch failed, falling back to JS", e);
+      }
+    }
+
+    return requestTokenFromJs(vehicleId, taskId);
+  }
+
+  /** Requests a token from JS and blocks until it is resolved, rejected or times out. */
+  String requestTokenFromJs(String vehicleId, String taskId) {
+    TokenRequestCallback callback = tokenRequestCallback;
+    if (callback == null) {
       throw new RuntimeException(
           "Token request callback not set. Ensure the module is initialized.");
     }
 
-    String requestId = UUID.randomUUID().toString();
+    Epoch requestEpoch = epoch;
+    if (requestEpoch.ended) {
+      throw new RuntimeException(INSTANCE_CLEARED_MESSAGE);
+    }
+
+    String contextKey = requestEpoch.id + "\n" + vehicleId + '\n' + taskId;
     SettableFuture<String> future = SettableFuture.create();
+    SettableFuture<String> inFlight = inFlightRequests.putIfAbsent(contextKey, future);
+    if (inFlight != null) {
+      try {
+        return inFlight.get(tokenTimeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to get auth token from JS", e);
+      }
+    }
+
+    String requestId = Long.toString(nextRequestId.incrementAndGet());
     pendingRequests.put(requestId, future);
 
+    DriverTrace.AsyncSlice slice = DriverTrace.beginAsync(DriverTrace.TOKEN_REQUEST);
     try {
-      String vehicleId = context.getVehicleId() != null ? context.getVehicleId() : "";
-      String taskId = context.getTaskId() != null ? context.getTaskId() : "";
-      tokenRequestCallback.onTokenRequested(requestId, vehicleId, taskId);
-      return future.get(TOKEN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      // The epoch ends before its requests are cancelled, so a request registered too late for the
+      // cancellation sees it ended here.
+      if (requestEpoch.ended) {
+        throw new RuntimeException(INSTANCE_CLEARED_MESSAGE);
+      }
+      callback.onTokenRequested(requestId, vehicleId, taskId);
+      String token = future.get(tokenTimeoutMillis, TimeUnit.MILLISECONDS);
+      if (tokenCachingEnabled && !requestEpoch.ended) {
+        tokenCache.put(vehicleId, taskId, token);
+      }
+      return token;
     } catch (Exception e) {
+      // Waiters on the same context must not hang until their own timeout.
+      future.setException(e);
       throw new RuntimeException("Failed to get auth token from JS", e);
     } finally {
+      slice.end();
       pendingRequests.remove(requestId);
+      inFlightRequests.remove(contextKey, future);
     }
   }
 
   /** Called from JS when a token request is resolved successfully. */
   public void resolveToken(String requestId, String token) {
-    SettableFuture<String> future = pendingRequests.get(requestId);
+    SettableFuture<String> future = pendingRequests.remove(requestId);
     if (future != null) {
       future.set(token);
     }
@@ -80,17 +266,106 @@ public class DriverAuthTokenFactory implements AuthTokenFactory {
 
   /** Called from JS when a token request fails. */
   public void rejectToken(String requestId, String error) {
-    SettableFuture<String> future = pendingRequests.get(requestId);
+    SettableFuture<String> future = pendingRequests.remove(requestId);
     if (future != null) {
       future.setException(new RuntimeException(error));
     }
   }
 
-  /** Cancels all pending token requests. Called when the driver instance is cleared. */
-  public void cancelAllPendingRequests() {
-    for (SettableFuture<String> future : pendingRequests.values()) {
-      future.setException(new RuntimeException("Driver instance cleared"));
+  /**
+   * Asks JS in a single round trip for tokens covering the given task contexts of a vehicle.
+   * Contexts that already have a usable cached token, or are part of a batch still waiting for
+   * JS, are skipped. Returns immediately; granted tokens are cached when JS resolves the batch.
+   *
+   * @param taskIds the task ids to mint tokens for; an empty id stands for the vehicle token
+   */
+  public void prefetchTokens(String vehicleId, List<String> taskIds) {
+    BatchTokenRequestCallback callback = batchTokenRequestCallback;
+    if (callback == null || epoch.ended) {
+      return;
+    }
+
+    // Batches JS never answered are dropped after the same timeout as single requests.
+    long now = System.currentTimeMillis();
+    pendingBatches.values().removeIf(batch -> now - batch.requestedAtMillis > tokenTimeoutMillis);
+
+    List<String> missing = new ArrayList<>();
+    for (String taskId : taskIds) {
+      if (tokenCache.get(vehicleId, taskId) == null
+          && !missing.contains(taskId)
+          && !isPendingInBatch(vehicleId, taskId)) {
+        missing.add(taskId);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+
+    String requestId = Long.toString(nextRequestId.incrementAndGet());
+    pendingBatches.put(
+        requestId, new PendingBatch(vehicleId, Collections.unmodifiableList(missing), now));
+    callback.onTokensRequested(requestId, vehicleId, missing);
+  }
+
+  /**
+   * Called from JS with the tokens of a batch request, in the order the task ids were requested.
+   * Empty entries mark contexts JS could not mint a token for. Tokens without a readable expiry are
+   * not cached.
+   */
+  public void resolveTokens(String requestId, List<String> tokens) {
+    PendingBatch batch = pendingBatches.remove(requestId);
+    if (batch == null) {
+      return;
+    }
+    int count = Math.min(tokens.size(), batch.taskIds.size());
+    for (int i = 0; i < count; i++) {
+      String token = tokens.get(i);
+      if (token != null && !token.isEmpty()) {
+        tokenCache.put(batch.vehicleId, batch.taskIds.get(i), token);
+      }
+    }
+  }
+
+  private boolean isPendingInBatch(String vehicleId, String taskId) {
+    for (PendingBatch batch : pendingBatches.values()) {
+      if (batch.vehicleId.equals(vehicleId) && batch.taskIds.contains(taskId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Begins the epoch of a new driver instance. Until then, token requests to JS fail right away
+   * once {@link #cancelAllPendingRequests} has been called.
+   */
+  public synchronized void beginEpoch() {
+    Epoch current = epoch;
+    if (current.ended) {
+      epoch = new Epoch(current.id + 1);
+    }
+  }
+
+  /**
+   * Ends the current epoch and cancels all pending token requests. Called when the driver instance
+   * is cleared.
+   */
+  public synchronized void cancelAllPendingRequests() {
+    epoch.ended = true;
+    // Entries are failed one by one rather than cleared, so a request added concurrently is either
+    // cancelled or stays resolvable, and never left waiting for its timeout.
+    for (String requestId : pendingRequests.keySet()) {
+      SettableFuture<String> future = pendingRequests.remove(requestId);
+      if (future != null) {
+        future.setException(new RuntimeException(INSTANCE_CLEARED_MESSAGE));
+      }
+    }
+    for (String contextKey : inFlightRequests.keySet()) {
+      SettableFuture<String> future = inFlightRequests.remove(contextKey);
+      if (future != null) {
+        future.setException(new RuntimeException(INSTANCE_CLEARED_MESSAGE));
+      }
     }
-    pendingRequests.clear();
+    pendingBatches.clear();
   }
 }
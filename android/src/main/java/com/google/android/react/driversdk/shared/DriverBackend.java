@@ -0,0 +1,66 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.app.Application;
+import androidx.annotation.Nullable;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
+import com.google.android.libraries.navigation.Navigator;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+
+/**
+ * The Driver SDK entry points a driver module depends on.
+ *
+ * <p>The modules reach the SDK's static API singletons only through a backend, so they can run
+ * against the real Driver SDK or against a simulated Fleet Engine on a plain JVM.
+ *
+ * @param <R> the vehicle reporter of the backend
+ */
+public interface DriverBackend<R extends DriverBackend.VehicleReporter> {
+
+  /** Reports the vehicle location to Fleet Engine. */
+  interface VehicleReporter {
+    void enableLocationTracking();
+
+    void disableLocationTracking();
+
+    boolean isLocationTrackingEnabled();
+
+    void setLocationReportingInterval(long intervalSeconds);
+  }
+
+  /** Returns true if a driver API instance exists. */
+  boolean hasInstance();
+
+  /**
+   * Creates the driver API instance and returns its vehicle reporter.
+   *
+   * @param tokenFactory provides the auth tokens of every Fleet Engine request
+   * @param statusListener receives the status of vehicle updates
+   */
+  R createInstance(
+      @Nullable Application application,
+      @Nullable Navigator navigator,
+      @Nullable RoadSnappedLocationProvider locationProvider,
+      String providerId,
+      String vehicleId,
+      DriverAuthTokenFactory tokenFactory,
+      DriverStatusListener statusListener);
+
+  void clearInstance();
+
+  String getDriverSdkVersion();
+
+  void setAbnormalTerminationReportingEnabled(boolean enabled);
+}
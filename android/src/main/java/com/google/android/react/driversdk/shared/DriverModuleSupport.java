@@ -0,0 +1,577 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import androidx.annotation.Nullable;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusLevel;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The reporting features both driver modules offer, wired up once: auth tokens, the vehicle
+ * reporter settings, memory pressure, state persistence, the reporting watchdog and profiler,
+ * bridge recording, background event buffering, location subscribers and breadcrumbs.
+ *
+ * <p>A module creates one support object, hands the events it emits to its own spec, and delegates
+ * the methods of these features to it. Only what is specific to a module, such as delivery
+ * vehicles or the online state of a ridesharing vehicle, stays in the module.
+ *
+ * @param <R> the vehicle reporter of the module's backend
+ */
+public final class DriverModuleSupport<R extends DriverBackend.VehicleReporter> {
+
+  /** Reporting interval of a new vehicle reporter. */
+  public static final double SDK_DEFAULT_INTERVAL_SECONDS = 10;
+
+  /** The events of the shared features, emitted through the spec of the module. */
+  public interface Events {
+    void onGetToken(WritableMap map);
+
+    void onStatusUpdate(WritableMap map);
+
+    void onReportingHealthChanged(WritableMap map);
+
+    void onLocationBatch(WritableMap map);
+  }
+
+  @Nullable private final ReactApplicationContext reactContext;
+  private final Function<String, EncryptedStateStore> stateStoreFactory;
+  private final String stateStoreName;
+  private final String bridgeRecordingFileName;
+  private final Events events;
+
+  private final DriverAuthTokenFactory tokenFactory = new DriverAuthTokenFactory();
+  @Nullable private volatile HttpAuthTokenFactory httpTokenFactory = null;
+  private final MemoryPressureMonitor memoryPressureMonitor =
+      new MemoryPressureMonitor(this::onMemoryPressure);
+  @Nullable private volatile MemoryPressureMonitor.Listener memoryPressureListener = null;
+
+  // Collapses non-critical events while the app is in the background, once enabled from JS.
+  private final BackgroundEventBuffer backgroundEventBuffer =
+      new BackgroundEventBuffer(this::onBackgroundSummary);
+
+  // Stall detection for location reporting. It only runs while location tracking is enabled.
+  private final ReportingWatchdog reportingWatchdog;
+  private volatile boolean reportingWatchdogEnabled = false;
+
+  // Records the traffic crossing the bridge while JS has a recording running.
+  private final BridgeTrafficRecorder bridgeTrafficRecorder = new BridgeTrafficRecorder();
+
+  // Effective state served to synchronous reads from JS.
+  private final DriverStateRecord stateRecord = new DriverStateRecord();
+
+  @Nullable private R vehicleReporter = null;
+  private volatile boolean locationTrackingEnabled = false;
+
+  // Interval last requested from JS, and the interval to fall back to under memory pressure.
+  private double reportingIntervalSeconds = 0;
+  private double memoryPressureIntervalSeconds = 0;
+
+  // Cost of location reporting per interval, while profiling is enabled from JS.
+  private final ReportingProfiler reportingProfiler =
+      new ReportingProfiler(SDK_DEFAULT_INTERVAL_SECONDS);
+
+  @Nullable private EncryptedStateStore stateStore = null;
+
+  // Single listener on the provider the SDK reports from, shared by every location consumer.
+  private final LocationMultiplexer locationMultiplexer;
+
+  private final BreadcrumbRecorder breadcrumbRecorder = new BreadcrumbRecorder();
+
+  /**
+   * @param stateStoreName name of the encrypted store used while state persistence is enabled
+   * @param bridgeRecordingFileName name of the bridge recording in the cache directory
+   */
+  public DriverModuleSupport(
+      @Nullable ReactApplicationContext reactContext,
+      String stateStoreName,
+      String bridgeRecordingFileName,
+      Events events) {
+    this(
+        reactContext,
+        name -> new EncryptedStateStore(reactContext, name),
+        stateStoreName,
+        bridgeRecordingFileName,
+        events);
+  }
+
+  DriverModuleSupport(
+      @Nullable ReactApplicationContext reactContext,
+      Function<String, EncryptedStateStore> stateStoreFactory,
+      String stateStoreName,
+      String bridgeRecordingFileName,
+      Events events) {
+    this.reactContext = reactContext;
+    this.stateStoreFactory = stateStoreFactory;
+    this.stateStoreName = stateStoreName;
+    this.bridgeRecordingFileName = bridgeRecordingFileName;
+    this.events = events;
+
+    reportingWatchdog =
+        new ReportingWatchdog(
+            health -> events.onReportingHealthChanged(ReportingWatchdog.toWritableMap(health)),
+            tokenFactory::getPendingRequestCount,
+            UiThreadUtil::runOnUiThread);
+    locationMultiplexer =
+        new LocationMultiplexer(
+            (sample, fieldMask, subscribers) -> {
+              reportingProfiler.onBridgeEvent();
+              events.onLocationBatch(
+                  LocationMultiplexer.toWritableMap(sample, fieldMask, subscribers));
+            });
+
+    tokenFactory.setTokenGrantListener(reportingWatchdog::onTokenGranted);
+
+    // Wire up the token factory to emit events to JS when a token is needed.
+    tokenFactory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) -> {
+          reportingProfiler.onTokenRequest();
+          reportingProfiler.onUiThreadHop();
+          DriverTrace.AsyncSlice uiHop = DriverTrace.beginAsync(DriverTrace.TOKEN_REQUEST_UI_HOP);
+          UiThreadUtil.runOnUiThread(
+              () -> {
+                uiHop.end();
+                try (DriverTrace.Section trace = DriverTrace.section(DriverTrace.EMIT_GET_TOKEN)) {
+                  WritableMap map = Arguments.createMap();
+                  map.putString("requestId", requestId);
+                  map.putString("vehicleId", vehicleId);
+                  map.putString("taskId", taskId);
+                  bridgeTrafficRecorder.recordTokenRequested(requestId, vehicleId, taskId);
+                  reportingProfiler.onBridgeEvent();
+                  events.onGetToken(map);
+                }
+              });
+        });
+
+    if (reactContext != null) {
+      memoryPressureMonitor.register(reactContext);
+      reactContext.addLifecycleEventListener(backgroundEventBuffer);
+    }
+  }
+
+  /**
+   * Releases what outlives the module: listeners, the watchdog, a recording and the store thread.
+   * Persisted state is kept for the next module, e.g. after a JS reload.
+   */
+  public void invalidate() {
+    memoryPressureMonitor.unregister();
+    reportingWatchdog.stop();
+    bridgeTrafficRecorder.stop(file -> {});
+    if (reactContext != null) {
+      reactContext.removeLifecycleEventListener(backgroundEventBuffer);
+    }
+    locationMultiplexer.clearSubscribers();
+    if (stateStore != null) {
+      tokenFactory.getTokenCache().setPersistentStore(null);
+      stateStore.close();
+      stateStore = null;
+    }
+  }
+
+  public DriverAuthTokenFactory getTokenFactory() {
+    return tokenFactory;
+  }
+
+  public DriverStateRecord getStateRecord() {
+    return stateRecord;
+  }
+
+  public ReportingProfiler getReportingProfiler() {
+    return reportingProfiler;
+  }
+
+  public BridgeTrafficRecorder getBridgeTrafficRecorder() {
+    return bridgeTrafficRecorder;
+  }
+
+  public BackgroundEventBuffer getBackgroundEventBuffer() {
+    return backgroundEventBuffer;
+  }
+
+  public LocationMultiplexer getLocationMultiplexer() {
+    return locationMultiplexer;
+  }
+
+  /** Returns the store while state persistence is enabled, or null. */
+  @Nullable
+  public EncryptedStateStore getStateStore() {
+    return stateStore;
+  }
+
+  /** Called on memory pressure before the shared features trim, to drop what the module can. */
+  public void setMemoryPressureListener(@Nullable MemoryPressureMonitor.Listener listener) {
+    memoryPressureListener = listener;
+  }
+
+  /** Returns the reporter of the current driver instance, or null if there is none. */
+  @Nullable
+  public R getVehicleReporter() {
+    return vehicleReporter;
+  }
+
+  /**
+   * Starts a new token epoch and returns the status listener of the driver instance about to be
+   * created, which counts successful vehicle updates and emits the statuses to JS.
+   */
+  public DriverStatusListener beginInstance() {
+    tokenFactory.beginEpoch();
+    return (statusLevel, statusCode, statusMsg, error) -> {
+      if (statusLevel == StatusLevel.DEBUG || statusLevel == StatusLevel.INFO) {
+        // The Driver SDK reports successful vehicle updates below WARNING.
+        reportingWatchdog.onVehicleUpdateSucceeded();
+        bridgeTrafficRecorder.recordVehicleUpdate();
+        reportingProfiler.onVehicleUpdate(false);
+      } else {
+        reportingProfiler.onVehicleUpdate(true);
+      }
+      emitStatusUpdate(statusLevel.toString(), statusCode.toString(), statusMsg);
+    };
+  }
+
+  /** Called once the driver instance is created, with the provider its locations come from. */
+  public void onInstanceCreated(R reporter, @Nullable RoadSnappedLocationProvider provider) {
+    vehicleReporter = reporter;
+    locationMultiplexer.setProvider(provider);
+    stateRecord.setInitialized();
+    reportingProfiler.setIntervalSeconds(0);
+  }
+
+  /**
+   * Cancels the token requests of the driver instance being cleared, resets its state and deletes
+   * what was persisted for it.
+   */
+  public void clearInstance() {
+    tokenFactory.cancelAllPendingRequests();
+    tokenFactory.getTokenCache().clear();
+    if (stateStore != null) {
+      stateStore.clear();
+    }
+    HttpAuthTokenFactory httpFactory = httpTokenFactory;
+    if (httpFactory != null) {
+      httpFactory.getTokenCache().clear();
+    }
+    vehicleReporter = null;
+    locationTrackingEnabled = false;
+    reportingIntervalSeconds = 0;
+    stateRecord.clear();
+    reportingProfiler.setIntervalSeconds(0);
+    updateReportingWatchdog();
+    locationMultiplexer.setProvider(null);
+    breadcrumbRecorder.clear();
+  }
+
+  /** Requires a driver instance. */
+  public void applyLocationTracking(boolean isTrackingEnabled) {
+    if (isTrackingEnabled) {
+      vehicleReporter.enableLocationTracking();
+    } else {
+      vehicleReporter.disableLocationTracking();
+    }
+    locationTrackingEnabled = isTrackingEnabled;
+    stateRecord.setTrackingEnabled(isTrackingEnabled);
+    updateReportingWatchdog();
+  }
+
+  /** Requires a driver instance. */
+  public void applyReportingInterval(double intervalSeconds) {
+    vehicleReporter.setLocationReportingInterval((long) intervalSeconds);
+    reportingIntervalSeconds = intervalSeconds;
+    stateRecord.setIntervalSeconds(intervalSeconds);
+    reportingProfiler.setIntervalSeconds(intervalSeconds);
+  }
+
+  /** Translates the tracking state and interval of the reporter. Requires a driver instance. */
+  public WritableMap getEffectiveReporterConfig() {
+    WritableMap map = Arguments.createMap();
+    map.putBoolean("trackingEnabled", vehicleReporter.isLocationTrackingEnabled());
+    map.putDouble("intervalSeconds", effectiveIntervalSeconds(reportingIntervalSeconds));
+    return map;
+  }
+
+  /** Translates the fields of the state record every module serves. */
+  public static WritableMap toWritableMap(DriverStateRecord.State state) {
+    WritableMap map = Arguments.createMap();
+    map.putBoolean("initialized", state.initialized);
+    map.putBoolean("trackingEnabled", state.trackingEnabled);
+    map.putDouble("intervalSeconds", effectiveIntervalSeconds(state.intervalSeconds));
+    map.putDouble("revision", state.revision);
+    return map;
+  }
+
+  /**
+   * Enables/disables persisting the last auth token to encrypted storage so it can be served
+   * immediately after the process is restarted, along with what the module writes to {@link
+   * #getStateStore}. Disabling deletes any persisted state.
+   */
+  public void setStatePersistenceEnabled(boolean isEnabled) {
+    if (isEnabled) {
+      if (stateStore == null) {
+        stateStore = stateStoreFactory.apply(stateStoreName);
+      }
+      tokenFactory.getTokenCache().setPersistentStore(stateStore);
+      tokenFactory.setTokenCachingEnabled(true);
+    } else if (stateStore != null) {
+      tokenFactory.setTokenCachingEnabled(false);
+      tokenFactory.getTokenCache().setPersistentStore(null);
+      stateStore.clear();
+      stateStore.close();
+      stateStore = null;
+    }
+  }
+
+  /**
+   * Configures a native HTTPS endpoint the auth tokens are fetched from, so location reporting
+   * keeps working while the JS thread is paused. Tokens are only requested from JS if the endpoint
+   * fails.
+   */
+  public void setHttpTokenProvider(ReadableMap config, Promise promise) {
+    try {
+      httpTokenFactory =
+          new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.fromReadableMap(config));
+      tokenFactory.setNativeTokenFactory(httpTokenFactory);
+      promise.resolve(null);
+    } catch (IllegalArgumentException e) {
+      promise.reject(
+          JsErrors.INVALID_TOKEN_PROVIDER_CODE, JsErrors.INVALID_TOKEN_PROVIDER_MESSAGE, e);
+    }
+  }
+
+  /** Removes the native token endpoint so every token is requested from JS again. */
+  public void clearHttpTokenProvider() {
+    httpTokenFactory = null;
+    tokenFactory.setNativeTokenFactory(null);
+  }
+
+  /**
+   * Sets the location reporting interval applied when the OS reports memory pressure. The interval
+   * is only ever raised; the next call to setLocationReportingInterval takes precedence again.
+   *
+   * @param intervalSeconds number in seconds, 0 to leave the interval untouched
+   */
+  public void setMemoryPressureReportingInterval(double intervalSeconds) {
+    memoryPressureIntervalSeconds = intervalSeconds;
+  }
+
+  /** Called from JS to resolve a pending auth token request. */
+  public void resolveAuthToken(String requestId, String token) {
+    bridgeTrafficRecorder.recordTokenResolved(requestId);
+    tokenFactory.resolveToken(requestId, token);
+  }
+
+  /** Called from JS to reject a pending auth token request. */
+  public void rejectAuthToken(String requestId, String error) {
+    bridgeTrafficRecorder.recordTokenRejected(requestId);
+    tokenFactory.rejectToken(requestId, error);
+  }
+
+  /**
+   * Enables/disables collapsing non-critical events, such as status updates below ERROR, while the
+   * app is in the background. The latest event of each kind is emitted on resume, followed by a
+   * BACKGROUND_SUMMARY status update. Token requests are never held back.
+   */
+  public void setBackgroundEventBuffering(boolean isEnabled) {
+    backgroundEventBuffer.setEnabled(isEnabled);
+  }
+
+  /**
+   * Enables/disables the reporting watchdog, which emits onReportingHealthChanged whenever
+   * location reporting stalls or recovers. It only runs while location tracking is enabled.
+   */
+  public void setReportingWatchdog(ReadableMap config) {
+    reportingWatchdog.configure(
+        (long) (getDouble(config, "updateStallSeconds", 0) * 1000),
+        (long) (getDouble(config, "tokenStallSeconds", 0) * 1000),
+        (int) getDouble(config, "maxPendingTokenRequests", 0),
+        (long) getDouble(config, "uiThreadLatencyMillis", 0));
+    reportingWatchdogEnabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    updateReportingWatchdog();
+  }
+
+  public void getReportingHealth(Promise promise) {
+    promise.resolve(ReportingWatchdog.toWritableMap(reportingWatchdog.getHealth()));
+  }
+
+  /**
+   * Enables/disables recording the road-snapped path of the vehicle as a simplified polyline,
+   * which is read with getBreadcrumbs. Disabling keeps the recorded points.
+   */
+  public void setBreadcrumbRecording(ReadableMap config) {
+    boolean enabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    breadcrumbRecorder.configure(
+        getDouble(config, "toleranceMeters", BreadcrumbRecorder.DEFAULT_TOLERANCE_METERS),
+        getDouble(config, "minDistanceMeters", BreadcrumbRecorder.DEFAULT_MIN_DISTANCE_METERS),
+        (int) getDouble(config, "capacity", BreadcrumbRecorder.DEFAULT_CAPACITY));
+    if (enabled) {
+      breadcrumbRecorder.attach(locationMultiplexer);
+    } else {
+      breadcrumbRecorder.detach();
+    }
+  }
+
+  /**
+   * Resolves the recorded breadcrumbs with a sequence of at least sinceSequence, along with the
+   * sequence to pass next time to only receive newer points.
+   */
+  public void getBreadcrumbs(double sinceSequence, Promise promise) {
+    BreadcrumbRecorder.Breadcrumbs breadcrumbs = breadcrumbRecorder.read((long) sinceSequence);
+    promise.resolve(BreadcrumbRecorder.toWritableMap(breadcrumbs));
+  }
+
+  /** Discards the recorded breadcrumbs. */
+  public void clearBreadcrumbs() {
+    breadcrumbRecorder.clear();
+  }
+
+  /**
+   * Enables/disables profiling what location reporting costs at each reporting interval over a
+   * rolling window, which is read with getReportingProfile. Enabling discards the previous profile.
+   */
+  public void setReportingProfiling(ReadableMap config) {
+    boolean enabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    double windowSeconds =
+        getDouble(
+            config,
+            "windowSeconds",
+            TimeUnit.MILLISECONDS.toSeconds(ReportingProfiler.DEFAULT_WINDOW_MILLIS));
+    reportingProfiler.configure(enabled, (long) (windowSeconds * 1000));
+  }
+
+  /** Resolves the cost of location reporting per interval over the profiling window. */
+  public void getReportingProfile(Promise promise) {
+    promise.resolve(ReportingProfiler.toWritableMap(reportingProfiler.getReport()));
+  }
+
+  /**
+   * Adds or replaces a named location subscriber. Every location the subscriber is due for, given
+   * its minimum interval and distance, is delivered in the next onLocationBatch event together with
+   * the other subscribers that are due, so there is one event per location at most.
+   */
+  public void addLocationSubscriber(String name, ReadableMap config) {
+    locationMultiplexer.addSubscriber(
+        name,
+        (long) getDouble(config, "minIntervalMillis", 0),
+        getDouble(config, "minDistanceMeters", 0),
+        LocationMultiplexer.parseFieldMask(
+            config.hasKey("fields") ? config.getArray("fields") : null));
+  }
+
+  public void removeLocationSubscriber(String name) {
+    locationMultiplexer.removeSubscriber(name);
+  }
+
+  /**
+   * Starts recording the traffic crossing the bridge to a file in the cache directory, replacing
+   * any previous recording, and resolves its path. Fetched vehicles are only recorded in full when
+   * config.captureVehicles is set. See {@link BridgeTrafficRecorder}.
+   */
+  public void startBridgeRecording(ReadableMap config, Promise promise) {
+    boolean captureVehicles =
+        config.hasKey("captureVehicles") && config.getBoolean("captureVehicles");
+    File file = new File(reactContext.getCacheDir(), bridgeRecordingFileName);
+    try {
+      bridgeTrafficRecorder.start(file, captureVehicles);
+      promise.resolve(file.getAbsolutePath());
+    } catch (IOException e) {
+      promise.reject(
+          JsErrors.BRIDGE_RECORDING_ERROR_CODE, JsErrors.BRIDGE_RECORDING_ERROR_MESSAGE, e);
+    }
+  }
+
+  /** Stops recording and resolves the path of the recording, or null if none was running. */
+  public void stopBridgeRecording(Promise promise) {
+    bridgeTrafficRecorder.stop(
+        file -> promise.resolve(file != null ? file.getAbsolutePath() : null));
+  }
+
+  /** Reads an optional number of a config from JS. */
+  public static double getDouble(ReadableMap map, String key, double defaultValue) {
+    return map.hasKey(key) && !map.isNull(key) ? map.getDouble(key) : defaultValue;
+  }
+
+  private static double effectiveIntervalSeconds(double intervalSeconds) {
+    return intervalSeconds > 0 ? intervalSeconds : SDK_DEFAULT_INTERVAL_SECONDS;
+  }
+
+  private void updateReportingWatchdog() {
+    if (reportingWatchdogEnabled && locationTrackingEnabled) {
+      reportingWatchdog.start();
+    } else {
+      reportingWatchdog.stop();
+    }
+  }
+
+  /** Lets the module drop what it can, trims the token cache and raises the reporting interval. */
+  void onMemoryPressure(int level) {
+    MemoryPressureMonitor.Listener listener = memoryPressureListener;
+    if (listener != null) {
+      listener.onMemoryPressure(level);
+    }
+    tokenFactory.getTokenCache().removeExpired();
+
+    String statusMsg = "Memory trimmed at level " + MemoryPressureMonitor.levelName(level);
+    if (vehicleReporter != null
+        && memoryPressureIntervalSeconds > 0
+        && memoryPressureIntervalSeconds > effectiveIntervalSeconds(reportingIntervalSeconds)) {
+      vehicleReporter.setLocationReportingInterval((long) memoryPressureIntervalSeconds);
+      reportingIntervalSeconds = memoryPressureIntervalSeconds;
+      stateRecord.setIntervalSeconds(memoryPressureIntervalSeconds);
+      reportingProfiler.setIntervalSeconds(memoryPressureIntervalSeconds);
+      statusMsg += "; reporting interval raised to " + (long) memoryPressureIntervalSeconds + "s";
+    }
+    emitStatusUpdate(StatusLevel.WARNING.toString(), MemoryPressureMonitor.STATUS_CODE, statusMsg);
+  }
+
+  private void emitStatusUpdate(String statusLevel, String statusCode, String statusMsg) {
+    if (reactContext == null) {
+      return;
+    }
+    Runnable emit =
+        () -> {
+          try (DriverTrace.Section trace = DriverTrace.section(DriverTrace.EMIT_STATUS_UPDATE)) {
+            WritableMap map = Arguments.createMap();
+            map.putString("statusLevel", statusLevel);
+            map.putString("statusCode", statusCode);
+            map.putString("statusMsg", statusMsg);
+            bridgeTrafficRecorder.recordStatusUpdate(statusLevel, statusCode, statusMsg);
+            reportingProfiler.onBridgeEvent();
+            events.onStatusUpdate(map);
+          }
+        };
+    if (StatusLevel.ERROR.toString().equals(statusLevel)) {
+      emit.run();
+    } else {
+      backgroundEventBuffer.emit("status\n" + statusLevel + '\n' + statusCode, emit);
+    }
+  }
+
+  private void onBackgroundSummary(int collapsedEvents, long backgroundMillis) {
+    emitStatusUpdate(
+        StatusLevel.INFO.toString(),
+        BackgroundEventBuffer.SUMMARY_STATUS_CODE,
+        collapsedEvents
+            + " events collapsed during "
+            + TimeUnit.MILLISECONDS.toSeconds(backgroundMillis)
+            + "s in the background");
+  }
+}
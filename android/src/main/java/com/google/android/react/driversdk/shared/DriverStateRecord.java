@@ -0,0 +1,114 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+/**
+ * In-memory record of the effective state of a driver module, kept up to date by the module's
+ * setters and events so it can be read synchronously from JS without I/O or SDK calls.
+ *
+ * <p>Each change publishes a new immutable {@link State} with a higher revision, so reads are a
+ * single volatile read and JS can tell whether anything changed by comparing revisions. Writes that
+ * change nothing keep the current state and revision.
+ */
+public final class DriverStateRecord {
+
+  /** Stop count of a state without a known vehicle. */
+  public static final int UNKNOWN_STOP_COUNT = -1;
+
+  /** A consistent view of the module state. */
+  public static final class State {
+    public final boolean initialized;
+    public final boolean trackingEnabled;
+
+    /** Location reporting interval last applied, or 0 if the SDK default is in effect. */
+    public final double intervalSeconds;
+
+    public final boolean online;
+
+    /** Stop count of the last vehicle fetched, or {@link #UNKNOWN_STOP_COUNT}. */
+    public final int stopCount;
+
+    /** Incremented on every change. */
+    public final long revision;
+
+    State(
+        boolean initialized,
+        boolean trackingEnabled,
+        double intervalSeconds,
+        boolean online,
+        int stopCount,
+        long revision) {
+      this.initialized = initialized;
+      this.trackingEnabled = trackingEnabled;
+      this.intervalSeconds = intervalSeconds;
+      this.online = online;
+      this.stopCount = stopCount;
+      this.revision = revision;
+    }
+  }
+
+  private volatile State state = new State(false, false, 0, false, UNKNOWN_STOP_COUNT, 0);
+
+  public State get() {
+    return state;
+  }
+
+  /** Records a new driver instance, with the SDK defaults. */
+  public synchronized void setInitialized() {
+    publish(true, false, 0, false, UNKNOWN_STOP_COUNT);
+  }
+
+  /** Records that the driver instance was cleared. */
+  public synchronized void clear() {
+    publish(false, false, 0, false, UNKNOWN_STOP_COUNT);
+  }
+
+  public synchronized void setTrackingEnabled(boolean trackingEnabled) {
+    State s = state;
+    publish(s.initialized, trackingEnabled, s.intervalSeconds, s.online, s.stopCount);
+  }
+
+  public synchronized void setIntervalSeconds(double intervalSeconds) {
+    State s = state;
+    publish(s.initialized, s.trackingEnabled, intervalSeconds, s.online, s.stopCount);
+  }
+
+  public synchronized void setOnline(boolean online) {
+    State s = state;
+    publish(s.initialized, s.trackingEnabled, s.intervalSeconds, online, s.stopCount);
+  }
+
+  public synchronized void setStopCount(int stopCount) {
+    State s = state;
+    publish(s.initialized, s.trackingEnabled, s.intervalSeconds, s.online, stopCount);
+  }
+
+  private void publish(
+      boolean initialized,
+      boolean trackingEnabled,
+      double intervalSeconds,
+      boolean online,
+      int stopCount) {
+    State s = state;
+    if (s.initialized == initialized
+        && s.trackingEnabled == trackingEnabled
+        && s.intervalSeconds == intervalSeconds
+        && s.online == online
+        && s.stopCount == stopCount) {
+      return;
+    }
+    state =
+        new State(initialized, trackingEnabled, intervalSeconds, online, stopCount, s.revision + 1);
+  }
+}
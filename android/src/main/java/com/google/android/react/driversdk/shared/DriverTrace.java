@@ -0,0 +1,103 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import androidx.tracing.Trace;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trace sections around the bridge hot paths, so they show up in Perfetto and systrace captures.
+ *
+ * <p>Tracing is off by default and switched for the whole process with {@link #setEnabled}. While
+ * it is off, opening a section or slice is a volatile read and returns a shared no-op. Sections
+ * cover work on a single thread; async slices cover spans that end on another thread, such as a
+ * token request from the event emitted to JS until it is resolved.
+ */
+public final class DriverTrace {
+
+  public static final String CREATE_INSTANCE = "DriverSdk:createInstance";
+  public static final String CREATE_INSTANCE_UI_HOP = "DriverSdk:createInstance:uiHop";
+  public static final String CREATE_INSTANCE_LOCATION_PROVIDER =
+      "DriverSdk:createInstance:locationProvider";
+  public static final String CREATE_INSTANCE_BACKEND = "DriverSdk:createInstance:backend";
+  public static final String CREATE_INSTANCE_LISTENERS = "DriverSdk:createInstance:listeners";
+  public static final String TOKEN_REQUEST = "DriverSdk:tokenRequest";
+  public static final String TOKEN_REQUEST_UI_HOP = "DriverSdk:tokenRequest:uiHop";
+  public static final String EMIT_GET_TOKEN = "DriverSdk:emitGetToken";
+  public static final String FETCH_VEHICLE = "DriverSdk:fetchVehicle";
+  public static final String TRANSLATE_VEHICLE = "DriverSdk:translateVehicle";
+  public static final String EMIT_STATUS_UPDATE = "DriverSdk:emitStatusUpdate";
+
+  /** A section on the current thread, ended when closed. */
+  public interface Section extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /** A slice that may end on another thread than the one it began on. */
+  public static final class AsyncSlice {
+    private final String name;
+    private final int cookie;
+
+    private AsyncSlice(String name, int cookie) {
+      this.name = name;
+      this.cookie = cookie;
+    }
+
+    public void end() {
+      if (cookie != 0) {
+        Trace.endAsyncSection(name, cookie);
+      }
+    }
+  }
+
+  private static final Section NO_SECTION = () -> {};
+  private static final AsyncSlice NO_SLICE = new AsyncSlice("", 0);
+
+  private static final AtomicInteger nextCookie = new AtomicInteger();
+  private static volatile boolean enabled = false;
+
+  private DriverTrace() {}
+
+  public static void setEnabled(boolean enabled) {
+    DriverTrace.enabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Begins a section on the current thread. Use with try-with-resources. */
+  public static Section section(String name) {
+    if (!enabled) {
+      return NO_SECTION;
+    }
+    Trace.beginSection(name);
+    return Trace::endSection;
+  }
+
+  /** Begins an async slice, to be ended with {@link AsyncSlice#end} on any thread. */
+  public static AsyncSlice beginAsync(String name) {
+    if (!enabled) {
+      return NO_SLICE;
+    }
+    int cookie = nextCookie.incrementAndGet();
+    if (cookie == 0) {
+      // Zero marks the no-op slice.
+      cookie = nextCookie.incrementAndGet();
+    }
+    Trace.beginAsyncSection(name, cookie);
+    return new AsyncSlice(name, cookie);
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.content.Context;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Small encrypted blob store used to survive process death between driver sessions.
+ *
+ * <p>Each entry is a file in the app's no-backup directory, encrypted with AES-GCM under a key
+ * held in the Android Keystore. All disk access happens on a single background thread, so reads
+ * issued after a write observe that write. The thread ends once the store is {@link #close}d, after
+ * which every call is ignored and reads deliver null. Closing keeps the entries, so a store opened
+ * later under the same name reads them again; {@link #clear} deletes them.
+ */
+public class EncryptedStateStore {
+
+  private static final String TAG = "EncryptedStateStore";
+  private static final String KEYSTORE_PROVIDER = "AndroidKeyStore";
+  private static final String KEY_ALIAS = "react_native_driver_sdk_state";
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int GCM_TAG_BITS = 128;
+
+  /** Receives the decrypted contents of an entry, or null if it is missing or unreadable. */
+  public interface ReadCallback {
+    void onRead(@Nullable byte[] bytes);
+  }
+
+  /** Provides the key entries are encrypted with. */
+  interface KeySource {
+    SecretKey get() throws GeneralSecurityException, IOException;
+  }
+
+  private final File directory;
+  private final KeySource keySource;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  public EncryptedStateStore(Context context, String name) {
+    this(new File(context.getNoBackupFilesDir(), name), EncryptedStateStore::getOrCreateKey);
+  }
+
+  EncryptedStateStore(File directory, KeySource keySource) {
+    this.directory = directory;
+    this.keySource = keySource;
+  }
+
+  /** Encrypts and writes an entry, replacing any previous contents. */
+  public void write(String name, byte[] bytes) {
+    execute(
+        () -> {
+          try {
+            writeNow(name, bytes);
+          } catch (GeneralSecurityException | IOException e) {
+            Log.w(TAG, "Failed to persist " + name, e);
+          }
+        });
+  }
+
+  /**
+   * Reads and decrypts an entry, delivering the result on the store thread, or null on the calling
+   * thread if the store is closed.
+   */
+  public void read(String name, ReadCallback callback) {
+    boolean queued =
+        execute(
+            () -> {
+              byte[] bytes = null;
+              try {
+                bytes = readNow(name);
+              } catch (GeneralSecurityException | IOException e) {
+                // The key may have been invalidated; drop the entry rather than fail every restart.
+                Log.w(TAG, "Discarding unreadable " + name, e);
+                new File(directory, name).delete();
+              }
+              callback.onRead(bytes);
+            });
+    if (!queued) {
+      callback.onRead(null);
+    }
+  }
+
+  /** Deletes an entry. */
+  public void delete(String name) {
+    execute(() -> new File(directory, name).delete());
+  }
+
+  /** Deletes every entry in this store. */
+  public void clear() {
+    execute(
+        () -> {
+          File[] files = directory.listFiles();
+          if (files == null) {
+            return;
+          }
+          for (File file : files) {
+            file.delete();
+          }
+        });
+  }
+
+  /** Ends the store thread once the work queued so far is done. The entries are kept. */
+  public void close() {
+    executor.shutdown();
+  }
+
+  /** Waits for the work queued before {@link #close} to finish. */
+  boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+    return executor.awaitTermination(timeout, unit);
+  }
+
+  private boolean execute(Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      // Closed, e.g. by a caller that still held the store when persistence was disabled.
+      return false;
+    }
+  }
+
+  private void writeNow(String name, byte[] bytes) throws GeneralSecurityException, IOException {
+    Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+    cipher.init(Cipher.ENCRYPT_MODE, keySource.get());
+    byte[] iv = cipher.getIV();
+    byte[] ciphertext = cipher.doFinal(bytes);
+
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create " + directory);
+    }
+    // Write to a temporary file first so a crash never leaves a truncated entry behind.
+    File target = new File(directory, name);
+    File temp = new File(directory, name + ".tmp");
+    try (FileOutputStream out = new FileOutputStream(temp)) {
+      out.write(iv.length);
+      out.write(iv);
+      out.write(ciphertext);
+      out.getFD().sync();
+    }
+    if (!temp.renameTo(target)) {
+      throw new IOException("Cannot replace " + target);
+    }
+  }
+
+  @Nullable
+  private byte[] readNow(String name) throws GeneralSecurityException, IOException {
+    File file = new File(directory, name);
+    if (!file.isFile()) {
+      return null;
+    }
+    byte[] contents = Files.readAllBytes(file.toPath());
+    if (contents.length < 1 || contents.length < 1 + contents[0]) {
+      throw new IOException("Truncated entry " + name);
+    }
+    int ivLength = contents[0];
+    Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+    cipher.init(
+        Cipher.DECRYPT_MODE,
+        keySource.get(),
+        new GCMParameterSpec(GCM_TAG_BITS, contents, 1, ivLength));
+    return cipher.doFinal(contents, 1 + ivLength, contents.length - 1 - ivLength);
+  }
+
+  private static SecretKey getOrCreateKey() throws GeneralSecurityException, IOException {
+    KeyStore keyStore = KeyStore.getInstance(KEYSTORE_PROVIDER);
+    keyStore.load(null);
+    if (keyStore.containsAlias(KEY_ALIAS)) {
+      return (SecretKey) keyStore.getKey(KEY_ALIAS, null);
+    }
+    KeyGenerator generator =
+        KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE_PROVIDER);
+    generator.init(
+        new KeyGenParameterSpec.Builder(
+                KEY_ALIAS, KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+            .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+            .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+            .setKeySize(256)
+            .build());
+    return generator.generateKey();
+  }
+}
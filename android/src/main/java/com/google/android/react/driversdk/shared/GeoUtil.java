@@ -0,0 +1,35 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+/** Spherical geometry helpers working on plain latitude/longitude degrees. */
+public final class GeoUtil {
+
+  /** Mean earth radius in meters, as used by the Maps SDK's spherical utilities. */
+  public static final double EARTH_RADIUS_METERS = 6_371_009;
+
+  private GeoUtil() {}
+
+  /** Returns the great-circle distance between two points in meters. */
+  public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+    double sinHalfDeltaLambda = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+    double a =
+        sinHalfDeltaPhi * sinHalfDeltaPhi
+            + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+}
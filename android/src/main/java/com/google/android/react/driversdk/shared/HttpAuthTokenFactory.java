@@ -0,0 +1,330 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import androidx.annotation.Nullable;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.AuthTokenContext;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.AuthTokenContext.AuthTokenFactory;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Auth token factory that fetches tokens directly from an HTTPS endpoint, without involving JS.
+ *
+ * <p>This keeps location reporting going while the JS runtime is paused in the background. The
+ * vehicle and task ids of the requested context are sent as {@code vehicleId}/{@code taskId} query
+ * parameters for GET requests, or as a JSON body for POST requests. The token is read from the JSON
+ * response using a dotted field path.
+ *
+ * <p>Tokens are cached per context until shortly before they expire, using either the configured
+ * expires-in field or the JWT {@code exp} claim. Connections are kept alive between requests by
+ * fully draining each response.
+ */
+public class HttpAuthTokenFactory implements AuthTokenFactory {
+
+  private final Config config;
+  private final TokenCache tokenCache = new TokenCache();
+
+  // Fetches in flight by context, so SDK threads asking for the same context share one request
+  // while other contexts are fetched in parallel.
+  private final ConcurrentHashMap<String, SettableFuture<String>> inFlightRequests =
+      new ConcurrentHashMap<>();
+
+  /** Endpoint and response mapping used to fetch tokens. */
+  public static final class Config {
+    final URL url;
+    final String method;
+    final Map<String, String> headers;
+    final String tokenField;
+    @Nullable final String expiresInField;
+    final int timeoutMillis;
+
+    private Config(Builder builder) {
+      this.url = builder.url;
+      this.method = builder.method;
+      this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(builder.headers));
+      this.tokenField = builder.tokenField;
+      this.expiresInField = builder.expiresInField;
+      this.timeoutMillis = builder.timeoutMillis;
+    }
+
+    public static Builder builder(String url) {
+      return new Builder(url);
+    }
+
+    /**
+     * Builds a config from the map passed to {@code setHttpTokenProvider} from JS.
+     *
+     * @throws IllegalArgumentException if the map does not describe a valid endpoint
+     */
+    public static Config fromReadableMap(ReadableMap map) {
+      if (!map.hasKey("url") || map.isNull("url")) {
+        throw new IllegalArgumentException("Token provider url is required");
+      }
+      Builder builder = builder(map.getString("url"));
+      if (map.hasKey("method") && !map.isNull("method")) {
+        builder.setMethod(map.getString("method"));
+      }
+      if (map.hasKey("headers") && !map.isNull("headers")) {
+        ReadableArray headers = map.getArray("headers");
+        for (int i = 0; i < headers.size(); i++) {
+          ReadableMap header = headers.getMap(i);
+          builder.addHeader(header.getString("name"), header.getString("value"));
+        }
+      }
+      if (map.hasKey("tokenField") && !map.isNull("tokenField")) {
+        builder.setTokenField(map.getString("tokenField"));
+      }
+      if (map.hasKey("expiresInField") && !map.isNull("expiresInField")) {
+        builder.setExpiresInField(map.getString("expiresInField"));
+      }
+      if (map.hasKey("timeoutMillis") && !map.isNull("timeoutMillis")) {
+        builder.setTimeoutMillis((int) map.getDouble("timeoutMillis"));
+      }
+      return builder.build();
+    }
+
+    // Hosts that may be reached over plain HTTP, for local development. Matched literally, so
+    // the exception never depends on a DNS lookup.
+    private static final List<String> LOOPBACK_HOSTS =
+        Arrays.asList("localhost", "127.0.0.1", "[::1]");
+
+    /** Builder for {@link Config}. */
+    public static final class Builder {
+      private final URL url;
+      private String method = "GET";
+      private final Map<String, String> headers = new LinkedHashMap<>();
+      private String tokenField = "token";
+      @Nullable private String expiresInField = null;
+      private int timeoutMillis = 10_000;
+
+      private Builder(String url) {
+        try {
+          this.url = new URL(url);
+        } catch (IOException e) {
+          throw new IllegalArgumentException("Invalid token endpoint: " + url, e);
+        }
+      }
+
+      public Builder setMethod(String method) {
+        this.method = method;
+        return this;
+      }
+
+      public Builder addHeader(String name, String value) {
+        this.headers.put(name, value);
+        return this;
+      }
+
+      /** Dotted path of the token in the JSON response, e.g. {@code "data.token"}. */
+      public Builder setTokenField(String tokenField) {
+        this.tokenField = tokenField;
+        return this;
+      }
+
+      /** Dotted path of the token lifetime in seconds. The JWT exp claim is used if unset. */
+      public Builder setExpiresInField(@Nullable String expiresInField) {
+        this.expiresInField = expiresInField;
+        return this;
+      }
+
+      public Builder setTimeoutMillis(int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+      }
+
+      public Config build() {
+        if (!"GET".equals(method) && !"POST".equals(method)) {
+          throw new IllegalArgumentException("Unsupported method: " + method);
+        }
+        if (!"https".equals(url.getProtocol()) && !LOOPBACK_HOSTS.contains(url.getHost())) {
+          throw new IllegalArgumentException("Token endpoint must use HTTPS: " + url);
+        }
+        return new Config(this);
+      }
+    }
+  }
+
+  public HttpAuthTokenFactory(Config config) {
+    this.config = config;
+  }
+
+  @Override
+  public String getToken(AuthTokenContext context) {
+    String vehicleId = context.getVehicleId() != null ? context.getVehicleId() : "";
+    String taskId = context.getTaskId() != null ? context.getTaskId() : "";
+    return getToken(vehicleId, taskId);
+  }
+
+  /** Returns a cached token for the context, or fetches a new one from the endpoint. */
+  public String getToken(String vehicleId, String taskId) {
+    String cachedToken = tokenCache.get(vehicleId, taskId);
+    if (cachedToken != null) {
+      return cachedToken;
+    }
+
+    String contextKey = vehicleId + '\n' + taskId;
+    SettableFuture<String> future = SettableFuture.create();
+    SettableFuture<String> inFlight = inFlightRequests.putIfAbsent(contextKey, future);
+    if (inFlight != null) {
+      try {
+        // The request in flight gives up after its connect and read timeouts.
+        return inFlight.get(2L * config.timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to fetch auth token from " + config.url.getHost(), e);
+      }
+    }
+
+    try {
+      // A request that just completed may have cached the token before this one was registered.
+      cachedToken = tokenCache.get(vehicleId, taskId);
+      String token = cachedToken != null ? cachedToken : fetchToken(vehicleId, taskId);
+      future.set(token);
+      return token;
+    } catch (IOException | JSONException e) {
+      future.setException(e);
+      throw new RuntimeException("Failed to fetch auth token from " + config.url.getHost(), e);
+    } catch (RuntimeException e) {
+      future.setException(e);
+      throw e;
+    } finally {
+      inFlightRequests.remove(contextKey, future);
+    }
+  }
+
+  public TokenCache getTokenCache() {
+    return tokenCache;
+  }
+
+  private String fetchToken(String vehicleId, String taskId) throws IOException, JSONException {
+    // The connection is never disconnect()ed: once its response is drained it returns to the
+    // keep-alive pool and is reused by the next request to the same host.
+    HttpURLConnection connection = openConnection(vehicleId, taskId);
+    int status = connection.getResponseCode();
+    if (status < 200 || status >= 300) {
+      drain(connection.getErrorStream());
+      throw new IOException("Token endpoint returned HTTP " + status);
+    }
+
+    JSONObject response =
+        new JSONObject(new String(drain(connection.getInputStream()), StandardCharsets.UTF_8));
+    Object tokenValue = getField(response, config.tokenField);
+    if (!(tokenValue instanceof String) || ((String) tokenValue).isEmpty()) {
+      throw new JSONException("Missing token field '" + config.tokenField + "'");
+    }
+    String token = (String) tokenValue;
+
+    long expiresAtMillis = TokenCache.getExpirationMillis(token);
+    if (config.expiresInField != null) {
+      Object expiresIn = getField(response, config.expiresInField);
+      if (expiresIn instanceof Number) {
+        expiresAtMillis = System.currentTimeMillis() + ((Number) expiresIn).longValue() * 1000;
+      }
+    }
+    tokenCache.put(vehicleId, taskId, token, expiresAtMillis);
+    return token;
+  }
+
+  private HttpURLConnection openConnection(String vehicleId, String taskId) throws IOException {
+    boolean isPost = "POST".equals(config.method);
+    URL url = config.url;
+    if (!isPost) {
+      String query = "vehicleId=" + encode(vehicleId) + "&taskId=" + encode(taskId);
+      String existing = url.getQuery();
+      url = new URL(url, url.getPath() + "?" + (existing != null ? existing + "&" : "") + query);
+    }
+
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod(config.method);
+    connection.setConnectTimeout(config.timeoutMillis);
+    connection.setReadTimeout(config.timeoutMillis);
+    connection.setUseCaches(false);
+    connection.setRequestProperty("Accept", "application/json");
+    for (Map.Entry<String, String> header : config.headers.entrySet()) {
+      connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+
+    if (isPost) {
+      byte[] body;
+      try {
+        body =
+            new JSONObject()
+                .put("vehicleId", vehicleId)
+                .put("taskId", taskId)
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(body.length);
+      connection.setRequestProperty("Content-Type", "application/json");
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+    }
+    return connection;
+  }
+
+  @Nullable
+  private static Object getField(JSONObject object, String path) {
+    String[] parts = path.split("\\.");
+    JSONObject current = object;
+    for (int i = 0; i < parts.length - 1; i++) {
+      current = current.optJSONObject(parts[i]);
+      if (current == null) {
+        return null;
+      }
+    }
+    return current.opt(parts[parts.length - 1]);
+  }
+
+  private static byte[] drain(@Nullable InputStream in) throws IOException {
+    if (in == null) {
+      return new byte[0];
+    }
+    try (InputStream stream = in) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static String encode(String value) throws UnsupportedEncodingException {
+    return URLEncoder.encode(value, "UTF-8");
+  }
+}
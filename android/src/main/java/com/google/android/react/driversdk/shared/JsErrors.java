@@ -47,4 +47,15 @@ public class JsErrors {
   public static final String GET_DELIVERY_VEHICLE_ERROR_CODE = "GET_DELIVERY_VEHICLE_ERROR_CODE";
   public static final String GET_DELIVERY_VEHICLE_ERROR_MESSAGE =
       "Failed to retrieve delivery vehicle information.";
+
+  public static final String NO_DELIVERY_VEHICLE_CODE = "NO_DELIVERY_VEHICLE_CODE";
+  public static final String NO_DELIVERY_VEHICLE_MESSAGE =
+      "No delivery vehicle has been fetched yet.";
+
+  public static final String INVALID_TOKEN_PROVIDER_CODE = "INVALID_TOKEN_PROVIDER_CODE";
+  public static final String INVALID_TOKEN_PROVIDER_MESSAGE = "Invalid HTTP token provider config.";
+
+  public static final String BRIDGE_RECORDING_ERROR_CODE = "BRIDGE_RECORDING_ERROR_CODE";
+  public static final String BRIDGE_RECORDING_ERROR_MESSAGE =
+      "Failed to start the bridge recording.";
 }
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.location.Location;
+import androidx.annotation.Nullable;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shares a single listener on the road-snapped location provider between every consumer of the
+ * vehicle location.
+ *
+ * <p>Native features register plain location listeners. JS features register named subscribers,
+ * each with its own minimum interval, minimum distance and set of optional fields; for every
+ * location the subscribers that are due are collected into a single batch, so one bridge event is
+ * sent per location no matter how many subscribers there are. The provider listener is only
+ * registered while there is at least one consumer.
+ */
+public final class LocationMultiplexer {
+
+  public static final int FIELD_ACCURACY = 1;
+  public static final int FIELD_ALTITUDE = 1 << 1;
+  public static final int FIELD_BEARING = 1 << 2;
+  public static final int FIELD_SPEED = 1 << 3;
+
+  /** Receives the subscribers a location is due for, on the thread that delivered it. */
+  public interface BatchListener {
+    /**
+     * @param fieldMask union of the optional fields requested by the subscribers
+     */
+    void onBatch(Sample sample, int fieldMask, List<String> subscribers);
+  }
+
+  /** The fields of a location the subscribers can ask for. */
+  public static final class Sample {
+    public final double lat;
+    public final double lng;
+    public final long timeMillis;
+    public final int presentFields;
+    public final float accuracy;
+    public final double altitude;
+    public final float bearing;
+    public final float speed;
+
+    public Sample(
+        double lat,
+        double lng,
+        long timeMillis,
+        int presentFields,
+        float accuracy,
+        double altitude,
+        float bearing,
+        float speed) {
+      this.lat = lat;
+      this.lng = lng;
+      this.timeMillis = timeMillis;
+      this.presentFields = presentFields;
+      this.accuracy = accuracy;
+      this.altitude = altitude;
+      this.bearing = bearing;
+      this.speed = speed;
+    }
+
+    static Sample fromLocation(Location location) {
+      int present =
+          (location.hasAccuracy() ? FIELD_ACCURACY : 0)
+              | (location.hasAltitude() ? FIELD_ALTITUDE : 0)
+              | (location.hasBearing() ? FIELD_BEARING : 0)
+              | (location.hasSpeed() ? FIELD_SPEED : 0);
+      return new Sample(
+          location.getLatitude(),
+          location.getLongitude(),
+          location.getTime(),
+          present,
+          location.getAccuracy(),
+          location.getAltitude(),
+          location.getBearing(),
+          location.getSpeed());
+    }
+  }
+
+  private static final class Subscriber {
+    final long minIntervalMillis;
+    final double minDistanceMeters;
+    final int fieldMask;
+
+    boolean delivered = false;
+    double lastLat;
+    double lastLng;
+    long lastTimeMillis;
+
+    Subscriber(long minIntervalMillis, double minDistanceMeters, int fieldMask) {
+      this.minIntervalMillis = minIntervalMillis;
+      this.minDistanceMeters = minDistanceMeters;
+      this.fieldMask = fieldMask;
+    }
+  }
+
+  private final BatchListener batchListener;
+  private final RoadSnappedLocationProvider.LocationListener providerListener = this::onLocation;
+  private final List<RoadSnappedLocationProvider.LocationListener> listeners =
+      new CopyOnWriteArrayList<>();
+  private final Map<String, Subscriber> subscribers = new LinkedHashMap<>();
+
+  @Nullable private RoadSnappedLocationProvider provider = null;
+  private boolean attached = false;
+
+  public LocationMultiplexer(BatchListener batchListener) {
+    this.batchListener = batchListener;
+  }
+
+  /** Sets the provider to listen to, or null when the driver instance is cleared. */
+  public synchronized void setProvider(@Nullable RoadSnappedLocationProvider provider) {
+    if (attached) {
+      this.provider.removeLocationListener(providerListener);
+      attached = false;
+    }
+    this.provider = provider;
+    updateAttachment();
+  }
+
+  /** Adds a native consumer. It is kept across provider changes until removed. */
+  public synchronized void addLocationListener(RoadSnappedLocationProvider.LocationListener l) {
+    if (!listeners.contains(l)) {
+      listeners.add(l);
+    }
+    updateAttachment();
+  }
+
+  public synchronized void removeLocationListener(RoadSnappedLocationProvider.LocationListener l) {
+    listeners.remove(l);
+    updateAttachment();
+  }
+
+  /**
+   * Adds or replaces a JS subscriber.
+   *
+   * @param minIntervalMillis minimum time between two locations delivered to the subscriber
+   * @param minDistanceMeters minimum distance between two locations delivered to the subscriber
+   * @param fieldMask optional fields the subscriber wants, a combination of the FIELD constants
+   */
+  public synchronized void addSubscriber(
+      String name, long minIntervalMillis, double minDistanceMeters, int fieldMask) {
+    subscribers.put(name, new Subscriber(minIntervalMillis, minDistanceMeters, fieldMask));
+    updateAttachment();
+  }
+
+  public synchronized void removeSubscriber(String name) {
+    subscribers.remove(name);
+    updateAttachment();
+  }
+
+  /** Removes every JS subscriber. Native consumers are kept. */
+  public synchronized void clearSubscribers() {
+    subscribers.clear();
+    updateAttachment();
+  }
+
+  synchronized boolean isAttached() {
+    return attached;
+  }
+
+  private void onLocation(Location location) {
+    for (RoadSnappedLocationProvider.LocationListener listener : listeners) {
+      listener.onLocationChanged(location);
+    }
+    boolean hasSubscribers;
+    synchronized (this) {
+      hasSubscribers = !subscribers.isEmpty();
+    }
+    if (hasSubscribers) {
+      dispatch(Sample.fromLocation(location));
+    }
+  }
+
+  /** Delivers a location to the JS subscribers that are due for it, in one batch. */
+  void dispatch(Sample sample) {
+    List<String> due = new ArrayList<>();
+    int fieldMask = 0;
+    synchronized (this) {
+      for (Map.Entry<String, Subscriber> entry : subscribers.entrySet()) {
+        Subscriber subscriber = entry.getValue();
+        if (subscriber.delivered
+            && (sample.timeMillis - subscriber.lastTimeMillis < subscriber.minIntervalMillis
+                || GeoUtil.distanceMeters(
+                        subscriber.lastLat, subscriber.lastLng, sample.lat, sample.lng)
+                    < subscriber.minDistanceMeters)) {
+          continue;
+        }
+        subscriber.delivered = true;
+        subscriber.lastLat = sample.lat;
+        subscriber.lastLng = sample.lng;
+        subscriber.lastTimeMillis = sample.timeMillis;
+        fieldMask |= subscriber.fieldMask;
+        due.add(entry.getKey());
+      }
+    }
+    if (!due.isEmpty()) {
+      batchListener.onBatch(sample, fieldMask, due);
+    }
+  }
+
+  private void updateAttachment() {
+    boolean needed = provider != null && (!listeners.isEmpty() || !subscribers.isEmpty());
+    if (needed && !attached) {
+      provider.addLocationListener(providerListener);
+      attached = true;
+    } else if (!needed && attached) {
+      provider.removeLocationListener(providerListener);
+      attached = false;
+    }
+  }
+
+  /** Reads a JS field list such as {@code ["speed", "bearing"]} into a field mask. */
+  public static int parseFieldMask(@Nullable ReadableArray fields) {
+    int mask = 0;
+    if (fields == null) {
+      return mask;
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      String field = fields.getString(i);
+      if ("accuracy".equals(field)) {
+        mask |= FIELD_ACCURACY;
+      } else if ("altitude".equals(field)) {
+        mask |= FIELD_ALTITUDE;
+      } else if ("bearing".equals(field)) {
+        mask |= FIELD_BEARING;
+      } else if ("speed".equals(field)) {
+        mask |= FIELD_SPEED;
+      }
+    }
+    return mask;
+  }
+
+  /** Translates a batch for JS. Only the requested optional fields that are present are sent. */
+  public static WritableMap toWritableMap(Sample sample, int fieldMask, List<String> subscribers) {
+    int fields = fieldMask & sample.presentFields;
+    WritableMap location = Arguments.createMap();
+    location.putDouble("lat", sample.lat);
+    location.putDouble("lng", sample.lng);
+    location.putDouble("time", sample.timeMillis);
+    if ((fields & FIELD_ACCURACY) != 0) {
+      location.putDouble("accuracy", sample.accuracy);
+    }
+    if ((fields & FIELD_ALTITUDE) != 0) {
+      location.putDouble("altitude", sample.altitude);
+    }
+    if ((fields & FIELD_BEARING) != 0) {
+      location.putDouble("bearing", sample.bearing);
+    }
+    if ((fields & FIELD_SPEED) != 0) {
+      location.putDouble("speed", sample.speed);
+    }
+    WritableArray names = Arguments.createArray();
+    for (String name : subscribers) {
+      names.pushString(name);
+    }
+    WritableMap map = Arguments.createMap();
+    map.putMap("location", location);
+    map.putArray("subscribers", names);
+    return map;
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import androidx.annotation.NonNull;
+
+/**
+ * Forwards {@link ComponentCallbacks2#onTrimMemory} to a driver module so it can release native
+ * caches and relax location reporting while the OS is short on memory.
+ *
+ * <p>Only levels that signal real memory pressure are forwarded; {@code TRIM_MEMORY_UI_HIDDEN} and
+ * {@code TRIM_MEMORY_RUNNING_MODERATE} are ignored.
+ */
+public class MemoryPressureMonitor implements ComponentCallbacks2 {
+
+  /** Status code emitted to JS alongside a memory trim. */
+  public static final String STATUS_CODE = "MEMORY_PRESSURE";
+
+  /** Receives memory pressure notifications on the main thread. */
+  public interface Listener {
+    void onMemoryPressure(int level);
+  }
+
+  private final Listener listener;
+  private Context registeredContext = null;
+
+  public MemoryPressureMonitor(Listener listener) {
+    this.listener = listener;
+  }
+
+  /** Starts receiving trim callbacks from the application context. */
+  public void register(Context context) {
+    if (registeredContext != null) {
+      return;
+    }
+    registeredContext = context.getApplicationContext();
+    registeredContext.registerComponentCallbacks(this);
+  }
+
+  /** Stops receiving trim callbacks. */
+  public void unregister() {
+    if (registeredContext == null) {
+      return;
+    }
+    registeredContext.unregisterComponentCallbacks(this);
+    registeredContext = null;
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    if (level < TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_UI_HIDDEN) {
+      return;
+    }
+    listener.onMemoryPressure(level);
+  }
+
+  @Override
+  public void onLowMemory() {
+    listener.onMemoryPressure(TRIM_MEMORY_COMPLETE);
+  }
+
+  @Override
+  public void onConfigurationChanged(@NonNull Configuration newConfig) {}
+
+  /** Returns true for levels at which in-memory caches should be dropped entirely. */
+  public static boolean isCritical(int level) {
+    return level == TRIM_MEMORY_RUNNING_CRITICAL || level >= TRIM_MEMORY_MODERATE;
+  }
+
+  /** Returns a readable name for a trim level, used in status messages. */
+  public static String levelName(int level) {
+    switch (level) {
+      case TRIM_MEMORY_RUNNING_LOW:
+        return "RUNNING_LOW";
+      case TRIM_MEMORY_RUNNING_CRITICAL:
+        return "RUNNING_CRITICAL";
+      case TRIM_MEMORY_BACKGROUND:
+        return "BACKGROUND";
+      case TRIM_MEMORY_MODERATE:
+        return "MODERATE";
+      case TRIM_MEMORY_COMPLETE:
+        return "COMPLETE";
+      default:
+        return String.valueOf(level);
+    }
+  }
+}
@@ -0,0 +1,334 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.os.Process;
+import android.os.SystemClock;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures what location reporting costs at each reporting interval, so intervals can be chosen
+ * from data rather than by guesswork. Off unless enabled from JS.
+ *
+ * <p>While enabled, the module reports token requests, UI thread hops, bridge events and vehicle
+ * update attempts as they happen, and the profiler attributes them to the reporting interval in
+ * effect at the time. Process CPU time is sampled whenever the interval changes and once per slot
+ * of 1/{@value #SLOTS_PER_WINDOW} of the window, and the slots older than the window are dropped,
+ * so the report covers a rolling window to within one slot. CPU time is that of the whole process,
+ * so intervals are best compared under similar app usage.
+ *
+ * <p>While disabled, every hook returns after a single volatile read.
+ */
+public final class ReportingProfiler {
+
+  public static final long DEFAULT_WINDOW_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final int SLOTS_PER_WINDOW = 60;
+
+  /** Cost of location reporting at one interval over the window. */
+  public static final class IntervalCost {
+    public final double intervalSeconds;
+
+    /** Time the interval was in effect while profiling. */
+    public final long observedMillis;
+
+    /** Process CPU time used while the interval was in effect. */
+    public final long cpuMillis;
+
+    public final int tokenRequests;
+    public final int uiThreadHops;
+    public final int bridgeEvents;
+    public final int vehicleUpdates;
+
+    /** Vehicle updates reported at WARNING or ERROR level, included in {@link #vehicleUpdates}. */
+    public final int vehicleUpdateFailures;
+
+    IntervalCost(
+        double intervalSeconds,
+        long observedMillis,
+        long cpuMillis,
+        int tokenRequests,
+        int uiThreadHops,
+        int bridgeEvents,
+        int vehicleUpdates,
+        int vehicleUpdateFailures) {
+      this.intervalSeconds = intervalSeconds;
+      this.observedMillis = observedMillis;
+      this.cpuMillis = cpuMillis;
+      this.tokenRequests = tokenRequests;
+      this.uiThreadHops = uiThreadHops;
+      this.bridgeEvents = bridgeEvents;
+      this.vehicleUpdates = vehicleUpdates;
+      this.vehicleUpdateFailures = vehicleUpdateFailures;
+    }
+  }
+
+  /** Per-interval costs over the window, by increasing interval. */
+  public static final class Report {
+    public final boolean enabled;
+    public final long windowMillis;
+    public final List<IntervalCost> intervals;
+
+    Report(boolean enabled, long windowMillis, List<IntervalCost> intervals) {
+      this.enabled = enabled;
+      this.windowMillis = windowMillis;
+      this.intervals = intervals;
+    }
+  }
+
+  // Counts of a stretch of time at a single interval, no longer than a slot.
+  private static final class Segment {
+    final double intervalSeconds;
+    final long startMillis;
+    final long startCpuMillis;
+    long endMillis;
+    long endCpuMillis;
+    int tokenRequests;
+    int uiThreadHops;
+    int bridgeEvents;
+    int vehicleUpdates;
+    int vehicleUpdateFailures;
+
+    Segment(double intervalSeconds, long startMillis, long startCpuMillis) {
+      this.intervalSeconds = intervalSeconds;
+      this.startMillis = startMillis;
+      this.startCpuMillis = startCpuMillis;
+      this.endMillis = startMillis;
+      this.endCpuMillis = startCpuMillis;
+    }
+  }
+
+  private final double defaultIntervalSeconds;
+  private final LongSupplier clock;
+  private final LongSupplier cpuClock;
+
+  private volatile boolean enabled = false;
+  private long windowMillis = DEFAULT_WINDOW_MILLIS;
+  private double intervalSeconds;
+
+  // Closed segments, oldest first, and the open one while enabled.
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  private Segment current = null;
+
+  /**
+   * @param defaultIntervalSeconds the interval reporting runs at when the SDK default is in effect
+   */
+  public ReportingProfiler(double defaultIntervalSeconds) {
+    this(defaultIntervalSeconds, SystemClock::elapsedRealtime, Process::getElapsedCpuTime);
+  }
+
+  ReportingProfiler(double defaultIntervalSeconds, LongSupplier clock, LongSupplier cpuClock) {
+    this.defaultIntervalSeconds = defaultIntervalSeconds;
+    this.intervalSeconds = defaultIntervalSeconds;
+    this.clock = clock;
+    this.cpuClock = cpuClock;
+  }
+
+  /**
+   * Enables or disables profiling over a rolling window. Enabling discards what was profiled
+   * before; disabling keeps it readable.
+   */
+  public synchronized void configure(boolean enabled, long windowMillis) {
+    this.windowMillis = Math.max(SLOTS_PER_WINDOW, windowMillis);
+    if (enabled == this.enabled) {
+      return;
+    }
+    long now = clock.getAsLong();
+    if (enabled) {
+      segments.clear();
+      current = new Segment(intervalSeconds, now, cpuClock.getAsLong());
+    } else {
+      close(now);
+    }
+    this.enabled = enabled;
+  }
+
+  /** Records the reporting interval now in effect, or 0 if the SDK default is. */
+  public synchronized void setIntervalSeconds(double intervalSeconds) {
+    double effective = intervalSeconds > 0 ? intervalSeconds : defaultIntervalSeconds;
+    if (effective == this.intervalSeconds) {
+      return;
+    }
+    this.intervalSeconds = effective;
+    if (enabled) {
+      roll(clock.getAsLong());
+    }
+  }
+
+  public void onTokenRequest() {
+    if (enabled) {
+      synchronized (this) {
+        Segment segment = current();
+        if (segment != null) {
+          segment.tokenRequests++;
+        }
+      }
+    }
+  }
+
+  public void onUiThreadHop() {
+    if (enabled) {
+      synchronized (this) {
+        Segment segment = current();
+        if (segment != null) {
+          segment.uiThreadHops++;
+        }
+      }
+    }
+  }
+
+  public void onBridgeEvent() {
+    if (enabled) {
+      synchronized (this) {
+        Segment segment = current();
+        if (segment != null) {
+          segment.bridgeEvents++;
+        }
+      }
+    }
+  }
+
+  /** Records an attempt of the SDK to update the vehicle in Fleet Engine. */
+  public void onVehicleUpdate(boolean failed) {
+    if (enabled) {
+      synchronized (this) {
+        Segment segment = current();
+        if (segment != null) {
+          segment.vehicleUpdates++;
+          if (failed) {
+            segment.vehicleUpdateFailures++;
+          }
+        }
+      }
+    }
+  }
+
+  /** Returns the costs over the window, or over the window before profiling was disabled. */
+  public synchronized Report getReport() {
+    long now = clock.getAsLong();
+    long nowCpu = 0;
+    if (enabled) {
+      current();
+      nowCpu = cpuClock.getAsLong();
+      evict(now);
+    }
+
+    Map<Double, long[]> totals = new TreeMap<>();
+    for (Segment segment : segments) {
+      add(totals, segment, segment.endMillis, segment.endCpuMillis);
+    }
+    if (current != null) {
+      add(totals, current, now, nowCpu);
+    }
+
+    List<IntervalCost> intervals = new ArrayList<>(totals.size());
+    for (Map.Entry<Double, long[]> entry : totals.entrySet()) {
+      long[] t = entry.getValue();
+      intervals.add(
+          new IntervalCost(
+              entry.getKey(),
+              t[0],
+              t[1],
+              (int) t[2],
+              (int) t[3],
+              (int) t[4],
+              (int) t[5],
+              (int) t[6]));
+    }
+    return new Report(enabled, windowMillis, Collections.unmodifiableList(intervals));
+  }
+
+  public static WritableMap toWritableMap(Report report) {
+    WritableArray intervals = Arguments.createArray();
+    for (IntervalCost cost : report.intervals) {
+      WritableMap interval = Arguments.createMap();
+      interval.putDouble("intervalSeconds", cost.intervalSeconds);
+      interval.putDouble("observedMillis", cost.observedMillis);
+      interval.putDouble("cpuMillis", cost.cpuMillis);
+      interval.putInt("tokenRequests", cost.tokenRequests);
+      interval.putInt("uiThreadHops", cost.uiThreadHops);
+      interval.putInt("bridgeEvents", cost.bridgeEvents);
+      interval.putInt("vehicleUpdates", cost.vehicleUpdates);
+      interval.putInt("vehicleUpdateFailures", cost.vehicleUpdateFailures);
+      intervals.pushMap(interval);
+    }
+    WritableMap map = Arguments.createMap();
+    map.putBoolean("enabled", report.enabled);
+    map.putDouble("windowMillis", report.windowMillis);
+    map.putArray("intervals", intervals);
+    return map;
+  }
+
+  // Returns the open segment, starting a new one once it has run for a slot, or null if disabled.
+  private Segment current() {
+    if (current == null) {
+      return null;
+    }
+    long now = clock.getAsLong();
+    if (now - current.startMillis >= windowMillis / SLOTS_PER_WINDOW) {
+      roll(now);
+      evict(now);
+    }
+    return current;
+  }
+
+  // Closes the open segment and opens one at the current interval.
+  private void roll(long now) {
+    long cpu = close(now);
+    current = new Segment(intervalSeconds, now, cpu);
+  }
+
+  // Samples the end of the open segment, moves it to the closed ones and returns the CPU sample.
+  private long close(long now) {
+    long cpu = cpuClock.getAsLong();
+    current.endMillis = now;
+    current.endCpuMillis = cpu;
+    segments.addLast(current);
+    current = null;
+    return cpu;
+  }
+
+  // A segment only counts events during its first slot, as the next event rolls it over, so it is
+  // dropped by its start even if it was left open for longer.
+  private void evict(long now) {
+    while (!segments.isEmpty() && segments.peekFirst().startMillis < now - windowMillis) {
+      segments.removeFirst();
+    }
+  }
+
+  private static void add(Map<Double, long[]> totals, Segment segment, long end, long endCpu) {
+    long[] t = totals.get(segment.intervalSeconds);
+    if (t == null) {
+      t = new long[7];
+      totals.put(segment.intervalSeconds, t);
+    }
+    t[0] += end - segment.startMillis;
+    t[1] += endCpu - segment.startCpuMillis;
+    t[2] += segment.tokenRequests;
+    t[3] += segment.uiThreadHops;
+    t[4] += segment.bridgeEvents;
+    t[5] += segment.vehicleUpdates;
+    t[6] += segment.vehicleUpdateFailures;
+  }
+}
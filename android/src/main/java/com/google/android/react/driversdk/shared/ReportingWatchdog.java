@@ -0,0 +1,246 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.os.SystemClock;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects location reporting stalls on the device.
+ *
+ * <p>While started, the watchdog checks every few seconds how long ago the last successful vehicle
+ * update and the last token grant happened, how many token requests are waiting, and how long a
+ * task posted to the UI thread takes to run. The listener is only called when the set of
+ * thresholds crossed changes, including when everything recovers, so a healthy reporter costs one
+ * timer tick and one UI thread post per check.
+ *
+ * <p>Update and token stalls are only reported while started, as nothing is expected to happen
+ * while reporting is off.
+ */
+public final class ReportingWatchdog {
+
+  public static final String ISSUE_UPDATES_STALLED = "UPDATES_STALLED";
+  public static final String ISSUE_TOKENS_STALLED = "TOKENS_STALLED";
+  public static final String ISSUE_TOKEN_BACKLOG = "TOKEN_BACKLOG";
+  public static final String ISSUE_UI_THREAD_SLOW = "UI_THREAD_SLOW";
+
+  public static final long DEFAULT_UPDATE_STALL_MILLIS = 60_000;
+  public static final long DEFAULT_TOKEN_STALL_MILLIS = 120_000;
+  public static final int DEFAULT_MAX_PENDING_TOKEN_REQUESTS = 4;
+  public static final long DEFAULT_UI_THREAD_LATENCY_MILLIS = 1_000;
+
+  private static final long CHECK_INTERVAL_MILLIS = 5_000;
+
+  /** Receives health changes on the watchdog thread. */
+  public interface Listener {
+    void onReportingHealthChanged(Health health);
+  }
+
+  /** Reporting health at a point in time. */
+  public static final class Health {
+    /** Thresholds currently crossed, as ISSUE constants. Empty when healthy. */
+    public final List<String> issues;
+
+    public final long millisSinceLastUpdate;
+    public final long millisSinceLastTokenGrant;
+    public final int pendingTokenRequests;
+    public final long uiThreadLatencyMillis;
+
+    Health(
+        List<String> issues,
+        long millisSinceLastUpdate,
+        long millisSinceLastTokenGrant,
+        int pendingTokenRequests,
+        long uiThreadLatencyMillis) {
+      this.issues = issues;
+      this.millisSinceLastUpdate = millisSinceLastUpdate;
+      this.millisSinceLastTokenGrant = millisSinceLastTokenGrant;
+      this.pendingTokenRequests = pendingTokenRequests;
+      this.uiThreadLatencyMillis = uiThreadLatencyMillis;
+    }
+  }
+
+  private final Listener listener;
+  private final IntSupplier pendingTokenRequests;
+  private final Executor uiThread;
+  private final LongSupplier clock;
+
+  private volatile long updateStallMillis = DEFAULT_UPDATE_STALL_MILLIS;
+  private volatile long tokenStallMillis = DEFAULT_TOKEN_STALL_MILLIS;
+  private volatile int maxPendingTokenRequests = DEFAULT_MAX_PENDING_TOKEN_REQUESTS;
+  private volatile long uiThreadLatencyThresholdMillis = DEFAULT_UI_THREAD_LATENCY_MILLIS;
+
+  private volatile boolean monitoring = false;
+
+  // Both start at the time monitoring starts, so a reporter that never succeeds is caught too.
+  private volatile long lastUpdateMillis;
+  private volatile long lastTokenGrantMillis;
+
+  // Post time of the UI thread probe still waiting to run, or -1.
+  private volatile long probePostedAtMillis = -1;
+  private volatile long uiThreadLatencyMillis = 0;
+
+  private List<String> reportedIssues = Collections.emptyList();
+  private ScheduledExecutorService scheduler = null;
+
+  /**
+   * @param pendingTokenRequests number of token requests waiting for an answer
+   * @param uiThread runs the probe that measures UI thread latency
+   */
+  public ReportingWatchdog(Listener listener, IntSupplier pendingTokenRequests, Executor uiThread) {
+    this(listener, pendingTokenRequests, uiThread, SystemClock::elapsedRealtime);
+  }
+
+  ReportingWatchdog(
+      Listener listener, IntSupplier pendingTokenRequests, Executor uiThread, LongSupplier clock) {
+    this.listener = listener;
+    this.pendingTokenRequests = pendingTokenRequests;
+    this.uiThread = uiThread;
+    this.clock = clock;
+    this.lastUpdateMillis = clock.getAsLong();
+    this.lastTokenGrantMillis = lastUpdateMillis;
+  }
+
+  /** Sets the thresholds. Non-positive values keep the defaults. */
+  public void configure(
+      long updateStallMillis,
+      long tokenStallMillis,
+      int maxPendingTokenRequests,
+      long uiThreadLatencyMillis) {
+    this.updateStallMillis =
+        updateStallMillis > 0 ? updateStallMillis : DEFAULT_UPDATE_STALL_MILLIS;
+    this.tokenStallMillis = tokenStallMillis > 0 ? tokenStallMillis : DEFAULT_TOKEN_STALL_MILLIS;
+    this.maxPendingTokenRequests =
+        maxPendingTokenRequests > 0 ? maxPendingTokenRequests : DEFAULT_MAX_PENDING_TOKEN_REQUESTS;
+    this.uiThreadLatencyThresholdMillis =
+        uiThreadLatencyMillis > 0 ? uiThreadLatencyMillis : DEFAULT_UI_THREAD_LATENCY_MILLIS;
+  }
+
+  /** Starts checking. Update and token stalls are measured from now on. */
+  public synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    startMonitoring();
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    scheduler.scheduleWithFixedDelay(
+        this::check, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stop() {
+    monitoring = false;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  // Resets what is measured and starts reporting stalls, without scheduling checks.
+  synchronized void startMonitoring() {
+    long now = clock.getAsLong();
+    lastUpdateMillis = now;
+    lastTokenGrantMillis = now;
+    probePostedAtMillis = -1;
+    uiThreadLatencyMillis = 0;
+    reportedIssues = Collections.emptyList();
+    monitoring = true;
+  }
+
+  public void onVehicleUpdateSucceeded() {
+    lastUpdateMillis = clock.getAsLong();
+  }
+
+  public void onTokenGranted() {
+    lastTokenGrantMillis = clock.getAsLong();
+  }
+
+  public Health getHealth() {
+    long now = clock.getAsLong();
+    long probePostedAt = probePostedAtMillis;
+    long uiLatency = uiThreadLatencyMillis;
+    if (probePostedAt >= 0) {
+      // A probe that has not run yet is at least this late.
+      uiLatency = Math.max(uiLatency, now - probePostedAt);
+    }
+    long sinceUpdate = now - lastUpdateMillis;
+    long sinceTokenGrant = now - lastTokenGrantMillis;
+    int pending = pendingTokenRequests.getAsInt();
+
+    boolean monitoring = this.monitoring;
+
+    List<String> issues = new ArrayList<>(4);
+    if (monitoring && sinceUpdate >= updateStallMillis) {
+      issues.add(ISSUE_UPDATES_STALLED);
+    }
+    if (monitoring && sinceTokenGrant >= tokenStallMillis) {
+      issues.add(ISSUE_TOKENS_STALLED);
+    }
+    if (pending > maxPendingTokenRequests) {
+      issues.add(ISSUE_TOKEN_BACKLOG);
+    }
+    if (uiLatency >= uiThreadLatencyThresholdMillis) {
+      issues.add(ISSUE_UI_THREAD_SLOW);
+    }
+    return new Health(issues, sinceUpdate, sinceTokenGrant, pending, uiLatency);
+  }
+
+  /** Posts a UI thread probe if none is pending, and reports the health if it changed. */
+  void check() {
+    if (probePostedAtMillis < 0) {
+      long postedAt = clock.getAsLong();
+      probePostedAtMillis = postedAt;
+      uiThread.execute(
+          () -> {
+            uiThreadLatencyMillis = clock.getAsLong() - postedAt;
+            probePostedAtMillis = -1;
+          });
+    }
+
+    Health health = getHealth();
+    synchronized (this) {
+      if (health.issues.equals(reportedIssues)) {
+        return;
+      }
+      reportedIssues = health.issues;
+    }
+    listener.onReportingHealthChanged(health);
+  }
+
+  /** Translates a health snapshot for JS. */
+  public static WritableMap toWritableMap(Health health) {
+    WritableArray issues = Arguments.createArray();
+    for (String issue : health.issues) {
+      issues.pushString(issue);
+    }
+    WritableMap map = Arguments.createMap();
+    map.putBoolean("healthy", health.issues.isEmpty());
+    map.putArray("issues", issues);
+    map.putDouble("millisSinceLastUpdate", health.millisSinceLastUpdate);
+    map.putDouble("millisSinceLastTokenGrant", health.millisSinceLastTokenGrant);
+    map.putInt("pendingTokenRequests", health.pendingTokenRequests);
+    map.putDouble("uiThreadLatencyMillis", health.uiThreadLatencyMillis);
+    return map;
+  }
+}
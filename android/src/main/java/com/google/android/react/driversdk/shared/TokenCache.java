@@ -0,0 +1,204 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import androidx.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Caches auth tokens by their (vehicleId, taskId) context until shortly before they expire.
+ *
+ * <p>Expiry is read from the {@code exp} claim of the JWT returned by the token provider. Tokens
+ * without a readable expiry are never cached. When a persistent store is attached, the last
+ * vehicle-scoped token is written through to it so it can be served right after a process restart.
+ * Tokens too long to encode are only kept in memory.
+ */
+public class TokenCache {
+
+  /** Tokens this close to expiry are treated as missing so a fresh one is requested. */
+  static final long REFRESH_MARGIN_MILLIS = 60_000;
+
+  private static final String TOKEN_FILE = "auth_token";
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  @Nullable private EncryptedStateStore persistentStore = null;
+
+  /** A cached token and the wall-clock time it expires at. */
+  static final class Entry {
+    final String vehicleId;
+    final String taskId;
+    final String token;
+    final long expiresAtMillis;
+
+    Entry(String vehicleId, String taskId, String token, long expiresAtMillis) {
+      this.vehicleId = vehicleId;
+      this.taskId = taskId;
+      this.token = token;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+
+    boolean isUsable(long nowMillis) {
+      return expiresAtMillis - REFRESH_MARGIN_MILLIS > nowMillis;
+    }
+  }
+
+  /** Returns a cached token for the context, or null if none is usable. */
+  @Nullable
+  public String get(String vehicleId, String taskId) {
+    Entry entry = entries.get(key(vehicleId, taskId));
+    if (entry == null) {
+      return null;
+    }
+    if (!entry.isUsable(System.currentTimeMillis())) {
+      entries.remove(key(vehicleId, taskId), entry);
+      return null;
+    }
+    return entry.token;
+  }
+
+  /**
+   * Caches a token. The expiry is read from the token itself; if it cannot be determined the token
+   * is not cached.
+   *
+   * @return true if the token was cached
+   */
+  public boolean put(String vehicleId, String taskId, String token) {
+    return put(vehicleId, taskId, token, getExpirationMillis(token));
+  }
+
+  /**
+   * Caches a token with an explicit expiry.
+   *
+   * @return true if the token was cached
+   */
+  public boolean put(String vehicleId, String taskId, String token, long expiresAtMillis) {
+    Entry entry = new Entry(vehicleId, taskId, token, expiresAtMillis);
+    if (!entry.isUsable(System.currentTimeMillis())) {
+      return false;
+    }
+    entries.put(key(vehicleId, taskId), entry);
+
+    EncryptedStateStore store = persistentStore;
+    if (store != null && taskId.isEmpty()) {
+      byte[] bytes = serialize(entry);
+      if (bytes != null) {
+        store.write(TOKEN_FILE, bytes);
+      } else {
+        // Too long to persist; drop the older token rather than restore it after a restart.
+        store.delete(TOKEN_FILE);
+      }
+    }
+    return true;
+  }
+
+  /** Drops every entry that is expired or about to expire. */
+  public void removeExpired() {
+    long now = System.currentTimeMillis();
+    entries.values().removeIf(entry -> !entry.isUsable(now));
+  }
+
+  /** Drops all entries, including the persisted token. */
+  public void clear() {
+    entries.clear();
+    EncryptedStateStore store = persistentStore;
+    if (store != null) {
+      store.delete(TOKEN_FILE);
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Attaches a store that persists the last vehicle-scoped token, and restores a previously
+   * persisted token if it is still usable. Pass null to detach.
+   */
+  public void setPersistentStore(@Nullable EncryptedStateStore store) {
+    persistentStore = store;
+    if (store == null) {
+      return;
+    }
+    store.read(
+        TOKEN_FILE,
+        bytes -> {
+          if (bytes == null) {
+            return;
+          }
+          Entry entry = deserialize(bytes);
+          if (entry != null && entry.isUsable(System.currentTimeMillis())) {
+            entries.putIfAbsent(key(entry.vehicleId, entry.taskId), entry);
+          }
+        });
+  }
+
+  /**
+   * Returns the expiry of a JWT in epoch milliseconds, or 0 if the token is not a JWT or carries
+   * no {@code exp} claim.
+   */
+  public static long getExpirationMillis(String token) {
+    String[] parts = token.split("\\.");
+    if (parts.length < 2) {
+      return 0;
+    }
+    try {
+      byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+      JSONObject claims = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+      return claims.optLong("exp", 0) * 1000;
+    } catch (IllegalArgumentException | JSONException e) {
+      return 0;
+    }
+  }
+
+  private static String key(String vehicleId, String taskId) {
+    return vehicleId + '\n' + taskId;
+  }
+
+  /** Returns null if a field is too long for {@link DataOutputStream#writeUTF}. */
+  @Nullable
+  private static byte[] serialize(Entry entry) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(entry.vehicleId);
+      out.writeUTF(entry.taskId);
+      out.writeUTF(entry.token);
+      out.writeLong(entry.expiresAtMillis);
+    } catch (UTFDataFormatException e) {
+      return null;
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Nullable
+  private static Entry deserialize(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return new Entry(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
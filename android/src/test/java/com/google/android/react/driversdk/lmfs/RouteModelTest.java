@@ -0,0 +1,133 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class RouteModelTest {
+
+  private static VehicleSnapshot createSnapshot(String... taskIds) {
+    List<VehicleSnapshot.Stop> stops = new ArrayList<>();
+    stops.add(
+        new VehicleSnapshot.Stop(
+            2,
+            new VehicleSnapshot.StopWaypoint(
+                "Depot", "place-1", true, 37.422, -122.084, 90, true, false),
+            Arrays.asList(
+                new VehicleSnapshot.Task(taskIds[0], 120),
+                new VehicleSnapshot.Task(taskIds[1], 60))));
+    stops.add(new VehicleSnapshot.Stop(1, null, Collections.emptyList()));
+    stops.add(
+        new VehicleSnapshot.Stop(
+            1,
+            new VehicleSnapshot.StopWaypoint(null, null, false, 0, 0, -1, false, true),
+            Collections.singletonList(new VehicleSnapshot.Task(taskIds[2], 30))));
+    return new VehicleSnapshot("provider", "providers/provider/vehicles/v1", "v1", stops, 1234L);
+  }
+
+  @Test
+  public void holdsEveryFieldOfTheSnapshot() {
+    RouteModel route = RouteModel.build(createSnapshot("task-1", "task-2", "task-3"), null);
+
+    assertEquals("provider", route.providerId());
+    assertEquals("providers/provider/vehicles/v1", route.vehicleName());
+    assertEquals("v1", route.vehicleId());
+    assertEquals(1234L, route.capturedAtMillis);
+    assertEquals(3, route.stopCount());
+    assertEquals(3, route.taskCount());
+
+    assertEquals(2, route.stopState(0));
+    assertTrue(route.hasWaypoint(0));
+    assertEquals("Depot", route.title(0));
+    assertEquals("place-1", route.placeId(0));
+    assertTrue(route.hasPosition(0));
+    assertEquals(37.422, route.lat(0), 0);
+    assertEquals(-122.084, route.lng(0), 0);
+    assertEquals(90, route.preferredHeading(0));
+    assertTrue(route.vehicleStopover(0));
+    assertFalse(route.preferSameSideOfRoad(0));
+    assertEquals(0, route.taskStart(0));
+    assertEquals(2, route.taskEnd(0));
+    assertEquals("task-2", route.taskId(1));
+    assertEquals(60, route.taskDurationSeconds(1), 0);
+    assertEquals(180, route.serviceSeconds(0), 0);
+    assertEquals("task-1\ntask-2\n", route.stopKey(0));
+
+    assertFalse(route.hasWaypoint(1));
+    assertEquals(route.taskStart(1), route.taskEnd(1));
+    assertEquals("", route.stopKey(1));
+
+    assertNull(route.title(2));
+    assertNull(route.placeId(2));
+    assertFalse(route.hasPosition(2));
+    assertEquals(-1, route.preferredHeading(2));
+    assertTrue(route.preferSameSideOfRoad(2));
+    assertEquals("task-3", route.taskId(route.taskStart(2)));
+  }
+
+  @Test
+  public void refreshSharesStringsWithPreviousRoute() {
+    RouteModel first = RouteModel.build(createSnapshot("task-1", "task-2", "task-3"), null);
+    int tableSize = first.strings.size();
+
+    // Fresh strings, as a new fetch would return them.
+    RouteModel second =
+        RouteModel.build(
+            createSnapshot(new String("task-1"), new String("task-2"), new String("task-3")),
+            first);
+
+    assertSame(first.strings, second.strings);
+    assertEquals(tableSize, second.strings.size());
+    assertSame(first.taskId(0), second.taskId(0));
+  }
+
+  @Test
+  public void replacesStringTableOnceMostOfItIsStale() {
+    RouteModel route = RouteModel.build(createSnapshot("task-0", "task-1", "task-2"), null);
+    RouteStrings initial = route.strings;
+    int refreshes = 0;
+    int initialSize = 0;
+    while (route.strings == initial) {
+      refreshes++;
+      assertTrue(refreshes < 1_000);
+      initialSize = initial.size();
+      route =
+          RouteModel.build(
+              createSnapshot("a-" + refreshes, "b-" + refreshes, "c-" + refreshes), route);
+    }
+
+    // The replaced table is left as it was.
+    assertEquals(initialSize, initial.size());
+
+    // Only the strings of the latest route are carried over.
+    assertEquals(8, route.strings.size());
+    assertEquals("a-" + refreshes, route.taskId(0));
+    assertEquals("providers/provider/vehicles/v1", route.vehicleName());
+  }
+
+  @Test
+  public void emptyRouteKeepsItsTableToItself() {
+    RouteModel route = RouteModel.build(createSnapshot("t1", "t2", "t3"), RouteModel.EMPTY);
+
+    assertTrue(RouteModel.EMPTY.strings != route.strings);
+    assertEquals(0, RouteModel.EMPTY.strings.size());
+    assertEquals(0, RouteModel.EMPTY.stopCount());
+  }
+}
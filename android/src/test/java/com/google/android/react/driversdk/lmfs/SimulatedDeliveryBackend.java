@@ -0,0 +1,103 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import androidx.annotation.Nullable;
+import com.google.android.react.driversdk.shared.DriverBackend;
+import com.google.android.react.driversdk.shared.SimulatedDriverBackend;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@link DeliveryBackend} over a simulated Fleet Engine. Each new instance gets a delivery vehicle
+ * with the configured number of stops around a fixed point, generated from the seed.
+ */
+final class SimulatedDeliveryBackend extends SimulatedDriverBackend<DriverBackend.VehicleReporter>
+    implements DeliveryBackend {
+
+  /** Behavior of the simulated Fleet Engine, and shape of the vehicle it serves. */
+  static final class Config extends SimulatedDriverBackend.Config {
+    int stopCount = 10;
+    int tasksPerStop = 1;
+  }
+
+  // VehicleStop states.
+  private static final int STATE_NEW = 1;
+  private static final int STATE_ENROUTE = 2;
+
+  private static final double CENTER_LAT = 37.422;
+  private static final double CENTER_LNG = -122.084;
+  private static final double SPREAD_DEGREES = 0.05;
+
+  private final Config config;
+  @Nullable private volatile VehicleSnapshot vehicle = null;
+  private volatile List<String> taskIds = Collections.emptyList();
+
+  SimulatedDeliveryBackend(Config config) {
+    super(config);
+    this.config = config;
+  }
+
+  @Override
+  protected VehicleReporter newReporter() {
+    return new SimulatedReporter();
+  }
+
+  @Override
+  protected void onCreateInstance(Random random) {
+    List<VehicleSnapshot.Stop> stops = new ArrayList<>(config.stopCount);
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < config.stopCount; i++) {
+      List<VehicleSnapshot.Task> tasks = new ArrayList<>(config.tasksPerStop);
+      for (int t = 0; t < config.tasksPerStop; t++) {
+        String taskId = "task-" + i + "-" + t;
+        ids.add(taskId);
+        tasks.add(new VehicleSnapshot.Task(taskId, 60 + random.nextInt(540)));
+      }
+      VehicleSnapshot.StopWaypoint waypoint =
+          new VehicleSnapshot.StopWaypoint(
+              "Stop " + i,
+              "place-" + i,
+              true,
+              CENTER_LAT + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+              CENTER_LNG + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+              -1,
+              true,
+              false);
+      stops.add(new VehicleSnapshot.Stop(i == 0 ? STATE_ENROUTE : STATE_NEW, waypoint, tasks));
+    }
+    String vehicleName = "providers/" + getProviderId() + "/deliveryVehicles/" + getVehicleId();
+    vehicle = new VehicleSnapshot(getProviderId(), vehicleName, getVehicleId(), stops, 0);
+    taskIds = Collections.unmodifiableList(ids);
+  }
+
+  @Override
+  protected List<String> taskIds() {
+    return taskIds;
+  }
+
+  @Override
+  @Nullable
+  public ListenableFuture<VehicleSnapshot> getVehicle() {
+    VehicleSnapshot current = vehicle;
+    if (!hasInstance() || current == null) {
+      return null;
+    }
+    return Futures.immediateFuture(current);
+  }
+}
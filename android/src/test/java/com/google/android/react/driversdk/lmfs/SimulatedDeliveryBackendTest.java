@@ -0,0 +1,129 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusLevel;
+import com.google.android.react.driversdk.shared.DriverAuthTokenFactory;
+import com.google.android.react.driversdk.shared.DriverBackend;
+import com.google.android.react.driversdk.shared.SimulatedDriverBackend;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class SimulatedDeliveryBackendTest {
+
+  private final DriverAuthTokenFactory tokenFactory = new DriverAuthTokenFactory();
+  private final List<StatusLevel> statuses = new ArrayList<>();
+  private final AtomicInteger tokenRequests = new AtomicInteger();
+
+  private static SimulatedDeliveryBackend.Config config(long seed) {
+    SimulatedDeliveryBackend.Config config = new SimulatedDeliveryBackend.Config();
+    config.seed = seed;
+    config.stopCount = 25;
+    config.tasksPerStop = 3;
+    return config;
+  }
+
+  private DriverBackend.VehicleReporter createInstance(SimulatedDeliveryBackend backend) {
+    return backend.createInstance(
+        null,
+        null,
+        null,
+        "provider",
+        "v1",
+        tokenFactory,
+        (level, code, message, error) -> statuses.add(level));
+  }
+
+  /** Answers every token request from JS right away, or rejects it. */
+  private void answerTokenRequests(boolean grant) {
+    tokenFactory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) -> {
+          tokenRequests.incrementAndGet();
+          if (grant) {
+            tokenFactory.resolveToken(requestId, "token");
+          } else {
+            tokenFactory.rejectToken(requestId, "denied");
+          }
+        });
+  }
+
+  @Test
+  public void servesConfiguredVehicleGeneratedFromSeed() throws Exception {
+    SimulatedDeliveryBackend backend = new SimulatedDeliveryBackend(config(7));
+    assertNull(backend.getVehicle());
+    createInstance(backend);
+
+    VehicleSnapshot vehicle = backend.getVehicle().get();
+
+    assertEquals("v1", vehicle.vehicleId);
+    assertEquals("providers/provider/deliveryVehicles/v1", vehicle.vehicleName);
+    assertEquals(25, vehicle.stops.size());
+    assertEquals(3, vehicle.stops.get(24).tasks.size());
+    assertEquals("task-24-2", vehicle.stops.get(24).tasks.get(2).taskId);
+
+    SimulatedDeliveryBackend same = new SimulatedDeliveryBackend(config(7));
+    createInstance(same);
+    SimulatedDeliveryBackend other = new SimulatedDeliveryBackend(config(8));
+    createInstance(other);
+    assertArrayEquals(vehicle.toBytes(), same.getVehicle().get().toBytes());
+    assertFalse(Arrays.equals(vehicle.toBytes(), other.getVehicle().get().toBytes()));
+
+    backend.clearInstance();
+    assertNull(backend.getVehicle());
+  }
+
+  @Test
+  public void updatesDemandTokensAndReportOutcomes() {
+    answerTokenRequests(true);
+    SimulatedDeliveryBackend.Config config = config(1);
+    config.updateFailureRate = 0.25;
+    config.taskTokensPerUpdate = 1;
+    SimulatedDeliveryBackend backend = new SimulatedDeliveryBackend(config);
+
+    DriverBackend.VehicleReporter reporter = createInstance(backend);
+    assertEquals(0, backend.runVehicleUpdates(10).succeeded);
+    reporter.enableLocationTracking();
+    SimulatedDriverBackend.Updates updates = backend.runVehicleUpdates(200);
+
+    assertEquals(200, updates.succeeded + updates.failed);
+    assertTrue("failed " + updates.failed, updates.failed > 25 && updates.failed < 75);
+    // A vehicle token and a task token per update, as nothing is cached.
+    assertEquals(400, tokenRequests.get());
+    assertEquals(200, statuses.size());
+    assertEquals(updates.failed, statuses.stream().filter(StatusLevel.WARNING::equals).count());
+
+    // The same configuration plays out the same way on a new instance.
+    backend.clearInstance();
+    createInstance(backend).enableLocationTracking();
+    assertEquals(updates.failed, backend.runVehicleUpdates(200).failed);
+  }
+
+  @Test
+  public void reportsErrorWhenNoTokenCanBeHad() {
+    answerTokenRequests(false);
+    SimulatedDeliveryBackend backend = new SimulatedDeliveryBackend(config(1));
+    createInstance(backend).enableLocationTracking();
+
+    SimulatedDriverBackend.Updates updates = backend.runVehicleUpdates(5);
+
+    assertEquals(5, updates.tokenFailures);
+    assertEquals(0, updates.succeeded + updates.failed);
+    assertEquals(5, statuses.stream().filter(StatusLevel.ERROR::equals).count());
+  }
+}
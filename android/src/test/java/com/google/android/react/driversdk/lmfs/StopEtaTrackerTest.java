@@ -0,0 +1,96 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class StopEtaTrackerTest {
+
+  private final List<long[]> arrivals = new ArrayList<>();
+  private final List<long[]> departures = new ArrayList<>();
+  private final StopEtaTracker tracker =
+      new StopEtaTracker(
+          (arrivalMillis, departureMillis, distanceMeters) -> {
+            arrivals.add(arrivalMillis);
+            departures.add(departureMillis);
+          });
+
+  private static VehicleSnapshot.Stop stop(String taskId, double taskDurationSeconds) {
+    return new VehicleSnapshot.Stop(
+        1, null, Collections.singletonList(new VehicleSnapshot.Task(taskId, taskDurationSeconds)));
+  }
+
+  private static RouteModel route(VehicleSnapshot.Stop... stops) {
+    return RouteModel.fromStops(Arrays.asList(stops));
+  }
+
+  @Test
+  public void addsTaskDurationsOfEarlierStops() {
+    tracker.setRoute(route(stop("t1", 60), stop("t2", 120), stop("t3", 30)));
+
+    tracker.onTimeAndDistance(0, new int[] {100, 400, 700}, new int[] {1000, 4000, 7000});
+
+    assertEquals(1, arrivals.size());
+    assertArrayEquals(new long[] {100_000, 460_000, 880_000}, arrivals.get(0));
+    assertArrayEquals(new long[] {160_000, 580_000, 910_000}, departures.get(0));
+  }
+
+  @Test
+  public void onlyReportsChangesPastThreshold() {
+    tracker.configure(60_000);
+    tracker.setRoute(route(stop("t1", 60), stop("t2", 60)));
+
+    tracker.onTimeAndDistance(0, new int[] {600, 1200}, new int[] {0, 0});
+    // Driving on schedule keeps the arrival times where they were.
+    tracker.onTimeAndDistance(300_000, new int[] {300, 900}, new int[] {0, 0});
+    // A 30s delay stays below the threshold...
+    tracker.onTimeAndDistance(310_000, new int[] {320, 920}, new int[] {0, 0});
+    // ...but keeps counting towards it, since changes are measured against the last report.
+    tracker.onTimeAndDistance(320_000, new int[] {340, 940}, new int[] {0, 0});
+
+    assertEquals(2, arrivals.size());
+    assertArrayEquals(new long[] {660_000, 1_320_000}, arrivals.get(1));
+  }
+
+  @Test
+  public void reportsWhenStopsChange() {
+    tracker.setRoute(route(stop("t1", 60), stop("t2", 60)));
+    tracker.onTimeAndDistance(0, new int[] {600, 1200}, new int[] {0, 0});
+
+    // Refreshing the same stops does not force a report.
+    tracker.setRoute(route(stop("t1", 60), stop("t2", 60)));
+    tracker.onTimeAndDistance(0, new int[] {600, 1200}, new int[] {0, 0});
+    assertEquals(1, arrivals.size());
+
+    tracker.setRoute(route(stop("t2", 60)));
+    tracker.onTimeAndDistance(0, new int[] {600}, new int[] {0});
+    assertEquals(2, arrivals.size());
+    assertArrayEquals(new long[] {600_000}, arrivals.get(1));
+  }
+
+  @Test
+  public void coversOnlyStopsWithNavigatorDestinations() {
+    tracker.setRoute(route(stop("t1", 60), stop("t2", 60), stop("t3", 60)));
+
+    tracker.onTimeAndDistance(0, new int[] {600}, new int[] {5000});
+
+    assertArrayEquals(new long[] {600_000}, arrivals.get(0));
+  }
+}
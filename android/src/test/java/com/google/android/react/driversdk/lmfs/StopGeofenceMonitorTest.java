@@ -0,0 +1,105 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class StopGeofenceMonitorTest {
+
+  // Roughly 1.1 meters per 0.00001 degrees of latitude.
+  private static final double LAT = 37.42;
+  private static final double LNG = -122.08;
+
+  private final List<String> transitions = new ArrayList<>();
+  private final StopGeofenceMonitor monitor =
+      new StopGeofenceMonitor(
+          (transition, route, stopIndex, distance) ->
+              transitions.add(StopGeofenceMonitor.transitionName(transition) + " " + stopIndex));
+
+  private static VehicleSnapshot.Stop stop(String taskId, double lat, double lng) {
+    return new VehicleSnapshot.Stop(
+        1,
+        new VehicleSnapshot.StopWaypoint(null, null, true, lat, lng, -1, false, false),
+        Collections.singletonList(new VehicleSnapshot.Task(taskId, 60)));
+  }
+
+  private static RouteModel route(VehicleSnapshot.Stop... stops) {
+    return RouteModel.fromStops(Arrays.asList(stops));
+  }
+
+  @Test
+  public void reportsEnterDwellAndExit() {
+    monitor.configure(50, 75, 30_000, 1);
+    monitor.setRoute(route(stop("t1", LAT, LNG)));
+
+    monitor.onLocation(LAT + 0.001, LNG, 0); // ~111m away
+    monitor.onLocation(LAT + 0.0003, LNG, 1_000); // ~33m
+    monitor.onLocation(LAT + 0.0002, LNG, 10_000);
+    monitor.onLocation(LAT, LNG, 31_000);
+    monitor.onLocation(LAT, LNG, 40_000);
+    monitor.onLocation(LAT + 0.001, LNG, 50_000);
+
+    assertEquals(Arrays.asList("ENTER 0", "DWELL 0", "EXIT 0"), transitions);
+  }
+
+  @Test
+  public void ignoresJitterBetweenRadii() {
+    monitor.configure(50, 75, 60_000, 1);
+    monitor.setRoute(route(stop("t1", LAT, LNG)));
+
+    monitor.onLocation(LAT + 0.0004, LNG, 0); // ~44m
+    monitor.onLocation(LAT + 0.0006, LNG, 1_000); // ~67m
+    monitor.onLocation(LAT + 0.0004, LNG, 2_000);
+    monitor.onLocation(LAT + 0.0006, LNG, 3_000);
+
+    assertEquals(Collections.singletonList("ENTER 0"), transitions);
+  }
+
+  @Test
+  public void monitorsOnlyUpcomingStopsWithPositions() {
+    monitor.configure(50, 75, 60_000, 2);
+    VehicleSnapshot.Stop noPosition = new VehicleSnapshot.Stop(1, null, Collections.emptyList());
+    monitor.setRoute(route(noPosition, stop("t2", LAT, LNG), stop("t3", LAT + 0.01, LNG)));
+
+    assertEquals(1, monitor.getMonitoredStopCount());
+
+    monitor.onLocation(LAT, LNG, 0);
+    monitor.onLocation(LAT + 0.01, LNG, 1_000);
+
+    assertEquals(Arrays.asList("ENTER 1", "EXIT 1"), transitions);
+  }
+
+  @Test
+  public void keepsStateAcrossVehicleRefresh() {
+    monitor.configure(50, 75, 60_000, 2);
+    monitor.setRoute(route(stop("t1", LAT, LNG), stop("t2", LAT + 0.01, LNG)));
+    monitor.onLocation(LAT, LNG, 0);
+
+    // The first stop is still current after a refresh, so it must not be entered again.
+    monitor.setRoute(route(stop("t1", LAT, LNG), stop("t2", LAT + 0.01, LNG)));
+    monitor.onLocation(LAT, LNG, 1_000);
+
+    // Once it has been completed, the next stop becomes the first one.
+    monitor.setRoute(route(stop("t2", LAT + 0.01, LNG)));
+    monitor.onLocation(LAT + 0.01, LNG, 2_000);
+
+    assertEquals(Arrays.asList("ENTER 0", "ENTER 0"), transitions);
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import com.google.android.react.driversdk.shared.GeoUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class StopSpatialIndexTest {
+
+  private static final double LAT = 37.42;
+  private static final double LNG = -122.08;
+
+  private static VehicleSnapshot.Stop stop(double lat, double lng) {
+    return new VehicleSnapshot.Stop(
+        1,
+        new VehicleSnapshot.StopWaypoint(null, null, true, lat, lng, -1, false, false),
+        Collections.emptyList());
+  }
+
+  /** Stops spread over a ~20km square around the reference point. */
+  private static List<VehicleSnapshot.Stop> randomStops(Random random, int count) {
+    List<VehicleSnapshot.Stop> stops = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      stops.add(stop(LAT + random.nextDouble() * 0.18 - 0.09, LNG + random.nextDouble() * 0.22));
+    }
+    return stops;
+  }
+
+  private static int[] bruteForceWithinRadius(
+      List<VehicleSnapshot.Stop> stops, double lat, double lng, double radiusMeters) {
+    List<Integer> matches = new ArrayList<>();
+    for (int i = 0; i < stops.size(); i++) {
+      VehicleSnapshot.StopWaypoint waypoint = stops.get(i).waypoint;
+      if (GeoUtil.distanceMeters(lat, lng, waypoint.lat, waypoint.lng) <= radiusMeters) {
+        matches.add(i);
+      }
+    }
+    return matches.stream().mapToInt(Integer::intValue).sorted().toArray();
+  }
+
+  private static int bruteForceNearest(List<VehicleSnapshot.Stop> stops, double lat, double lng) {
+    int best = -1;
+    double bestDistance = Double.MAX_VALUE;
+    for (int i = 0; i < stops.size(); i++) {
+      VehicleSnapshot.StopWaypoint waypoint = stops.get(i).waypoint;
+      double distance = GeoUtil.distanceMeters(lat, lng, waypoint.lat, waypoint.lng);
+      if (distance < bestDistance) {
+        best = i;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  @Test
+  public void matchesBruteForce() {
+    Random random = new Random(42);
+    List<VehicleSnapshot.Stop> stops = randomStops(random, 1000);
+    StopSpatialIndex index = StopSpatialIndex.build(RouteModel.fromStops(stops));
+
+    for (int q = 0; q < 200; q++) {
+      double lat = LAT + random.nextDouble() * 0.2 - 0.1;
+      double lng = LNG + random.nextDouble() * 0.24 - 0.01;
+      double radius = random.nextDouble() * 2000;
+
+      int[] within = index.withinRadius(lat, lng, radius);
+      int[] sorted = within.clone();
+      Arrays.sort(sorted);
+      assertArrayEquals(bruteForceWithinRadius(stops, lat, lng, radius), sorted);
+      for (int i = 1; i < within.length; i++) {
+        VehicleSnapshot.StopWaypoint a = stops.get(within[i - 1]).waypoint;
+        VehicleSnapshot.StopWaypoint b = stops.get(within[i]).waypoint;
+        assertTrue(
+            GeoUtil.distanceMeters(lat, lng, a.lat, a.lng)
+                <= GeoUtil.distanceMeters(lat, lng, b.lat, b.lng));
+      }
+
+      assertEquals(bruteForceNearest(stops, lat, lng), index.nearest(lat, lng));
+    }
+  }
+
+  @Test
+  public void nearestFallsBackForFarAwayPoints() {
+    List<VehicleSnapshot.Stop> stops = Arrays.asList(stop(LAT, LNG), stop(LAT + 0.05, LNG));
+    StopSpatialIndex index = StopSpatialIndex.build(RouteModel.fromStops(stops));
+
+    assertEquals(1, index.nearest(LAT + 5, LNG));
+    assertEquals(0, index.nearest(LAT - 5, LNG));
+  }
+
+  @Test
+  public void findsStopsInBounds() {
+    List<VehicleSnapshot.Stop> stops =
+        Arrays.asList(
+            stop(LAT, LNG),
+            new VehicleSnapshot.Stop(1, null, Collections.emptyList()),
+            stop(LAT + 0.01, LNG + 0.01),
+            stop(LAT + 0.1, LNG));
+    StopSpatialIndex index = StopSpatialIndex.build(RouteModel.fromStops(stops));
+
+    assertEquals(3, index.size());
+    assertArrayEquals(
+        new int[] {0, 2}, index.inBounds(LAT - 0.001, LNG - 0.001, LAT + 0.02, LNG + 0.02));
+    assertArrayEquals(new int[0], index.inBounds(LAT + 0.2, LNG, LAT + 0.3, LNG + 0.1));
+  }
+
+  @Test
+  public void handlesBoundsAcrossAntimeridian() {
+    List<VehicleSnapshot.Stop> stops =
+        Arrays.asList(stop(0, 179.99), stop(0, -179.99), stop(0, 0));
+    StopSpatialIndex index = StopSpatialIndex.build(RouteModel.fromStops(stops));
+
+    assertArrayEquals(new int[] {0, 1}, index.inBounds(-1, 179, 1, -179));
+  }
+
+  @Test
+  public void matchesBruteForceAcrossAntimeridian() {
+    Random random = new Random(11);
+    List<VehicleSnapshot.Stop> stops = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      double lng = random.nextDouble() * 0.2 - 0.1;
+      stops.add(stop(random.nextDouble() * 0.2 - 0.1, lng < 0 ? lng + 180 : lng - 180));
+    }
+    StopSpatialIndex index = StopSpatialIndex.build(RouteModel.fromStops(stops));
+
+    for (int q = 0; q < 200; q++) {
+      double lat = random.nextDouble() * 0.2 - 0.1;
+      double lng = random.nextDouble() * 0.2 - 0.1;
+      lng = lng < 0 ? lng + 180 : lng - 180;
+      double radius = random.nextDouble() * 5000;
+
+      int[] within = index.withinRadius(lat, lng, radius);
+      Arrays.sort(within);
+      assertArrayEquals(bruteForceWithinRadius(stops, lat, lng, radius), within);
+    }
+  }
+
+  @Test
+  public void queriesStaySubMillisecondAtThousandStops() {
+    Random random = new Random(7);
+    StopSpatialIndex index =
+        StopSpatialIndex.build(RouteModel.fromStops(randomStops(random, 1000)));
+    int queries = 2000;
+    double[] lats = new double[queries];
+    double[] lngs = new double[queries];
+    for (int q = 0; q < queries; q++) {
+      lats[q] = LAT + random.nextDouble() * 0.18 - 0.09;
+      lngs[q] = LNG + random.nextDouble() * 0.22;
+    }
+
+    // Warm up the JIT before measuring.
+    for (int q = 0; q < queries; q++) {
+      index.withinRadius(lats[q], lngs[q], 500);
+      index.nearest(lats[q], lngs[q]);
+    }
+    long start = System.nanoTime();
+    for (int q = 0; q < queries; q++) {
+      index.withinRadius(lats[q], lngs[q], 500);
+      index.nearest(lats[q], lngs[q]);
+      index.inBounds(lats[q], lngs[q], lats[q] + 0.01, lngs[q] + 0.01);
+    }
+    double averageMillis = (System.nanoTime() - start) / 1e6 / queries;
+
+    assertTrue("average " + averageMillis + "ms per query set", averageMillis < 1);
+  }
+}
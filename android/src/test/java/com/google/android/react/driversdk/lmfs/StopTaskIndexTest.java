@@ -0,0 +1,77 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class StopTaskIndexTest {
+
+  private static VehicleSnapshot.Stop stop(String placeId, String... taskIds) {
+    VehicleSnapshot.Task[] tasks = new VehicleSnapshot.Task[taskIds.length];
+    for (int i = 0; i < taskIds.length; i++) {
+      tasks[i] = new VehicleSnapshot.Task(taskIds[i], 60 * (i + 1));
+    }
+    return new VehicleSnapshot.Stop(
+        1,
+        new VehicleSnapshot.StopWaypoint(null, placeId, false, 0, 0, -1, false, false),
+        Arrays.asList(tasks));
+  }
+
+  @Test
+  public void findsTasksAndTheirStops() {
+    List<VehicleSnapshot.Stop> stops =
+        Arrays.asList(stop("p1", "t1"), stop("p2", "t2", "t3"), stop(null, "t4"));
+    RouteModel route = RouteModel.fromStops(stops);
+    StopTaskIndex index = StopTaskIndex.build(route);
+
+    assertEquals(0, index.getStopIndex("t1"));
+    assertEquals(1, index.getStopIndex("t3"));
+    assertEquals(2, index.getStopIndex("t4"));
+    assertEquals(-1, index.getStopIndex("missing"));
+
+    int task = index.getTask("t3");
+    assertEquals(2, task);
+    assertEquals("t3", route.taskId(task));
+    assertEquals(120, route.taskDurationSeconds(task), 0);
+    assertEquals(-1, index.getTask("missing"));
+  }
+
+  @Test
+  public void findsAllStopsAtAPlace() {
+    List<VehicleSnapshot.Stop> stops =
+        Arrays.asList(
+            stop("p1", "t1"),
+            stop("p2", "t2"),
+            stop("p1", "t3"),
+            new VehicleSnapshot.Stop(1, null, Collections.emptyList()));
+    StopTaskIndex index = StopTaskIndex.build(RouteModel.fromStops(stops));
+
+    assertArrayEquals(new int[] {0, 2}, index.getStopIndexesForPlace("p1"));
+    assertArrayEquals(new int[] {1}, index.getStopIndexesForPlace("p2"));
+    assertArrayEquals(new int[0], index.getStopIndexesForPlace("p3"));
+  }
+
+  @Test
+  public void keepsFirstStopForRepeatedTaskId() {
+    List<VehicleSnapshot.Stop> stops = Arrays.asList(stop("p1", "t1"), stop("p2", "t1"));
+    StopTaskIndex index = StopTaskIndex.build(RouteModel.fromStops(stops));
+
+    assertEquals(0, index.getStopIndex("t1"));
+  }
+}
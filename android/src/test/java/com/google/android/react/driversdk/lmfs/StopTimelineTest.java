@@ -0,0 +1,136 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class StopTimelineTest {
+
+  private static final int NEW = 1;
+  private static final int ENROUTE = 2;
+  private static final int ARRIVED = 3;
+  private static final int GONE = StopTimeline.NOT_ON_ROUTE;
+
+  private final StopTimeline timeline = new StopTimeline();
+
+  /** Builds a route of stops with one task each, from alternating task ids and states. */
+  private static RouteModel route(Object... taskIdsAndStates) {
+    List<VehicleSnapshot.Stop> stops = new ArrayList<>();
+    for (int i = 0; i < taskIdsAndStates.length; i += 2) {
+      stops.add(
+          new VehicleSnapshot.Stop(
+              (Integer) taskIdsAndStates[i + 1],
+              null,
+              Collections.singletonList(
+                  new VehicleSnapshot.Task((String) taskIdsAndStates[i], 60))));
+    }
+    return RouteModel.fromStops(stops);
+  }
+
+  private static String stateName(int state) {
+    switch (state) {
+      case NEW:
+        return "NEW";
+      case ENROUTE:
+        return "ENROUTE";
+      case ARRIVED:
+        return "ARRIVED";
+      default:
+        return "GONE";
+    }
+  }
+
+  private static List<String> describe(StopTimeline.Transitions transitions) {
+    List<String> records = new ArrayList<>();
+    for (int i = 0; i < transitions.count; i++) {
+      records.add(
+          transitions.stopIndexes[i]
+              + " "
+              + stateName(transitions.oldStates[i])
+              + " -> "
+              + stateName(transitions.newStates[i])
+              + " at "
+              + transitions.timesMillis[i]);
+    }
+    return records;
+  }
+
+  @Test
+  public void recordsStateChangesBetweenRoutes() {
+    timeline.onRoute(route("t1", ENROUTE, "t2", NEW), 1_000);
+    timeline.onRoute(route("t1", ARRIVED, "t2", NEW), 2_000);
+    // t1 is completed and leaves the route, and t3 is added.
+    timeline.onRoute(route("t2", ENROUTE, "t3", NEW), 3_000);
+
+    assertEquals(
+        Arrays.asList(
+            "0 ENROUTE -> ARRIVED at 2000",
+            "0 NEW -> ENROUTE at 3000",
+            "1 GONE -> NEW at 3000",
+            "0 ARRIVED -> GONE at 3000"),
+        describe(timeline.read(0)));
+    assertFalse(timeline.read(0).truncated);
+  }
+
+  @Test
+  public void firstRouteIsOnlyTheBaseline() {
+    timeline.onRoute(route("t1", ENROUTE), 1_000);
+    timeline.onRoute(route("t1", ENROUTE), 2_000);
+
+    assertEquals(0, timeline.read(0).count);
+  }
+
+  @Test
+  public void readsFromTimestamp() {
+    timeline.onRoute(route("t1", NEW), 0);
+    timeline.onRoute(route("t1", ENROUTE), 1_000);
+    timeline.onRoute(route("t1", ARRIVED), 2_000);
+
+    assertEquals(
+        Collections.singletonList("0 ENROUTE -> ARRIVED at 2000"), describe(timeline.read(2_000)));
+    assertEquals(0, timeline.read(2_001).count);
+  }
+
+  @Test
+  public void overwritesOldestRecordsOnceFull() {
+    StopTimeline small = new StopTimeline(2);
+    small.onRoute(route("t1", NEW), 0);
+    small.onRoute(route("t1", ENROUTE), 1_000);
+    small.onRoute(route("t1", ARRIVED), 2_000);
+    small.onRoute(route("t1", NEW), 3_000);
+
+    StopTimeline.Transitions all = small.read(0);
+    assertEquals(
+        Arrays.asList("0 ENROUTE -> ARRIVED at 2000", "0 ARRIVED -> NEW at 3000"), describe(all));
+    assertTrue(all.truncated);
+    assertFalse(small.read(1_001).truncated);
+  }
+
+  @Test
+  public void clearStartsANewBaseline() {
+    timeline.onRoute(route("t1", NEW), 0);
+    timeline.onRoute(route("t1", ENROUTE), 1_000);
+
+    timeline.clear();
+    timeline.onRoute(route("t2", NEW), 2_000);
+
+    assertEquals(0, timeline.read(0).count);
+  }
+}
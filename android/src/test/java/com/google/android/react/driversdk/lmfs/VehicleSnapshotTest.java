@@ -0,0 +1,95 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.lmfs;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class VehicleSnapshotTest {
+
+  private static VehicleSnapshot createSnapshot() {
+    List<VehicleSnapshot.Stop> stops = new ArrayList<>();
+    stops.add(
+        new VehicleSnapshot.Stop(
+            2,
+            new VehicleSnapshot.StopWaypoint(
+                "Depot", "place-1", true, 37.422, -122.084, 90, true, false),
+            Arrays.asList(
+                new VehicleSnapshot.Task("task-1", 120), new VehicleSnapshot.Task("task-2", 60))));
+    stops.add(new VehicleSnapshot.Stop(1, null, Collections.emptyList()));
+    stops.add(
+        new VehicleSnapshot.Stop(
+            1,
+            new VehicleSnapshot.StopWaypoint(null, null, false, 0, 0, -1, false, true),
+            Collections.singletonList(new VehicleSnapshot.Task("task-3", 30))));
+    return new VehicleSnapshot("provider", "providers/provider/vehicles/v1", "v1", stops, 1234L);
+  }
+
+  @Test
+  public void roundTripsThroughBytes() {
+    VehicleSnapshot original = createSnapshot();
+
+    VehicleSnapshot restored = VehicleSnapshot.fromBytes(original.toBytes());
+
+    assertNotNull(restored);
+    assertEquals("provider", restored.providerId);
+    assertEquals("providers/provider/vehicles/v1", restored.vehicleName);
+    assertEquals("v1", restored.vehicleId);
+    assertEquals(1234L, restored.capturedAtMillis);
+    assertEquals(3, restored.stops.size());
+
+    VehicleSnapshot.Stop first = restored.stops.get(0);
+    assertEquals(2, first.state);
+    assertEquals("Depot", first.waypoint.title);
+    assertEquals("place-1", first.waypoint.placeId);
+    assertTrue(first.waypoint.hasPosition);
+    assertEquals(37.422, first.waypoint.lat, 0);
+    assertEquals(-122.084, first.waypoint.lng, 0);
+    assertEquals(90, first.waypoint.preferredHeading);
+    assertTrue(first.waypoint.vehicleStopover);
+    assertFalse(first.waypoint.preferSameSideOfRoad);
+    assertEquals(2, first.tasks.size());
+    assertEquals("task-2", first.tasks.get(1).taskId);
+    assertEquals(60, first.tasks.get(1).durationSeconds, 0);
+
+    assertNull(restored.stops.get(1).waypoint);
+    assertTrue(restored.stops.get(1).tasks.isEmpty());
+
+    VehicleSnapshot.StopWaypoint third = restored.stops.get(2).waypoint;
+    assertNull(third.title);
+    assertNull(third.placeId);
+    assertFalse(third.hasPosition);
+    assertEquals(-1, third.preferredHeading);
+  }
+
+  @Test
+  public void rejectsUnknownFormat() {
+    byte[] bytes = createSnapshot().toBytes();
+    bytes[0] = 99;
+
+    assertNull(VehicleSnapshot.fromBytes(bytes));
+  }
+
+  @Test
+  public void rejectsTruncatedData() {
+    byte[] bytes = createSnapshot().toBytes();
+
+    assertNull(VehicleSnapshot.fromBytes(Arrays.copyOf(bytes, bytes.length / 2)));
+  }
+}
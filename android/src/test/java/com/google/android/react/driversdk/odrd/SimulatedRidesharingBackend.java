@@ -0,0 +1,44 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.odrd;
+
+import com.google.android.react.driversdk.shared.SimulatedDriverBackend;
+
+/** {@link RidesharingBackend} over a simulated Fleet Engine. */
+final class SimulatedRidesharingBackend extends SimulatedDriverBackend<RidesharingBackend.Reporter>
+    implements RidesharingBackend {
+
+  /** Reporter that also keeps the vehicle state. */
+  final class Reporter extends SimulatedReporter implements RidesharingBackend.Reporter {
+    private volatile boolean online = false;
+
+    @Override
+    public void setVehicleState(boolean online) {
+      this.online = online;
+    }
+
+    boolean isOnline() {
+      return online;
+    }
+  }
+
+  SimulatedRidesharingBackend(Config config) {
+    super(config);
+  }
+
+  @Override
+  protected RidesharingBackend.Reporter newReporter() {
+    return new Reporter();
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.odrd;
+
+import static org.junit.Assert.*;
+
+import com.google.android.react.driversdk.shared.DriverAuthTokenFactory;
+import com.google.android.react.driversdk.shared.SimulatedDriverBackend;
+import org.junit.Test;
+
+public class SimulatedRidesharingBackendTest {
+
+  @Test
+  public void keepsReporterStatePerInstance() {
+    SimulatedRidesharingBackend backend =
+        new SimulatedRidesharingBackend(new SimulatedDriverBackend.Config());
+    assertFalse(backend.hasInstance());
+
+    RidesharingBackend.Reporter reporter =
+        backend.createInstance(
+            null, null, null, "provider", "v1", new DriverAuthTokenFactory(), (l, c, m, e) -> {});
+    reporter.setVehicleState(true);
+    reporter.setLocationReportingInterval(30);
+
+    SimulatedRidesharingBackend.Reporter state = (SimulatedRidesharingBackend.Reporter) reporter;
+    assertTrue(backend.hasInstance());
+    assertTrue(state.isOnline());
+    assertEquals(30, state.getLocationReportingInterval());
+    assertEquals(SimulatedDriverBackend.SDK_VERSION, backend.getDriverSdkVersion());
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            backend.createInstance(
+                null, null, null, "provider", "v1", new DriverAuthTokenFactory(), null));
+
+    backend.clearInstance();
+    assertFalse(backend.hasInstance());
+    assertNull(backend.getReporter());
+  }
+}
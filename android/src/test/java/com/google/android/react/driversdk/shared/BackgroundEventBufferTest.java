@@ -0,0 +1,94 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class BackgroundEventBufferTest {
+
+  private final List<String> emitted = new ArrayList<>();
+  private final List<Integer> summaries = new ArrayList<>();
+  private final BackgroundEventBuffer buffer =
+      new BackgroundEventBuffer(
+          (collapsedEvents, backgroundMillis) -> summaries.add(collapsedEvents));
+
+  private void emit(String key, String event) {
+    buffer.emit(key, () -> emitted.add(event));
+  }
+
+  @Test
+  public void emitsRightAwayUnlessEnabledAndInBackground() {
+    emit("a", "1");
+    buffer.onHostPause();
+    emit("a", "2");
+    buffer.setEnabled(true);
+    buffer.onHostResume();
+    emit("a", "3");
+
+    assertEquals(Arrays.asList("1", "2", "3"), emitted);
+    assertTrue(summaries.isEmpty());
+  }
+
+  @Test
+  public void keepsLatestEventPerKeyUntilResume() {
+    buffer.setEnabled(true);
+    buffer.onHostPause();
+    emit("status", "s1");
+    emit("etas", "e1");
+    emit("status", "s2");
+    emit("status", "s3");
+    assertTrue(emitted.isEmpty());
+
+    buffer.onHostResume();
+
+    // Keys are ordered by their latest update.
+    assertEquals(Arrays.asList("e1", "s3"), emitted);
+    assertEquals(Arrays.asList(2), summaries);
+  }
+
+  @Test
+  public void dropsOldestKeysOnceFull() {
+    buffer.setEnabled(true);
+    buffer.onHostPause();
+    for (int i = 0; i < BackgroundEventBuffer.MAX_EVENTS + 3; i++) {
+      emit("key" + i, "event" + i);
+    }
+
+    buffer.onHostResume();
+
+    assertEquals(BackgroundEventBuffer.MAX_EVENTS, emitted.size());
+    assertEquals("event3", emitted.get(0));
+    assertEquals(Arrays.asList(3), summaries);
+  }
+
+  @Test
+  public void disablingFlushesButDestroyDiscards() {
+    buffer.setEnabled(true);
+    buffer.onHostPause();
+    emit("a", "1");
+    buffer.setEnabled(false);
+    assertEquals(Arrays.asList("1"), emitted);
+
+    buffer.setEnabled(true);
+    emit("a", "2");
+    buffer.onHostDestroy();
+    buffer.onHostResume();
+    assertEquals(Arrays.asList("1"), emitted);
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class BreadcrumbRecorderTest {
+
+  private static final double LAT = 37.42;
+  private static final double LNG = -122.08;
+
+  // Roughly 1.1 meters per 0.00001 degrees of latitude.
+  private static final double DEGREES_PER_METER = 1 / 111_195.0;
+
+  private final BreadcrumbRecorder recorder = new BreadcrumbRecorder();
+
+  @Test
+  public void collapsesStraightSegments() {
+    // 1km north, then 1km east, one location per meter.
+    for (int i = 0; i <= 1000; i++) {
+      recorder.onLocation(LAT + i * DEGREES_PER_METER, LNG, i * 100L);
+    }
+    for (int i = 1; i <= 1000; i++) {
+      recorder.onLocation(LAT + 1000 * DEGREES_PER_METER, LNG + i * DEGREES_PER_METER, 0);
+    }
+
+    BreadcrumbRecorder.Breadcrumbs breadcrumbs = recorder.read(0);
+
+    // The start and the corner are kept; the end is still the current point, give or take the
+    // minimum distance between locations.
+    assertEquals(2, breadcrumbs.count);
+    assertEquals(LAT, breadcrumbs.lats[0], 1e-9);
+    assertEquals(LAT + 1000 * DEGREES_PER_METER, breadcrumbs.lats[1], 1e-6);
+    assertTrue(breadcrumbs.hasCurrent);
+    assertEquals(LNG + 1000 * DEGREES_PER_METER, breadcrumbs.currentLng, 10 * DEGREES_PER_METER);
+  }
+
+  @Test
+  public void staysWithinToleranceOfNoisyPath() {
+    recorder.configure(5, 0, 4096);
+    Random random = new Random(1);
+    int count = 5000;
+    double[] lats = new double[count];
+    double[] lngs = new double[count];
+    for (int i = 0; i < count; i++) {
+      // A winding road with up to a meter of jitter.
+      lats[i] = LAT + i * 2 * DEGREES_PER_METER;
+      lngs[i] = LNG + (Math.sin(i / 100.0) * 200 + random.nextDouble()) * DEGREES_PER_METER;
+      recorder.onLocation(lats[i], lngs[i], i * 1000L);
+    }
+
+    BreadcrumbRecorder.Breadcrumbs breadcrumbs = recorder.read(0);
+    assertTrue("kept " + breadcrumbs.count, breadcrumbs.count < count / 10);
+
+    // Every input point is within the tolerance of the recorded polyline plus the current point.
+    double[] polylineLats = Arrays.copyOf(breadcrumbs.lats, breadcrumbs.count + 1);
+    double[] polylineLngs = Arrays.copyOf(breadcrumbs.lngs, breadcrumbs.count + 1);
+    polylineLats[breadcrumbs.count] = breadcrumbs.currentLat;
+    polylineLngs[breadcrumbs.count] = breadcrumbs.currentLng;
+    int segment = 0;
+    for (int i = 0; i < count; i++) {
+      double best = Double.MAX_VALUE;
+      for (int s = Math.max(0, segment - 1); s < breadcrumbs.count; s++) {
+        double distance =
+            distanceToSegmentMeters(
+                lats[i],
+                lngs[i],
+                polylineLats[s],
+                polylineLngs[s],
+                polylineLats[s + 1],
+                polylineLngs[s + 1]);
+        if (distance < best) {
+          best = distance;
+          segment = s;
+        }
+      }
+      assertTrue("point " + i + " is " + best + "m off", best <= 5.01);
+    }
+  }
+
+  @Test
+  public void dropsLocationsCloserThanMinDistance() {
+    recorder.configure(0, 10, 16);
+    recorder.onLocation(LAT, LNG, 0);
+    recorder.onLocation(LAT + 5 * DEGREES_PER_METER, LNG, 1);
+    recorder.onLocation(LAT + 20 * DEGREES_PER_METER, LNG + 20 * DEGREES_PER_METER, 2);
+
+    BreadcrumbRecorder.Breadcrumbs breadcrumbs = recorder.read(0);
+    assertEquals(1, breadcrumbs.count);
+    assertEquals(2, breadcrumbs.currentTimeMillis);
+  }
+
+  @Test
+  public void overwritesOldestPointsAndReadsIncrementally() {
+    recorder.configure(0, 0, 4);
+    // A zig-zag keeps every point.
+    for (int i = 0; i < 10; i++) {
+      recorder.onLocation(
+          LAT + i * 10 * DEGREES_PER_METER, LNG + (i % 2) * 10 * DEGREES_PER_METER, i);
+    }
+
+    BreadcrumbRecorder.Breadcrumbs all = recorder.read(0);
+    assertEquals(9, all.nextSequence);
+    assertArrayEquals(new long[] {5, 6, 7, 8}, all.timesMillis);
+
+    BreadcrumbRecorder.Breadcrumbs newer = recorder.read(7);
+    assertArrayEquals(new long[] {7, 8}, newer.timesMillis);
+
+    recorder.clear();
+    assertEquals(0, recorder.read(0).count);
+    assertFalse(recorder.read(0).hasCurrent);
+  }
+
+  private static double distanceToSegmentMeters(
+      double lat, double lng, double startLat, double startLng, double endLat, double endLng) {
+    double metersPerDegreeLng = Math.cos(Math.toRadians(startLat)) / DEGREES_PER_METER;
+    double x = (lng - startLng) * metersPerDegreeLng;
+    double y = (lat - startLat) / DEGREES_PER_METER;
+    double endX = (endLng - startLng) * metersPerDegreeLng;
+    double endY = (endLat - startLat) / DEGREES_PER_METER;
+    double lengthSquared = endX * endX + endY * endY;
+    double t = lengthSquared > 0 ? (x * endX + y * endY) / lengthSquared : 0;
+    t = Math.max(0, Math.min(1, t));
+    return Math.hypot(x - t * endX, y - t * endY);
+  }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BridgeTrafficRecorderTest {
+
+  private final AtomicLong now = new AtomicLong(5_000);
+  private final BridgeTrafficRecorder recorder = new BridgeTrafficRecorder(now::get, 1024);
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("bridge_traffic", ".bin").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private File stop() throws Exception {
+    return stop(recorder);
+  }
+
+  private static File stop(BridgeTrafficRecorder recorder) throws Exception {
+    CompletableFuture<File> stopped = new CompletableFuture<>();
+    recorder.stop(stopped::complete);
+    return stopped.get(5, TimeUnit.SECONDS);
+  }
+
+  private static BridgeTrafficRecorder.Trace read(File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      return BridgeTrafficRecorder.read(in);
+    }
+  }
+
+  private static List<Integer> types(BridgeTrafficRecorder.Trace trace) {
+    List<Integer> types = new ArrayList<>();
+    for (BridgeTrafficRecorder.Event event : trace.events) {
+      types.add(event.type);
+    }
+    return types;
+  }
+
+  @Test
+  public void roundTripsEveryEventType() throws Exception {
+    recorder.recordVehicleUpdate();
+    recorder.start(file, true);
+    now.addAndGet(10);
+    recorder.recordTokenRequested("1", "v1", "task-1");
+    now.addAndGet(250);
+    recorder.recordTokenResolved("1");
+    recorder.recordTokenRejected("2");
+    now.addAndGet(1_000);
+    recorder.recordStatusUpdate("INFO", "DEFAULT", null);
+    recorder.recordVehicleUpdate();
+    recorder.recordVehicleFetched(new byte[] {1, 2, 3});
+    assertEquals(file, stop());
+    recorder.recordVehicleUpdate();
+
+    BridgeTrafficRecorder.Trace trace = read(file);
+
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), types(trace));
+    BridgeTrafficRecorder.Event request = trace.events.get(0);
+    assertEquals(10, request.timeMillis);
+    assertEquals("1", request.requestId);
+    assertEquals("v1", request.vehicleId);
+    assertEquals("task-1", request.taskId);
+    assertEquals(260, trace.events.get(1).timeMillis);
+    assertEquals("2", trace.events.get(2).requestId);
+    BridgeTrafficRecorder.Event status = trace.events.get(3);
+    assertEquals(1_260, status.timeMillis);
+    assertEquals("INFO", status.statusLevel);
+    assertEquals("DEFAULT", status.statusCode);
+    assertEquals("", status.statusMessage);
+    assertEquals(3, trace.events.get(5).payloadSize);
+    assertArrayEquals(new byte[] {1, 2, 3}, trace.events.get(5).payload);
+    assertTrue(trace.startedAtMillis > 0);
+  }
+
+  @Test
+  public void recordsOnlyTheSizeOfVehiclesByDefault() throws Exception {
+    recorder.start(file, false);
+    recorder.recordVehicleFetched(new byte[500]);
+
+    BridgeTrafficRecorder.Event fetched = read(stop()).events.get(0);
+
+    assertEquals(500, fetched.payloadSize);
+    assertEquals(0, fetched.payload.length);
+    assertTrue(file.length() < 100);
+  }
+
+  @Test
+  public void cutsLongStringsAndKeepsRecording() throws Exception {
+    StringBuilder message = new StringBuilder();
+    for (int i = 0; i < 30_000; i++) {
+      // Three bytes each in UTF-8, well over what writeUTF can encode in one string.
+      message.append('\u20ac');
+    }
+    BridgeTrafficRecorder large = new BridgeTrafficRecorder(now::get, 1024 * 1024);
+    large.start(file, false);
+    large.recordStatusUpdate("ERROR", "DEFAULT", message.toString());
+    large.recordVehicleUpdate();
+
+    BridgeTrafficRecorder.Trace trace = read(stop(large));
+
+    assertEquals(
+        Arrays.asList(
+            BridgeTrafficRecorder.EVENT_STATUS_UPDATE, BridgeTrafficRecorder.EVENT_VEHICLE_UPDATE),
+        types(trace));
+    assertEquals(
+        message.substring(0, BridgeTrafficRecorder.MAX_STRING_LENGTH),
+        trace.events.get(0).statusMessage);
+  }
+
+  @Test
+  public void stopsWritingAtSizeLimit() throws Exception {
+    recorder.start(file, true);
+    for (int i = 0; i < 100; i++) {
+      recorder.recordVehicleFetched(new byte[100]);
+    }
+    stop();
+
+    // Every record is complete, and the one crossing the limit is the last.
+    assertEquals(10, read(file).events.size());
+    assertTrue(file.length() < 1024 + 110);
+  }
+
+  @Test
+  public void readsUpToTruncatedRecord() throws Exception {
+    recorder.start(file, false);
+    recorder.recordTokenRequested("1", "v1", "");
+    recorder.recordStatusUpdate("INFO", "DEFAULT", "message");
+    byte[] bytes = Files.readAllBytes(stop().toPath());
+
+    BridgeTrafficRecorder.Trace trace =
+        BridgeTrafficRecorder.read(
+            new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+
+    assertEquals(Arrays.asList(BridgeTrafficRecorder.EVENT_TOKEN_REQUESTED), types(trace));
+    assertThrows(
+        IOException.class,
+        () -> BridgeTrafficRecorder.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5})));
+  }
+
+  @Test
+  public void replaysTokenTrafficAtAcceleratedSpeed() throws Exception {
+    // Four requests for the vehicle token, each answered by JS after 500ms, then a rejection.
+    recorder.start(file, true);
+    for (int i = 1; i <= 4; i++) {
+      recorder.recordTokenRequested(Integer.toString(i), "v1", "");
+      now.addAndGet(20);
+    }
+    now.addAndGet(500);
+    for (int i = 1; i <= 4; i++) {
+      recorder.recordTokenResolved(Integer.toString(i));
+    }
+    recorder.recordTokenRequested("5", "v1", "task-1");
+    now.addAndGet(50);
+    recorder.recordTokenRejected("5");
+    recorder.recordVehicleUpdate();
+    recorder.recordVehicleFetched(new byte[42]);
+    BridgeTrafficRecorder.Trace trace = read(stop());
+
+    List<byte[]> vehicles = new ArrayList<>();
+    BridgeTrafficReplay.Result result =
+        new BridgeTrafficReplay(trace, 10).run(new DriverAuthTokenFactory(), vehicles::add);
+
+    assertEquals(5, result.sdkRequests);
+    // Requests for the same context now share one round trip.
+    assertEquals(2, result.jsRequests);
+    assertEquals(1, result.failedRequests);
+    assertTrue("waited " + result.maxWaitMillis + "ms", result.maxWaitMillis >= 40);
+    assertEquals(1, result.vehicleUpdates);
+    assertEquals(42, result.vehiclePayloadBytes);
+    assertEquals(1, vehicles.size());
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Replays a bridge traffic recording on the JVM, turning a field trace into a repeatable benchmark.
+ *
+ * <p>Each recorded token request is issued to a {@link DriverAuthTokenFactory} from its own SDK
+ * thread at its recorded time, divided by the replay speed. A simulated JS thread answers each
+ * request the factory emits after the latency JS had for the same context in the recording, and
+ * with the same outcome. Fetched vehicles, if the recording captured them, are handed to a
+ * consumer, so translators can be timed on recorded routes.
+ */
+final class BridgeTrafficReplay {
+
+  /** What the replay observed. */
+  static final class Result {
+    /** Token requests in the recording, each replayed from its own SDK thread. */
+    int sdkRequests;
+
+    /** Token requests the factory emitted to the simulated JS thread. */
+    int jsRequests;
+
+    int failedRequests;
+    long totalWaitMillis;
+    long maxWaitMillis;
+    int statusUpdates;
+    int vehicleUpdates;
+    long vehiclePayloadBytes;
+  }
+
+  /** JS latency and outcome of a recorded token request. */
+  private static final class Answer {
+    final long latencyMillis;
+    final boolean granted;
+
+    Answer(long latencyMillis, boolean granted) {
+      this.latencyMillis = latencyMillis;
+      this.granted = granted;
+    }
+  }
+
+  private final BridgeTrafficRecorder.Trace trace;
+  private final double speed;
+
+  /**
+   * @param speed 1 for real time, higher to accelerate, or {@link Double#POSITIVE_INFINITY} to
+   *     replay without waiting
+   */
+  BridgeTrafficReplay(BridgeTrafficRecorder.Trace trace, double speed) {
+    this.trace = trace;
+    this.speed = speed;
+  }
+
+  Result run(DriverAuthTokenFactory factory, Consumer<byte[]> vehicles)
+      throws InterruptedException {
+    Map<String, Queue<Answer>> answers = recordedAnswers();
+    Result result = new Result();
+
+    ScheduledExecutorService jsThread = Executors.newSingleThreadScheduledExecutor();
+    ExecutorService sdkThreads = Executors.newCachedThreadPool();
+    factory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) -> {
+          Answer answer;
+          synchronized (answers) {
+            result.jsRequests++;
+            Queue<Answer> queue = answers.get(contextKey(vehicleId, taskId));
+            answer = queue != null && !queue.isEmpty() ? queue.poll() : new Answer(0, true);
+          }
+          jsThread.schedule(
+              () -> {
+                if (answer.granted) {
+                  factory.resolveToken(requestId, "token-" + requestId);
+                } else {
+                  factory.rejectToken(requestId, "rejected in recording");
+                }
+              },
+              scale(answer.latencyMillis),
+              TimeUnit.MILLISECONDS);
+        });
+
+    List<Future<Long>> waits = new ArrayList<>();
+    long startNanos = System.nanoTime();
+    try {
+      for (BridgeTrafficRecorder.Event event : trace.events) {
+        long delayMillis = scale(event.timeMillis) - (System.nanoTime() - startNanos) / 1_000_000;
+        if (delayMillis > 0) {
+          Thread.sleep(delayMillis);
+        }
+        switch (event.type) {
+          case BridgeTrafficRecorder.EVENT_TOKEN_REQUESTED:
+            result.sdkRequests++;
+            waits.add(sdkThreads.submit(() -> timeRequest(factory, event)));
+            break;
+          case BridgeTrafficRecorder.EVENT_STATUS_UPDATE:
+            result.statusUpdates++;
+            break;
+          case BridgeTrafficRecorder.EVENT_VEHICLE_UPDATE:
+            result.vehicleUpdates++;
+            break;
+          case BridgeTrafficRecorder.EVENT_VEHICLE_FETCHED:
+            result.vehiclePayloadBytes += event.payloadSize;
+            if (event.payload.length > 0) {
+              vehicles.accept(event.payload);
+            }
+            break;
+          default:
+            // Resolutions are played back by the simulated JS thread.
+            break;
+        }
+      }
+
+      for (Future<Long> wait : waits) {
+        try {
+          long waitMillis = wait.get();
+          result.totalWaitMillis += waitMillis;
+          result.maxWaitMillis = Math.max(result.maxWaitMillis, waitMillis);
+        } catch (ExecutionException e) {
+          result.failedRequests++;
+        }
+      }
+    } finally {
+      sdkThreads.shutdownNow();
+      jsThread.shutdownNow();
+    }
+    return result;
+  }
+
+  private static long timeRequest(
+      DriverAuthTokenFactory factory, BridgeTrafficRecorder.Event event) {
+    long start = System.nanoTime();
+    factory.requestTokenFromJs(event.vehicleId, event.taskId);
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  /** Pairs each recorded request with its resolution, queued per context in request order. */
+  private Map<String, Queue<Answer>> recordedAnswers() {
+    Map<String, BridgeTrafficRecorder.Event> requests = new HashMap<>();
+    Map<String, Queue<Answer>> answers = new HashMap<>();
+    for (BridgeTrafficRecorder.Event event : trace.events) {
+      if (event.type == BridgeTrafficRecorder.EVENT_TOKEN_REQUESTED) {
+        requests.put(event.requestId, event);
+        continue;
+      }
+      if (event.type != BridgeTrafficRecorder.EVENT_TOKEN_RESOLVED
+          && event.type != BridgeTrafficRecorder.EVENT_TOKEN_REJECTED) {
+        continue;
+      }
+      BridgeTrafficRecorder.Event request = requests.remove(event.requestId);
+      if (request != null) {
+        answers
+            .computeIfAbsent(contextKey(request.vehicleId, request.taskId), k -> new ArrayDeque<>())
+            .add(
+                new Answer(
+                    event.timeMillis - request.timeMillis,
+                    event.type == BridgeTrafficRecorder.EVENT_TOKEN_RESOLVED));
+      }
+    }
+    return answers;
+  }
+
+  private long scale(long millis) {
+    return (long) (millis / speed);
+  }
+
+  private static String contextKey(String vehicleId, String taskId) {
+    return vehicleId + '\n' + taskId;
+  }
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Stress tests for the token request lifecycle, in the spirit of jcstress: each test races two or
+ * more actors many times over, from a barrier, and checks that every outcome is an acceptable one.
+ * A soak test then mixes all of them under contention.
+ *
+ * <p>Factories are created through {@link #newFactory}, so any other token path can be checked
+ * against the same races.
+ */
+public class DriverAuthTokenFactoryStressTest {
+
+  private static final int ITERATIONS = 2_000;
+  private static final String CANCELLED = "Driver instance cleared";
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static DriverAuthTokenFactory newFactory(long timeoutMillis) {
+    return new DriverAuthTokenFactory(timeoutMillis);
+  }
+
+  /** Runs the actors at once from a barrier, and returns what each of them returned. */
+  @SafeVarargs
+  private final List<Object> race(Callable<Object>... actors) throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(actors.length);
+    List<Future<Object>> futures = new ArrayList<>();
+    for (Callable<Object> actor : actors) {
+      futures.add(
+          executor.submit(
+              () -> {
+                barrier.await();
+                return actor.call();
+              }));
+    }
+    List<Object> results = new ArrayList<>();
+    for (Future<Object> future : futures) {
+      results.add(future.get(5, TimeUnit.SECONDS));
+    }
+    return results;
+  }
+
+  /** Returns the token, or the message of the innermost cause of the failure. */
+  private static Object outcome(DriverAuthTokenFactory factory, String vehicleId, String taskId) {
+    try {
+      return factory.getToken(vehicleId, taskId);
+    } catch (RuntimeException e) {
+      Throwable cause = e;
+      while (cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      return cause instanceof TimeoutException ? "timeout" : String.valueOf(cause.getMessage());
+    }
+  }
+
+  @Test
+  public void resolveRacingTimeoutEitherGrantsOrTimesOut() throws Exception {
+    Set<Object> outcomes = new HashSet<>();
+    for (int i = 0; i < ITERATIONS / 4; i++) {
+      DriverAuthTokenFactory factory = newFactory(1);
+      Map<String, String> requestIds = new ConcurrentHashMap<>();
+      factory.setTokenRequestCallback(
+          (requestId, vehicleId, taskId) -> requestIds.put("", requestId));
+
+      List<Object> results =
+          race(
+              () -> outcome(factory, "v1", ""),
+              () -> {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+                while (!requestIds.containsKey("") && System.nanoTime() < deadline) {
+                  Thread.yield();
+                }
+                String requestId = requestIds.get("");
+                if (requestId != null) {
+                  factory.resolveToken(requestId, "token");
+                }
+                return "";
+              });
+
+      Object result = results.get(0);
+      outcomes.add(result);
+      assertTrue(String.valueOf(result), result.equals("token") || result.equals("timeout"));
+      assertEquals(0, factory.getPendingRequestCount());
+    }
+    assertTrue(outcomes.toString(), outcomes.contains("timeout"));
+  }
+
+  @Test
+  public void cancelRacingNewRequestsNeverStrandsThem() throws Exception {
+    int requesters = 8;
+    for (int i = 0; i < ITERATIONS / 4; i++) {
+      // The timeout outlasts the test, so a stranded request shows up as a failed future.get.
+      DriverAuthTokenFactory factory = newFactory(60_000);
+      List<String> requestIds = Collections.synchronizedList(new ArrayList<>());
+      factory.setTokenRequestCallback(
+          (requestId, vehicleId, taskId) -> requestIds.add(requestId));
+
+      List<Future<Object>> requests = new ArrayList<>();
+      CyclicBarrier barrier = new CyclicBarrier(requesters + 1);
+      for (int r = 0; r < requesters; r++) {
+        String taskId = "task-" + r;
+        requests.add(
+            executor.submit(
+                () -> {
+                  barrier.await();
+                  return outcome(factory, "v1", taskId);
+                }));
+      }
+      barrier.await();
+      factory.cancelAllPendingRequests();
+
+      // Whatever the cancel missed must still be resolvable.
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+      while (!allDone(requests) && System.nanoTime() < deadline) {
+        synchronized (requestIds) {
+          for (String requestId : requestIds) {
+            factory.resolveToken(requestId, "token");
+          }
+        }
+        Thread.yield();
+      }
+
+      for (Future<Object> request : requests) {
+        Object result = request.get(1, TimeUnit.SECONDS);
+        assertTrue(String.valueOf(result), result.equals("token") || result.equals(CANCELLED));
+      }
+      assertEquals(0, factory.getPendingRequestCount());
+    }
+  }
+
+  private static boolean allDone(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      if (!future.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Test
+  public void cancelFailsEveryWaiterOfTheContext() throws Exception {
+    for (int i = 0; i < ITERATIONS / 4; i++) {
+      DriverAuthTokenFactory factory = newFactory(10_000);
+      factory.setTokenRequestCallback((requestId, vehicleId, taskId) -> {});
+
+      AtomicInteger finished = new AtomicInteger();
+      Callable<Object> waiter =
+          () -> {
+            Object result = outcome(factory, "v1", "");
+            finished.incrementAndGet();
+            return result;
+          };
+
+      // Waiters may join the request in flight or start a new one; either way they are cancelled.
+      List<Object> results =
+          race(
+              waiter,
+              waiter,
+              () -> {
+                while (finished.get() < 2) {
+                  factory.cancelAllPendingRequests();
+                  Thread.yield();
+                }
+                return CANCELLED;
+              });
+
+      for (Object result : results) {
+        assertEquals(CANCELLED, result);
+      }
+    }
+  }
+
+  @Test
+  public void callbackSetConcurrentlyIsSeenWholeOrNotAtAll() throws Exception {
+    for (int i = 0; i < ITERATIONS; i++) {
+      DriverAuthTokenFactory factory = newFactory(10_000);
+
+      List<Object> results =
+          race(
+              () -> {
+                factory.setTokenRequestCallback(
+                    (requestId, vehicleId, taskId) -> factory.resolveToken(requestId, "token"));
+                return "";
+              },
+              () -> outcome(factory, "v1", ""));
+
+      Object result = results.get(1);
+      assertTrue(
+          String.valueOf(result),
+          result.equals("token") || String.valueOf(result).startsWith("Token request callback"));
+    }
+  }
+
+  @Test
+  public void soakUnderContention() throws Exception {
+    DriverAuthTokenFactory factory = newFactory(20);
+    factory.setTokenCachingEnabled(false);
+    Random random = new Random(1);
+    List<String> pending = new ArrayList<>();
+    factory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) -> {
+          synchronized (pending) {
+            pending.add(requestId + '\n' + vehicleId + '\n' + taskId);
+          }
+        });
+
+    // JS answers requests in random order, rejecting or dropping some of them.
+    Future<?> js =
+        executor.submit(
+            () -> {
+              while (!Thread.currentThread().isInterrupted()) {
+                String request = null;
+                double outcome;
+                synchronized (pending) {
+                  if (!pending.isEmpty()) {
+                    request = pending.remove(random.nextInt(pending.size()));
+                  }
+                  outcome = random.nextDouble();
+                }
+                if (request == null) {
+                  Thread.yield();
+                  continue;
+                }
+                String[] parts = request.split("\n", -1);
+                if (outcome < 0.8) {
+                  factory.resolveToken(parts[0], parts[1] + '/' + parts[2]);
+                } else if (outcome < 0.9) {
+                  factory.rejectToken(parts[0], "rejected");
+                } else if (outcome < 0.91) {
+                  // A shift ending and a new one starting.
+                  factory.cancelAllPendingRequests();
+                  factory.beginEpoch();
+                }
+              }
+            });
+
+    int threads = 32;
+    int requestsPerThread = 200;
+    AtomicInteger granted = new AtomicInteger();
+    List<Future<?>> sdkThreads = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      String vehicleId = "vehicle-" + t % 4;
+      String taskId = t % 2 == 0 ? "" : "task-" + t % 8;
+      sdkThreads.add(
+          executor.submit(
+              () -> {
+                for (int r = 0; r < requestsPerThread; r++) {
+                  Object result = outcome(factory, vehicleId, taskId);
+                  if (result.equals(vehicleId + '/' + taskId)) {
+                    granted.incrementAndGet();
+                  } else {
+                    // A token of another context would be a cross-wired request.
+                    assertFalse(String.valueOf(result), String.valueOf(result).contains("/"));
+                  }
+                }
+                return null;
+              }));
+    }
+    for (Future<?> sdkThread : sdkThreads) {
+      sdkThread.get(60, TimeUnit.SECONDS);
+    }
+    js.cancel(true);
+
+    // How many requests are granted swings with cancellations, which fail every pending request.
+    assertTrue(granted.get() > 0);
+    assertEquals(0, factory.getPendingRequestCount());
+  }
+}
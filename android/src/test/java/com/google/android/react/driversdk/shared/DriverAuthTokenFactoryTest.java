@@ -0,0 +1,248 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DriverAuthTokenFactoryTest {
+
+  private final DriverAuthTokenFactory factory = new DriverAuthTokenFactory();
+  private final List<String> requestIds = new ArrayList<>();
+  private final List<List<String>> requestedTaskIds = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    factory.setBatchTokenRequestCallback(
+        (requestId, vehicleId, taskIds) -> {
+          requestIds.add(requestId);
+          requestedTaskIds.add(taskIds);
+        });
+  }
+
+  private static String jwt(String subject) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    long exp = System.currentTimeMillis() / 1000 + 3600;
+    String payload = "{\"sub\":\"" + subject + "\",\"exp\":" + exp + "}";
+    return "e30." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".sig";
+  }
+
+  @Test
+  public void prefetchCachesResolvedTokens() {
+    factory.prefetchTokens("v1", Arrays.asList("", "task-1", "task-2"));
+
+    assertEquals(1, requestIds.size());
+    assertEquals(Arrays.asList("", "task-1", "task-2"), requestedTaskIds.get(0));
+
+    String vehicleToken = jwt("v1");
+    String taskToken = jwt("task-1");
+    factory.resolveTokens(requestIds.get(0), Arrays.asList(vehicleToken, taskToken, ""));
+
+    TokenCache cache = factory.getTokenCache();
+    assertEquals(vehicleToken, cache.get("v1", ""));
+    assertEquals(taskToken, cache.get("v1", "task-1"));
+    assertNull(cache.get("v1", "task-2"));
+  }
+
+  @Test
+  public void prefetchSkipsCachedAndPendingContexts() {
+    factory.getTokenCache().put("v1", "task-1", jwt("task-1"));
+
+    factory.prefetchTokens("v1", Arrays.asList("task-1", "task-2", "task-2"));
+    factory.prefetchTokens("v1", Arrays.asList("task-2", "task-3"));
+    factory.prefetchTokens("v1", Arrays.asList("task-1", "task-2"));
+
+    assertEquals(2, requestIds.size());
+    assertEquals(Arrays.asList("task-2"), requestedTaskIds.get(0));
+    assertEquals(Arrays.asList("task-3"), requestedTaskIds.get(1));
+  }
+
+  @Test
+  public void ignoresUnknownAndCancelledBatches() {
+    factory.prefetchTokens("v1", Arrays.asList("task-1"));
+    factory.cancelAllPendingRequests();
+
+    factory.resolveTokens(requestIds.get(0), Arrays.asList(jwt("task-1")));
+    factory.resolveTokens("unknown", Arrays.asList(jwt("task-1")));
+
+    assertEquals(0, factory.getTokenCache().size());
+  }
+
+  @Test
+  public void requestsAfterCancelFailUntilNextEpoch() {
+    List<String> tokenRequests = new ArrayList<>();
+    factory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) -> {
+          tokenRequests.add(requestId);
+          factory.resolveToken(requestId, "token");
+        });
+    factory.cancelAllPendingRequests();
+
+    RuntimeException e =
+        assertThrows(RuntimeException.class, () -> factory.requestTokenFromJs("v1", ""));
+    assertEquals("Driver instance cleared", e.getMessage());
+    factory.prefetchTokens("v1", Arrays.asList("task-1"));
+    assertTrue(tokenRequests.isEmpty());
+    assertTrue(requestIds.isEmpty());
+
+    factory.beginEpoch();
+    assertEquals("token", factory.requestTokenFromJs("v1", ""));
+    assertEquals(1, tokenRequests.size());
+  }
+
+  @Test
+  public void newEpochDoesNotShareRoundTripsWithClearedOne() throws Exception {
+    List<String> tokenRequests = Collections.synchronizedList(new ArrayList<>());
+    factory.setTokenRequestCallback((requestId, vehicleId, taskId) -> tokenRequests.add(requestId));
+    ExecutorService sdkThread = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> cleared = sdkThread.submit(() -> factory.requestTokenFromJs("v1", ""));
+      while (tokenRequests.isEmpty()) {
+        Thread.yield();
+      }
+      factory.cancelAllPendingRequests();
+      factory.beginEpoch();
+
+      Future<String> current = sdkThread.submit(() -> factory.requestTokenFromJs("v1", ""));
+      ExecutionException e = assertThrows(ExecutionException.class, cleared::get);
+      assertTrue(e.getCause().getCause().getMessage().contains("Driver instance cleared"));
+      while (tokenRequests.size() < 2) {
+        Thread.yield();
+      }
+      factory.resolveToken(tokenRequests.get(0), "stale");
+      factory.resolveToken(tokenRequests.get(1), "token");
+      assertEquals("token", current.get());
+    } finally {
+      sdkThread.shutdownNow();
+    }
+  }
+
+  /** Answers token requests on a single thread that spends {@code busyMillis} on each event. */
+  private static ExecutorService simulateBusyJsThread(
+      DriverAuthTokenFactory factory, AtomicInteger events, long busyMillis) {
+    ExecutorService jsThread = Executors.newSingleThreadExecutor();
+    factory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) ->
+            jsThread.execute(
+                () -> {
+                  events.incrementAndGet();
+                  try {
+                    Thread.sleep(busyMillis);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  factory.resolveToken(requestId, "token-" + taskId);
+                }));
+    return jsThread;
+  }
+
+  @Test
+  public void concurrentRequestsForSameContextShareOneRoundTrip() throws Exception {
+    List<String> jsRequestIds = Collections.synchronizedList(new ArrayList<>());
+    factory.setTokenRequestCallback((requestId, vehicleId, taskId) -> jsRequestIds.add(requestId));
+    ExecutorService sdkThreads = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      List<Thread> callers = Collections.synchronizedList(new ArrayList<>());
+      for (int i = 0; i < 8; i++) {
+        results.add(
+            sdkThreads.submit(
+                () -> {
+                  callers.add(Thread.currentThread());
+                  return factory.requestTokenFromJs("v1", "task-1");
+                }));
+      }
+
+      // JS answers only once every caller is blocked on the request, so none can start another.
+      awaitBlocked(callers, 8);
+      assertEquals(1, jsRequestIds.size());
+      factory.resolveToken(jsRequestIds.get(0), "token-task-1");
+
+      for (Future<String> result : results) {
+        assertEquals("token-task-1", result.get());
+      }
+      assertEquals(1, jsRequestIds.size());
+    } finally {
+      sdkThreads.shutdownNow();
+    }
+  }
+
+  private static void awaitBlocked(List<Thread> threads, int count) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (true) {
+      synchronized (threads) {
+        if (threads.size() == count
+            && threads.stream().allMatch(t -> t.getState() == Thread.State.TIMED_WAITING)) {
+          return;
+        }
+      }
+      assertTrue("callers did not block", System.nanoTime() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void distinctContextsAreRequestedSeparately() throws Exception {
+    AtomicInteger events = new AtomicInteger();
+    ExecutorService jsThread = simulateBusyJsThread(factory, events, 0);
+    try {
+      assertEquals("token-task-1", factory.requestTokenFromJs("v1", "task-1"));
+      assertEquals("token-task-2", factory.requestTokenFromJs("v1", "task-2"));
+      assertEquals("token-task-1", factory.requestTokenFromJs("v1", "task-1"));
+
+      assertEquals(3, events.get());
+    } finally {
+      jsThread.shutdownNow();
+    }
+  }
+
+  @Test
+  public void rejectionFailsAllWaiters() throws Exception {
+    factory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) ->
+            new Thread(
+                    () -> {
+                      try {
+                        Thread.sleep(50);
+                      } catch (InterruptedException e) {
+                        return;
+                      }
+                      factory.rejectToken(requestId, "denied");
+                    })
+                .start());
+    ExecutorService sdkThreads = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = sdkThreads.submit(() -> factory.requestTokenFromJs("v1", ""));
+      Future<String> second = sdkThreads.submit(() -> factory.requestTokenFromJs("v1", ""));
+
+      assertThrows(Exception.class, first::get);
+      assertThrows(Exception.class, second::get);
+    } finally {
+      sdkThreads.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import com.facebook.react.bridge.WritableMap;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DriverModuleSupportTest {
+
+  private static final int TRIM_MEMORY_RUNNING_LOW = 10;
+
+  private static final class Reporter implements DriverBackend.VehicleReporter {
+    boolean trackingEnabled = false;
+    long intervalSeconds = 0;
+
+    @Override
+    public void enableLocationTracking() {
+      trackingEnabled = true;
+    }
+
+    @Override
+    public void disableLocationTracking() {
+      trackingEnabled = false;
+    }
+
+    @Override
+    public boolean isLocationTrackingEnabled() {
+      return trackingEnabled;
+    }
+
+    @Override
+    public void setLocationReportingInterval(long intervalSeconds) {
+      this.intervalSeconds = intervalSeconds;
+    }
+  }
+
+  private final Reporter reporter = new Reporter();
+  private final List<Integer> memoryPressureLevels = new ArrayList<>();
+
+  private final DriverModuleSupport<Reporter> support = newSupport(name -> null);
+
+  private static DriverModuleSupport<Reporter> newSupport(
+      Function<String, EncryptedStateStore> stateStores) {
+    return new DriverModuleSupport<>(
+        null,
+        stateStores,
+        "store",
+        "recording.bin",
+        new DriverModuleSupport.Events() {
+          @Override
+          public void onGetToken(WritableMap map) {}
+
+          @Override
+          public void onStatusUpdate(WritableMap map) {}
+
+          @Override
+          public void onReportingHealthChanged(WritableMap map) {}
+
+          @Override
+          public void onLocationBatch(WritableMap map) {}
+        });
+  }
+
+  private static String jwt(String subject) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    long exp = System.currentTimeMillis() / 1000 + 3600;
+    String payload = "{\"sub\":\"" + subject + "\",\"exp\":" + exp + "}";
+    return "e30." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".sig";
+  }
+
+  @Before
+  public void setUp() {
+    support.setMemoryPressureListener(memoryPressureLevels::add);
+    support.onInstanceCreated(reporter, null);
+  }
+
+  @Test
+  public void appliesReporterSettingsToTheStateRecord() {
+    assertTrue(support.getStateRecord().get().initialized);
+
+    support.applyLocationTracking(true);
+    support.applyReportingInterval(20);
+
+    DriverStateRecord.State state = support.getStateRecord().get();
+    assertTrue(reporter.trackingEnabled);
+    assertEquals(20, reporter.intervalSeconds);
+    assertTrue(state.trackingEnabled);
+    assertEquals(20, state.intervalSeconds, 0);
+  }
+
+  @Test
+  public void memoryPressureOnlyRaisesTheInterval() {
+    support.applyReportingInterval(5);
+    support.setMemoryPressureReportingInterval(30);
+
+    support.onMemoryPressure(TRIM_MEMORY_RUNNING_LOW);
+
+    assertEquals(1, memoryPressureLevels.size());
+    assertEquals(30, reporter.intervalSeconds);
+    assertEquals(30, support.getStateRecord().get().intervalSeconds, 0);
+
+    support.applyReportingInterval(60);
+    support.onMemoryPressure(TRIM_MEMORY_RUNNING_LOW);
+
+    assertEquals(2, memoryPressureLevels.size());
+    assertEquals(60, reporter.intervalSeconds);
+  }
+
+  @Test
+  public void memoryPressureDoesNotLowerTheSdkDefault() {
+    support.setMemoryPressureReportingInterval(5);
+
+    support.onMemoryPressure(TRIM_MEMORY_RUNNING_LOW);
+
+    assertEquals(0, reporter.intervalSeconds);
+    assertEquals(0, support.getStateRecord().get().intervalSeconds, 0);
+
+    support.setMemoryPressureReportingInterval(20);
+    support.onMemoryPressure(TRIM_MEMORY_RUNNING_LOW);
+
+    assertEquals(20, reporter.intervalSeconds);
+  }
+
+  @Test
+  public void clearingTheInstanceResetsItsState() {
+    support.applyLocationTracking(true);
+    support.applyReportingInterval(20);
+    support.setMemoryPressureReportingInterval(30);
+
+    support.clearInstance();
+    support.onMemoryPressure(TRIM_MEMORY_RUNNING_LOW);
+
+    DriverStateRecord.State state = support.getStateRecord().get();
+    assertNull(support.getVehicleReporter());
+    assertFalse(state.initialized);
+    assertFalse(state.trackingEnabled);
+    assertEquals(0, state.intervalSeconds, 0);
+    assertEquals(20, reporter.intervalSeconds);
+  }
+
+  @Test
+  public void persistedTokenSurvivesInvalidate() throws Exception {
+    File directory = Files.createTempDirectory("driver-state").toFile();
+    SecretKey key = new SecretKeySpec(new byte[32], "AES");
+    List<EncryptedStateStore> stores = new ArrayList<>();
+    Function<String, EncryptedStateStore> stateStores =
+        name -> {
+          EncryptedStateStore store = new EncryptedStateStore(new File(directory, name), () -> key);
+          stores.add(store);
+          return store;
+        };
+    String token = jwt("v1");
+
+    DriverModuleSupport<Reporter> first = newSupport(stateStores);
+    first.setStatePersistenceEnabled(true);
+    first.getTokenFactory().getTokenCache().put("v1", "", token);
+    first.invalidate();
+    assertTrue(stores.get(0).awaitClosed(5, TimeUnit.SECONDS));
+
+    // A JS reload creates the module again.
+    DriverModuleSupport<Reporter> second = newSupport(stateStores);
+    second.setStatePersistenceEnabled(true);
+    TokenCache cache = second.getTokenFactory().getTokenCache();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (cache.get("v1", "") == null && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(token, cache.get("v1", ""));
+
+    // Turning persistence off is what deletes it.
+    second.setStatePersistenceEnabled(false);
+    assertTrue(stores.get(1).awaitClosed(5, TimeUnit.SECONDS));
+    assertEquals(0, directory.listFiles()[0].list().length);
+  }
+}
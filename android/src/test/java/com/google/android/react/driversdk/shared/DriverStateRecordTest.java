@@ -0,0 +1,72 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class DriverStateRecordTest {
+
+  private final DriverStateRecord record = new DriverStateRecord();
+
+  @Test
+  public void publishesEachChangeWithNewRevision() {
+    DriverStateRecord.State cleared = record.get();
+    assertFalse(cleared.initialized);
+    assertEquals(DriverStateRecord.UNKNOWN_STOP_COUNT, cleared.stopCount);
+
+    record.setInitialized();
+    record.setTrackingEnabled(true);
+    record.setIntervalSeconds(30);
+    record.setOnline(true);
+    record.setStopCount(12);
+
+    DriverStateRecord.State state = record.get();
+    assertTrue(state.initialized);
+    assertTrue(state.trackingEnabled);
+    assertEquals(30, state.intervalSeconds, 0);
+    assertTrue(state.online);
+    assertEquals(12, state.stopCount);
+    assertEquals(cleared.revision + 5, state.revision);
+    // Published states are never modified.
+    assertFalse(cleared.initialized);
+  }
+
+  @Test
+  public void keepsRevisionWhenNothingChanges() {
+    record.setInitialized();
+    record.setTrackingEnabled(true);
+    DriverStateRecord.State state = record.get();
+
+    record.setTrackingEnabled(true);
+    record.setIntervalSeconds(0);
+
+    assertSame(state, record.get());
+  }
+
+  @Test
+  public void clearResetsStateButNotRevision() {
+    record.setInitialized();
+    record.setStopCount(3);
+    long revision = record.get().revision;
+
+    record.clear();
+
+    DriverStateRecord.State state = record.get();
+    assertFalse(state.initialized);
+    assertEquals(DriverStateRecord.UNKNOWN_STOP_COUNT, state.stopCount);
+    assertTrue(state.revision > revision);
+  }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpAuthTokenFactoryTest {
+
+  private HttpServer server;
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+  private volatile int responseStatus = 200;
+  private volatile String responseBody = "{}";
+
+  // Requests for the vehicle "slow" are held until released.
+  private final CountDownLatch releaseSlow = new CountDownLatch(1);
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/token",
+        exchange -> {
+          String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+          requests.add(
+              exchange.getRequestMethod()
+                  + " "
+                  + exchange.getRequestURI()
+                  + " "
+                  + exchange.getRequestHeaders().getFirst("Authorization")
+                  + " "
+                  + body);
+          if (String.valueOf(exchange.getRequestURI().getQuery()).contains("vehicleId=slow")) {
+            try {
+              releaseSlow.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          byte[] response = responseBody.getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(responseStatus, response.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+          }
+        });
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    releaseSlow.countDown();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private String url() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/token";
+  }
+
+  private static String jwt(long expiresAtSeconds) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String payload = "{\"exp\":" + expiresAtSeconds + "}";
+    return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8))
+        + "."
+        + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+        + ".sig";
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void getRequestSendsContextAndHeaders() {
+    String token = jwt(System.currentTimeMillis() / 1000 + 3600);
+    responseBody = "{\"token\":\"" + token + "\"}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(
+            HttpAuthTokenFactory.Config.builder(url())
+                .addHeader("Authorization", "Bearer secret")
+                .build());
+
+    assertEquals(token, factory.getToken("vehicle 1", "task-1"));
+
+    assertEquals(1, requests.size());
+    assertEquals("GET /token?vehicleId=vehicle+1&taskId=task-1 Bearer secret ", requests.get(0));
+  }
+
+  @Test
+  public void servesCachedTokenUntilExpiry() {
+    String token = jwt(System.currentTimeMillis() / 1000 + 3600);
+    responseBody = "{\"token\":\"" + token + "\"}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.builder(url()).build());
+
+    factory.getToken("v1", "");
+    factory.getToken("v1", "");
+    factory.getToken("v1", "task-1");
+
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void doesNotCacheTokenWithoutExpiry() {
+    responseBody = "{\"token\":\"opaque\"}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.builder(url()).build());
+
+    assertEquals("opaque", factory.getToken("v1", ""));
+    assertEquals("opaque", factory.getToken("v1", ""));
+
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void postRequestReadsNestedFields() {
+    responseBody = "{\"data\":{\"accessToken\":\"opaque\",\"expiresIn\":3600}}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(
+            HttpAuthTokenFactory.Config.builder(url())
+                .setMethod("POST")
+                .setTokenField("data.accessToken")
+                .setExpiresInField("data.expiresIn")
+                .build());
+
+    assertEquals("opaque", factory.getToken("v1", "task-1"));
+    assertEquals("opaque", factory.getToken("v1", "task-1"));
+
+    assertEquals(1, requests.size());
+    assertEquals(
+        "POST /token null {\"vehicleId\":\"v1\",\"taskId\":\"task-1\"}", requests.get(0));
+  }
+
+  @Test
+  public void failsOnHttpError() {
+    responseStatus = 503;
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.builder(url()).build());
+
+    assertThrows(RuntimeException.class, () -> factory.getToken("v1", ""));
+  }
+
+  @Test
+  public void failsOnMissingTokenField() {
+    responseBody = "{\"access_token\":\"opaque\"}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.builder(url()).build());
+
+    assertThrows(RuntimeException.class, () -> factory.getToken("v1", ""));
+  }
+
+  @Test
+  public void rejectsPlainHttpForRemoteHosts() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> HttpAuthTokenFactory.Config.builder("http://example.com/token").build());
+  }
+
+  @Test
+  public void allowsPlainHttpOnlyForLiteralLoopbackHosts() {
+    HttpAuthTokenFactory.Config.builder("http://localhost:8080/token").build();
+    HttpAuthTokenFactory.Config.builder("http://[::1]:8080/token").build();
+
+    // Loopback, but not one of the literal hosts.
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> HttpAuthTokenFactory.Config.builder("http://127.0.0.2/token").build());
+  }
+
+  @Test
+  public void slowContextDoesNotBlockOtherContexts() throws Exception {
+    responseBody = "{\"token\":\"opaque\"}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.builder(url()).build());
+
+    Future<String> slow = executor.submit(() -> factory.getToken("slow", ""));
+    Future<String> fast = executor.submit(() -> factory.getToken("fast", ""));
+
+    assertEquals("opaque", fast.get(2, TimeUnit.SECONDS));
+    assertFalse(slow.isDone());
+    releaseSlow.countDown();
+    assertEquals("opaque", slow.get(2, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void concurrentRequestsForSameContextShareOneFetch() throws Exception {
+    responseBody = "{\"token\":\"opaque\"}";
+    HttpAuthTokenFactory factory =
+        new HttpAuthTokenFactory(HttpAuthTokenFactory.Config.builder(url()).build());
+
+    Future<String> first = executor.submit(() -> factory.getToken("slow", "task-1"));
+    // Wait for the first fetch to reach the server before the second caller asks.
+    while (requests.isEmpty()) {
+      Thread.sleep(1);
+    }
+    Future<String> second = executor.submit(() -> factory.getToken("slow", "task-1"));
+    Thread.sleep(50);
+    releaseSlow.countDown();
+
+    assertEquals("opaque", first.get(2, TimeUnit.SECONDS));
+    assertEquals("opaque", second.get(2, TimeUnit.SECONDS));
+    assertEquals(1, requests.size());
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class LocationMultiplexerTest {
+
+  private static final double LAT = 37.42;
+  private static final double LNG = -122.08;
+  private static final double DEGREES_PER_METER = 1 / 111_195.0;
+
+  private final List<List<String>> batches = new ArrayList<>();
+  private final List<Integer> fieldMasks = new ArrayList<>();
+  private final LocationMultiplexer multiplexer =
+      new LocationMultiplexer(
+          (sample, fieldMask, subscribers) -> {
+            batches.add(subscribers);
+            fieldMasks.add(fieldMask);
+          });
+
+  private static LocationMultiplexer.Sample sample(double metersNorth, long timeMillis) {
+    return new LocationMultiplexer.Sample(
+        LAT + metersNorth * DEGREES_PER_METER, LNG, timeMillis, 0, 0, 0, 0, 0);
+  }
+
+  @Test
+  public void sendsOneBatchPerLocation() {
+    multiplexer.addSubscriber("a", 0, 0, LocationMultiplexer.FIELD_SPEED);
+    multiplexer.addSubscriber("b", 0, 0, LocationMultiplexer.FIELD_BEARING);
+
+    multiplexer.dispatch(sample(0, 0));
+
+    assertEquals(1, batches.size());
+    assertEquals(Arrays.asList("a", "b"), batches.get(0));
+    assertEquals(
+        LocationMultiplexer.FIELD_SPEED | LocationMultiplexer.FIELD_BEARING,
+        (int) fieldMasks.get(0));
+  }
+
+  @Test
+  public void appliesRateLimitsPerSubscriber() {
+    multiplexer.addSubscriber("every", 0, 0, 0);
+    multiplexer.addSubscriber("slow", 5_000, 0, 0);
+    multiplexer.addSubscriber("far", 0, 100, 0);
+
+    // One location per second, 30 meters apart.
+    for (int i = 0; i <= 10; i++) {
+      multiplexer.dispatch(sample(i * 30, i * 1_000L));
+    }
+
+    int every = 0;
+    int slow = 0;
+    int far = 0;
+    for (List<String> batch : batches) {
+      every += batch.contains("every") ? 1 : 0;
+      slow += batch.contains("slow") ? 1 : 0;
+      far += batch.contains("far") ? 1 : 0;
+    }
+    assertEquals(11, batches.size());
+    assertEquals(11, every);
+    // At 0s, 5s and 10s.
+    assertEquals(3, slow);
+    // At 0m, 120m, 240m.
+    assertEquals(3, far);
+  }
+
+  @Test
+  public void skipsLocationsNoSubscriberIsDueFor() {
+    multiplexer.addSubscriber("slow", 60_000, 0, LocationMultiplexer.FIELD_SPEED);
+
+    multiplexer.dispatch(sample(0, 0));
+    multiplexer.dispatch(sample(10, 1_000));
+    multiplexer.removeSubscriber("slow");
+    multiplexer.dispatch(sample(20, 120_000));
+
+    assertEquals(Collections.singletonList(Collections.singletonList("slow")), batches);
+  }
+
+  @Test
+  public void resetsRateLimitsWhenSubscriberIsReplaced() {
+    multiplexer.addSubscriber("a", 60_000, 0, 0);
+    multiplexer.dispatch(sample(0, 0));
+
+    multiplexer.addSubscriber("a", 60_000, 0, 0);
+    multiplexer.dispatch(sample(0, 1_000));
+
+    assertEquals(2, batches.size());
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ReportingProfilerTest {
+
+  private static final long WINDOW_MILLIS = 60_000;
+
+  private long nowMillis = 1_000;
+  private long cpuMillis = 0;
+
+  private final ReportingProfiler profiler =
+      new ReportingProfiler(10, () -> nowMillis, () -> cpuMillis);
+
+  @Test
+  public void countsNothingUntilEnabled() {
+    profiler.onTokenRequest();
+    profiler.onVehicleUpdate(false);
+
+    ReportingProfiler.Report report = profiler.getReport();
+
+    assertFalse(report.enabled);
+    assertTrue(report.intervals.isEmpty());
+  }
+
+  @Test
+  public void attributesCostsToTheIntervalInEffect() {
+    profiler.configure(true, WINDOW_MILLIS);
+    profiler.onTokenRequest();
+    profiler.onUiThreadHop();
+    profiler.onBridgeEvent();
+    profiler.onVehicleUpdate(false);
+    nowMillis += 500;
+    cpuMillis += 40;
+
+    profiler.setIntervalSeconds(30);
+    profiler.onVehicleUpdate(true);
+    profiler.onVehicleUpdate(false);
+    nowMillis += 300;
+    cpuMillis += 5;
+
+    ReportingProfiler.Report report = profiler.getReport();
+
+    assertTrue(report.enabled);
+    assertEquals(WINDOW_MILLIS, report.windowMillis);
+    assertEquals(2, report.intervals.size());
+
+    ReportingProfiler.IntervalCost fast = report.intervals.get(0);
+    assertEquals(10, fast.intervalSeconds, 0);
+    assertEquals(500, fast.observedMillis);
+    assertEquals(40, fast.cpuMillis);
+    assertEquals(1, fast.tokenRequests);
+    assertEquals(1, fast.uiThreadHops);
+    assertEquals(1, fast.bridgeEvents);
+    assertEquals(1, fast.vehicleUpdates);
+    assertEquals(0, fast.vehicleUpdateFailures);
+
+    ReportingProfiler.IntervalCost slow = report.intervals.get(1);
+    assertEquals(30, slow.intervalSeconds, 0);
+    assertEquals(300, slow.observedMillis);
+    assertEquals(5, slow.cpuMillis);
+    assertEquals(0, slow.tokenRequests);
+    assertEquals(2, slow.vehicleUpdates);
+    assertEquals(1, slow.vehicleUpdateFailures);
+  }
+
+  @Test
+  public void sdkDefaultIsReportedAsTheDefaultInterval() {
+    profiler.configure(true, WINDOW_MILLIS);
+    profiler.setIntervalSeconds(20);
+    nowMillis += 100;
+    profiler.setIntervalSeconds(0);
+    profiler.onVehicleUpdate(false);
+
+    ReportingProfiler.Report report = profiler.getReport();
+
+    assertEquals(10, report.intervals.get(0).intervalSeconds, 0);
+    assertEquals(1, report.intervals.get(0).vehicleUpdates);
+    assertEquals(20, report.intervals.get(1).intervalSeconds, 0);
+  }
+
+  @Test
+  public void dropsWhatFallsOutOfTheWindow() {
+    profiler.configure(true, WINDOW_MILLIS);
+    profiler.onTokenRequest();
+    // The slot of the request stays open until the next event, which is past the window.
+    nowMillis += WINDOW_MILLIS + 1_000;
+    profiler.onVehicleUpdate(false);
+    nowMillis += WINDOW_MILLIS / 2;
+    profiler.onVehicleUpdate(false);
+
+    ReportingProfiler.IntervalCost cost = profiler.getReport().intervals.get(0);
+
+    assertEquals(0, cost.tokenRequests);
+    assertEquals(2, cost.vehicleUpdates);
+    assertTrue(String.valueOf(cost.observedMillis), cost.observedMillis <= WINDOW_MILLIS);
+  }
+
+  @Test
+  public void disablingKeepsTheReportAndEnablingResetsIt() {
+    profiler.configure(true, WINDOW_MILLIS);
+    profiler.onTokenRequest();
+    nowMillis += 200;
+    profiler.configure(false, WINDOW_MILLIS);
+    nowMillis += 10 * WINDOW_MILLIS;
+    profiler.onTokenRequest();
+
+    ReportingProfiler.Report disabled = profiler.getReport();
+
+    assertFalse(disabled.enabled);
+    assertEquals(1, disabled.intervals.get(0).tokenRequests);
+    assertEquals(200, disabled.intervals.get(0).observedMillis);
+
+    profiler.configure(true, WINDOW_MILLIS);
+
+    assertEquals(0, profiler.getReport().intervals.get(0).tokenRequests);
+  }
+}
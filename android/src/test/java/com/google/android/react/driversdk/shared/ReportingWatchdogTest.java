@@ -0,0 +1,137 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReportingWatchdogTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final AtomicInteger pending = new AtomicInteger();
+  private final List<Runnable> uiThreadTasks = new ArrayList<>();
+  private final List<ReportingWatchdog.Health> reports = new ArrayList<>();
+  private final ReportingWatchdog watchdog =
+      new ReportingWatchdog(reports::add, pending::get, uiThreadTasks::add, now::get);
+
+  @Before
+  public void setUp() {
+    watchdog.startMonitoring();
+  }
+
+  private void advanceAndCheck(long millis) {
+    now.addAndGet(millis);
+    watchdog.check();
+    // A responsive UI thread runs the probe right away.
+    for (Runnable task : uiThreadTasks) {
+      task.run();
+    }
+    uiThreadTasks.clear();
+  }
+
+  @Test
+  public void reportsStallOnceAndRecovery() {
+    watchdog.configure(30_000, 600_000, 4, 1_000);
+
+    for (int i = 0; i < 20; i++) {
+      advanceAndCheck(5_000);
+      if (i < 3) {
+        watchdog.onVehicleUpdateSucceeded();
+      }
+    }
+    assertEquals(1, reports.size());
+    assertEquals(
+        Collections.singletonList(ReportingWatchdog.ISSUE_UPDATES_STALLED), reports.get(0).issues);
+    assertEquals(30_000, reports.get(0).millisSinceLastUpdate);
+
+    watchdog.onVehicleUpdateSucceeded();
+    advanceAndCheck(5_000);
+    assertEquals(2, reports.size());
+    assertTrue(reports.get(1).issues.isEmpty());
+  }
+
+  @Test
+  public void reportsTokenBacklogAndStall() {
+    watchdog.configure(600_000, 20_000, 2, 1_000);
+
+    pending.set(3);
+    advanceAndCheck(5_000);
+    assertEquals(
+        Collections.singletonList(ReportingWatchdog.ISSUE_TOKEN_BACKLOG), reports.get(0).issues);
+
+    advanceAndCheck(15_000);
+    assertEquals(
+        Arrays.asList(
+            ReportingWatchdog.ISSUE_TOKENS_STALLED, ReportingWatchdog.ISSUE_TOKEN_BACKLOG),
+        reports.get(1).issues);
+
+    pending.set(0);
+    watchdog.onTokenGranted();
+    advanceAndCheck(5_000);
+    assertTrue(reports.get(2).issues.isEmpty());
+    assertEquals(0, reports.get(2).pendingTokenRequests);
+  }
+
+  @Test
+  public void measuresProbesTheUiThreadHasNotRun() {
+    watchdog.configure(600_000, 600_000, 4, 1_000);
+
+    now.addAndGet(5_000);
+    watchdog.check();
+    assertEquals(1, uiThreadTasks.size());
+
+    // The UI thread is blocked: the next check does not post another probe, and reports the delay.
+    now.addAndGet(5_000);
+    watchdog.check();
+    assertEquals(1, uiThreadTasks.size());
+    assertEquals(
+        Collections.singletonList(ReportingWatchdog.ISSUE_UI_THREAD_SLOW), reports.get(0).issues);
+    assertEquals(5_000, watchdog.getHealth().uiThreadLatencyMillis);
+
+    // Once it catches up, the late probe counts until the next one has run.
+    uiThreadTasks.remove(0).run();
+    advanceAndCheck(5_000);
+    assertEquals(1, reports.size());
+    advanceAndCheck(5_000);
+    assertEquals(0, watchdog.getHealth().uiThreadLatencyMillis);
+    assertTrue(reports.get(1).issues.isEmpty());
+  }
+
+  @Test
+  public void reportsNoStallsWhileStopped() {
+    watchdog.configure(30_000, 60_000, 4, 1_000);
+    watchdog.stop();
+
+    now.addAndGet(600_000);
+    ReportingWatchdog.Health health = watchdog.getHealth();
+    assertTrue(health.issues.isEmpty());
+    assertEquals(600_000, health.millisSinceLastUpdate);
+
+    // Restarting measures from now on.
+    watchdog.startMonitoring();
+    assertEquals(0, watchdog.getHealth().millisSinceLastUpdate);
+    now.addAndGet(30_000);
+    assertEquals(
+        Collections.singletonList(ReportingWatchdog.ISSUE_UPDATES_STALLED),
+        watchdog.getHealth().issues);
+  }
+}
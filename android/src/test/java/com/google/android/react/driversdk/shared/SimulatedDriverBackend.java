@@ -0,0 +1,233 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import android.app.Application;
+import androidx.annotation.Nullable;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusCode;
+import com.google.android.libraries.mapsplatform.transportation.driver.api.base.data.DriverContext.DriverStatusListener.StatusLevel;
+import com.google.android.libraries.navigation.Navigator;
+import com.google.android.libraries.navigation.RoadSnappedLocationProvider;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic in-memory Fleet Engine behind a {@link DriverBackend}, for exercising the modules
+ * and measuring the bridge on a plain JVM.
+ *
+ * <p>Nothing happens on its own: {@link #runVehicleUpdates} simulates location updates one after
+ * the other on the calling thread. Like the Driver SDK, each update first gets the vehicle token,
+ * plus the configured number of task tokens, from the token factory, then reports its outcome to
+ * the status listener: INFO on success, WARNING when Fleet Engine fails the update, and ERROR when
+ * no token could be had. Outcomes are drawn from a generator seeded on each new instance, so a
+ * configuration always plays out the same way.
+ *
+ * @param <R> the vehicle reporter of the backend
+ */
+public abstract class SimulatedDriverBackend<R extends DriverBackend.VehicleReporter>
+    implements DriverBackend<R> {
+
+  public static final String SDK_VERSION = "simulated";
+
+  /** Behavior of the simulated Fleet Engine. */
+  public static class Config {
+    public long seed = 1;
+
+    /** Share of vehicle updates Fleet Engine fails, from 0 to 1. */
+    public double updateFailureRate = 0;
+
+    /** Task tokens requested per vehicle update, each for a task drawn from {@link #taskIds}. */
+    public int taskTokensPerUpdate = 0;
+  }
+
+  /** Outcome of a run of vehicle updates. */
+  public static final class Updates {
+    public int succeeded;
+    public int failed;
+    public int tokenFailures;
+  }
+
+  /** Reporter state of the current instance. */
+  public class SimulatedReporter implements DriverBackend.VehicleReporter {
+    private volatile boolean trackingEnabled = false;
+    private volatile long intervalSeconds = 10;
+
+    @Override
+    public void enableLocationTracking() {
+      trackingEnabled = true;
+    }
+
+    @Override
+    public void disableLocationTracking() {
+      trackingEnabled = false;
+    }
+
+    @Override
+    public boolean isLocationTrackingEnabled() {
+      return trackingEnabled;
+    }
+
+    @Override
+    public void setLocationReportingInterval(long intervalSeconds) {
+      this.intervalSeconds = intervalSeconds;
+    }
+
+    public long getLocationReportingInterval() {
+      return intervalSeconds;
+    }
+  }
+
+  private final Config config;
+
+  @Nullable private R reporter = null;
+  private String providerId = "";
+  private String vehicleId = "";
+  private DriverAuthTokenFactory tokenFactory = null;
+  private DriverStatusListener statusListener = null;
+  private Random random = null;
+  private boolean abnormalTerminationReportingEnabled = false;
+
+  protected SimulatedDriverBackend(Config config) {
+    this.config = config;
+  }
+
+  /** Creates the reporter of a new instance. */
+  protected abstract R newReporter();
+
+  /** Called when a new instance is created, with its generator. */
+  protected void onCreateInstance(Random random) {}
+
+  /** Tasks task tokens are requested for. */
+  protected List<String> taskIds() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public synchronized boolean hasInstance() {
+    return reporter != null;
+  }
+
+  @Override
+  public synchronized R createInstance(
+      @Nullable Application application,
+      @Nullable Navigator navigator,
+      @Nullable RoadSnappedLocationProvider locationProvider,
+      String providerId,
+      String vehicleId,
+      DriverAuthTokenFactory tokenFactory,
+      DriverStatusListener statusListener) {
+    if (reporter != null) {
+      throw new IllegalStateException("Instance already exists");
+    }
+    this.providerId = providerId;
+    this.vehicleId = vehicleId;
+    this.tokenFactory = tokenFactory;
+    this.statusListener = statusListener;
+    random = new Random(config.seed);
+    onCreateInstance(random);
+    reporter = newReporter();
+    return reporter;
+  }
+
+  @Override
+  public synchronized void clearInstance() {
+    reporter = null;
+    tokenFactory = null;
+    statusListener = null;
+  }
+
+  @Override
+  public String getDriverSdkVersion() {
+    return SDK_VERSION;
+  }
+
+  @Override
+  public synchronized void setAbnormalTerminationReportingEnabled(boolean enabled) {
+    abnormalTerminationReportingEnabled = enabled;
+  }
+
+  public synchronized boolean isAbnormalTerminationReportingEnabled() {
+    return abnormalTerminationReportingEnabled;
+  }
+
+  public synchronized String getProviderId() {
+    return providerId;
+  }
+
+  public synchronized String getVehicleId() {
+    return vehicleId;
+  }
+
+  /** Returns the reporter of the current instance, or null if there is none. */
+  @Nullable
+  public synchronized R getReporter() {
+    return reporter;
+  }
+
+  /**
+   * Simulates up to {@code count} location updates. Stops early once there is no instance or
+   * location tracking is disabled.
+   */
+  public Updates runVehicleUpdates(int count) {
+    Updates updates = new Updates();
+    for (int i = 0; i < count; i++) {
+      DriverAuthTokenFactory tokens;
+      DriverStatusListener listener;
+      String vehicle;
+      String[] taskTokenIds;
+      boolean fail;
+      synchronized (this) {
+        if (reporter == null || !reporter.isLocationTrackingEnabled()) {
+          break;
+        }
+        tokens = tokenFactory;
+        listener = statusListener;
+        vehicle = vehicleId;
+        List<String> taskIds = taskIds();
+        taskTokenIds = new String[taskIds.isEmpty() ? 0 : config.taskTokensPerUpdate];
+        for (int t = 0; t < taskTokenIds.length; t++) {
+          taskTokenIds[t] = taskIds.get(random.nextInt(taskIds.size()));
+        }
+        fail = random.nextDouble() < config.updateFailureRate;
+      }
+
+      // Tokens are requested outside the lock, as they may wait on JS.
+      try {
+        tokens.getToken(vehicle, "");
+        for (String taskId : taskTokenIds) {
+          tokens.getToken(vehicle, taskId);
+        }
+      } catch (RuntimeException e) {
+        updates.tokenFailures++;
+        listener.updateStatus(
+            StatusLevel.ERROR, StatusCode.PERMISSION_DENIED, "Simulated update without token", e);
+        continue;
+      }
+      if (fail) {
+        updates.failed++;
+        listener.updateStatus(
+            StatusLevel.WARNING,
+            StatusCode.BACKEND_CONNECTIVITY_ERROR,
+            "Simulated update failure",
+            null);
+      } else {
+        updates.succeeded++;
+        listener.updateStatus(StatusLevel.INFO, StatusCode.DEFAULT, "Simulated update", null);
+      }
+    }
+    return updates;
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.Test;
+
+public class TokenCacheTest {
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+  @Test
+  public void tokenTooLongToPersistIsOnlyCachedInMemory() throws Exception {
+    File directory = Files.createTempDirectory("token-cache").toFile();
+    SecretKey key = new SecretKeySpec(new byte[32], "AES");
+    EncryptedStateStore store = new EncryptedStateStore(directory, () -> key);
+    TokenCache cache = new TokenCache();
+    cache.setPersistentStore(store);
+    long expiresAtMillis = System.currentTimeMillis() + 3_600_000;
+
+    cache.put("v1", "", "short-token", expiresAtMillis);
+    String longToken = repeat('a', 70_000);
+    assertTrue(cache.put("v1", "", longToken, expiresAtMillis));
+    assertEquals(longToken, cache.get("v1", ""));
+
+    store.close();
+    assertTrue(store.awaitClosed(5, TimeUnit.SECONDS));
+    // The shorter token written first is deleted too, so a restart does not serve it.
+    assertEquals(0, directory.list().length);
+  }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Load harness for {@link DriverAuthTokenFactory} at fleet scale.
+ *
+ * <p>Each reporting context, a vehicle or one of its tasks, is served by its own SDK threads, which
+ * request tokens back to back like the Driver SDK does on location updates. A single simulated JS
+ * thread answers the requests the factory emits after a latency drawn from a {@link Latency}
+ * distribution, and can be made to reject or drop some of them. The harness measures what SDK
+ * threads see: throughput, latency percentiles, timeouts and failures, along with the peak thread
+ * count of the process and the peak number of requests pending in the factory.
+ *
+ * <p>The factory under test is configured by the caller, so the same scenarios can be run against
+ * any token mode, such as caching or native tokens.
+ */
+final class TokenLoadHarness {
+
+  /** Distribution of JS response latencies. */
+  interface Latency {
+    long nextMillis(Random random);
+
+    static Latency fixed(long millis) {
+      return random -> millis;
+    }
+
+    static Latency uniform(long minMillis, long maxMillis) {
+      return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /** Mostly {@code baseMillis}, with a {@code spikeRate} share of slow responses. */
+    static Latency spiky(long baseMillis, long spikeMillis, double spikeRate) {
+      return random -> random.nextDouble() < spikeRate ? spikeMillis : baseMillis;
+    }
+  }
+
+  /** A load scenario. */
+  static final class Config {
+    long seed = 1;
+
+    /** Reporting contexts, each requesting tokens for its own vehicle. */
+    int contexts = 16;
+
+    /** SDK threads requesting tokens for each context. */
+    int threadsPerContext = 1;
+
+    /** Token requests made by each SDK thread. */
+    int requestsPerThread = 10;
+
+    Latency latency = Latency.fixed(0);
+
+    /** Share of requests JS rejects. */
+    double rejectionRate = 0;
+
+    /** Share of requests JS never answers, which leaves them to time out. */
+    double dropRate = 0;
+
+    /** Mints the token JS answers a request with, from its vehicle id. */
+    Function<String, String> tokens = vehicleId -> "token-" + vehicleId;
+  }
+
+  /** What the SDK threads observed. */
+  static final class Result {
+    int requests;
+    int timeouts;
+    int failures;
+
+    /** Token requests the factory emitted to JS. */
+    int jsRequests;
+
+    long elapsedNanos;
+    long p50Nanos;
+    long p99Nanos;
+    long p999Nanos;
+    long maxNanos;
+    int peakThreads;
+    int peakPendingRequests;
+
+    double throughputPerSecond() {
+      return elapsedNanos > 0 ? requests * 1e9 / elapsedNanos : 0;
+    }
+
+    double timeoutRate() {
+      return requests > 0 ? (double) timeouts / requests : 0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.US,
+          "%d requests (%d to JS) at %.0f/s, p50 %.2fms p99 %.2fms p999 %.2fms max %.2fms, "
+              + "%.2f%% timeouts, %d failures, peak %d threads, %d pending",
+          requests,
+          jsRequests,
+          throughputPerSecond(),
+          p50Nanos / 1e6,
+          p99Nanos / 1e6,
+          p999Nanos / 1e6,
+          maxNanos / 1e6,
+          timeoutRate() * 100,
+          failures,
+          peakThreads,
+          peakPendingRequests);
+    }
+  }
+
+  private final Config config;
+
+  TokenLoadHarness(Config config) {
+    this.config = config;
+  }
+
+  Result run(DriverAuthTokenFactory factory) throws InterruptedException {
+    Random random = new Random(config.seed);
+    AtomicInteger jsRequests = new AtomicInteger();
+    ScheduledExecutorService jsThread = Executors.newSingleThreadScheduledExecutor();
+    factory.setTokenRequestCallback(
+        (requestId, vehicleId, taskId) -> {
+          jsRequests.incrementAndGet();
+          double outcome;
+          long latencyMillis;
+          synchronized (random) {
+            outcome = random.nextDouble();
+            latencyMillis = config.latency.nextMillis(random);
+          }
+          if (outcome < config.dropRate) {
+            return;
+          }
+          boolean reject = outcome < config.dropRate + config.rejectionRate;
+          jsThread.schedule(
+              () -> {
+                if (reject) {
+                  factory.rejectToken(requestId, "rejected by harness");
+                } else {
+                  factory.resolveToken(requestId, config.tokens.apply(vehicleId));
+                }
+              },
+              latencyMillis,
+              TimeUnit.MILLISECONDS);
+        });
+
+    int threadCount = config.contexts * config.threadsPerContext;
+    long[][] latencies = new long[threadCount][config.requestsPerThread];
+    AtomicInteger timeouts = new AtomicInteger();
+    AtomicInteger failures = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threadCount);
+    List<Thread> sdkThreads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      long[] threadLatencies = latencies[i];
+      String vehicleId = "vehicle-" + i / config.threadsPerContext;
+      sdkThreads.add(
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                  for (int r = 0; r < threadLatencies.length; r++) {
+                    long requestStart = System.nanoTime();
+                    try {
+                      factory.getToken(vehicleId, "");
+                    } catch (RuntimeException e) {
+                      (isTimeout(e) ? timeouts : failures).incrementAndGet();
+                    }
+                    threadLatencies[r] = System.nanoTime() - requestStart;
+                  }
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                } finally {
+                  done.countDown();
+                }
+              },
+              "sdk-" + i));
+    }
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    AtomicInteger peakPending = new AtomicInteger();
+    ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    Result result = new Result();
+    try {
+      for (Thread thread : sdkThreads) {
+        thread.start();
+      }
+      threads.resetPeakThreadCount();
+      sampler.scheduleAtFixedRate(
+          () -> peakPending.accumulateAndGet(factory.getPendingRequestCount(), Math::max),
+          0,
+          1,
+          TimeUnit.MILLISECONDS);
+      long startNanos = System.nanoTime();
+      start.countDown();
+      done.await();
+      result.elapsedNanos = System.nanoTime() - startNanos;
+      result.peakThreads = threads.getPeakThreadCount();
+    } finally {
+      sampler.shutdownNow();
+      jsThread.shutdownNow();
+      for (Thread thread : sdkThreads) {
+        thread.interrupt();
+      }
+    }
+
+    long[] sorted = new long[threadCount * config.requestsPerThread];
+    for (int i = 0; i < threadCount; i++) {
+      System.arraycopy(latencies[i], 0, sorted, i * config.requestsPerThread, latencies[i].length);
+    }
+    Arrays.sort(sorted);
+    result.requests = sorted.length;
+    result.timeouts = timeouts.get();
+    result.failures = failures.get();
+    result.jsRequests = jsRequests.get();
+    result.p50Nanos = percentile(sorted, 0.5);
+    result.p99Nanos = percentile(sorted, 0.99);
+    result.p999Nanos = percentile(sorted, 0.999);
+    result.maxNanos = sorted.length > 0 ? sorted[sorted.length - 1] : 0;
+    result.peakPendingRequests = peakPending.get();
+    return result;
+  }
+
+  private static boolean isTimeout(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(quantile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2023 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.react.driversdk.shared;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.Test;
+
+public class TokenLoadHarnessTest {
+
+  private static String jwt(String subject) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    long exp = System.currentTimeMillis() / 1000 + 3600;
+    String payload = "{\"sub\":\"" + subject + "\",\"exp\":" + exp + "}";
+    return "e30." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".sig";
+  }
+
+  @Test
+  public void servesEveryRequestUnderJitteryResponder() throws Exception {
+    TokenLoadHarness.Config config = new TokenLoadHarness.Config();
+    config.contexts = 64;
+    config.threadsPerContext = 4;
+    config.requestsPerThread = 5;
+    config.latency = TokenLoadHarness.Latency.uniform(1, 5);
+    DriverAuthTokenFactory factory = new DriverAuthTokenFactory(5_000);
+
+    TokenLoadHarness.Result result = new TokenLoadHarness(config).run(factory);
+
+    assertEquals(result.toString(), 1_280, result.requests);
+    assertEquals(result.toString(), 0, result.timeouts + result.failures);
+    // Threads of the same context share round trips.
+    assertTrue(result.toString(), result.jsRequests < result.requests);
+    assertTrue(result.toString(), result.peakThreads >= 256);
+    assertTrue(result.p50Nanos <= result.p99Nanos && result.p99Nanos <= result.p999Nanos);
+    assertEquals(0, factory.getPendingRequestCount());
+  }
+
+  @Test
+  public void dropsTimeOutWithoutLeakingRequests() throws Exception {
+    TokenLoadHarness.Config config = new TokenLoadHarness.Config();
+    config.contexts = 32;
+    config.requestsPerThread = 10;
+    config.dropRate = 0.1;
+    config.rejectionRate = 0.1;
+    DriverAuthTokenFactory factory = new DriverAuthTokenFactory(50);
+
+    TokenLoadHarness.Result result = new TokenLoadHarness(config).run(factory);
+
+    assertTrue(result.toString(), result.timeoutRate() > 0.03 && result.timeoutRate() < 0.2);
+    assertTrue(result.toString(), result.failures > 0);
+    assertTrue(result.toString(), result.maxNanos >= 50_000_000);
+    assertTrue(result.toString(), result.peakPendingRequests > 0);
+    assertEquals(0, factory.getPendingRequestCount());
+  }
+
+  @Test
+  public void cachingLeavesOneRoundTripPerContext() throws Exception {
+    TokenLoadHarness.Config config = new TokenLoadHarness.Config();
+    config.contexts = 16;
+    config.threadsPerContext = 2;
+    config.latency = TokenLoadHarness.Latency.spiky(1, 20, 0.5);
+    config.tokens = TokenLoadHarnessTest::jwt;
+    DriverAuthTokenFactory factory = new DriverAuthTokenFactory(5_000);
+    factory.setTokenCachingEnabled(true);
+
+    TokenLoadHarness.Result result = new TokenLoadHarness(config).run(factory);
+
+    assertEquals(result.toString(), 0, result.timeouts + result.failures);
+    // Both threads of a context may miss the cache before the first token arrives.
+    assertTrue(result.toString(), result.jsRequests >= 16 && result.jsRequests <= 32);
+  }
+}
@@ -29,6 +29,9 @@ typedef void (^VehicleUpdateFailureBlock)(GMTDVehicleUpdate *vehicleUpdate, NSEr
 @property GMTDVehicleReporter *vehicleReporter;
 @property(nonatomic, copy, nullable) VehicleUpdateSuccessBlock onVehicleUpdateSucceed;
 @property(nonatomic, copy, nullable) VehicleUpdateFailureBlock onVehicleUpdateFailed;
+// Reporter configuration last applied through this controller.
+@property(nonatomic, readonly) BOOL locationTrackingEnabled;
+@property(nonatomic, readonly) double locationReportingInterval;
 
 - (void)initializeWithSession:(GMSNavigationSession *)session;
 - (void)createDeliveryDriverInstance:(NSString *)providerId
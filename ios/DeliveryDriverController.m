@@ -26,6 +26,9 @@ AuthTokenFactory *_lmfsTokenFactory;
 GMTDDriverContext *_driverContext;
 GMTDDeliveryDriverAPI *_driverAPI;
 
+// Reporting interval of a new vehicle reporter, in seconds.
+static const double kDefaultLocationReportingInterval = 10;
+
 - (void)viewDidLoad {
   [super viewDidLoad];
   // Do any additional setup after loading the view.
@@ -49,16 +52,20 @@ GMTDDeliveryDriverAPI *_driverAPI;
   _driverAPI = [[GMTDDeliveryDriverAPI alloc] initWithDriverContext:driverContext];
 
   _vehicleReporter = _driverAPI.vehicleReporter;
+  _locationTrackingEnabled = NO;
+  _locationReportingInterval = kDefaultLocationReportingInterval;
   [_vehicleReporter addListener:self];
   [_deliverySession.roadSnappedLocationProvider addListener:_vehicleReporter];
 }
 
 - (void)setLocationTrackingEnabled:(BOOL)isEnabled {
   [_vehicleReporter setLocationTrackingEnabled:isEnabled];
+  _locationTrackingEnabled = isEnabled;
 }
 
 - (void)setLocationReportingInterval:(double)interval {
   [_vehicleReporter setLocationReportingInterval:interval];
+  _locationReportingInterval = interval;
 }
 
 + (nonnull NSString *)getDeliveryDriverSDKLongVersion {
@@ -72,6 +79,7 @@ GMTDDeliveryDriverAPI *_driverAPI;
 - (void)clearInstance {
   [_lmfsTokenFactory cancelAllPendingRequests];
   [_vehicleReporter setLocationTrackingEnabled:NO];
+  _locationTrackingEnabled = NO;
   [_vehicleReporter removeListener:self];
   [_deliverySession.roadSnappedLocationProvider removeListener:_vehicleReporter];
   _vehicleReporter = NULL;
@@ -122,6 +122,117 @@ RCT_EXPORT_MODULE(DeliveryDriverModule);
   [DeliveryDriverController setAbnormalTerminationReporting:isEnabled];
 }
 
+- (void)setMemoryPressureReportingInterval:(double)intervalSeconds {
+  // Memory trim callbacks are only delivered on Android.
+}
+
+- (void)setStatePersistenceEnabled:(BOOL)isEnabled {
+  // Warm restart persistence is only implemented on Android.
+}
+
+- (void)setBackgroundEventBuffering:(BOOL)isEnabled {
+  // Background event buffering is only implemented on Android.
+}
+
+- (void)setTracingEnabled:(BOOL)isEnabled {
+  // Trace sections are only implemented on Android.
+}
+
+- (void)setHttpTokenProvider:(JS::NativeDeliveryDriverModule::HttpTokenProviderSpec &)config
+                     resolve:(RCTPromiseResolveBlock)resolve
+                      reject:(RCTPromiseRejectBlock)reject {
+  // The native HTTP token provider is only implemented on Android.
+  resolve(nil);
+}
+
+- (void)clearHttpTokenProvider {
+  // The native HTTP token provider is only implemented on Android.
+}
+
+- (void)setBreadcrumbRecording:(JS::NativeDeliveryDriverModule::BreadcrumbRecordingSpec &)config {
+  // Breadcrumb recording is only implemented on Android.
+}
+
+- (void)getBreadcrumbs:(double)sinceSequence
+               resolve:(RCTPromiseResolveBlock)resolve
+                reject:(RCTPromiseRejectBlock)reject {
+  // Breadcrumb recording is only implemented on Android.
+  resolve(@{@"points" : @[], @"nextSequence" : @(0)});
+}
+
+- (void)clearBreadcrumbs {
+  // Breadcrumb recording is only implemented on Android.
+}
+
+- (void)setReportingProfiling:(JS::NativeDeliveryDriverModule::ReportingProfilingSpec &)config {
+  // The reporting profiler is only implemented on Android.
+}
+
+- (void)getReportingProfile:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+  // The reporting profiler is only implemented on Android.
+  resolve(@{@"enabled" : @NO, @"windowMillis" : @(0), @"intervals" : @[]});
+}
+
+- (void)addLocationSubscriber:(NSString *)name
+                       config:(JS::NativeDeliveryDriverModule::LocationSubscriberSpec &)config {
+  // The location multiplexer is only implemented on Android.
+}
+
+- (void)removeLocationSubscriber:(NSString *)name {
+  // The location multiplexer is only implemented on Android.
+}
+
+- (void)setReportingWatchdog:(JS::NativeDeliveryDriverModule::ReportingWatchdogSpec &)config {
+  // The reporting watchdog is only implemented on Android.
+}
+
+- (void)getReportingHealth:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+  // The reporting watchdog is only implemented on Android.
+  resolve(@{
+    @"healthy" : @YES,
+    @"issues" : @[],
+    @"millisSinceLastUpdate" : @(0),
+    @"millisSinceLastTokenGrant" : @(0),
+    @"pendingTokenRequests" : @(0),
+    @"uiThreadLatencyMillis" : @(0),
+  });
+}
+
+- (void)startBridgeRecording:(JS::NativeDeliveryDriverModule::BridgeRecordingSpec &)config
+                     resolve:(RCTPromiseResolveBlock)resolve
+                      reject:(RCTPromiseRejectBlock)reject {
+  // Bridge traffic recording is only implemented on Android.
+  resolve(nil);
+}
+
+- (void)stopBridgeRecording:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+  // Bridge traffic recording is only implemented on Android.
+  resolve(nil);
+}
+
+- (void)resolveAuthTokens:(NSString *)requestId tokens:(NSArray *)tokens {
+  // Batch token prefetching is only implemented on Android.
+}
+
+- (void)setTaskTokenPrefetch:(double)stopCount {
+  // Batch token prefetching is only implemented on Android.
+}
+
+- (void)setStopGeofencing:(JS::NativeDeliveryDriverModule::StopGeofencingSpec &)config {
+  // Native stop arrival detection is only implemented on Android.
+}
+
+- (void)setStopEtaUpdates:(JS::NativeDeliveryDriverModule::StopEtaUpdatesSpec &)config {
+  // Per-stop ETA updates are only implemented on Android.
+}
+
+- (void)getStopTimeline:(double)sinceTimestamp
+                resolve:(RCTPromiseResolveBlock)resolve
+                 reject:(RCTPromiseRejectBlock)reject {
+  // The stop state timeline is only implemented on Android.
+  resolve(@{@"transitions" : @[], @"truncated" : @NO});
+}
+
 - (void)setLocationReportingInterval:(double)intervalSeconds
                              resolve:(RCTPromiseResolveBlock)resolve
                               reject:(RCTPromiseRejectBlock)reject {
@@ -137,6 +248,44 @@ RCT_EXPORT_MODULE(DeliveryDriverModule);
   });
 }
 
+- (void)applyReporterConfig:(JS::NativeDeliveryDriverModule::ReporterConfigSpec &)config
+                    resolve:(RCTPromiseResolveBlock)resolve
+                     reject:(RCTPromiseRejectBlock)reject {
+  std::optional<bool> trackingEnabled = config.trackingEnabled();
+  std::optional<double> intervalSeconds = config.intervalSeconds();
+  dispatch_async(dispatch_get_main_queue(), ^{
+    if (self->_driverController == nil ||
+        [self->_driverController isDriverApiInitialized] == false) {
+      reject(kDriverApiNotInitializedErrorCode, kDriverApiNotInitializedErrorMessage, nil);
+      return;
+    }
+
+    if (intervalSeconds.has_value()) {
+      [self->_driverController setLocationReportingInterval:intervalSeconds.value()];
+    }
+    if (trackingEnabled.has_value()) {
+      [self->_driverController setLocationTrackingEnabled:trackingEnabled.value()];
+    }
+    resolve(@{
+      @"trackingEnabled" : @(self->_driverController.locationTrackingEnabled),
+      @"intervalSeconds" : @(self->_driverController.locationReportingInterval),
+    });
+  });
+}
+
+- (NSDictionary *)getDriverState {
+  // Read on the JS thread so it can be called while rendering. Stop counts and revisions are only
+  // tracked on Android.
+  DeliveryDriverController *controller = _driverController;
+  BOOL initialized = controller != nil && [controller isDriverApiInitialized];
+  return @{
+    @"initialized" : @(initialized),
+    @"trackingEnabled" : @(initialized && controller.locationTrackingEnabled),
+    @"intervalSeconds" : @(controller.locationReportingInterval),
+    @"revision" : @0,
+  };
+}
+
 - (void)getDriverSdkVersion:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
   resolve([DeliveryDriverController getDriverSdkVersion]);
 }
@@ -153,6 +302,154 @@ RCT_EXPORT_MODULE(DeliveryDriverModule);
   });
 }
 
+- (void)getDeliveryVehicleSummary:(RCTPromiseResolveBlock)resolve
+                           reject:(RCTPromiseRejectBlock)reject {
+  dispatch_async(dispatch_get_main_queue(), ^{
+    if (self->_driverController == nil ||
+        [self->_driverController isDriverApiInitialized] == false) {
+      reject(kDriverApiNotInitializedErrorCode, kDriverApiNotInitializedErrorMessage, nil);
+      return;
+    }
+
+    [self->_driverController
+        getDeliveryVehicle:^(NSDictionary *vehicle) {
+          NSMutableDictionary *summary = [vehicle mutableCopy];
+          [summary removeObjectForKey:@"vehicleStops"];
+          summary[@"stopCount"] = @([vehicle[@"vehicleStops"] count]);
+          resolve(summary);
+        }
+                  rejecter:reject];
+  });
+}
+
+- (void)getVehicleStops:(double)start
+                  count:(double)count
+                resolve:(RCTPromiseResolveBlock)resolve
+                 reject:(RCTPromiseRejectBlock)reject {
+  // There is no vehicle snapshot cache on iOS, so fetch the vehicle and slice its stops.
+  dispatch_async(dispatch_get_main_queue(), ^{
+    if (self->_driverController == nil ||
+        [self->_driverController isDriverApiInitialized] == false) {
+      reject(kDriverApiNotInitializedErrorCode, kDriverApiNotInitializedErrorMessage, nil);
+      return;
+    }
+
+    [self->_driverController
+        getDeliveryVehicle:^(NSDictionary *vehicle) {
+          NSArray *stops = vehicle[@"vehicleStops"];
+          NSUInteger location = MIN((NSUInteger)MAX(start, 0), stops.count);
+          NSUInteger length = MIN((NSUInteger)MAX(count, 0), stops.count - location);
+          resolve([stops subarrayWithRange:NSMakeRange(location, length)]);
+        }
+                  rejecter:reject];
+  });
+}
+
+- (void)queryStopsWithinRadius:(double)lat
+                           lng:(double)lng
+                  radiusMeters:(double)radiusMeters
+                       resolve:(RCTPromiseResolveBlock)resolve
+                        reject:(RCTPromiseRejectBlock)reject {
+  // Spatial stop queries are only implemented on Android.
+  resolve(@[]);
+}
+
+- (void)findNearestStop:(double)lat
+                    lng:(double)lng
+                resolve:(RCTPromiseResolveBlock)resolve
+                 reject:(RCTPromiseRejectBlock)reject {
+  // Spatial stop queries are only implemented on Android.
+  resolve(nil);
+}
+
+- (void)queryStopsInBounds:(double)south
+                      west:(double)west
+                     north:(double)north
+                      east:(double)east
+                   resolve:(RCTPromiseResolveBlock)resolve
+                    reject:(RCTPromiseRejectBlock)reject {
+  // Spatial stop queries are only implemented on Android.
+  resolve(@[]);
+}
+
+- (void)getTask:(NSString *)taskId
+        resolve:(RCTPromiseResolveBlock)resolve
+         reject:(RCTPromiseRejectBlock)reject {
+  [self fetchVehicleStops:^(NSArray *stops) {
+    for (NSUInteger i = 0; i < stops.count; i++) {
+      for (NSDictionary *task in stops[i][@"taskInfoList"]) {
+        if ([task[@"taskId"] isEqualToString:taskId]) {
+          resolve(@{
+            @"taskId" : taskId,
+            @"taskDurationSeconds" : task[@"taskDurationSeconds"],
+            @"stopIndex" : @(i),
+            @"vehicleStopState" : stops[i][@"vehicleStopState"],
+          });
+          return;
+        }
+      }
+    }
+    resolve(nil);
+  }
+                   reject:reject];
+}
+
+- (void)getStopForTask:(NSString *)taskId
+               resolve:(RCTPromiseResolveBlock)resolve
+                reject:(RCTPromiseRejectBlock)reject {
+  [self fetchVehicleStops:^(NSArray *stops) {
+    for (NSUInteger i = 0; i < stops.count; i++) {
+      for (NSDictionary *task in stops[i][@"taskInfoList"]) {
+        if ([task[@"taskId"] isEqualToString:taskId]) {
+          resolve(@{@"stopIndex" : @(i), @"stop" : stops[i]});
+          return;
+        }
+      }
+    }
+    resolve(nil);
+  }
+                   reject:reject];
+}
+
+- (void)getStopIndexesForPlace:(NSString *)placeId
+                       resolve:(RCTPromiseResolveBlock)resolve
+                        reject:(RCTPromiseRejectBlock)reject {
+  [self fetchVehicleStops:^(NSArray *stops) {
+    NSMutableArray *stopIndexes = [NSMutableArray array];
+    for (NSUInteger i = 0; i < stops.count; i++) {
+      if ([stops[i][@"waypoint"][@"placeId"] isEqual:placeId]) {
+        [stopIndexes addObject:@(i)];
+      }
+    }
+    resolve(stopIndexes);
+  }
+                   reject:reject];
+}
+
+// There is no vehicle snapshot cache on iOS, so lookups fetch the vehicle and scan its stops.
+- (void)fetchVehicleStops:(void (^)(NSArray *stops))completion
+                   reject:(RCTPromiseRejectBlock)reject {
+  dispatch_async(dispatch_get_main_queue(), ^{
+    if (self->_driverController == nil ||
+        [self->_driverController isDriverApiInitialized] == false) {
+      reject(kDriverApiNotInitializedErrorCode, kDriverApiNotInitializedErrorMessage, nil);
+      return;
+    }
+
+    [self->_driverController
+        getDeliveryVehicle:^(NSDictionary *vehicle) {
+          completion(vehicle[@"vehicleStops"]);
+        }
+                  rejecter:reject];
+  });
+}
+
+- (void)getCachedDeliveryVehicle:(RCTPromiseResolveBlock)resolve
+                          reject:(RCTPromiseRejectBlock)reject {
+  // The vehicle snapshot cache is only implemented on Android.
+  resolve(nil);
+}
+
 - (void)clearInstance:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
   dispatch_async(dispatch_get_main_queue(), ^{
     [self->_driverController clearInstance];
@@ -137,6 +137,94 @@ RCT_EXPORT_MODULE(RidesharingModule);
   [RidesharingDriverController setAbnormalTerminationReporting:isEnabled];
 }
 
+- (void)setMemoryPressureReportingInterval:(double)intervalSeconds {
+  // Memory trim callbacks are only delivered on Android.
+}
+
+- (void)setStatePersistenceEnabled:(BOOL)isEnabled {
+  // Warm restart persistence is only implemented on Android.
+}
+
+- (void)setBackgroundEventBuffering:(BOOL)isEnabled {
+  // Background event buffering is only implemented on Android.
+}
+
+- (void)setTracingEnabled:(BOOL)isEnabled {
+  // Trace sections are only implemented on Android.
+}
+
+- (void)setHttpTokenProvider:(JS::NativeRidesharingModule::HttpTokenProviderSpec &)config
+                     resolve:(RCTPromiseResolveBlock)resolve
+                      reject:(RCTPromiseRejectBlock)reject {
+  // The native HTTP token provider is only implemented on Android.
+  resolve(nil);
+}
+
+- (void)clearHttpTokenProvider {
+  // The native HTTP token provider is only implemented on Android.
+}
+
+- (void)setBreadcrumbRecording:(JS::NativeRidesharingModule::BreadcrumbRecordingSpec &)config {
+  // Breadcrumb recording is only implemented on Android.
+}
+
+- (void)getBreadcrumbs:(double)sinceSequence
+               resolve:(RCTPromiseResolveBlock)resolve
+                reject:(RCTPromiseRejectBlock)reject {
+  // Breadcrumb recording is only implemented on Android.
+  resolve(@{@"points" : @[], @"nextSequence" : @(0)});
+}
+
+- (void)clearBreadcrumbs {
+  // Breadcrumb recording is only implemented on Android.
+}
+
+- (void)setReportingProfiling:(JS::NativeRidesharingModule::ReportingProfilingSpec &)config {
+  // The reporting profiler is only implemented on Android.
+}
+
+- (void)getReportingProfile:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+  // The reporting profiler is only implemented on Android.
+  resolve(@{@"enabled" : @NO, @"windowMillis" : @(0), @"intervals" : @[]});
+}
+
+- (void)addLocationSubscriber:(NSString *)name
+                       config:(JS::NativeRidesharingModule::LocationSubscriberSpec &)config {
+  // The location multiplexer is only implemented on Android.
+}
+
+- (void)removeLocationSubscriber:(NSString *)name {
+  // The location multiplexer is only implemented on Android.
+}
+
+- (void)setReportingWatchdog:(JS::NativeRidesharingModule::ReportingWatchdogSpec &)config {
+  // The reporting watchdog is only implemented on Android.
+}
+
+- (void)getReportingHealth:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+  // The reporting watchdog is only implemented on Android.
+  resolve(@{
+    @"healthy" : @YES,
+    @"issues" : @[],
+    @"millisSinceLastUpdate" : @(0),
+    @"millisSinceLastTokenGrant" : @(0),
+    @"pendingTokenRequests" : @(0),
+    @"uiThreadLatencyMillis" : @(0),
+  });
+}
+
+- (void)startBridgeRecording:(JS::NativeRidesharingModule::BridgeRecordingSpec &)config
+                     resolve:(RCTPromiseResolveBlock)resolve
+                      reject:(RCTPromiseRejectBlock)reject {
+  // Bridge traffic recording is only implemented on Android.
+  resolve(nil);
+}
+
+- (void)stopBridgeRecording:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+  // Bridge traffic recording is only implemented on Android.
+  resolve(nil);
+}
+
 - (void)setLocationReportingInterval:(double)intervalSeconds
                              resolve:(RCTPromiseResolveBlock)resolve
                               reject:(RCTPromiseRejectBlock)reject {
@@ -152,6 +240,54 @@ RCT_EXPORT_MODULE(RidesharingModule);
   });
 }
 
+- (void)applyReporterConfig:(JS::NativeRidesharingModule::ReporterConfigSpec &)config
+                    resolve:(RCTPromiseResolveBlock)resolve
+                     reject:(RCTPromiseRejectBlock)reject {
+  std::optional<bool> trackingEnabled = config.trackingEnabled();
+  std::optional<double> intervalSeconds = config.intervalSeconds();
+  std::optional<bool> online = config.online();
+  dispatch_async(dispatch_get_main_queue(), ^{
+    if (self->_driverController == nil ||
+        [self->_driverController isDriverApiInitialized] == false) {
+      reject(kDriverApiNotInitializedErrorCode, kDriverApiNotInitializedErrorMessage, nil);
+      return;
+    }
+
+    // Tracking is enabled before the vehicle goes online and disabled after it goes offline.
+    if (intervalSeconds.has_value()) {
+      [self->_driverController setLocationReportingInterval:intervalSeconds.value()];
+    }
+    if (trackingEnabled.value_or(false)) {
+      [self->_driverController setLocationTrackingEnabled:YES];
+    }
+    if (online.has_value()) {
+      [self->_driverController setVehicleState:online.value()];
+    }
+    if (!trackingEnabled.value_or(true)) {
+      [self->_driverController setLocationTrackingEnabled:NO];
+    }
+    resolve(@{
+      @"trackingEnabled" : @(self->_driverController.locationTrackingEnabled),
+      @"intervalSeconds" : @(self->_driverController.locationReportingInterval),
+      @"online" : @(self->_driverController.vehicleOnline),
+    });
+  });
+}
+
+- (NSDictionary *)getDriverState {
+  // Read on the JS thread so it can be called while rendering. Revisions are only tracked on
+  // Android.
+  RidesharingDriverController *controller = _driverController;
+  BOOL initialized = controller != nil && [controller isDriverApiInitialized];
+  return @{
+    @"initialized" : @(initialized),
+    @"trackingEnabled" : @(initialized && controller.locationTrackingEnabled),
+    @"intervalSeconds" : @(controller.locationReportingInterval),
+    @"online" : @(initialized && controller.vehicleOnline),
+    @"revision" : @0,
+  };
+}
+
 - (void)getDriverSdkVersion:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
   resolve([RidesharingDriverController getDriverSdkVersion]);
 }
@@ -29,6 +29,10 @@ typedef void (^VehicleUpdateFailureBlock)(GMTDVehicleUpdate *vehicleUpdate, NSEr
 @property GMTDVehicleReporter *vReporter;
 @property(nonatomic, copy, nullable) VehicleUpdateSuccessBlock onVehicleUpdateSucceed;
 @property(nonatomic, copy, nullable) VehicleUpdateFailureBlock onVehicleUpdateFailed;
+// Reporter configuration last applied through this controller.
+@property(nonatomic, readonly) BOOL locationTrackingEnabled;
+@property(nonatomic, readonly) double locationReportingInterval;
+@property(nonatomic, readonly) BOOL vehicleOnline;
 
 // Retrieve the NavigationSDK navigation session
 - (void)initializeWithSession:(GMSNavigationSession *)session;
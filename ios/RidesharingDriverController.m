@@ -27,6 +27,9 @@ AuthTokenFactory *_tokenFactory;
 GMTDRidesharingDriverAPI *_rideSharingDriverAPI;
 GMTDDriverContext *_rideSharingDriverContext;
 
+// Reporting interval of a new vehicle reporter, in seconds.
+static const double kDefaultLocationReportingInterval = 10;
+
 - (void)initializeWithSession:(GMSNavigationSession *)session {
   _ridesharingSession = session;
 }
@@ -47,12 +50,16 @@ GMTDDriverContext *_rideSharingDriverContext;
       [[GMTDRidesharingDriverAPI alloc] initWithDriverContext:_rideSharingDriverContext];
 
   _ridesharingVehicleReporter = _rideSharingDriverAPI.vehicleReporter;
+  _locationTrackingEnabled = NO;
+  _locationReportingInterval = kDefaultLocationReportingInterval;
+  _vehicleOnline = NO;
   [_ridesharingVehicleReporter addListener:self];
   [_ridesharingSession.roadSnappedLocationProvider addListener:_ridesharingVehicleReporter];
 }
 
 - (void)setLocationTrackingEnabled:(BOOL)isEnabled {
   [_ridesharingVehicleReporter setLocationTrackingEnabled:isEnabled];
+  _locationTrackingEnabled = isEnabled;
 }
 
 - (void)setVehicleState:(BOOL)isOnline {
@@ -61,10 +68,12 @@ GMTDDriverContext *_rideSharingDriverContext;
   } else {
     [_ridesharingVehicleReporter updateVehicleState:GMTDVehicleStateOffline];
   }
+  _vehicleOnline = isOnline;
 }
 
 - (void)setLocationReportingInterval:(double)interval {
   [_ridesharingVehicleReporter setLocationReportingInterval:interval];
+  _locationReportingInterval = interval;
 }
 
 + (NSString *)getDriverSdkVersion {
@@ -78,6 +87,8 @@ GMTDDriverContext *_rideSharingDriverContext;
 - (void)clearInstance {
   [_tokenFactory cancelAllPendingRequests];
   [_ridesharingVehicleReporter setLocationTrackingEnabled:NO];
+  _locationTrackingEnabled = NO;
+  _vehicleOnline = NO;
   [_ridesharingVehicleReporter removeListener:self];
   [_ridesharingSession.roadSnappedLocationProvider removeListener:_ridesharingVehicleReporter];
   _ridesharingVehicleReporter = NULL;
@@ -29,11 +29,94 @@ jest.mock('react-native', () => {
       remainingDuration: '0s',
       remainingVehicleJourneySegments: [],
     }),
+    getCachedDeliveryVehicle: jest.fn().mockResolvedValue(null),
+    getDeliveryVehicleSummary: jest.fn().mockResolvedValue({
+      providerId: 'test-provider',
+      vehicleName: 'providers/test-provider/deliveryVehicles/test-vehicle',
+      vehicleId: 'test-vehicle',
+      stopCount: 0,
+    }),
+    getVehicleStops: jest.fn().mockResolvedValue([]),
+    queryStopsWithinRadius: jest.fn().mockResolvedValue([]),
+    findNearestStop: jest.fn().mockResolvedValue(null),
+    queryStopsInBounds: jest.fn().mockResolvedValue([]),
+    getTask: jest.fn().mockResolvedValue(null),
+    getStopForTask: jest.fn().mockResolvedValue(null),
+    getStopIndexesForPlace: jest.fn().mockResolvedValue([]),
+    getStopTimeline: jest.fn().mockResolvedValue({
+      transitions: [0, 2, 3, 1700000000000, 0, 3, -1, 1700000060000],
+      truncated: false,
+    }),
+    setStopGeofencing: jest.fn(),
+    setStopEtaUpdates: jest.fn(),
     getDriverSdkVersion: jest.fn().mockResolvedValue('1.0.0'),
     resolveAuthToken: jest.fn(),
     rejectAuthToken: jest.fn(),
+    resolveAuthTokens: jest.fn(),
+    setTaskTokenPrefetch: jest.fn(),
     setAbnormalTerminationReporting: jest.fn(),
+    setMemoryPressureReportingInterval: jest.fn(),
+    setStatePersistenceEnabled: jest.fn(),
+    setBackgroundEventBuffering: jest.fn(),
+    setTracingEnabled: jest.fn(),
+    applyReporterConfig: jest.fn(config =>
+      Promise.resolve({
+        trackingEnabled: false,
+        intervalSeconds: 10,
+        ...config,
+      })
+    ),
+    getDriverState: jest.fn().mockReturnValue({
+      initialized: true,
+      trackingEnabled: true,
+      intervalSeconds: 10,
+      stopCount: 3,
+      revision: 4,
+    }),
+    setHttpTokenProvider: jest.fn(() => Promise.resolve()),
+    clearHttpTokenProvider: jest.fn(),
+    setBreadcrumbRecording: jest.fn(),
+    getBreadcrumbs: jest.fn().mockResolvedValue({
+      points: [1, 2, 3],
+      nextSequence: 1,
+    }),
+    clearBreadcrumbs: jest.fn(),
+    addLocationSubscriber: jest.fn(),
+    removeLocationSubscriber: jest.fn(),
+    onLocationBatch: jest.fn(() => ({ remove: jest.fn() })),
+    setReportingWatchdog: jest.fn(),
+    getReportingHealth: jest.fn().mockResolvedValue({
+      healthy: false,
+      issues: ['UPDATES_STALLED'],
+      millisSinceLastUpdate: 90000,
+      millisSinceLastTokenGrant: 1000,
+      pendingTokenRequests: 0,
+      uiThreadLatencyMillis: 5,
+    }),
+    onReportingHealthChanged: jest.fn(() => ({ remove: jest.fn() })),
+    setReportingProfiling: jest.fn(),
+    getReportingProfile: jest.fn().mockResolvedValue({
+      enabled: true,
+      windowMillis: 3600000,
+      intervals: [
+        {
+          intervalSeconds: 10,
+          observedMillis: 60000,
+          cpuMillis: 1200,
+          tokenRequests: 2,
+          uiThreadHops: 2,
+          bridgeEvents: 9,
+          vehicleUpdates: 6,
+          vehicleUpdateFailures: 1,
+        },
+      ],
+    }),
+    startBridgeRecording: jest.fn().mockResolvedValue('/cache/bridge.bin'),
+    stopBridgeRecording: jest.fn().mockResolvedValue('/cache/bridge.bin'),
     onGetToken: jest.fn(() => ({ remove: jest.fn() })),
+    onGetTokens: jest.fn(() => ({ remove: jest.fn() })),
+    onStopGeofenceTransition: jest.fn(() => ({ remove: jest.fn() })),
+    onStopEtasChanged: jest.fn(() => ({ remove: jest.fn() })),
     onStatusUpdate: jest.fn(() => ({ remove: jest.fn() })),
     onVehicleUpdateSucceed: jest.fn(() => ({ remove: jest.fn() })),
     onVehicleUpdateFailed: jest.fn(() => ({ remove: jest.fn() })),
@@ -51,6 +134,65 @@ jest.mock('react-native', () => {
     resolveAuthToken: jest.fn(),
     rejectAuthToken: jest.fn(),
     setAbnormalTerminationReporting: jest.fn(),
+    setMemoryPressureReportingInterval: jest.fn(),
+    setStatePersistenceEnabled: jest.fn(),
+    setBackgroundEventBuffering: jest.fn(),
+    setTracingEnabled: jest.fn(),
+    applyReporterConfig: jest.fn(config =>
+      Promise.resolve({
+        trackingEnabled: false,
+        intervalSeconds: 10,
+        online: false,
+        ...config,
+      })
+    ),
+    getDriverState: jest.fn().mockReturnValue({
+      initialized: true,
+      trackingEnabled: true,
+      intervalSeconds: 10,
+      online: true,
+      revision: 4,
+    }),
+    setHttpTokenProvider: jest.fn(() => Promise.resolve()),
+    clearHttpTokenProvider: jest.fn(),
+    setBreadcrumbRecording: jest.fn(),
+    getBreadcrumbs: jest.fn().mockResolvedValue({
+      points: [1, 2, 3],
+      nextSequence: 1,
+    }),
+    clearBreadcrumbs: jest.fn(),
+    addLocationSubscriber: jest.fn(),
+    removeLocationSubscriber: jest.fn(),
+    onLocationBatch: jest.fn(() => ({ remove: jest.fn() })),
+    setReportingWatchdog: jest.fn(),
+    getReportingHealth: jest.fn().mockResolvedValue({
+      healthy: false,
+      issues: ['UPDATES_STALLED'],
+      millisSinceLastUpdate: 90000,
+      millisSinceLastTokenGrant: 1000,
+      pendingTokenRequests: 0,
+      uiThreadLatencyMillis: 5,
+    }),
+    onReportingHealthChanged: jest.fn(() => ({ remove: jest.fn() })),
+    setReportingProfiling: jest.fn(),
+    getReportingProfile: jest.fn().mockResolvedValue({
+      enabled: true,
+      windowMillis: 3600000,
+      intervals: [
+        {
+          intervalSeconds: 10,
+          observedMillis: 60000,
+          cpuMillis: 1200,
+          tokenRequests: 2,
+          uiThreadHops: 2,
+          bridgeEvents: 9,
+          vehicleUpdates: 6,
+          vehicleUpdateFailures: 1,
+        },
+      ],
+    }),
+    startBridgeRecording: jest.fn().mockResolvedValue('/cache/bridge.bin'),
+    stopBridgeRecording: jest.fn().mockResolvedValue('/cache/bridge.bin'),
     onGetToken: jest.fn(() => ({ remove: jest.fn() })),
     onStatusUpdate: jest.fn(() => ({ remove: jest.fn() })),
     onVehicleUpdateSucceed: jest.fn(() => ({ remove: jest.fn() })),
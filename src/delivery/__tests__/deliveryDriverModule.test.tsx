@@ -15,6 +15,7 @@
  */
 
 import { DeliveryDriverApi } from '../deliveryDriverApi';
+import { VehicleStopState } from '../types';
 
 const deliveryDriver = new DeliveryDriverApi();
 
@@ -56,6 +57,227 @@ describe('LMFS', () => {
     ).not.toThrow();
   });
 
+  test('applyReporterConfig', async () => {
+    await expect(
+      deliveryDriver.getDeliveryVehicleReporter().applyReporterConfig({
+        trackingEnabled: true,
+        intervalSeconds: 5,
+      })
+    ).resolves.toEqual({
+      trackingEnabled: true,
+      intervalSeconds: 5,
+    });
+  });
+
+  test('getDriverState', () => {
+    expect(deliveryDriver.getDriverState()).toEqual({
+      initialized: true,
+      trackingEnabled: true,
+      intervalSeconds: 10,
+      stopCount: 3,
+      revision: 4,
+    });
+  });
+
+  test('setBackgroundEventBufferingEnabled', () => {
+    deliveryDriver.setBackgroundEventBufferingEnabled(true);
+    expect(
+      deliveryDriver.nativeModule.setBackgroundEventBuffering
+    ).toHaveBeenCalledWith(true);
+  });
+
+  test('setTracingEnabled', () => {
+    deliveryDriver.setTracingEnabled(true);
+    expect(
+      deliveryDriver.nativeModule.setTracingEnabled
+    ).toHaveBeenCalledWith(true);
+  });
+
+  test('setMemoryPressureReportingInterval', () => {
+    expect(() =>
+      deliveryDriver.setMemoryPressureReportingInterval(60)
+    ).not.toThrow();
+  });
+
+  test('getCachedDeliveryVehicle', async () => {
+    await expect(
+      deliveryDriver.getDeliveryVehicleManager().getCachedDeliveryVehicle()
+    ).resolves.toBeNull();
+  });
+
+  test('setHttpTokenProvider', async () => {
+    await expect(
+      deliveryDriver.setHttpTokenProvider({
+        url: 'https://example.com/token',
+        headers: { Authorization: 'Bearer secret' },
+      })
+    ).resolves.toBeUndefined();
+    await expect(
+      deliveryDriver.setHttpTokenProvider(null)
+    ).resolves.toBeUndefined();
+  });
+
+  test('breadcrumbs', async () => {
+    expect(() =>
+      deliveryDriver.setBreadcrumbRecording({ toleranceMeters: 10 })
+    ).not.toThrow();
+    await expect(deliveryDriver.getBreadcrumbs()).resolves.toEqual({
+      points: [{ lat: 1, lng: 2, time: 3 }],
+      nextSequence: 1,
+      current: undefined,
+    });
+    expect(() => deliveryDriver.setBreadcrumbRecording(null)).not.toThrow();
+    expect(() => deliveryDriver.clearBreadcrumbs()).not.toThrow();
+  });
+
+  test('reporting profiler', async () => {
+    const nativeModule = deliveryDriver.nativeModule;
+    deliveryDriver.setReportingProfiling({ windowSeconds: 600 });
+    expect(nativeModule.setReportingProfiling).toHaveBeenCalledWith({
+      windowSeconds: 600,
+      enabled: true,
+    });
+    const profile = await deliveryDriver.getReportingProfile();
+    expect(profile.enabled).toBe(true);
+    expect(profile.intervals).toEqual([
+      expect.objectContaining({ intervalSeconds: 10, vehicleUpdates: 6 }),
+    ]);
+    deliveryDriver.setReportingProfiling(null);
+    expect(nativeModule.setReportingProfiling).toHaveBeenLastCalledWith({
+      enabled: false,
+    });
+  });
+
+  test('reporting watchdog', async () => {
+    const nativeModule = deliveryDriver.nativeModule;
+    const options = { updateStallSeconds: 30 };
+    deliveryDriver.setOnReportingHealthChanged(jest.fn(), options);
+    expect(nativeModule.setReportingWatchdog).toHaveBeenCalledWith({
+      updateStallSeconds: 30,
+      enabled: true,
+    });
+    await expect(deliveryDriver.getReportingHealth()).resolves.toMatchObject({
+      healthy: false,
+      issues: ['UPDATES_STALLED'],
+    });
+    deliveryDriver.setOnReportingHealthChanged(null);
+    expect(nativeModule.setReportingWatchdog).toHaveBeenLastCalledWith({
+      enabled: false,
+    });
+  });
+
+  test('bridge recording', async () => {
+    await expect(deliveryDriver.startBridgeRecording()).resolves.toBe(
+      '/cache/bridge.bin'
+    );
+    expect(
+      deliveryDriver.nativeModule.startBridgeRecording
+    ).toHaveBeenCalledWith({});
+    await expect(deliveryDriver.stopBridgeRecording()).resolves.toBe(
+      '/cache/bridge.bin'
+    );
+  });
+
+  test('subscribeToLocation', () => {
+    const nativeModule = deliveryDriver.nativeModule;
+    const onLocationBatch = nativeModule.onLocationBatch as jest.Mock;
+    const map = jest.fn();
+    const speed = jest.fn();
+    const mapSubscription = deliveryDriver.subscribeToLocation('map', map);
+    deliveryDriver.subscribeToLocation('speed', speed, {
+      minIntervalMillis: 5000,
+      fields: ['speed'],
+    });
+
+    const handler = onLocationBatch.mock.calls[0]?.[0];
+    handler({
+      location: { lat: 1, lng: 2, time: 3, speed: 4 },
+      subscribers: ['speed'],
+    });
+    expect(map).not.toHaveBeenCalled();
+    expect(speed).toHaveBeenCalledWith({ lat: 1, lng: 2, time: 3, speed: 4 });
+
+    mapSubscription.remove();
+    expect(nativeModule.removeLocationSubscriber).toHaveBeenCalledWith('map');
+  });
+
+  test('getDeliveryVehicleSummary', async () => {
+    const summary = await deliveryDriver
+      .getDeliveryVehicleManager()
+      .getDeliveryVehicleSummary();
+    expect(summary.stopCount).toBe(0);
+  });
+
+  test('getVehicleStops', async () => {
+    await expect(
+      deliveryDriver.getDeliveryVehicleManager().getVehicleStops(0, 20)
+    ).resolves.toEqual([]);
+  });
+
+  test('spatial stop queries', async () => {
+    const manager = deliveryDriver.getDeliveryVehicleManager();
+    const point = { lat: 37.42, lng: -122.08 };
+    await expect(manager.queryStopsWithinRadius(point, 500)).resolves.toEqual(
+      []
+    );
+    await expect(manager.findNearestStop(point)).resolves.toBeNull();
+    await expect(
+      manager.queryStopsInBounds(point, { lat: 37.5, lng: -122 })
+    ).resolves.toEqual([]);
+  });
+
+  test('task lookups', async () => {
+    const manager = deliveryDriver.getDeliveryVehicleManager();
+    await expect(manager.getTask('task-1')).resolves.toBeNull();
+    await expect(manager.getStopForTask('task-1')).resolves.toBeNull();
+    await expect(manager.getStopIndexesForPlace('place-1')).resolves.toEqual(
+      []
+    );
+  });
+
+  test('getStopTimeline', async () => {
+    const manager = deliveryDriver.getDeliveryVehicleManager();
+    await expect(manager.getStopTimeline()).resolves.toEqual({
+      transitions: [
+        {
+          stopIndex: 0,
+          oldState: VehicleStopState.ENROUTE,
+          newState: VehicleStopState.ARRIVED,
+          timestampMillis: 1700000000000,
+        },
+        {
+          stopIndex: 0,
+          oldState: VehicleStopState.ARRIVED,
+          newState: null,
+          timestampMillis: 1700000060000,
+        },
+      ],
+      truncated: false,
+    });
+    expect(deliveryDriver.nativeModule.getStopTimeline).toHaveBeenCalledWith(0);
+  });
+
+  test('setOnStopGeofenceTransition', () => {
+    const options = { radiusMeters: 40 };
+    expect(() =>
+      deliveryDriver.setOnStopGeofenceTransition(() => {}, options)
+    ).not.toThrow();
+    expect(() =>
+      deliveryDriver.setOnStopGeofenceTransition(null)
+    ).not.toThrow();
+  });
+
+  test('setOnStopEtasChanged', () => {
+    expect(() =>
+      deliveryDriver.setOnStopEtasChanged(() => {}, { thresholdSeconds: 30 })
+    ).not.toThrow();
+    expect(() => deliveryDriver.setOnStopEtasChanged(null)).not.toThrow();
+  });
+
+  test('setTaskTokenPrefetch', () => {
+    expect(() => deliveryDriver.setTaskTokenPrefetch(3)).not.toThrow();
+  });
+
   it('async/await', async () => {
     expect.assertions(1);
     const version = await deliveryDriver.getDriverSdkVersion();
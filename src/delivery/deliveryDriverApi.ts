@@ -16,6 +16,8 @@
  * limitations under the License.
  */
 
+import type { EventSubscription } from 'react-native';
+import type { LatLng } from '@googlemaps/react-native-navigation-sdk';
 import { DeliveryDriverModule, type DeliveryDriverModuleSpec } from '../native';
 import {
   DriverApi,
@@ -23,7 +25,22 @@ import {
   type OnStatusUpdateCallback,
   type VehicleReporter,
 } from '../shared';
-import { VehicleStopState, type DeliveryVehicle } from './types';
+import {
+  VehicleStopState,
+  type DeliveryDriverState,
+  type DeliveryVehicle,
+  type DeliveryVehicleSummary,
+  type IndexedVehicleStop,
+  type StopEta,
+  type StopEtaOptions,
+  type StopGeofenceTransition,
+  type StopGeofenceTransitionType,
+  type StopGeofencingOptions,
+  type StopStateTransition,
+  type StopTimeline,
+  type VehicleStop,
+  type VehicleTask,
+} from './types';
 
 type DeliveryVehicleReporter = VehicleReporter;
 
@@ -35,10 +52,123 @@ interface DeliveryVehicleManager {
    * @returns DeliveryVehicle object
    */
   getDeliveryVehicle(): Promise<DeliveryVehicle>;
+
+  /**
+   * Returns the last DeliveryVehicle fetched with {@link getDeliveryVehicle} without going to
+   * Fleet Engine. When state persistence is enabled this includes a vehicle fetched before the
+   * app was restarted, so a route screen can render while a fresh vehicle loads.
+   *
+   * **Android only.** Always resolves to `null` on iOS.
+   *
+   * @returns the cached DeliveryVehicle, or `null` if none is available
+   */
+  getCachedDeliveryVehicle(): Promise<DeliveryVehicle | null>;
+
+  /**
+   * Fetches the DeliveryVehicle like {@link getDeliveryVehicle}, but only returns its top-level
+   * fields and stop count. Read the stops with {@link getVehicleStops}, e.g. only those on screen,
+   * to avoid transferring a large route up front.
+   *
+   * @returns DeliveryVehicleSummary object
+   */
+  getDeliveryVehicleSummary(): Promise<DeliveryVehicleSummary>;
+
+  /**
+   * Returns a range of stops of the last DeliveryVehicle fetched with {@link getDeliveryVehicle}
+   * or {@link getDeliveryVehicleSummary}. The range is clamped to the available stops.
+   *
+   * On iOS the vehicle is fetched again for every call.
+   *
+   * @param start - index of the first stop to return.
+   * @param count - maximum number of stops to return.
+   * @returns the requested stops
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  getVehicleStops(start: number, count: number): Promise<VehicleStop[]>;
+
+  /**
+   * Returns the indices of the stops of the last fetched DeliveryVehicle whose waypoint is within
+   * `radiusMeters` of a point, nearest first. Indices refer to `vehicleStops`, so the matching
+   * stops can be read with {@link getVehicleStops}.
+   *
+   * **Android only.** Always resolves to an empty array on iOS.
+   *
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  queryStopsWithinRadius(
+    point: LatLng,
+    radiusMeters: number
+  ): Promise<number[]>;
+
+  /**
+   * Returns the index of the stop of the last fetched DeliveryVehicle whose waypoint is nearest
+   * to a point, or `null` if no stop has a position.
+   *
+   * **Android only.** Always resolves to `null` on iOS.
+   *
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  findNearestStop(point: LatLng): Promise<number | null>;
+
+  /**
+   * Returns the indices of the stops of the last fetched DeliveryVehicle whose waypoint is inside
+   * the given bounds, in stop order, e.g. the stops in the visible map region. Bounds whose
+   * southwest longitude is greater than their northeast longitude cross the antimeridian.
+   *
+   * **Android only.** Always resolves to an empty array on iOS.
+   *
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  queryStopsInBounds(southwest: LatLng, northeast: LatLng): Promise<number[]>;
+
+  /**
+   * Looks up a task of the last fetched DeliveryVehicle by id, without transferring the route.
+   *
+   * On iOS the vehicle is fetched again for every call.
+   *
+   * @returns the task with the index and state of its stop, or `null` if it is not on the route
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  getTask(taskId: string): Promise<VehicleTask | null>;
+
+  /**
+   * Looks up the stop of the last fetched DeliveryVehicle that holds a task.
+   *
+   * On iOS the vehicle is fetched again for every call.
+   *
+   * @returns the stop and its index, or `null` if the task is not on the route
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  getStopForTask(taskId: string): Promise<IndexedVehicleStop | null>;
+
+  /**
+   * Returns the indices of the stops of the last fetched DeliveryVehicle whose waypoint has the
+   * given place id, in stop order.
+   *
+   * On iOS the vehicle is fetched again for every call.
+   *
+   * @throws This rejects the promise on Android if no vehicle has been fetched yet.
+   */
+  getStopIndexesForPlace(placeId: string): Promise<number[]>;
+
+  /**
+   * Returns the changes of stop states seen between fetches of the DeliveryVehicle, e.g. for SLA
+   * reporting. Every fetch is compared with the previous one, so the history is complete at the
+   * granularity of fetches without transferring the vehicle again. The oldest transitions are
+   * dropped once a bounded number has been recorded.
+   *
+   * **Android only.** Always resolves to an empty timeline on iOS.
+   *
+   * @param sinceTimestampMillis - only return transitions seen at or after this time.
+   */
+  getStopTimeline(sinceTimestampMillis?: number): Promise<StopTimeline>;
 }
 
 /** Entry point into the DriverApi for the delivery vertical. */
 export class DeliveryDriverApi extends DriverApi<DeliveryDriverModuleSpec> {
+  private stopGeofenceSubscription?: EventSubscription;
+  private stopEtaSubscription?: EventSubscription;
+
   constructor() {
     super(DeliveryDriverModule);
   }
@@ -55,9 +185,119 @@ export class DeliveryDriverApi extends DriverApi<DeliveryDriverModuleSpec> {
     // Set up event listeners first so the native token request can be handled
     this.initializeEventListeners(onGetToken, onStatusUpdate);
 
+    // Batch requests mint tokens for upcoming tasks ahead of time. Contexts the callback fails
+    // for are answered with an empty token and requested again when actually needed.
+    this.addSubscription(
+      this.nativeModule.onGetTokens(event => {
+        Promise.all(
+          event.taskIds.map(taskId =>
+            onGetToken({
+              vehicleId: event.vehicleId,
+              taskId: taskId || undefined,
+            }).catch(() => '')
+          )
+        ).then(tokens => {
+          this.nativeModule.resolveAuthTokens(event.requestId, tokens);
+        });
+      })
+    );
+
     await this.nativeModule.createDeliveryDriverInstance(providerId, vehicleId);
   }
 
+  /**
+   * Mints auth tokens for the tasks of the next `stopCount` stops ahead of time. After each
+   * `getDeliveryVehicle` call, `onGetToken` is invoked once per task of those stops (plus once for
+   * the vehicle) in a single batch, and the tokens are cached natively until shortly before they
+   * expire. Task actions such as completing a stop then don't wait on a token round trip.
+   *
+   * Only tokens carrying a JWT `exp` claim are cached.
+   *
+   * **Android only.**
+   *
+   * @param stopCount - number of upcoming stops to prefetch tokens for, or 0 to disable.
+   */
+  setTaskTokenPrefetch = (stopCount: number): void => {
+    this.nativeModule.setTaskTokenPrefetch(stopCount);
+  };
+
+  /**
+   * Detects arrival at the upcoming stops natively. While enabled, every road-snapped location is
+   * checked against the stops of the last vehicle fetched with `getDeliveryVehicle` (or
+   * `getDeliveryVehicleSummary`), and `callback` is only invoked when the vehicle enters, dwells at
+   * or leaves a stop. Fetch the vehicle again after completing a stop so the next one is monitored.
+   *
+   * Pass `null` to stop monitoring.
+   *
+   * **Android only.**
+   *
+   * @param callback - invoked for each stop transition, or null to disable.
+   * @param options - radii, dwell time and number of stops to monitor.
+   */
+  setOnStopGeofenceTransition = (
+    callback: ((transition: StopGeofenceTransition) => void) | null,
+    options: StopGeofencingOptions = {}
+  ): void => {
+    this.stopGeofenceSubscription?.remove();
+    this.stopGeofenceSubscription = undefined;
+    if (callback) {
+      this.stopGeofenceSubscription =
+        this.nativeModule.onStopGeofenceTransition(event => {
+          callback({
+            transition: event.transition as StopGeofenceTransitionType,
+            stopIndex: event.stopIndex,
+            distanceMeters: event.distanceMeters,
+            taskIds: [...event.taskIds],
+            placeId: event.placeId,
+          });
+        });
+    }
+    this.nativeModule.setStopGeofencing({
+      ...options,
+      enabled: callback !== null,
+    });
+  };
+
+  /**
+   * Streams arrival times for the upcoming stops. The Navigator's remaining time to each of its
+   * destinations, which are expected to be the upcoming stops in order, is combined with the task
+   * durations of the stops of the last fetched vehicle. `callback` receives the ETAs of every stop
+   * that has a Navigator destination, only when an arrival time moved by at least the threshold
+   * or the stops changed.
+   *
+   * Pass `null` to stop the updates.
+   *
+   * **Android only.**
+   *
+   * @param callback - invoked with the ETAs of the upcoming stops, or null to disable.
+   * @param options - change in arrival time that triggers an update.
+   */
+  setOnStopEtasChanged = (
+    callback: ((etas: StopEta[]) => void) | null,
+    options: StopEtaOptions = {}
+  ): void => {
+    this.stopEtaSubscription?.remove();
+    this.stopEtaSubscription = undefined;
+    if (callback) {
+      this.stopEtaSubscription = this.nativeModule.onStopEtasChanged(event => {
+        callback(event.etas.map(eta => ({ ...eta })));
+      });
+    }
+    this.nativeModule.setStopEtaUpdates({
+      ...options,
+      enabled: callback !== null,
+    });
+  };
+
+  /**
+   * Returns the effective reporter state and the stop count of the last vehicle fetched, without
+   * waiting on a promise. The native module keeps this state in memory, so it is cheap enough to
+   * read while rendering; compare `revision` to tell whether anything changed.
+   */
+  getDriverState = (): DeliveryDriverState => {
+    return { ...this.nativeModule.getDriverState() };
+  };
+
   /**
    * Returns the {@link DeliveryVehicleReporter} associated to this instance.
    * You must initialize the Api prior to calling this method.
@@ -67,6 +307,10 @@ export class DeliveryDriverApi extends DriverApi<DeliveryDriverModuleSpec> {
       setLocationTrackingEnabled: this.setLocationTrackingEnabled,
       setLocationReportingInterval: intervalSeconds =>
         this.nativeModule.setLocationReportingInterval(intervalSeconds),
+      applyReporterConfig: async config => {
+        const spec = await this.nativeModule.applyReporterConfig(config);
+        return { ...spec };
+      },
       setOnVehicleUpdateSucceed: this.setOnVehicleUpdateSucceed,
       setOnVehicleUpdateFailed: this.setOnVehicleUpdateFailed,
     };
@@ -80,33 +324,143 @@ export class DeliveryDriverApi extends DriverApi<DeliveryDriverModuleSpec> {
     return {
       getDeliveryVehicle: async (): Promise<DeliveryVehicle> => {
         const spec = await this.nativeModule.getDeliveryVehicle();
+        return toDeliveryVehicle(spec);
+      },
+      getCachedDeliveryVehicle: async (): Promise<DeliveryVehicle | null> => {
+        const spec = await this.nativeModule.getCachedDeliveryVehicle();
+        return spec ? toDeliveryVehicle(spec) : null;
+      },
+      getDeliveryVehicleSummary: async (): Promise<DeliveryVehicleSummary> => {
+        const spec = await this.nativeModule.getDeliveryVehicleSummary();
         return {
           providerId: spec.providerId,
           vehicleName: spec.vehicleName,
           vehicleId: spec.vehicleId,
-          vehicleStops: spec.vehicleStops.map(stop => ({
-            vehicleStopState: toVehicleStopState(stop.vehicleStopState),
-            waypoint: stop.waypoint
-              ? {
-                  position: stop.waypoint.position,
-                  title: stop.waypoint.title,
-                  placeId: stop.waypoint.placeId,
-                  preferredHeading: stop.waypoint.preferredHeading,
-                  vehicleStopover: stop.waypoint.vehicleStopover,
-                  preferSameSideOfRoad: stop.waypoint.preferSameSideOfRoad,
-                }
-              : undefined,
-            taskInfoList: stop.taskInfoList.map(task => ({
-              taskId: task.taskId,
-              taskDurationSeconds: task.taskDurationSeconds,
-            })),
-          })),
+          stopCount: spec.stopCount,
         };
       },
+      getVehicleStops: async (
+        start: number,
+        count: number
+      ): Promise<VehicleStop[]> => {
+        const specs = await this.nativeModule.getVehicleStops(start, count);
+        return specs.map(toVehicleStop);
+      },
+      queryStopsWithinRadius: async (
+        point: LatLng,
+        radiusMeters: number
+      ): Promise<number[]> => {
+        const indices = await this.nativeModule.queryStopsWithinRadius(
+          point.lat,
+          point.lng,
+          radiusMeters
+        );
+        return [...indices];
+      },
+      findNearestStop: (point: LatLng): Promise<number | null> =>
+        this.nativeModule.findNearestStop(point.lat, point.lng),
+      queryStopsInBounds: async (
+        southwest: LatLng,
+        northeast: LatLng
+      ): Promise<number[]> => {
+        const indices = await this.nativeModule.queryStopsInBounds(
+          southwest.lat,
+          southwest.lng,
+          northeast.lat,
+          northeast.lng
+        );
+        return [...indices];
+      },
+      getTask: async (taskId: string): Promise<VehicleTask | null> => {
+        const spec = await this.nativeModule.getTask(taskId);
+        return spec
+          ? {
+              taskId: spec.taskId,
+              taskDurationSeconds: spec.taskDurationSeconds,
+              stopIndex: spec.stopIndex,
+              vehicleStopState: toVehicleStopState(spec.vehicleStopState),
+            }
+          : null;
+      },
+      getStopForTask: async (
+        taskId: string
+      ): Promise<IndexedVehicleStop | null> => {
+        const spec = await this.nativeModule.getStopForTask(taskId);
+        return spec
+          ? { stopIndex: spec.stopIndex, stop: toVehicleStop(spec.stop) }
+          : null;
+      },
+      getStopIndexesForPlace: async (placeId: string): Promise<number[]> => {
+        const indices = await this.nativeModule.getStopIndexesForPlace(placeId);
+        return [...indices];
+      },
+      getStopTimeline: async (
+        sinceTimestampMillis = 0
+      ): Promise<StopTimeline> => {
+        const spec =
+          await this.nativeModule.getStopTimeline(sinceTimestampMillis);
+        const transitions: StopStateTransition[] = [];
+        for (let i = 0; i + 3 < spec.transitions.length; i += 4) {
+          transitions.push(toStopStateTransition(spec.transitions, i));
+        }
+        return { transitions, truncated: spec.truncated };
+      },
     };
   }
 }
 
+type DeliveryVehicleSpec = Awaited<
+  ReturnType<DeliveryDriverModuleSpec['getDeliveryVehicle']>
+>;
+type VehicleStopSpec = DeliveryVehicleSpec['vehicleStops'][number];
+
+function toDeliveryVehicle(spec: DeliveryVehicleSpec): DeliveryVehicle {
+  return {
+    providerId: spec.providerId,
+    vehicleName: spec.vehicleName,
+    vehicleId: spec.vehicleId,
+    vehicleStops: spec.vehicleStops.map(toVehicleStop),
+  };
+}
+
+function toVehicleStop(stop: VehicleStopSpec): VehicleStop {
+  return {
+    vehicleStopState: toVehicleStopState(stop.vehicleStopState),
+    waypoint: stop.waypoint
+      ? {
+          position: stop.waypoint.position,
+          title: stop.waypoint.title,
+          placeId: stop.waypoint.placeId,
+          preferredHeading: stop.waypoint.preferredHeading,
+          vehicleStopover: stop.waypoint.vehicleStopover,
+          preferSameSideOfRoad: stop.waypoint.preferSameSideOfRoad,
+        }
+      : undefined,
+    taskInfoList: stop.taskInfoList.map(task => ({
+      taskId: task.taskId,
+      taskDurationSeconds: task.taskDurationSeconds,
+    })),
+  };
+}
+
+/**
+ * Reads a transition flattened into `[stopIndex, oldState, newState, timestamp]` by the native
+ * module, where a state of -1 stands for a stop that is not on the route.
+ */
+function toStopStateTransition(
+  values: ReadonlyArray<number>,
+  offset: number
+): StopStateTransition {
+  const oldState = values[offset + 1] ?? -1;
+  const newState = values[offset + 2] ?? -1;
+  return {
+    stopIndex: values[offset] ?? 0,
+    oldState: oldState < 0 ? null : toVehicleStopState(oldState),
+    newState: newState < 0 ? null : toVehicleStopState(newState),
+    timestampMillis: values[offset + 3] ?? 0,
+  };
+}
+
 function toVehicleStopState(value: number): VehicleStopState {
   switch (value) {
     case 1:
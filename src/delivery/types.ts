@@ -15,6 +15,7 @@
  */
 
 import type { Waypoint } from '@googlemaps/react-native-navigation-sdk';
+import type { DriverState } from '../shared';
 
 export enum VehicleStopState {
   UNSPECIFIED = 0,
@@ -40,3 +41,105 @@ export interface DeliveryVehicle {
   vehicleId: string;
   vehicleStops: VehicleStop[];
 }
+
+/** The fields of a {@link DeliveryVehicle} without its stops. */
+export interface DeliveryVehicleSummary {
+  providerId: string;
+  vehicleName: string;
+  vehicleId: string;
+  /** Number of remaining stops, which can be read with `getVehicleStops`. */
+  stopCount: number;
+}
+
+/** {@link DriverState} of the delivery driver. */
+export interface DeliveryDriverState extends DriverState {
+  /**
+   * Number of stops of the last vehicle fetched, if any. Never set on iOS.
+   */
+  stopCount?: number;
+}
+
+/** A task of the route, with the index and state of the stop holding it. */
+export interface VehicleTask extends TaskInfo {
+  /** Index of the stop in `vehicleStops`. */
+  stopIndex: number;
+  vehicleStopState: VehicleStopState;
+}
+
+/** A stop of the route along with its index in `vehicleStops`. */
+export interface IndexedVehicleStop {
+  stopIndex: number;
+  stop: VehicleStop;
+}
+
+/** Kind of change reported by stop arrival detection. */
+export enum StopGeofenceTransitionType {
+  /** The vehicle came within the radius of the stop. */
+  ENTER = 'ENTER',
+  /** The vehicle stayed within the exit radius of the stop for the dwell time. */
+  DWELL = 'DWELL',
+  /** The vehicle left the exit radius of the stop. */
+  EXIT = 'EXIT',
+}
+
+export interface StopGeofenceTransition {
+  transition: StopGeofenceTransitionType;
+  /** Position of the stop among the remaining stops of the last fetched vehicle. */
+  stopIndex: number;
+  distanceMeters: number;
+  taskIds: string[];
+  placeId?: string;
+}
+
+export interface StopGeofencingOptions {
+  /** Distance at which the vehicle has arrived at a stop. Defaults to 50 meters. */
+  radiusMeters?: number;
+  /**
+   * Distance at which the vehicle has left a stop again. Defaults to 1.5 times `radiusMeters`;
+   * values below `radiusMeters` are raised to it.
+   */
+  exitRadiusMeters?: number;
+  /** Time within the exit radius before a DWELL transition is reported. Defaults to 60 seconds. */
+  dwellSeconds?: number;
+  /** Number of upcoming stops to monitor. Defaults to 1. */
+  stopCount?: number;
+}
+
+/** Estimated arrival at one of the upcoming stops. */
+export interface StopEta {
+  /** Position of the stop among the remaining stops of the last fetched vehicle. */
+  stopIndex: number;
+  /** Travel time to the stop plus the task durations of every stop before it. */
+  arrivalTimeMillis: number;
+  /** Arrival time plus the task durations of the stop itself. */
+  departureTimeMillis: number;
+  /** Remaining driving distance to the stop. */
+  distanceMeters: number;
+}
+
+export interface StopEtaOptions {
+  /** Change in any arrival time that triggers an update. Defaults to 60 seconds. */
+  thresholdSeconds?: number;
+}
+
+/** A change of state of a stop, seen between two fetches of the vehicle. */
+export interface StopStateTransition {
+  /**
+   * Position of the stop in the vehicle fetched, or in the one before it if the stop left the
+   * route.
+   */
+  stopIndex: number;
+  /** State before the change, or `null` if the stop joined the route. */
+  oldState: VehicleStopState | null;
+  /** State after the change, or `null` if the stop left the route, e.g. once completed. */
+  newState: VehicleStopState | null;
+  /** When the fetch that saw the change was made. */
+  timestampMillis: number;
+}
+
+export interface StopTimeline {
+  /** Transitions, oldest first. */
+  transitions: StopStateTransition[];
+  /** Whether transitions in the requested range were dropped to bound memory. */
+  truncated: boolean;
+}
@@ -46,6 +46,25 @@ type DeliveryVehicleSpec = Readonly<{
   vehicleStops: ReadonlyArray<VehicleStopSpec>;
 }>;
 
+type IndexedVehicleStopSpec = Readonly<{
+  stopIndex: number;
+  stop: VehicleStopSpec;
+}>;
+
+type VehicleTaskSpec = Readonly<{
+  taskId: string;
+  taskDurationSeconds: number;
+  stopIndex: number;
+  vehicleStopState: number;
+}>;
+
+type DeliveryVehicleSummarySpec = Readonly<{
+  providerId: string;
+  vehicleName: string;
+  vehicleId: string;
+  stopCount: number;
+}>;
+
 type VehicleUpdateSpec = Readonly<{
   location: Readonly<{
     lat: number;
@@ -82,6 +101,151 @@ type AuthTokenRequestSpec = Readonly<{
   taskId: string;
 }>;
 
+type AuthTokenBatchRequestSpec = Readonly<{
+  requestId: string;
+  vehicleId: string;
+  taskIds: ReadonlyArray<string>;
+}>;
+
+type StopGeofencingSpec = Readonly<{
+  enabled: boolean;
+  radiusMeters?: number;
+  exitRadiusMeters?: number;
+  dwellSeconds?: number;
+  stopCount?: number;
+}>;
+
+type StopGeofenceTransitionSpec = Readonly<{
+  transition: string;
+  stopIndex: number;
+  distanceMeters: number;
+  taskIds: ReadonlyArray<string>;
+  placeId?: string;
+}>;
+
+type StopEtaUpdatesSpec = Readonly<{
+  enabled: boolean;
+  thresholdSeconds?: number;
+}>;
+
+type StopEtasSpec = Readonly<{
+  etas: ReadonlyArray<
+    Readonly<{
+      stopIndex: number;
+      arrivalTimeMillis: number;
+      departureTimeMillis: number;
+      distanceMeters: number;
+    }>
+  >;
+}>;
+
+type StopTimelineSpec = Readonly<{
+  transitions: ReadonlyArray<number>;
+  truncated: boolean;
+}>;
+
+type BreadcrumbRecordingSpec = Readonly<{
+  enabled: boolean;
+  toleranceMeters?: number;
+  minDistanceMeters?: number;
+  capacity?: number;
+}>;
+
+type BreadcrumbsSpec = Readonly<{
+  points: ReadonlyArray<number>;
+  nextSequence: number;
+  current?: ReadonlyArray<number>;
+}>;
+
+type BridgeRecordingSpec = Readonly<{
+  captureVehicles?: boolean;
+}>;
+
+type ReportingProfilingSpec = Readonly<{
+  enabled: boolean;
+  windowSeconds?: number;
+}>;
+
+type ReportingIntervalCostSpec = Readonly<{
+  intervalSeconds: number;
+  observedMillis: number;
+  cpuMillis: number;
+  tokenRequests: number;
+  uiThreadHops: number;
+  bridgeEvents: number;
+  vehicleUpdates: number;
+  vehicleUpdateFailures: number;
+}>;
+
+type ReportingProfileSpec = Readonly<{
+  enabled: boolean;
+  windowMillis: number;
+  intervals: ReadonlyArray<ReportingIntervalCostSpec>;
+}>;
+
+type LocationSubscriberSpec = Readonly<{
+  minIntervalMillis?: number;
+  minDistanceMeters?: number;
+  fields?: ReadonlyArray<string>;
+}>;
+
+type LocationBatchSpec = Readonly<{
+  location: Readonly<{
+    lat: number;
+    lng: number;
+    time: number;
+    accuracy?: number;
+    altitude?: number;
+    bearing?: number;
+    speed?: number;
+  }>;
+  subscribers: ReadonlyArray<string>;
+}>;
+
+type ReportingWatchdogSpec = Readonly<{
+  enabled: boolean;
+  updateStallSeconds?: number;
+  tokenStallSeconds?: number;
+  maxPendingTokenRequests?: number;
+  uiThreadLatencyMillis?: number;
+}>;
+
+type ReportingHealthSpec = Readonly<{
+  healthy: boolean;
+  issues: ReadonlyArray<string>;
+  millisSinceLastUpdate: number;
+  millisSinceLastTokenGrant: number;
+  pendingTokenRequests: number;
+  uiThreadLatencyMillis: number;
+}>;
+
+type ReporterConfigSpec = Readonly<{
+  trackingEnabled?: boolean;
+  intervalSeconds?: number;
+}>;
+
+type EffectiveReporterConfigSpec = Readonly<{
+  trackingEnabled: boolean;
+  intervalSeconds: number;
+}>;
+
+type DriverStateSpec = Readonly<{
+  initialized: boolean;
+  trackingEnabled: boolean;
+  intervalSeconds: number;
+  stopCount?: number;
+  revision: number;
+}>;
+
+type HttpTokenProviderSpec = Readonly<{
+  url: string;
+  method?: string;
+  headers?: ReadonlyArray<Readonly<{ name: string; value: string }>>;
+  tokenField?: string;
+  expiresInField?: string;
+  timeoutMillis?: number;
+}>;
+
 export interface Spec extends TurboModule {
   // Instance management
   createDeliveryDriverInstance(
@@ -93,9 +257,47 @@ export interface Spec extends TurboModule {
   // Location tracking
   setLocationTrackingEnabled(isEnabled: boolean): Promise<boolean>;
   setLocationReportingInterval(intervalSeconds: number): Promise<void>;
+  applyReporterConfig(
+    config: ReporterConfigSpec
+  ): Promise<EffectiveReporterConfigSpec>;
+  getDriverState(): DriverStateSpec;
 
   // Vehicle management
   getDeliveryVehicle(): Promise<DeliveryVehicleSpec>;
+  getCachedDeliveryVehicle(): Promise<DeliveryVehicleSpec | null>;
+  getDeliveryVehicleSummary(): Promise<DeliveryVehicleSummarySpec>;
+  getVehicleStops(
+    start: number,
+    count: number
+  ): Promise<ReadonlyArray<VehicleStopSpec>>;
+
+  // Spatial stop queries (Android only)
+  queryStopsWithinRadius(
+    lat: number,
+    lng: number,
+    radiusMeters: number
+  ): Promise<ReadonlyArray<number>>;
+  findNearestStop(lat: number, lng: number): Promise<number | null>;
+  queryStopsInBounds(
+    south: number,
+    west: number,
+    north: number,
+    east: number
+  ): Promise<ReadonlyArray<number>>;
+
+  // Task lookups
+  getTask(taskId: string): Promise<VehicleTaskSpec | null>;
+  getStopForTask(taskId: string): Promise<IndexedVehicleStopSpec | null>;
+  getStopIndexesForPlace(placeId: string): Promise<ReadonlyArray<number>>;
+
+  // Stop state timeline (Android only)
+  getStopTimeline(sinceTimestamp: number): Promise<StopTimelineSpec>;
+
+  // Stop arrival detection (Android only)
+  setStopGeofencing(config: StopGeofencingSpec): void;
+
+  // Per-stop ETAs (Android only)
+  setStopEtaUpdates(config: StopEtaUpdatesSpec): void;
 
   // SDK info
   getDriverSdkVersion(): Promise<string>;
@@ -104,11 +306,53 @@ export interface Spec extends TurboModule {
   resolveAuthToken(requestId: string, token: string): void;
   rejectAuthToken(requestId: string, error: string): void;
 
+  // Batch auth tokens for upcoming tasks (Android only)
+  resolveAuthTokens(requestId: string, tokens: ReadonlyArray<string>): void;
+  setTaskTokenPrefetch(stopCount: number): void;
+
   // Abnormal termination
   setAbnormalTerminationReporting(isEnabled: boolean): void;
 
+  // Memory pressure (Android only)
+  setMemoryPressureReportingInterval(intervalSeconds: number): void;
+
+  // Warm restart state persistence (Android only)
+  setStatePersistenceEnabled(isEnabled: boolean): void;
+
+  // Background event buffering (Android only)
+  setBackgroundEventBuffering(isEnabled: boolean): void;
+
+  // Trace sections (Android only)
+  setTracingEnabled(isEnabled: boolean): void;
+
+  // Native HTTP token provider (Android only)
+  setHttpTokenProvider(config: HttpTokenProviderSpec): Promise<void>;
+  clearHttpTokenProvider(): void;
+
+  // Breadcrumb trail (Android only)
+  setBreadcrumbRecording(config: BreadcrumbRecordingSpec): void;
+  getBreadcrumbs(sinceSequence: number): Promise<BreadcrumbsSpec>;
+  clearBreadcrumbs(): void;
+
+  // Reporting watchdog (Android only)
+  setReportingWatchdog(config: ReportingWatchdogSpec): void;
+  getReportingHealth(): Promise<ReportingHealthSpec>;
+
+  // Reporting profiler (Android only)
+  setReportingProfiling(config: ReportingProfilingSpec): void;
+  getReportingProfile(): Promise<ReportingProfileSpec>;
+
+  // Bridge traffic recording (Android only)
+  startBridgeRecording(config: BridgeRecordingSpec): Promise<string | null>;
+  stopBridgeRecording(): Promise<string | null>;
+
+  // Multiplexed location stream (Android only)
+  addLocationSubscriber(name: string, config: LocationSubscriberSpec): void;
+  removeLocationSubscriber(name: string): void;
+
   // Events emitted by native when auth token is needed
   onGetToken: EventEmitter<AuthTokenRequestSpec>;
+  onGetTokens: EventEmitter<AuthTokenBatchRequestSpec>;
 
   // Status & vehicle reporter events
   onStatusUpdate: EventEmitter<
@@ -118,6 +362,10 @@ export interface Spec extends TurboModule {
       statusMsg: string;
     }>
   >;
+  onStopGeofenceTransition: EventEmitter<StopGeofenceTransitionSpec>;
+  onStopEtasChanged: EventEmitter<StopEtasSpec>;
+  onLocationBatch: EventEmitter<LocationBatchSpec>;
+  onReportingHealthChanged: EventEmitter<ReportingHealthSpec>;
   onVehicleUpdateSucceed: EventEmitter<
     Readonly<{ vehicleUpdate: VehicleUpdateSpec }>
   >;
@@ -54,6 +54,110 @@ type AuthTokenRequestSpec = Readonly<{
   taskId: string;
 }>;
 
+type BreadcrumbRecordingSpec = Readonly<{
+  enabled: boolean;
+  toleranceMeters?: number;
+  minDistanceMeters?: number;
+  capacity?: number;
+}>;
+
+type BreadcrumbsSpec = Readonly<{
+  points: ReadonlyArray<number>;
+  nextSequence: number;
+  current?: ReadonlyArray<number>;
+}>;
+
+type BridgeRecordingSpec = Readonly<{
+  captureVehicles?: boolean;
+}>;
+
+type ReportingProfilingSpec = Readonly<{
+  enabled: boolean;
+  windowSeconds?: number;
+}>;
+
+type ReportingIntervalCostSpec = Readonly<{
+  intervalSeconds: number;
+  observedMillis: number;
+  cpuMillis: number;
+  tokenRequests: number;
+  uiThreadHops: number;
+  bridgeEvents: number;
+  vehicleUpdates: number;
+  vehicleUpdateFailures: number;
+}>;
+
+type ReportingProfileSpec = Readonly<{
+  enabled: boolean;
+  windowMillis: number;
+  intervals: ReadonlyArray<ReportingIntervalCostSpec>;
+}>;
+
+type LocationSubscriberSpec = Readonly<{
+  minIntervalMillis?: number;
+  minDistanceMeters?: number;
+  fields?: ReadonlyArray<string>;
+}>;
+
+type LocationBatchSpec = Readonly<{
+  location: Readonly<{
+    lat: number;
+    lng: number;
+    time: number;
+    accuracy?: number;
+    altitude?: number;
+    bearing?: number;
+    speed?: number;
+  }>;
+  subscribers: ReadonlyArray<string>;
+}>;
+
+type ReportingWatchdogSpec = Readonly<{
+  enabled: boolean;
+  updateStallSeconds?: number;
+  tokenStallSeconds?: number;
+  maxPendingTokenRequests?: number;
+  uiThreadLatencyMillis?: number;
+}>;
+
+type ReportingHealthSpec = Readonly<{
+  healthy: boolean;
+  issues: ReadonlyArray<string>;
+  millisSinceLastUpdate: number;
+  millisSinceLastTokenGrant: number;
+  pendingTokenRequests: number;
+  uiThreadLatencyMillis: number;
+}>;
+
+type ReporterConfigSpec = Readonly<{
+  trackingEnabled?: boolean;
+  intervalSeconds?: number;
+  online?: boolean;
+}>;
+
+type EffectiveReporterConfigSpec = Readonly<{
+  trackingEnabled: boolean;
+  intervalSeconds: number;
+  online: boolean;
+}>;
+
+type DriverStateSpec = Readonly<{
+  initialized: boolean;
+  trackingEnabled: boolean;
+  intervalSeconds: number;
+  online: boolean;
+  revision: number;
+}>;
+
+type HttpTokenProviderSpec = Readonly<{
+  url: string;
+  method?: string;
+  headers?: ReadonlyArray<Readonly<{ name: string; value: string }>>;
+  tokenField?: string;
+  expiresInField?: string;
+  timeoutMillis?: number;
+}>;
+
 export interface Spec extends TurboModule {
   // Instance management
   createRidesharingInstance(
@@ -65,6 +169,10 @@ export interface Spec extends TurboModule {
   // Location tracking
   setLocationTrackingEnabled(isEnabled: boolean): Promise<boolean>;
   setLocationReportingInterval(intervalSeconds: number): Promise<void>;
+  applyReporterConfig(
+    config: ReporterConfigSpec
+  ): Promise<EffectiveReporterConfigSpec>;
+  getDriverState(): DriverStateSpec;
 
   // Vehicle state (online/offline)
   setVehicleState(isOnline: boolean): Promise<boolean>;
@@ -79,6 +187,43 @@ export interface Spec extends TurboModule {
   // Abnormal termination
   setAbnormalTerminationReporting(isEnabled: boolean): void;
 
+  // Memory pressure (Android only)
+  setMemoryPressureReportingInterval(intervalSeconds: number): void;
+
+  // Warm restart state persistence (Android only)
+  setStatePersistenceEnabled(isEnabled: boolean): void;
+
+  // Background event buffering (Android only)
+  setBackgroundEventBuffering(isEnabled: boolean): void;
+
+  // Trace sections (Android only)
+  setTracingEnabled(isEnabled: boolean): void;
+
+  // Native HTTP token provider (Android only)
+  setHttpTokenProvider(config: HttpTokenProviderSpec): Promise<void>;
+  clearHttpTokenProvider(): void;
+
+  // Breadcrumb trail (Android only)
+  setBreadcrumbRecording(config: BreadcrumbRecordingSpec): void;
+  getBreadcrumbs(sinceSequence: number): Promise<BreadcrumbsSpec>;
+  clearBreadcrumbs(): void;
+
+  // Reporting watchdog (Android only)
+  setReportingWatchdog(config: ReportingWatchdogSpec): void;
+  getReportingHealth(): Promise<ReportingHealthSpec>;
+
+  // Reporting profiler (Android only)
+  setReportingProfiling(config: ReportingProfilingSpec): void;
+  getReportingProfile(): Promise<ReportingProfileSpec>;
+
+  // Bridge traffic recording (Android only)
+  startBridgeRecording(config: BridgeRecordingSpec): Promise<string | null>;
+  stopBridgeRecording(): Promise<string | null>;
+
+  // Multiplexed location stream (Android only)
+  addLocationSubscriber(name: string, config: LocationSubscriberSpec): void;
+  removeLocationSubscriber(name: string): void;
+
   // Events emitted by native when auth token is needed
   onGetToken: EventEmitter<AuthTokenRequestSpec>;
 
@@ -90,6 +235,8 @@ export interface Spec extends TurboModule {
       statusMsg: string;
     }>
   >;
+  onLocationBatch: EventEmitter<LocationBatchSpec>;
+  onReportingHealthChanged: EventEmitter<ReportingHealthSpec>;
   onVehicleUpdateSucceed: EventEmitter<
     Readonly<{ vehicleUpdate: VehicleUpdateSpec }>
   >;
@@ -65,6 +65,146 @@ describe('ODRD', () => {
     ).not.toThrow();
   });
 
+  test('applyReporterConfig', async () => {
+    await expect(
+      ridesharing.getRidesharingVehicleReporter().applyReporterConfig({
+        trackingEnabled: true,
+        intervalSeconds: 5,
+        state: VehicleState.ONLINE,
+      })
+    ).resolves.toEqual({
+      trackingEnabled: true,
+      intervalSeconds: 5,
+      state: VehicleState.ONLINE,
+    });
+  });
+
+  test('getDriverState', () => {
+    expect(ridesharing.getDriverState()).toEqual({
+      initialized: true,
+      trackingEnabled: true,
+      intervalSeconds: 10,
+      state: VehicleState.ONLINE,
+      revision: 4,
+    });
+  });
+
+  test('setBackgroundEventBufferingEnabled', () => {
+    ridesharing.setBackgroundEventBufferingEnabled(true);
+    expect(
+      ridesharing.nativeModule.setBackgroundEventBuffering
+    ).toHaveBeenCalledWith(true);
+  });
+
+  test('setTracingEnabled', () => {
+    ridesharing.setTracingEnabled(true);
+    expect(ridesharing.nativeModule.setTracingEnabled).toHaveBeenCalledWith(
+      true
+    );
+  });
+
+  test('setMemoryPressureReportingInterval', () => {
+    expect(() =>
+      ridesharing.setMemoryPressureReportingInterval(60)
+    ).not.toThrow();
+  });
+
+  test('setHttpTokenProvider', async () => {
+    await expect(
+      ridesharing.setHttpTokenProvider({
+        url: 'https://example.com/token',
+        headers: { Authorization: 'Bearer secret' },
+      })
+    ).resolves.toBeUndefined();
+    await expect(
+      ridesharing.setHttpTokenProvider(null)
+    ).resolves.toBeUndefined();
+  });
+
+  test('breadcrumbs', async () => {
+    expect(() =>
+      ridesharing.setBreadcrumbRecording({ toleranceMeters: 10 })
+    ).not.toThrow();
+    await expect(ridesharing.getBreadcrumbs()).resolves.toEqual({
+      points: [{ lat: 1, lng: 2, time: 3 }],
+      nextSequence: 1,
+      current: undefined,
+    });
+    expect(() => ridesharing.setBreadcrumbRecording(null)).not.toThrow();
+    expect(() => ridesharing.clearBreadcrumbs()).not.toThrow();
+  });
+
+  test('reporting profiler', async () => {
+    const nativeModule = ridesharing.nativeModule;
+    ridesharing.setReportingProfiling({ windowSeconds: 600 });
+    expect(nativeModule.setReportingProfiling).toHaveBeenCalledWith({
+      windowSeconds: 600,
+      enabled: true,
+    });
+    const profile = await ridesharing.getReportingProfile();
+    expect(profile.enabled).toBe(true);
+    expect(profile.intervals).toEqual([
+      expect.objectContaining({ intervalSeconds: 10, vehicleUpdates: 6 }),
+    ]);
+    ridesharing.setReportingProfiling(null);
+    expect(nativeModule.setReportingProfiling).toHaveBeenLastCalledWith({
+      enabled: false,
+    });
+  });
+
+  test('reporting watchdog', async () => {
+    const nativeModule = ridesharing.nativeModule;
+    const options = { updateStallSeconds: 30 };
+    ridesharing.setOnReportingHealthChanged(jest.fn(), options);
+    expect(nativeModule.setReportingWatchdog).toHaveBeenCalledWith({
+      updateStallSeconds: 30,
+      enabled: true,
+    });
+    await expect(ridesharing.getReportingHealth()).resolves.toMatchObject({
+      healthy: false,
+      issues: ['UPDATES_STALLED'],
+    });
+    ridesharing.setOnReportingHealthChanged(null);
+    expect(nativeModule.setReportingWatchdog).toHaveBeenLastCalledWith({
+      enabled: false,
+    });
+  });
+
+  test('bridge recording', async () => {
+    await expect(ridesharing.startBridgeRecording()).resolves.toBe(
+      '/cache/bridge.bin'
+    );
+    expect(
+      ridesharing.nativeModule.startBridgeRecording
+    ).toHaveBeenCalledWith({});
+    await expect(ridesharing.stopBridgeRecording()).resolves.toBe(
+      '/cache/bridge.bin'
+    );
+  });
+
+  test('subscribeToLocation', () => {
+    const nativeModule = ridesharing.nativeModule;
+    const onLocationBatch = nativeModule.onLocationBatch as jest.Mock;
+    const map = jest.fn();
+    const speed = jest.fn();
+    const mapSubscription = ridesharing.subscribeToLocation('map', map);
+    ridesharing.subscribeToLocation('speed', speed, {
+      minIntervalMillis: 5000,
+      fields: ['speed'],
+    });
+
+    const handler = onLocationBatch.mock.calls[0]?.[0];
+    handler({
+      location: { lat: 1, lng: 2, time: 3, speed: 4 },
+      subscribers: ['speed'],
+    });
+    expect(map).not.toHaveBeenCalled();
+    expect(speed).toHaveBeenCalledWith({ lat: 1, lng: 2, time: 3, speed: 4 });
+
+    mapSubscription.remove();
+    expect(nativeModule.removeLocationSubscriber).toHaveBeenCalledWith('map');
+  });
+
   it('async/await', async () => {
     expect.assertions(1);
     const version = await ridesharing.getDriverSdkVersion();
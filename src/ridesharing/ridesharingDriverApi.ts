@@ -18,6 +18,9 @@
 import { RidesharingModule, type RidesharingModuleSpec } from '../native';
 import {
   type VehicleReporter,
+  type ReporterConfig,
+  type EffectiveReporterConfig,
+  type DriverState,
   VehicleState,
   DriverApi,
   type OnGetTokenCallback,
@@ -30,6 +33,29 @@ import {
  */
 interface RidesharingVehicleReporter extends VehicleReporter {
   setVehicleState(state: VehicleState): Promise<void>;
+
+  /**
+   * Applies every field set in `config` in a single native call and resolves to the resulting
+   * configuration. Location tracking is enabled before the vehicle goes online, and disabled
+   * after it goes offline.
+   */
+  applyReporterConfig(
+    config: RidesharingReporterConfig
+  ): Promise<RidesharingEffectiveReporterConfig>;
+}
+
+export interface RidesharingReporterConfig extends ReporterConfig {
+  state?: VehicleState;
+}
+
+export interface RidesharingEffectiveReporterConfig
+  extends EffectiveReporterConfig {
+  state: VehicleState;
+}
+
+/** {@link DriverState} of the ridesharing driver. */
+export interface RidesharingDriverState extends DriverState {
+  state: VehicleState;
 }
 
 /** Entry point into the DriverApi for the ridesharing vertical. */
@@ -53,6 +79,19 @@ export class RidesharingDriverApi extends DriverApi<RidesharingModuleSpec> {
     await this.nativeModule.createRidesharingInstance(providerId, vehicleId);
   }
 
+  /**
+   * Returns the effective reporter state without waiting on a promise. The native module keeps
+   * this state in memory, so it is cheap enough to read while rendering; compare `revision` to
+   * tell whether anything changed.
+   */
+  getDriverState = (): RidesharingDriverState => {
+    const { online, ...state } = this.nativeModule.getDriverState();
+    return {
+      ...state,
+      state: online ? VehicleState.ONLINE : VehicleState.OFFLINE,
+    };
+  };
+
   /**
    * Returns the {@link RidesharingVehicleReporter} associated to this instance.
    * You must initialize the Api prior to calling this method.
@@ -65,6 +104,19 @@ export class RidesharingDriverApi extends DriverApi<RidesharingModuleSpec> {
       setLocationTrackingEnabled: this.setLocationTrackingEnabled,
       setLocationReportingInterval: (intervalSeconds: number) =>
         this.nativeModule.setLocationReportingInterval(intervalSeconds),
+      applyReporterConfig: async ({ state, ...config }) => {
+        const online =
+          state === undefined ? undefined : state === VehicleState.ONLINE;
+        const spec = await this.nativeModule.applyReporterConfig({
+          ...config,
+          online,
+        });
+        return {
+          trackingEnabled: spec.trackingEnabled,
+          intervalSeconds: spec.intervalSeconds,
+          state: spec.online ? VehicleState.ONLINE : VehicleState.OFFLINE,
+        };
+      },
       setOnVehicleUpdateSucceed: this.setOnVehicleUpdateSucceed,
       setOnVehicleUpdateFailed: this.setOnVehicleUpdateFailed,
     };
@@ -18,12 +18,50 @@ import {
   DriverStatusCode,
   DriverStatusLevel,
   type AuthTokenContext,
+  type BridgeRecordingOptions,
+  type BreadcrumbPoint,
+  type BreadcrumbRecordingOptions,
+  type Breadcrumbs,
+  type HttpTokenProviderConfig,
+  type LocationSubscriptionOptions,
+  type MultiplexedLocation,
+  type ReportingHealth,
+  type ReportingIssue,
+  type ReportingProfile,
+  type ReportingProfilingOptions,
+  type ReportingWatchdogOptions,
   type OnGetTokenCallback,
   type OnStatusUpdateCallback,
   type VehicleUpdate,
   type VehicleUpdateError,
 } from './types';
 
+type ReportingHealthSpec = Readonly<{
+  healthy: boolean;
+  issues: ReadonlyArray<string>;
+  millisSinceLastUpdate: number;
+  millisSinceLastTokenGrant: number;
+  pendingTokenRequests: number;
+  uiThreadLatencyMillis: number;
+}>;
+
+type ReportingProfileSpec = Readonly<{
+  enabled: boolean;
+  windowMillis: number;
+  intervals: ReadonlyArray<
+    Readonly<{
+      intervalSeconds: number;
+      observedMillis: number;
+      cpuMillis: number;
+      tokenRequests: number;
+      uiThreadHops: number;
+      bridgeEvents: number;
+      vehicleUpdates: number;
+      vehicleUpdateFailures: number;
+    }>
+  >;
+}>;
+
 /** A callable that subscribes to an event and returns a removable subscription. */
 type EventEmitterFn<T> = (handler: (event: T) => void) => EventSubscription;
 
@@ -36,6 +74,64 @@ type EventEmitterFn<T> = (handler: (event: T) => void) => EventSubscription;
 export interface DriverNativeModule {
   clearInstance(): Promise<boolean>;
   setAbnormalTerminationReporting(isEnabled: boolean): void;
+  setMemoryPressureReportingInterval(intervalSeconds: number): void;
+  setStatePersistenceEnabled(isEnabled: boolean): void;
+  setBackgroundEventBuffering(isEnabled: boolean): void;
+  setTracingEnabled(isEnabled: boolean): void;
+  setHttpTokenProvider(
+    config: Readonly<{
+      url: string;
+      method?: string;
+      headers?: ReadonlyArray<Readonly<{ name: string; value: string }>>;
+      tokenField?: string;
+      expiresInField?: string;
+      timeoutMillis?: number;
+    }>
+  ): Promise<void>;
+  clearHttpTokenProvider(): void;
+  setBreadcrumbRecording(
+    config: Readonly<{
+      enabled: boolean;
+      toleranceMeters?: number;
+      minDistanceMeters?: number;
+      capacity?: number;
+    }>
+  ): void;
+  getBreadcrumbs(sinceSequence: number): Promise<
+    Readonly<{
+      points: ReadonlyArray<number>;
+      nextSequence: number;
+      current?: ReadonlyArray<number>;
+    }>
+  >;
+  clearBreadcrumbs(): void;
+  addLocationSubscriber(
+    name: string,
+    config: Readonly<{
+      minIntervalMillis?: number;
+      minDistanceMeters?: number;
+      fields?: ReadonlyArray<string>;
+    }>
+  ): void;
+  removeLocationSubscriber(name: string): void;
+  setReportingWatchdog(
+    config: Readonly<{
+      enabled: boolean;
+      updateStallSeconds?: number;
+      tokenStallSeconds?: number;
+      maxPendingTokenRequests?: number;
+      uiThreadLatencyMillis?: number;
+    }>
+  ): void;
+  getReportingHealth(): Promise<ReportingHealthSpec>;
+  setReportingProfiling(
+    config: Readonly<{ enabled: boolean; windowSeconds?: number }>
+  ): void;
+  getReportingProfile(): Promise<ReportingProfileSpec>;
+  startBridgeRecording(
+    config: Readonly<{ captureVehicles?: boolean }>
+  ): Promise<string | null>;
+  stopBridgeRecording(): Promise<string | null>;
   getDriverSdkVersion(): Promise<string>;
   setLocationTrackingEnabled(isEnabled: boolean): Promise<boolean>;
   setLocationReportingInterval(intervalSeconds: number): Promise<void>;
@@ -47,6 +143,13 @@ export interface DriverNativeModule {
   onStatusUpdate: EventEmitterFn<
     Readonly<{ statusLevel: string; statusCode: string; statusMsg: string }>
   >;
+  onLocationBatch: EventEmitterFn<
+    Readonly<{
+      location: MultiplexedLocation;
+      subscribers: ReadonlyArray<string>;
+    }>
+  >;
+  onReportingHealthChanged: EventEmitterFn<ReportingHealthSpec>;
   onVehicleUpdateSucceed: EventEmitterFn<
     Readonly<{ vehicleUpdate: VehicleUpdate }>
   >;
@@ -63,6 +166,12 @@ export abstract class DriverApi<
   vehicleId?: string;
 
   private subscriptions: EventSubscription[] = [];
+  private locationSubscribers = new Map<
+    string,
+    (location: MultiplexedLocation) => void
+  >();
+  private locationBatchSubscription?: EventSubscription;
+  private reportingHealthSubscription?: EventSubscription;
 
   constructor(nativeModule: T) {
     this.nativeModule = nativeModule;
@@ -125,7 +234,7 @@ export abstract class DriverApi<
     }
   };
 
-  private addSubscription(subscription: EventSubscription): void {
+  protected addSubscription(subscription: EventSubscription): void {
     this.subscriptions.push(subscription);
   }
 
@@ -154,6 +263,281 @@ export abstract class DriverApi<
     this.nativeModule.setAbnormalTerminationReporting(isEnabled);
   };
 
+  /**
+   * Sets the location reporting interval the native module switches to when the OS reports memory
+   * pressure. Each memory trim is also delivered to `onStatusUpdate` with
+   * {@link DriverStatusCode.MEMORY_PRESSURE}. The raised interval stays in place until
+   * `setLocationReportingInterval` is called again.
+   *
+   * **Android only.**
+   *
+   * @param intervalSeconds - interval to fall back to, or 0 to keep the current interval.
+   */
+  setMemoryPressureReportingInterval = (intervalSeconds: number): void => {
+    this.nativeModule.setMemoryPressureReportingInterval(intervalSeconds);
+  };
+
+  /**
+   * Enables/disables persisting the last auth token (and, for delivery, the last fetched vehicle)
+   * to encrypted on-device storage. After the OS kills the app, a persisted token that has not
+   * expired is handed to the native SDK without calling `onGetToken`, so reporting resumes
+   * immediately. Disabling deletes anything persisted; `clearInstance` does the same.
+   *
+   * Call this before {@link initialize} to benefit on restart.
+   *
+   * **Android only.**
+   *
+   * @param isEnabled - whether state should be persisted.
+   */
+  setStatePersistenceEnabled = (isEnabled: boolean): void => {
+    this.nativeModule.setStatePersistenceEnabled(isEnabled);
+  };
+
+  /**
+   * Enables/disables holding back non-critical events while the app is in the background, so they
+   * do not wake the JS runtime during long shifts. Status updates below ERROR (and, for delivery,
+   * stop ETAs) are collapsed to the latest of each kind and delivered on resume, followed by a
+   * status update with {@link DriverStatusCode.BACKGROUND_SUMMARY}. Token requests and errors
+   * are always delivered right away.
+   *
+   * **Android only.**
+   *
+   * @param isEnabled - whether events should be buffered in the background.
+   */
+  setBackgroundEventBufferingEnabled = (isEnabled: boolean): void => {
+    this.nativeModule.setBackgroundEventBuffering(isEnabled);
+  };
+
+  /**
+   * Enables/disables trace sections around the native bridge paths, so they show up in Perfetto
+   * and systrace captures: instance creation phases, token requests from emission to resolution
+   * and their hop to the UI thread, vehicle fetches and their translation, and status updates.
+   * Off by default. The switch applies to every driver module of the app.
+   *
+   * **Android only.**
+   *
+   * @param isEnabled - whether trace sections should be emitted.
+   */
+  setTracingEnabled = (isEnabled: boolean): void => {
+    this.nativeModule.setTracingEnabled(isEnabled);
+  };
+
+  /**
+   * Makes the native module fetch auth tokens directly from an HTTPS endpoint, so location
+   * reporting keeps working while the JS thread is paused in the background. Fetched tokens are
+   * cached until shortly before they expire. `onGetToken` is only called if the endpoint fails.
+   * Pass null to request every token through `onGetToken` again.
+   *
+   * **Android only.**
+   *
+   * @param config - endpoint and response mapping, or null to remove the provider.
+   * @returns Promise that resolves once the provider has been configured.
+   * @throws This rejects the promise if the config is invalid.
+   */
+  setHttpTokenProvider = async (
+    config: HttpTokenProviderConfig | null
+  ): Promise<void> => {
+    if (config === null) {
+      this.nativeModule.clearHttpTokenProvider();
+      return;
+    }
+    await this.nativeModule.setHttpTokenProvider({
+      ...config,
+      headers: Object.entries(config.headers ?? {}).map(([name, value]) => ({
+        name,
+        value,
+      })),
+    });
+  };
+
+  /**
+   * Records the road-snapped path of the vehicle natively as a simplified polyline of bounded
+   * size, so the travelled path can be drawn without handling every location update in JS. Pass
+   * null to stop recording; the recorded points are kept until {@link clearBreadcrumbs}.
+   *
+   * **Android only.**
+   *
+   * @param options - simplification and capacity, or null to stop recording.
+   */
+  setBreadcrumbRecording = (
+    options: BreadcrumbRecordingOptions | null
+  ): void => {
+    this.nativeModule.setBreadcrumbRecording({
+      ...options,
+      enabled: options !== null,
+    });
+  };
+
+  /**
+   * Returns the recorded breadcrumbs. Pass the `nextSequence` of the previous result to only
+   * receive the points added since, and append them to the trail drawn so far.
+   *
+   * **Android only.** Always resolves to an empty trail on iOS.
+   *
+   * @param sinceSequence - `nextSequence` of the previous call, or 0 for every retained point.
+   */
+  getBreadcrumbs = async (sinceSequence = 0): Promise<Breadcrumbs> => {
+    const spec = await this.nativeModule.getBreadcrumbs(sinceSequence);
+    const points: BreadcrumbPoint[] = [];
+    for (let i = 0; i + 2 < spec.points.length; i += 3) {
+      points.push(toBreadcrumbPoint(spec.points, i));
+    }
+    return {
+      points,
+      nextSequence: spec.nextSequence,
+      current: spec.current ? toBreadcrumbPoint(spec.current, 0) : undefined,
+    };
+  };
+
+  /** Discards the recorded breadcrumbs. **Android only.** */
+  clearBreadcrumbs = (): void => {
+    this.nativeModule.clearBreadcrumbs();
+  };
+
+  /**
+   * Subscribes to the road-snapped location of the vehicle. Every subscriber shares one native
+   * listener and each location is sent over the bridge once, to all the subscribers that are due
+   * for it, so adding subscribers with low rates is cheap. Subscribing again with the same name
+   * replaces the previous subscription. Subscriptions are kept across `clearInstance`.
+   *
+   * A location may carry optional fields requested by other subscribers.
+   *
+   * **Android only.** The callback is never invoked on iOS.
+   *
+   * @param name - unique name of the subscriber.
+   * @param callback - invoked with each location the subscriber is due for.
+   * @param options - minimum interval and distance between locations, and optional fields.
+   */
+  subscribeToLocation = (
+    name: string,
+    callback: (location: MultiplexedLocation) => void,
+    options: LocationSubscriptionOptions = {}
+  ): EventSubscription => {
+    if (!this.locationBatchSubscription) {
+      this.locationBatchSubscription = this.nativeModule.onLocationBatch(
+        event => {
+          const location = { ...event.location };
+          for (const subscriber of event.subscribers) {
+            this.locationSubscribers.get(subscriber)?.(location);
+          }
+        }
+      );
+    }
+    this.locationSubscribers.set(name, callback);
+    this.nativeModule.addLocationSubscriber(name, options);
+
+    return {
+      remove: () => {
+        if (this.locationSubscribers.get(name) !== callback) {
+          return;
+        }
+        this.locationSubscribers.delete(name);
+        this.nativeModule.removeLocationSubscriber(name);
+        if (this.locationSubscribers.size === 0) {
+          this.locationBatchSubscription?.remove();
+          this.locationBatchSubscription = undefined;
+        }
+      },
+    };
+  };
+
+  /**
+   * Starts a native watchdog that calls `callback` whenever location reporting stalls or recovers:
+   * no successful vehicle update or token grant for too long, too many token requests waiting for
+   * JS, or a slow UI thread. It checks every few seconds while location tracking is enabled, and
+   * only crosses the bridge when the set of crossed thresholds changes. Pass null to stop it.
+   *
+   * **Android only.**
+   *
+   * @param callback - invoked with the new health, or null to stop the watchdog.
+   * @param options - thresholds; unset values keep their defaults.
+   */
+  setOnReportingHealthChanged = (
+    callback: ((health: ReportingHealth) => void) | null,
+    options: ReportingWatchdogOptions = {}
+  ): void => {
+    this.reportingHealthSubscription?.remove();
+    this.reportingHealthSubscription = undefined;
+    if (callback) {
+      this.reportingHealthSubscription =
+        this.nativeModule.onReportingHealthChanged(spec => {
+          callback(toReportingHealth(spec));
+        });
+    }
+    this.nativeModule.setReportingWatchdog({
+      ...options,
+      enabled: callback !== null,
+    });
+  };
+
+  /**
+   * Returns the current reporting health, whether or not the watchdog is running. While it is
+   * not, update and token stalls are not reported.
+   *
+   * **Android only.** Always resolves to a healthy state on iOS.
+   */
+  getReportingHealth = async (): Promise<ReportingHealth> => {
+    return toReportingHealth(await this.nativeModule.getReportingHealth());
+  };
+
+  /**
+   * Starts profiling what location reporting costs at each reporting interval: process CPU time,
+   * token requests, UI thread hops, bridge events and vehicle update attempts, over a rolling
+   * window. Compare the intervals of the profile to choose reporting settings from data. Starting
+   * discards the previous profile; pass null to stop, which keeps it readable.
+   *
+   * **Android only.**
+   *
+   * @param options - length of the window, or null to stop profiling.
+   */
+  setReportingProfiling = (options: ReportingProfilingOptions | null): void => {
+    this.nativeModule.setReportingProfiling({
+      ...options,
+      enabled: options !== null,
+    });
+  };
+
+  /**
+   * Returns the cost of location reporting per interval over the profiling window.
+   *
+   * **Android only.** Always resolves to an empty profile on iOS.
+   */
+  getReportingProfile = async (): Promise<ReportingProfile> => {
+    const spec = await this.nativeModule.getReportingProfile();
+    return {
+      ...spec,
+      intervals: spec.intervals.map(cost => ({ ...cost })),
+    };
+  };
+
+  /**
+   * Starts recording the traffic crossing the bridge (token requests and their resolutions, status
+   * updates, vehicle updates and the size of fetched vehicles) to a compact binary file, replacing
+   * any previous recording. Recordings can be replayed offline to reproduce field performance
+   * problems. Tokens are never recorded, and fetched vehicles only when `captureVehicles` is set.
+   *
+   * **Android only.** Resolves to null on iOS.
+   *
+   * @param options - whether to record fetched vehicles in full.
+   * @returns the path of the recording file.
+   */
+  startBridgeRecording = (
+    options: BridgeRecordingOptions = {}
+  ): Promise<string | null> => {
+    return this.nativeModule.startBridgeRecording(options);
+  };
+
+  /**
+   * Stops recording bridge traffic once everything recorded so far is written.
+   *
+   * **Android only.** Resolves to null on iOS.
+   *
+   * @returns the path of the recording file, or null if no recording was running.
+   */
+  stopBridgeRecording = (): Promise<string | null> => {
+    return this.nativeModule.stopBridgeRecording();
+  };
+
   /**
    * Returns a promise that resolves to the version associated to the native SDK.
    */
@@ -187,3 +571,22 @@ export abstract class DriverApi<
     );
   };
 }
+
+/** Reads a point flattened into `[lat, lng, time]` by the native module. */
+function toBreadcrumbPoint(
+  values: ReadonlyArray<number>,
+  offset: number
+): BreadcrumbPoint {
+  return {
+    lat: values[offset] ?? 0,
+    lng: values[offset + 1] ?? 0,
+    time: values[offset + 2] ?? 0,
+  };
+}
+
+function toReportingHealth(spec: ReportingHealthSpec): ReportingHealth {
+  return {
+    ...spec,
+    issues: spec.issues.map(issue => issue as ReportingIssue),
+  };
+}
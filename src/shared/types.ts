@@ -47,6 +47,10 @@ export enum DriverStatusCode {
   SERVICE_ERROR = 'SERVICE_ERROR',
   FILE_ACCESS_ERROR = 'FILE_ACCESS_ERROR',
   TRAVELED_ROUTE_ERROR = 'TRAVELED_ROUTE_ERROR',
+  /** Emitted by the native module after the OS asked it to release memory. */
+  MEMORY_PRESSURE = 'MEMORY_PRESSURE',
+  /** Emitted on resume when events were collapsed while the app was in the background. */
+  BACKGROUND_SUMMARY = 'BACKGROUND_SUMMARY',
 }
 
 /**
@@ -68,6 +72,157 @@ export interface AuthTokenContext {
 
 export type OnGetTokenCallback = (context: AuthTokenContext) => Promise<string>;
 
+/**
+ * HTTPS endpoint the native module fetches auth tokens from without involving JS.
+ *
+ * The vehicle and task ids are sent as `vehicleId`/`taskId` query parameters for `GET`
+ * requests, or as a JSON body for `POST` requests. The endpoint must respond with JSON.
+ *
+ * **Android only.**
+ */
+export interface HttpTokenProviderConfig {
+  /** Token endpoint. Must use `https`, except for `localhost`, `127.0.0.1` and `[::1]`. */
+  url: string;
+  /** HTTP method, defaults to `GET`. */
+  method?: 'GET' | 'POST';
+  /** Headers added to every request, e.g. an `Authorization` header for your backend. */
+  headers?: Record<string, string>;
+  /** Dotted path of the token in the response, e.g. `data.token`. Defaults to `token`. */
+  tokenField?: string;
+  /** Dotted path of the token lifetime in seconds. If unset, the JWT `exp` claim is used. */
+  expiresInField?: string;
+  /** Connect and read timeout in milliseconds, defaults to 10000. */
+  timeoutMillis?: number;
+}
+
+/**
+ * Simplification of the recorded breadcrumb trail. Every recorded location is within
+ * `toleranceMeters` of the returned polyline.
+ */
+export interface BreadcrumbRecordingOptions {
+  /** Maximum distance between a dropped location and the polyline. Defaults to 5 meters. */
+  toleranceMeters?: number;
+  /** Locations closer than this to the previous location are ignored. Defaults to 5 meters. */
+  minDistanceMeters?: number;
+  /** Number of points kept before the oldest are overwritten. Defaults to 4096. */
+  capacity?: number;
+}
+
+export interface BreadcrumbPoint {
+  lat: number;
+  lng: number;
+  /** Time of the location in milliseconds since the epoch. */
+  time: number;
+}
+
+export interface Breadcrumbs {
+  /** Recorded points, oldest first. */
+  points: BreadcrumbPoint[];
+  /** Pass this to the next `getBreadcrumbs` call to only receive newer points. */
+  nextSequence: number;
+  /**
+   * Latest location, which is not part of `points` yet and may still be replaced by a later
+   * one. Draw it as the end of the trail.
+   */
+  current?: BreadcrumbPoint;
+}
+
+/** Optional location fields a subscriber can ask for. */
+export type LocationField = 'accuracy' | 'altitude' | 'bearing' | 'speed';
+
+/** Rate limits of a location subscriber. Every location is delivered by default. */
+export interface LocationSubscriptionOptions {
+  /** Minimum time between two locations delivered to the subscriber. */
+  minIntervalMillis?: number;
+  /** Minimum distance between two locations delivered to the subscriber. */
+  minDistanceMeters?: number;
+  /** Optional fields to include, when the location has them. */
+  fields?: LocationField[];
+}
+
+export interface MultiplexedLocation {
+  lat: number;
+  lng: number;
+  /** Time of the location in milliseconds since the epoch. */
+  time: number;
+  accuracy?: number;
+  altitude?: number;
+  bearing?: number;
+  speed?: number;
+}
+
+/** A reporting threshold that is currently crossed. */
+export type ReportingIssue =
+  | 'UPDATES_STALLED'
+  | 'TOKENS_STALLED'
+  | 'TOKEN_BACKLOG'
+  | 'UI_THREAD_SLOW';
+
+/** Thresholds of the reporting watchdog. */
+export interface ReportingWatchdogOptions {
+  /** Time without a successful vehicle update before reporting is stalled. Defaults to 60s. */
+  updateStallSeconds?: number;
+  /** Time without a token handed to the SDK before tokens are stalled. Defaults to 120s. */
+  tokenStallSeconds?: number;
+  /** Token requests waiting for an answer above which there is a backlog. Defaults to 4. */
+  maxPendingTokenRequests?: number;
+  /** Delay of a task posted to the UI thread above which it is slow. Defaults to 1000ms. */
+  uiThreadLatencyMillis?: number;
+}
+
+export interface ReportingHealth {
+  /** Whether no threshold is crossed. */
+  healthy: boolean;
+  issues: ReportingIssue[];
+  /** Time since the last successful vehicle update, or since monitoring started. */
+  millisSinceLastUpdate: number;
+  /** Time since a token was last handed to the SDK, or since monitoring started. */
+  millisSinceLastTokenGrant: number;
+  pendingTokenRequests: number;
+  uiThreadLatencyMillis: number;
+}
+
+export interface BridgeRecordingOptions {
+  /**
+   * Whether to record fetched vehicles in full rather than by size, for replays that need the
+   * routes. The recording then holds stop locations, place ids and titles, and must be handled
+   * like customer data. Defaults to false.
+   */
+  captureVehicles?: boolean;
+}
+
+export interface ReportingProfilingOptions {
+  /** Period the profile covers, rolling. Defaults to one hour. */
+  windowSeconds?: number;
+}
+
+/** What location reporting cost at one reporting interval over the profiling window. */
+export interface ReportingIntervalCost {
+  intervalSeconds: number;
+  /** Time the interval was in effect while profiling. */
+  observedMillis: number;
+  /** CPU time of the whole app process while the interval was in effect. */
+  cpuMillis: number;
+  /** Token requests sent to JS, counting a batch request once. */
+  tokenRequests: number;
+  /** Hops to the UI thread made to serve the SDK. */
+  uiThreadHops: number;
+  /** Token, status and location events sent to JS. */
+  bridgeEvents: number;
+  /** Vehicle update attempts reported by the SDK, including failed ones. */
+  vehicleUpdates: number;
+  /** Vehicle update attempts reported at `WARNING` or `ERROR` level. */
+  vehicleUpdateFailures: number;
+}
+
+export interface ReportingProfile {
+  /** Whether profiling is running. A stopped profile still reports what it measured. */
+  enabled: boolean;
+  windowMillis: number;
+  /** Cost per reporting interval, by increasing interval. */
+  intervals: ReportingIntervalCost[];
+}
+
 export enum VehicleState {
   OFFLINE = 0,
   ONLINE,
@@ -87,6 +242,13 @@ export interface VehicleReporter {
    */
   setLocationReportingInterval(intervalSeconds: number): Promise<void>;
 
+  /**
+   * Applies every field set in `config` in a single native call and resolves to the resulting
+   * configuration. Prefer this over separate setter calls when changing several fields at once,
+   * e.g. when a shift starts, so no other call can observe a half-applied configuration.
+   */
+  applyReporterConfig(config: ReporterConfig): Promise<EffectiveReporterConfig>;
+
   /**
    * Sets a callback for successful vehicle updates.
    *
@@ -108,6 +270,36 @@ export interface VehicleReporter {
   ): void;
 }
 
+/** Reporter fields to change. Unset fields are left as they are. */
+export interface ReporterConfig {
+  trackingEnabled?: boolean;
+  intervalSeconds?: number;
+}
+
+/** Reporter configuration in effect. */
+export interface EffectiveReporterConfig {
+  trackingEnabled: boolean;
+  /** Location reporting interval, including any raise caused by memory pressure. */
+  intervalSeconds: number;
+}
+
+/**
+ * Effective driver state, kept in memory by the native module so it can be read synchronously,
+ * e.g. while rendering.
+ */
+export interface DriverState {
+  /** Whether a driver instance exists. */
+  initialized: boolean;
+  trackingEnabled: boolean;
+  /** Location reporting interval, including any raise caused by memory pressure. */
+  intervalSeconds: number;
+  /**
+   * Incremented on every change, so a reader can tell whether anything changed by comparing
+   * revisions. Always 0 on iOS.
+   */
+  revision: number;
+}
+
 export interface VehicleUpdate {
   location: Location;
   destinationWaypoint?: Waypoint;